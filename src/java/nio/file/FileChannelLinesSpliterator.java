@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.nio.file;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A spliterator over the lines of a file read through a {@link FileChannel}.
+ *
+ * <p>Unlike the spliterator of {@link BufferedReader#lines()}, which can only
+ * split by copying a batch of lines into an array, this spliterator splits
+ * the range of bytes it covers in half, moving the split point to the end of
+ * a nearby line.  Parallel streams of the lines of a large file therefore
+ * get balanced tasks without first reading the file sequentially.
+ *
+ * <p>Finding a split point scans the bytes of the file, which is memory
+ * mapped on the first split, for {@code '\n'} and {@code '\r'}.  This is
+ * only sound for charsets in which those characters are encoded as single
+ * bytes that never occur within the encoding of another character, see
+ * {@link #SUPPORTED_CHARSET_NAMES}.
+ *
+ * <p>Traversal decodes lines with a {@link BufferedReader} over a channel
+ * that reads the covered range at absolute positions, so spliterators over
+ * different ranges of the same file may be traversed concurrently.  The
+ * file channel is closed by the stream's close handler, not by the
+ * spliterator.
+ */
+final class FileChannelLinesSpliterator implements Spliterator<String> {
+
+    /**
+     * Names of the charsets supported by this spliterator.
+     */
+    static final Set<String> SUPPORTED_CHARSET_NAMES;
+    static {
+        SUPPORTED_CHARSET_NAMES = new HashSet<>();
+        SUPPORTED_CHARSET_NAMES.add(StandardCharsets.UTF_8.name());
+        SUPPORTED_CHARSET_NAMES.add(StandardCharsets.ISO_8859_1.name());
+        SUPPORTED_CHARSET_NAMES.add(StandardCharsets.US_ASCII.name());
+    }
+
+    private final FileChannel fc;
+    private final Charset cs;
+    private int index;        // current position in the file, modified on split or read
+    private final int fence;  // one past the last byte of the covered range
+
+    // Mapping of the file, null until the first split; shared by all
+    // spliterators split from the same root
+    private ByteBuffer buffer;
+    // Reader over the covered range, non-null once traversal has started
+    private BufferedReader reader;
+
+    FileChannelLinesSpliterator(FileChannel fc, Charset cs, int index, int fence) {
+        this(fc, cs, index, fence, null);
+    }
+
+    private FileChannelLinesSpliterator(FileChannel fc, Charset cs,
+                                        int index, int fence, ByteBuffer buffer) {
+        this.fc = fc;
+        this.cs = cs;
+        this.index = index;
+        this.fence = fence;
+        this.buffer = buffer;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super String> action) {
+        String line = readLine();
+        if (line != null) {
+            action.accept(line);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super String> action) {
+        String line;
+        while ((line = readLine()) != null) {
+            action.accept(line);
+        }
+    }
+
+    private BufferedReader getBufferedReader() {
+        // A channel over [index, fence) of the file that advances index as
+        // bytes are read, leaving the position of the file channel alone
+        ReadableByteChannel rbc = new ReadableByteChannel() {
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                int remaining = fence - index;
+                if (remaining == 0)
+                    return -1;
+
+                int n;
+                if (remaining < dst.remaining()) {
+                    int limit = dst.limit();
+                    dst.limit(dst.position() + remaining);
+                    n = fc.read(dst, index);
+                    dst.limit(limit);
+                } else {
+                    n = fc.read(dst, index);
+                }
+                if (n == -1) {
+                    // The file was truncated after the stream was created
+                    index = fence;
+                    return -1;
+                }
+                index += n;
+                return n;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return fc.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                fc.close();
+            }
+        };
+        return new BufferedReader(Channels.newReader(rbc, cs.newDecoder(), -1));
+    }
+
+    private String readLine() {
+        if (reader == null) {
+            reader = getBufferedReader();
+            buffer = null;
+        }
+        try {
+            return reader.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ByteBuffer getMappedByteBuffer() {
+        try {
+            return fc.map(FileChannel.MapMode.READ_ONLY, 0, fence);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Spliterator<String> trySplit() {
+        // Cannot split once traversal has started
+        if (reader != null)
+            return null;
+
+        final int lo = index, hi = fence;
+        if (hi - lo < 2)
+            return null;
+
+        ByteBuffer b;
+        if ((b = buffer) == null)
+            b = buffer = getMappedByteBuffer();
+
+        // Look for the end of a line at or after the mid point, then before
+        // it.  The split point is just past the line terminator, keeping a
+        // "\r\n" pair together so that no empty line is introduced.
+        int mid = (lo + hi) >>> 1;
+        int split = -1;
+        for (int i = mid; i < hi; i++) {
+            byte c = b.get(i);
+            if (c == '\n') {
+                split = i + 1;
+                break;
+            } else if (c == '\r') {
+                split = (i + 1 < hi && b.get(i + 1) == '\n') ? i + 2 : i + 1;
+                break;
+            }
+        }
+        if (split < 0) {
+            // A terminator found here cannot be the '\r' of a "\r\n" pair,
+            // since the byte following it was scanned above
+            for (int i = mid - 1; i >= lo; i--) {
+                byte c = b.get(i);
+                if (c == '\n' || c == '\r') {
+                    split = i + 1;
+                    break;
+                }
+            }
+        }
+
+        // The prefix, ending with a line terminator, goes to the new spliterator
+        return (split > lo && split < hi)
+               ? new FileChannelLinesSpliterator(fc, cs, lo, index = split, b)
+               : null;
+    }
+
+    @Override
+    public long estimateSize() {
+        // Use the number of bytes as an estimate.
+        // We could divide by a constant that is the average number of
+        // characters per-line, but that constant will be factored out.
+        return fence - index;
+    }
+
+    @Override
+    public long getExactSizeIfKnown() {
+        return -1;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.NONNULL;
+    }
+}
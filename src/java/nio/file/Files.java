@@ -3720,6 +3720,16 @@ public final class Files {
      * {@link Stream#close close} method is invoked after the stream operations
      * are completed.
      *
+     * @implNote
+     * For files on the default file system decoded with the {@link
+     * StandardCharsets#UTF_8 UTF-8}, {@link StandardCharsets#US_ASCII
+     * US-ASCII} or {@link StandardCharsets#ISO_8859_1 ISO-8859-1} charsets,
+     * the stream is backed by a {@link FileChannel} and splits into ranges of
+     * bytes that end at a line terminator, giving good parallel performance.
+     * In these charsets a line feed or carriage return is a single byte that
+     * cannot be part of another character's encoding, so the end of a line
+     * can be found at any position in the file.  Lines are read up to the size
+     * the file had when this method was invoked.
      *
      * @param   path
      *          the path to the file
@@ -3741,7 +3751,50 @@ public final class Files {
      * @since   1.8
      */
     public static Stream<String> lines(Path path, Charset cs) throws IOException {
-        BufferedReader br = Files.newBufferedReader(path, cs);
+        // Use the line-splitting spliterator if the path is associated with
+        // the default file system, the charset is supported, and every byte
+        // of the file can be indexed by an int (a limit imposed by ByteBuffer)
+        if (path.getFileSystem() == FileSystems.getDefault() &&
+            FileChannelLinesSpliterator.SUPPORTED_CHARSET_NAMES.contains(cs.name())) {
+            FileChannel fc = FileChannel.open(path, StandardOpenOption.READ);
+
+            Stream<String> lines = createFileChannelLinesStream(fc, cs);
+            if (lines != null) {
+                return lines;
+            }
+            fc.close();
+        }
+
+        return createBufferedReaderLinesStream(Files.newBufferedReader(path, cs));
+    }
+
+    private static Stream<String> createFileChannelLinesStream(FileChannel fc, Charset cs)
+            throws IOException {
+        try {
+            // Obtaining the size from the FileChannel is much faster
+            // than obtaining it from path.toFile().length().  The size may
+            // be reported as zero for a file that is not empty (such as one
+            // backed by procfs), so such files are read by the reader instead
+            long length = fc.size();
+            if (length > 0 && length <= Integer.MAX_VALUE) {
+                Spliterator<String> s = new FileChannelLinesSpliterator(fc, cs, 0, (int) length);
+                return StreamSupport.stream(s, false)
+                        .onClose(Files.asUncheckedRunnable(fc));
+            }
+        } catch (Error|RuntimeException|IOException e) {
+            try {
+                fc.close();
+            } catch (IOException ex) {
+                try {
+                    e.addSuppressed(ex);
+                } catch (Throwable ignore) {}
+            }
+            throw e;
+        }
+        return null;
+    }
+
+    private static Stream<String> createBufferedReaderLinesStream(BufferedReader br) {
         try {
             return br.lines().onClose(asUncheckedRunnable(br));
         } catch (Error|RuntimeException e) {
@@ -963,6 +963,682 @@ public class Arrays {
                  MIN_ARRAY_SORT_GRAN : g).invoke();
     }
 
+    /**
+     * Sorts the specified array into ascending numerical order, using a
+     * radix sort.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix
+     * sort that orders the elements one byte at a time, skipping bytes in
+     * which all elements agree. It takes time linear in the length of the
+     * array, and requires a working space the size of the original array.
+     * It is typically faster than {@link Arrays#sort(int[]) Arrays.sort}
+     * for large arrays whose elements are spread over a wide range.
+     *
+     * @param a the array to be sorted
+     *
+     * @since 1.8
+     */
+    public static void radixSort(int[] a) {
+        RadixSort.sort(a, 0, a.length - 1, null, 0, 0);
+    }
+
+    /**
+     * Sorts the specified range of the array into ascending numerical
+     * order, using a radix sort. The range to be sorted extends from the
+     * index {@code fromIndex}, inclusive, to the index {@code toIndex},
+     * exclusive. If {@code fromIndex == toIndex}, the range to be sorted
+     * is empty.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix
+     * sort, as described for {@link #radixSort(int[])}. It requires a
+     * working space the size of the specified range of the original array.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0} or {@code toIndex > a.length}
+     *
+     * @since 1.8
+     */
+    public static void radixSort(int[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        RadixSort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+    }
+
+    /**
+     * Sorts the specified array into ascending numerical order, using a
+     * parallel radix sort.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix
+     * sort, as described for {@link #radixSort(int[])}, in which the
+     * array is split into one chunk per thread, and the elements of each
+     * chunk are counted and moved in parallel for each byte. If the length
+     * of the specified array is less than the minimum granularity, then it
+     * is sorted using the sequential {@link #radixSort(int[]) radixSort}
+     * method. The algorithm requires a working space the size of the
+     * original array. The {@link ForkJoinPool#commonPool() ForkJoin common
+     * pool} is used to execute any parallel tasks.
+     *
+     * @param a the array to be sorted
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(int[] a) {
+        int n = a.length;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            ForkJoinPool.getCommonPoolParallelism() == 1)
+            RadixSort.sort(a, 0, n - 1, null, 0, 0);
+        else
+            RadixSort.parallelSort(a, 0, n - 1);
+    }
+
+    /**
+     * Sorts the specified range of the array into ascending numerical
+     * order, using a parallel radix sort. The range to be sorted extends
+     * from the index {@code fromIndex}, inclusive, to the index
+     * {@code toIndex}, exclusive. If {@code fromIndex == toIndex}, the
+     * range to be sorted is empty.
+     *
+     * @implNote The sorting algorithm is a parallel least-significant-digit
+     * radix sort, as described for {@link #parallelRadixSort(int[])}. The
+     * algorithm requires a working space the size of the specified range of
+     * the original array. The {@link ForkJoinPool#commonPool() ForkJoin
+     * common pool} is used to execute any parallel tasks.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0} or {@code toIndex > a.length}
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(int[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            ForkJoinPool.getCommonPoolParallelism() == 1)
+            RadixSort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        else
+            RadixSort.parallelSort(a, fromIndex, toIndex - 1);
+    }
+
+    /**
+     * Sorts the specified array into ascending numerical order, using a
+     * radix sort.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix
+     * sort that orders the elements one byte at a time, skipping bytes in
+     * which all elements agree. It takes time linear in the length of the
+     * array, and requires a working space the size of the original array.
+     * It is typically faster than {@link Arrays#sort(long[]) Arrays.sort}
+     * for large arrays whose elements are spread over a wide range.
+     *
+     * @param a the array to be sorted
+     *
+     * @since 1.8
+     */
+    public static void radixSort(long[] a) {
+        RadixSort.sort(a, 0, a.length - 1, null, 0, 0);
+    }
+
+    /**
+     * Sorts the specified range of the array into ascending numerical
+     * order, using a radix sort. The range to be sorted extends from the
+     * index {@code fromIndex}, inclusive, to the index {@code toIndex},
+     * exclusive. If {@code fromIndex == toIndex}, the range to be sorted
+     * is empty.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix
+     * sort, as described for {@link #radixSort(long[])}. It requires a
+     * working space the size of the specified range of the original array.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0} or {@code toIndex > a.length}
+     *
+     * @since 1.8
+     */
+    public static void radixSort(long[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        RadixSort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+    }
+
+    /**
+     * Sorts the specified array into ascending numerical order, using a
+     * parallel radix sort.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix
+     * sort, as described for {@link #radixSort(long[])}, in which the
+     * array is split into one chunk per thread, and the elements of each
+     * chunk are counted and moved in parallel for each byte. If the length
+     * of the specified array is less than the minimum granularity, then it
+     * is sorted using the sequential {@link #radixSort(long[]) radixSort}
+     * method. The algorithm requires a working space the size of the
+     * original array. The {@link ForkJoinPool#commonPool() ForkJoin common
+     * pool} is used to execute any parallel tasks.
+     *
+     * @param a the array to be sorted
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(long[] a) {
+        int n = a.length;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            ForkJoinPool.getCommonPoolParallelism() == 1)
+            RadixSort.sort(a, 0, n - 1, null, 0, 0);
+        else
+            RadixSort.parallelSort(a, 0, n - 1);
+    }
+
+    /**
+     * Sorts the specified range of the array into ascending numerical
+     * order, using a parallel radix sort. The range to be sorted extends
+     * from the index {@code fromIndex}, inclusive, to the index
+     * {@code toIndex}, exclusive. If {@code fromIndex == toIndex}, the
+     * range to be sorted is empty.
+     *
+     * @implNote The sorting algorithm is a parallel least-significant-digit
+     * radix sort, as described for {@link #parallelRadixSort(long[])}. The
+     * algorithm requires a working space the size of the specified range of
+     * the original array. The {@link ForkJoinPool#commonPool() ForkJoin
+     * common pool} is used to execute any parallel tasks.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0} or {@code toIndex > a.length}
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(long[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            ForkJoinPool.getCommonPoolParallelism() == 1)
+            RadixSort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        else
+            RadixSort.parallelSort(a, fromIndex, toIndex - 1);
+    }
+
+    /**
+     * Sorts the specified array into ascending numerical order, using a
+     * radix sort.
+     *
+     * <p>The {@code <} relation does not provide a total order on all float
+     * values. This method uses the total order imposed by the method
+     * {@link Float#compareTo}: {@code -0.0f} is treated as less than value
+     * {@code 0.0f} and {@code Float.NaN} is considered greater than any
+     * other value and all {@code Float.NaN} values are considered equal.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix
+     * sort that orders the elements one byte at a time, skipping bytes in
+     * which all elements agree. It takes time linear in the length of the
+     * array, and requires a working space the size of the original array.
+     * It is typically faster than {@link Arrays#sort(float[]) Arrays.sort}
+     * for large arrays whose elements are spread over a wide range.
+     *
+     * @param a the array to be sorted
+     *
+     * @since 1.8
+     */
+    public static void radixSort(float[] a) {
+        RadixSort.sort(a, 0, a.length - 1, null, 0, 0);
+    }
+
+    /**
+     * Sorts the specified range of the array into ascending numerical
+     * order, using a radix sort. The range to be sorted extends from the
+     * index {@code fromIndex}, inclusive, to the index {@code toIndex},
+     * exclusive. If {@code fromIndex == toIndex}, the range to be sorted
+     * is empty.
+     *
+     * <p>The {@code <} relation does not provide a total order on all float
+     * values. This method uses the total order imposed by the method
+     * {@link Float#compareTo}: {@code -0.0f} is treated as less than value
+     * {@code 0.0f} and {@code Float.NaN} is considered greater than any
+     * other value and all {@code Float.NaN} values are considered equal.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix
+     * sort, as described for {@link #radixSort(float[])}. It requires a
+     * working space the size of the specified range of the original array.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0} or {@code toIndex > a.length}
+     *
+     * @since 1.8
+     */
+    public static void radixSort(float[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        RadixSort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+    }
+
+    /**
+     * Sorts the specified array into ascending numerical order, using a
+     * parallel radix sort.
+     *
+     * <p>The {@code <} relation does not provide a total order on all float
+     * values. This method uses the total order imposed by the method
+     * {@link Float#compareTo}: {@code -0.0f} is treated as less than value
+     * {@code 0.0f} and {@code Float.NaN} is considered greater than any
+     * other value and all {@code Float.NaN} values are considered equal.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix
+     * sort, as described for {@link #radixSort(float[])}, in which the
+     * array is split into one chunk per thread, and the elements of each
+     * chunk are counted and moved in parallel for each byte. If the length
+     * of the specified array is less than the minimum granularity, then it
+     * is sorted using the sequential {@link #radixSort(float[]) radixSort}
+     * method. The algorithm requires a working space the size of the
+     * original array. The {@link ForkJoinPool#commonPool() ForkJoin common
+     * pool} is used to execute any parallel tasks.
+     *
+     * @param a the array to be sorted
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(float[] a) {
+        int n = a.length;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            ForkJoinPool.getCommonPoolParallelism() == 1)
+            RadixSort.sort(a, 0, n - 1, null, 0, 0);
+        else
+            RadixSort.parallelSort(a, 0, n - 1);
+    }
+
+    /**
+     * Sorts the specified range of the array into ascending numerical
+     * order, using a parallel radix sort. The range to be sorted extends
+     * from the index {@code fromIndex}, inclusive, to the index
+     * {@code toIndex}, exclusive. If {@code fromIndex == toIndex}, the
+     * range to be sorted is empty.
+     *
+     * <p>The {@code <} relation does not provide a total order on all float
+     * values. This method uses the total order imposed by the method
+     * {@link Float#compareTo}: {@code -0.0f} is treated as less than value
+     * {@code 0.0f} and {@code Float.NaN} is considered greater than any
+     * other value and all {@code Float.NaN} values are considered equal.
+     *
+     * @implNote The sorting algorithm is a parallel least-significant-digit
+     * radix sort, as described for {@link #parallelRadixSort(float[])}. The
+     * algorithm requires a working space the size of the specified range of
+     * the original array. The {@link ForkJoinPool#commonPool() ForkJoin
+     * common pool} is used to execute any parallel tasks.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0} or {@code toIndex > a.length}
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(float[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            ForkJoinPool.getCommonPoolParallelism() == 1)
+            RadixSort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        else
+            RadixSort.parallelSort(a, fromIndex, toIndex - 1);
+    }
+
+    /**
+     * Sorts the specified array into ascending numerical order, using a
+     * radix sort.
+     *
+     * <p>The {@code <} relation does not provide a total order on all double
+     * values. This method uses the total order imposed by the method
+     * {@link Double#compareTo}: {@code -0.0d} is treated as less than value
+     * {@code 0.0d} and {@code Double.NaN} is considered greater than any
+     * other value and all {@code Double.NaN} values are considered equal.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix
+     * sort that orders the elements one byte at a time, skipping bytes in
+     * which all elements agree. It takes time linear in the length of the
+     * array, and requires a working space the size of the original array.
+     * It is typically faster than {@link Arrays#sort(double[]) Arrays.sort}
+     * for large arrays whose elements are spread over a wide range.
+     *
+     * @param a the array to be sorted
+     *
+     * @since 1.8
+     */
+    public static void radixSort(double[] a) {
+        RadixSort.sort(a, 0, a.length - 1, null, 0, 0);
+    }
+
+    /**
+     * Sorts the specified range of the array into ascending numerical
+     * order, using a radix sort. The range to be sorted extends from the
+     * index {@code fromIndex}, inclusive, to the index {@code toIndex},
+     * exclusive. If {@code fromIndex == toIndex}, the range to be sorted
+     * is empty.
+     *
+     * <p>The {@code <} relation does not provide a total order on all double
+     * values. This method uses the total order imposed by the method
+     * {@link Double#compareTo}: {@code -0.0d} is treated as less than value
+     * {@code 0.0d} and {@code Double.NaN} is considered greater than any
+     * other value and all {@code Double.NaN} values are considered equal.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix
+     * sort, as described for {@link #radixSort(double[])}. It requires a
+     * working space the size of the specified range of the original array.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0} or {@code toIndex > a.length}
+     *
+     * @since 1.8
+     */
+    public static void radixSort(double[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        RadixSort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+    }
+
+    /**
+     * Sorts the specified array into ascending numerical order, using a
+     * parallel radix sort.
+     *
+     * <p>The {@code <} relation does not provide a total order on all double
+     * values. This method uses the total order imposed by the method
+     * {@link Double#compareTo}: {@code -0.0d} is treated as less than value
+     * {@code 0.0d} and {@code Double.NaN} is considered greater than any
+     * other value and all {@code Double.NaN} values are considered equal.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix
+     * sort, as described for {@link #radixSort(double[])}, in which the
+     * array is split into one chunk per thread, and the elements of each
+     * chunk are counted and moved in parallel for each byte. If the length
+     * of the specified array is less than the minimum granularity, then it
+     * is sorted using the sequential {@link #radixSort(double[]) radixSort}
+     * method. The algorithm requires a working space the size of the
+     * original array. The {@link ForkJoinPool#commonPool() ForkJoin common
+     * pool} is used to execute any parallel tasks.
+     *
+     * @param a the array to be sorted
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(double[] a) {
+        int n = a.length;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            ForkJoinPool.getCommonPoolParallelism() == 1)
+            RadixSort.sort(a, 0, n - 1, null, 0, 0);
+        else
+            RadixSort.parallelSort(a, 0, n - 1);
+    }
+
+    /**
+     * Sorts the specified range of the array into ascending numerical
+     * order, using a parallel radix sort. The range to be sorted extends
+     * from the index {@code fromIndex}, inclusive, to the index
+     * {@code toIndex}, exclusive. If {@code fromIndex == toIndex}, the
+     * range to be sorted is empty.
+     *
+     * <p>The {@code <} relation does not provide a total order on all double
+     * values. This method uses the total order imposed by the method
+     * {@link Double#compareTo}: {@code -0.0d} is treated as less than value
+     * {@code 0.0d} and {@code Double.NaN} is considered greater than any
+     * other value and all {@code Double.NaN} values are considered equal.
+     *
+     * @implNote The sorting algorithm is a parallel least-significant-digit
+     * radix sort, as described for {@link #parallelRadixSort(double[])}. The
+     * algorithm requires a working space the size of the specified range of
+     * the original array. The {@link ForkJoinPool#commonPool() ForkJoin
+     * common pool} is used to execute any parallel tasks.
+     *
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0} or {@code toIndex > a.length}
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(double[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        int n = toIndex - fromIndex;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            ForkJoinPool.getCommonPoolParallelism() == 1)
+            RadixSort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        else
+            RadixSort.parallelSort(a, fromIndex, toIndex - 1);
+    }
+
+    /**
+     * Returns the indexes of the elements of the specified array in
+     * ascending numerical order of the elements, leaving the array
+     * unchanged. That is, element {@code i} of the returned array is the
+     * index in {@code a} of the element that {@link #sort(int[])
+     * sorting} would place at index {@code i}. Indexes of equal elements
+     * are returned in ascending order.
+     *
+     * @implNote The indexes are sorted by a least-significant-digit radix
+     * sort, as described for {@link #radixSort(int[])}, using the elements
+     * they refer to as keys.
+     *
+     * @param a the array whose elements are to be ordered
+     * @return the indexes of the elements of {@code a}, in ascending
+     *         order of the elements
+     *
+     * @since 1.8
+     */
+    public static int[] argsort(int[] a) {
+        return RadixSort.argsort(a);
+    }
+
+    /**
+     * Returns the indexes of the elements of the specified array in
+     * ascending numerical order of the elements, leaving the array
+     * unchanged. That is, element {@code i} of the returned array is the
+     * index in {@code a} of the element that {@link #sort(long[])
+     * sorting} would place at index {@code i}. Indexes of equal elements
+     * are returned in ascending order.
+     *
+     * @implNote The indexes are sorted by a least-significant-digit radix
+     * sort, as described for {@link #radixSort(long[])}, using the elements
+     * they refer to as keys.
+     *
+     * @param a the array whose elements are to be ordered
+     * @return the indexes of the elements of {@code a}, in ascending
+     *         order of the elements
+     *
+     * @since 1.8
+     */
+    public static int[] argsort(long[] a) {
+        return RadixSort.argsort(a);
+    }
+
+    /**
+     * Returns the indexes of the elements of the specified array in
+     * ascending numerical order of the elements, leaving the array
+     * unchanged. That is, element {@code i} of the returned array is the
+     * index in {@code a} of the element that {@link #sort(float[])
+     * sorting} would place at index {@code i}. Indexes of equal elements
+     * are returned in ascending order.
+     *
+     * <p>The {@code <} relation does not provide a total order on all float
+     * values. This method uses the total order imposed by the method
+     * {@link Float#compareTo}: {@code -0.0f} is treated as less than value
+     * {@code 0.0f} and {@code Float.NaN} is considered greater than any
+     * other value and all {@code Float.NaN} values are considered equal.
+     *
+     * @implNote The indexes are sorted by a least-significant-digit radix
+     * sort, as described for {@link #radixSort(float[])}, using the elements
+     * they refer to as keys.
+     *
+     * @param a the array whose elements are to be ordered
+     * @return the indexes of the elements of {@code a}, in ascending
+     *         order of the elements
+     *
+     * @since 1.8
+     */
+    public static int[] argsort(float[] a) {
+        return RadixSort.argsort(a);
+    }
+
+    /**
+     * Returns the indexes of the elements of the specified array in
+     * ascending numerical order of the elements, leaving the array
+     * unchanged. That is, element {@code i} of the returned array is the
+     * index in {@code a} of the element that {@link #sort(double[])
+     * sorting} would place at index {@code i}. Indexes of equal elements
+     * are returned in ascending order.
+     *
+     * <p>The {@code <} relation does not provide a total order on all double
+     * values. This method uses the total order imposed by the method
+     * {@link Double#compareTo}: {@code -0.0d} is treated as less than value
+     * {@code 0.0d} and {@code Double.NaN} is considered greater than any
+     * other value and all {@code Double.NaN} values are considered equal.
+     *
+     * @implNote The indexes are sorted by a least-significant-digit radix
+     * sort, as described for {@link #radixSort(double[])}, using the elements
+     * they refer to as keys.
+     *
+     * @param a the array whose elements are to be ordered
+     * @return the indexes of the elements of {@code a}, in ascending
+     *         order of the elements
+     *
+     * @since 1.8
+     */
+    public static int[] argsort(double[] a) {
+        return RadixSort.argsort(a);
+    }
+
+    /**
+     * Sorts the specified array of keys into ascending numerical order,
+     * and reorders the specified array of values the same way, so that
+     * each value remains at the same index as its key. This sort is
+     * <i>stable</i>: the values of equal keys keep their relative order.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix
+     * sort, as described for {@link #radixSort(int[])}, in which each
+     * value is moved along with its key. It requires a working space the
+     * size of both arrays.
+     *
+     * @param keys the array to be sorted
+     * @param values the array to be reordered along with {@code keys}
+     *
+     * @throws IllegalArgumentException if the arrays have different lengths
+     *
+     * @since 1.8
+     */
+    public static void radixSort(int[] keys, int[] values) {
+        if (keys.length != values.length)
+            throw new IllegalArgumentException(
+                "keys.length(" + keys.length + ") != values.length(" +
+                values.length + ")");
+        RadixSort.sort(keys, values, false);
+    }
+
+    /**
+     * Sorts the specified array of keys into ascending numerical order,
+     * and reorders the specified array of values the same way, using a
+     * parallel radix sort. Each value remains at the same index as its
+     * key, and the values of equal keys keep their relative order.
+     *
+     * @implNote The sorting algorithm is a parallel least-significant-digit
+     * radix sort, as described for {@link #parallelRadixSort(int[])}, in
+     * which each value is moved along with its key. It requires a working
+     * space the size of both arrays. The {@link ForkJoinPool#commonPool()
+     * ForkJoin common pool} is used to execute any parallel tasks.
+     *
+     * @param keys the array to be sorted
+     * @param values the array to be reordered along with {@code keys}
+     *
+     * @throws IllegalArgumentException if the arrays have different lengths
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(int[] keys, int[] values) {
+        if (keys.length != values.length)
+            throw new IllegalArgumentException(
+                "keys.length(" + keys.length + ") != values.length(" +
+                values.length + ")");
+        RadixSort.sort(keys, values, keys.length > MIN_ARRAY_SORT_GRAN &&
+                       ForkJoinPool.getCommonPoolParallelism() > 1);
+    }
+
+    /**
+     * Sorts the specified array of keys into ascending numerical order,
+     * and reorders the specified array of values the same way, so that
+     * each value remains at the same index as its key. This sort is
+     * <i>stable</i>: the values of equal keys keep their relative order.
+     *
+     * @implNote The sorting algorithm is a least-significant-digit radix
+     * sort, as described for {@link #radixSort(long[])}, in which each
+     * value is moved along with its key. It requires a working space the
+     * size of both arrays.
+     *
+     * @param keys the array to be sorted
+     * @param values the array to be reordered along with {@code keys}
+     *
+     * @throws IllegalArgumentException if the arrays have different lengths
+     *
+     * @since 1.8
+     */
+    public static void radixSort(long[] keys, long[] values) {
+        if (keys.length != values.length)
+            throw new IllegalArgumentException(
+                "keys.length(" + keys.length + ") != values.length(" +
+                values.length + ")");
+        RadixSort.sort(keys, values, false);
+    }
+
+    /**
+     * Sorts the specified array of keys into ascending numerical order,
+     * and reorders the specified array of values the same way, using a
+     * parallel radix sort. Each value remains at the same index as its
+     * key, and the values of equal keys keep their relative order.
+     *
+     * @implNote The sorting algorithm is a parallel least-significant-digit
+     * radix sort, as described for {@link #parallelRadixSort(long[])}, in
+     * which each value is moved along with its key. It requires a working
+     * space the size of both arrays. The {@link ForkJoinPool#commonPool()
+     * ForkJoin common pool} is used to execute any parallel tasks.
+     *
+     * @param keys the array to be sorted
+     * @param values the array to be reordered along with {@code keys}
+     *
+     * @throws IllegalArgumentException if the arrays have different lengths
+     *
+     * @since 1.8
+     */
+    public static void parallelRadixSort(long[] keys, long[] values) {
+        if (keys.length != values.length)
+            throw new IllegalArgumentException(
+                "keys.length(" + keys.length + ") != values.length(" +
+                values.length + ")");
+        RadixSort.sort(keys, values, keys.length > MIN_ARRAY_SORT_GRAN &&
+                       ForkJoinPool.getCommonPoolParallelism() > 1);
+    }
+
     /**
      * Sorts the specified array of objects into ascending order, according
      * to the {@linkplain Comparable natural ordering} of its elements.
@@ -1513,6 +2189,53 @@ public class Arrays {
         }
     }
 
+    /**
+     * Sorts the specified range of the specified array of objects as
+     * {@link #sort(Object[], int, int, Comparator)} does, using the
+     * specified array for temporary storage when it is large enough.
+     * Reusing one work array across calls avoids allocating temporary
+     * storage for each sort, which matters when many small arrays are
+     * sorted.
+     *
+     * <p>The sort requires temporary storage for at most half as many
+     * references as there are elements in the range, and often far fewer.
+     * If {@code work} is too short for a sort, other storage is allocated
+     * as needed.  On return, the contents of {@code work} are unspecified;
+     * it may retain references to elements of {@code a} until it is
+     * cleared or reused.
+     *
+     * @param <T> the class of the objects to be sorted
+     * @param a the array to be sorted
+     * @param fromIndex the index of the first element (inclusive) to be
+     *        sorted
+     * @param toIndex the index of the last element (exclusive) to be sorted
+     * @param c the comparator to determine the order of the array.  A
+     *        {@code null} value indicates that the elements'
+     *        {@linkplain Comparable natural ordering} should be used.
+     * @param work the array to use for temporary storage
+     * @throws ClassCastException if the array contains elements that are not
+     *         <i>mutually comparable</i> using the specified comparator.
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex} or
+     *         (optional) if the comparator is found to violate the
+     *         {@link Comparator} contract
+     * @throws ArrayIndexOutOfBoundsException if {@code fromIndex < 0} or
+     *         {@code toIndex > a.length}
+     * @throws NullPointerException if {@code work} is null
+     * @since 1.8
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> void sort(T[] a, int fromIndex, int toIndex,
+                                Comparator<? super T> c, Object[] work) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        int workLen = work.length;
+        if (LegacyMergeSort.userRequested)
+            legacyMergeSort(a, fromIndex, toIndex, c);
+        else if (c == null)
+            ComparableTimSort.sort(a, fromIndex, toIndex, work, 0, workLen);
+        else
+            TimSort.sort(a, fromIndex, toIndex, c, (T[])work, 0, workLen);
+    }
+
     /** To be removed in a future release. */
     private static <T> void legacyMergeSort(T[] a, int fromIndex, int toIndex,
                                             Comparator<? super T> c) {
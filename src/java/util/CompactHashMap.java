@@ -0,0 +1,876 @@
+/*
+ * Copyright (c) 1997, 2017, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * <p>Hash table implementation of the <tt>Map</tt> interface that keeps
+ * its mappings in a dense array in insertion order, with a separate
+ * open-addressed table of {@code int} indexes into that array.  Like
+ * {@link LinkedHashMap} in its default mode, this implementation
+ * iterates in <i>insertion-order</i>, which is not affected if a key
+ * is re-inserted into the map, and permits <tt>null</tt> keys and
+ * values.  Unlike {@code LinkedHashMap} and {@link HashMap}, it
+ * allocates no object per mapping: each mapping occupies two slots of
+ * an {@code Object[]}, a cached hash code, and on average one and a
+ * half slots of the index table, which is typically less than half
+ * the footprint of a {@code LinkedHashMap}.  Iteration is a scan of
+ * contiguous arrays rather than a traversal of linked entries.
+ *
+ * <p>This implementation provides constant-time performance for the
+ * basic operations (<tt>add</tt>, <tt>contains</tt> and
+ * <tt>remove</tt>), assuming the hash function disperses elements
+ * properly.  Removal leaves a hole in the array of mappings, which is
+ * reclaimed when the arrays are next reallocated, so iteration takes
+ * time proportional to the number of mappings plus the number of
+ * removals since then.  Unlike {@code HashMap}, this class has no
+ * load factor parameter: the index table is kept at most two thirds
+ * full, and does not fall back to trees when many keys collide.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * If multiple threads access a compact hash map concurrently, and at
+ * least one of the threads modifies the map structurally, it
+ * <em>must</em> be synchronized externally.  If no such object exists,
+ * the map should be "wrapped" using the
+ * {@link Collections#synchronizedMap Collections.synchronizedMap}
+ * method.
+ *
+ * <p>The iterators returned by the <tt>iterator</tt> method of the
+ * collections returned by all of this class's collection view methods
+ * are <em>fail-fast</em>: if the map is structurally modified at any
+ * time after the iterator is created, in any way except through the
+ * iterator's own <tt>remove</tt> method, the iterator will throw a
+ * {@link ConcurrentModificationException}.  Fail-fast iterators throw
+ * <tt>ConcurrentModificationException</tt> on a best-effort basis.
+ * Therefore, it would be wrong to write a program that depended on
+ * this exception for its correctness: <i>the fail-fast behavior of
+ * iterators should be used only to detect bugs.</i>
+ *
+ * <p>This class is a member of the
+ * <a href="{@docRoot}/../technotes/guides/collections/index.html">
+ * Java Collections Framework</a>.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ *
+ * @see     LinkedHashMap
+ * @see     HashMap
+ * @since   1.8
+ */
+public class CompactHashMap<K,V> extends AbstractMap<K,V>
+    implements Map<K,V>, Cloneable, Serializable {
+
+    private static final long serialVersionUID = -1532874306541387522L;
+
+    /*
+     * Implementation notes.
+     *
+     * This is the layout of CPython's dictionaries.  Mapping number e
+     * (in insertion order) has its key in table[2e], its value in
+     * table[2e+1], and its spread hash in hashes[e].  The first
+     * "used" mappings have been allocated, some of which may since
+     * have been removed, in which case their key is REMOVED.  The
+     * index table, whose length is a power of two, is probed
+     * linearly from a mix of the hash; each slot holds EMPTY, e + 1
+     * for mapping e, or DELETED for a removed mapping, so that probe
+     * sequences passing through it continue.
+     *
+     * New mappings are always appended.  When the arrays of mappings
+     * are full, all arrays are reallocated with room for twice the
+     * number of live mappings, compacting out removed ones and
+     * rebuilding the index table without DELETED slots.  As the
+     * index table has half as many slots again as there are
+     * mappings, it is never more than two thirds full, counting
+     * DELETED slots, so probing always ends at an EMPTY slot.
+     *
+     * Comparing cached hashes before keys avoids most calls to
+     * equals, and lets reallocation proceed without calling
+     * hashCode.
+     */
+
+    /** The minimum, and default, length of the index table */
+    static final int MIN_INDEX_LENGTH = 8;
+
+    /** The maximum length of the index table */
+    static final int MAXIMUM_INDEX_LENGTH = 1 << 30;
+
+    /** Index slot values other than mapping numbers plus one */
+    static final int EMPTY = 0, DELETED = -1;
+
+    /** The key of removed mappings */
+    static final Object REMOVED = new Object();
+
+    /** The index table, allocated on first insertion */
+    transient int[] index;
+
+    /** Spread hashes of the mappings */
+    transient int[] hashes;
+
+    /** Keys and values of the mappings, alternately */
+    transient Object[] table;
+
+    /** The number of mappings allocated, including removed ones */
+    transient int used;
+
+    /** The number of key-value mappings in this map */
+    transient int size;
+
+    /** The number of structural modifications, for fail-fast iterators */
+    transient int modCount;
+
+    /** The number of mappings to allocate room for on first insertion */
+    transient int initialCapacity;
+
+    /** Holds cached entrySet() */
+    transient Set<Map.Entry<K,V>> entrySet;
+
+    /* ---------------- Static utilities -------------- */
+
+    /** As in HashMap, spreads the higher bits of the hash downward */
+    static final int hash(Object key) {
+        int h;
+        return (key == null) ? 0 : (h = key.hashCode()) ^ (h >>> 16);
+    }
+
+    /** Returns the index slot at which to start probing for hash h */
+    static int slot(int h, int mask) {
+        int x = h * 0x9E3779B9;
+        return (x ^ (x >>> 16)) & mask;
+    }
+
+    /** Returns the number of mappings an index of length n allows */
+    static int capacityFor(int n) {
+        return (int)((n * 2L) / 3);
+    }
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Constructs an empty <tt>CompactHashMap</tt> with room for the
+     * specified number of mappings.
+     *
+     * @param  initialCapacity the number of mappings the map can hold
+     *         without reallocation
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public CompactHashMap(int initialCapacity) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        this.initialCapacity = initialCapacity;
+    }
+
+    /**
+     * Constructs an empty <tt>CompactHashMap</tt> with the default
+     * initial capacity (5).
+     */
+    public CompactHashMap() {
+    }
+
+    /**
+     * Constructs a new <tt>CompactHashMap</tt> with the same mappings
+     * as the specified <tt>Map</tt>, in the iteration order of the
+     * specified map.
+     *
+     * @param   m the map whose mappings are to be placed in this map
+     * @throws  NullPointerException if the specified map is null
+     */
+    public CompactHashMap(Map<? extends K, ? extends V> m) {
+        this.initialCapacity = m.size();
+        putAll(m);
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains no key-value mappings.
+     *
+     * @return <tt>true</tt> if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the index slot holding the mapping for the key, or -1
+     * if there is none.
+     */
+    final int slotOf(Object key, int h) {
+        int[] idx;
+        if ((idx = index) != null) {
+            int[] hs = hashes;
+            Object[] tab = table;
+            int m = idx.length - 1;
+            for (int i = slot(h, m), s; (s = idx[i]) != EMPTY;
+                 i = (i + 1) & m) {
+                Object k;
+                if (s > 0 && hs[--s] == h &&
+                    ((k = tab[s << 1]) == key ||
+                     (key != null && key.equals(k))))
+                    return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of the mapping for the key, or -1 if there
+     * is none.
+     */
+    final int entryOf(Object key) {
+        int i = slotOf(key, hash(key));
+        return (i < 0) ? -1 : index[i] - 1;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     *
+     * <p>A return value of {@code null} does not <i>necessarily</i>
+     * indicate that the map contains no mapping for the key; it's also
+     * possible that the map explicitly maps the key to {@code null}.
+     * The {@link #containsKey containsKey} operation may be used to
+     * distinguish these two cases.
+     *
+     * @see #put(Object, Object)
+     */
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int e;
+        return ((e = entryOf(key)) < 0) ? null : (V)table[(e << 1) + 1];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(Object key, V defaultValue) {
+        int e;
+        return ((e = entryOf(key)) < 0) ? defaultValue :
+            (V)table[(e << 1) + 1];
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains a mapping for the
+     * specified key.
+     *
+     * @param   key   The key whose presence in this map is to be tested
+     * @return <tt>true</tt> if this map contains a mapping for the specified
+     * key.
+     */
+    public boolean containsKey(Object key) {
+        return entryOf(key) >= 0;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map maps one or more keys to the
+     * specified value.
+     *
+     * @param value value whose presence in this map is to be tested
+     * @return <tt>true</tt> if this map maps one or more keys to the
+     *         specified value
+     */
+    public boolean containsValue(Object value) {
+        Object[] tab = table;
+        for (int e = 0, u = used; e < u; ++e) {
+            Object v;
+            if (tab[e << 1] != REMOVED &&
+                ((v = tab[(e << 1) + 1]) == value ||
+                 (value != null && value.equals(v))))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key, the old
+     * value is replaced, and the mapping keeps its position in the
+     * iteration order.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with <tt>key</tt>, or
+     *         <tt>null</tt> if there was no mapping for <tt>key</tt>.
+     *         (A <tt>null</tt> return can also indicate that the map
+     *         previously associated <tt>null</tt> with <tt>key</tt>.)
+     */
+    public V put(K key, V value) {
+        return putVal(key, value, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public V putIfAbsent(K key, V value) {
+        return putVal(key, value, true);
+    }
+
+    /** Implementation for put and putIfAbsent */
+    @SuppressWarnings("unchecked")
+    final V putVal(K key, V value, boolean onlyIfAbsent) {
+        int h = hash(key);
+        int i = slotOf(key, h);
+        if (i >= 0) {
+            int j = (index[i] << 1) - 1;
+            Object[] tab = table;
+            V old = (V)tab[j];
+            if (!onlyIfAbsent || old == null)
+                tab[j] = value;
+            return old;
+        }
+        append(key, value, h);
+        return null;
+    }
+
+    /**
+     * Appends a mapping for a key known to be absent, first
+     * reallocating if there is no room.
+     */
+    final void append(Object key, Object value, int h) {
+        int[] hs;
+        if ((hs = hashes) == null || used == hs.length) {
+            resize(size + 1);
+            hs = hashes;
+        }
+        int[] idx = index;
+        int m = idx.length - 1, i = slot(h, m);
+        while (idx[i] > 0)
+            i = (i + 1) & m;
+        int e = used++;
+        idx[i] = e + 1;
+        hs[e] = h;
+        table[e << 1] = key;
+        table[(e << 1) + 1] = value;
+        ++size;
+        ++modCount;
+    }
+
+    /**
+     * Reallocates all arrays with room for at least minCapacity
+     * mappings, and at least twice the current number, and moves
+     * the live mappings to them in order.
+     */
+    final void resize(int minCapacity) {
+        int c = Math.max(Math.max(minCapacity, size << 1), initialCapacity);
+        int n = MIN_INDEX_LENGTH;
+        while (capacityFor(n) < c && n < MAXIMUM_INDEX_LENGTH)
+            n <<= 1;
+        int cap = capacityFor(n);
+        if (cap < minCapacity)
+            throw new IllegalStateException("Map is full");
+        int[] ohs = hashes;
+        Object[] otab = table;
+        int[] idx = new int[n], hs = new int[cap];
+        Object[] tab = new Object[cap << 1];
+        int m = n - 1, j = 0;
+        for (int e = 0, u = used; e < u; ++e) {
+            Object k = otab[e << 1];
+            if (k != REMOVED) {
+                int h = ohs[e], i = slot(h, m);
+                while (idx[i] != EMPTY)
+                    i = (i + 1) & m;
+                hs[j] = h;
+                tab[j << 1] = k;
+                tab[(j << 1) + 1] = otab[(e << 1) + 1];
+                idx[i] = ++j;
+            }
+        }
+        index = idx;
+        hashes = hs;
+        table = tab;
+        used = j;
+        initialCapacity = 0;
+    }
+
+    /**
+     * Removes the mapping at the given index slot.
+     */
+    @SuppressWarnings("unchecked")
+    final V removeAt(int i) {
+        int j = (index[i] - 1) << 1;
+        Object[] tab = table;
+        V old = (V)tab[j + 1];
+        index[i] = DELETED;
+        tab[j] = REMOVED;
+        tab[j + 1] = null;
+        --size;
+        ++modCount;
+        return old;
+    }
+
+    /**
+     * Removes mapping number e, for iterators.
+     */
+    final void removeEntry(int e) {
+        int[] idx = index;
+        int m = idx.length - 1, i = slot(hashes[e], m);
+        while (idx[i] != e + 1)
+            i = (i + 1) & m;
+        removeAt(i);
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param  key key whose mapping is to be removed from the map
+     * @return the previous value associated with <tt>key</tt>, or
+     *         <tt>null</tt> if there was no mapping for <tt>key</tt>.
+     *         (A <tt>null</tt> return can also indicate that the map
+     *         previously associated <tt>null</tt> with <tt>key</tt>.)
+     */
+    public V remove(Object key) {
+        int i = slotOf(key, hash(key));
+        return (i < 0) ? null : removeAt(i);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean remove(Object key, Object value) {
+        int i = slotOf(key, hash(key));
+        Object v;
+        if (i < 0 || ((v = table[(index[i] << 1) - 1]) != value &&
+                      (value == null || !value.equals(v))))
+            return false;
+        removeAt(i);
+        return true;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     * The map will be empty after this call returns.
+     */
+    public void clear() {
+        if (used > 0) {
+            ++modCount;
+            Arrays.fill(index, EMPTY);
+            Arrays.fill(table, 0, used << 1, null);
+            used = 0;
+            size = 0;
+        }
+    }
+
+    /**
+     * Returns a {@link Set} view of the keys contained in this map.
+     * The set is backed by the map, so changes to the map are
+     * reflected in the set, and vice-versa.  If the map is modified
+     * while an iteration over the set is in progress (except through
+     * the iterator's own <tt>remove</tt> operation), the results of
+     * the iteration are undefined.  The set supports element removal,
+     * which removes the corresponding mapping from the map, via the
+     * <tt>Iterator.remove</tt>, <tt>Set.remove</tt>,
+     * <tt>removeAll</tt>, <tt>retainAll</tt>, and <tt>clear</tt>
+     * operations.  It does not support the <tt>add</tt> or
+     * <tt>addAll</tt> operations.
+     *
+     * @return a set view of the keys contained in this map
+     */
+    public Set<K> keySet() {
+        Set<K> ks = keySet;
+        if (ks == null) {
+            ks = new KeySet();
+            keySet = ks;
+        }
+        return ks;
+    }
+
+    final class KeySet extends AbstractSet<K> {
+        public final int size()                 { return size; }
+        public final void clear()               { CompactHashMap.this.clear(); }
+        public final Iterator<K> iterator()     { return new KeyIterator(); }
+        public final boolean contains(Object o) { return containsKey(o); }
+        public final boolean remove(Object key) {
+            int i = slotOf(key, hash(key));
+            if (i < 0)
+                return false;
+            removeAt(i);
+            return true;
+        }
+        public final Spliterator<K> spliterator()  {
+            return Spliterators.spliterator(this, Spliterator.SIZED |
+                                            Spliterator.ORDERED |
+                                            Spliterator.DISTINCT);
+        }
+        @SuppressWarnings("unchecked")
+        public final void forEach(Consumer<? super K> action) {
+            if (action == null)
+                throw new NullPointerException();
+            int mc = modCount;
+            Object[] tab = table;
+            for (int e = 0, u = used; e < u && modCount == mc; ++e) {
+                Object k;
+                if ((k = tab[e << 1]) != REMOVED)
+                    action.accept((K)k);
+            }
+            if (modCount != mc)
+                throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Returns a {@link Collection} view of the values contained in this map.
+     * The collection is backed by the map, so changes to the map are
+     * reflected in the collection, and vice-versa.  If the map is
+     * modified while an iteration over the collection is in progress
+     * (except through the iterator's own <tt>remove</tt> operation),
+     * the results of the iteration are undefined.  The collection
+     * supports element removal, which removes the corresponding
+     * mapping from the map, via the <tt>Iterator.remove</tt>,
+     * <tt>Collection.remove</tt>, <tt>removeAll</tt>,
+     * <tt>retainAll</tt> and <tt>clear</tt> operations.  It does not
+     * support the <tt>add</tt> or <tt>addAll</tt> operations.
+     *
+     * @return a view of the values contained in this map
+     */
+    public Collection<V> values() {
+        Collection<V> vs = values;
+        if (vs == null) {
+            vs = new Values();
+            values = vs;
+        }
+        return vs;
+    }
+
+    final class Values extends AbstractCollection<V> {
+        public final int size()                 { return size; }
+        public final void clear()               { CompactHashMap.this.clear(); }
+        public final Iterator<V> iterator()     { return new ValueIterator(); }
+        public final boolean contains(Object o) { return containsValue(o); }
+        public final Spliterator<V> spliterator() {
+            return Spliterators.spliterator(this, Spliterator.SIZED |
+                                            Spliterator.ORDERED);
+        }
+        @SuppressWarnings("unchecked")
+        public final void forEach(Consumer<? super V> action) {
+            if (action == null)
+                throw new NullPointerException();
+            int mc = modCount;
+            Object[] tab = table;
+            for (int e = 0, u = used; e < u && modCount == mc; ++e) {
+                if (tab[e << 1] != REMOVED)
+                    action.accept((V)tab[(e << 1) + 1]);
+            }
+            if (modCount != mc)
+                throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Returns a {@link Set} view of the mappings contained in this map.
+     * The set is backed by the map, so changes to the map are
+     * reflected in the set, and vice-versa.  If the map is modified
+     * while an iteration over the set is in progress (except through
+     * the iterator's own <tt>remove</tt> operation, or through the
+     * <tt>setValue</tt> operation on a map entry returned by the
+     * iterator) the results of the iteration are undefined.  The set
+     * supports element removal, which removes the corresponding
+     * mapping from the map, via the <tt>Iterator.remove</tt>,
+     * <tt>Set.remove</tt>, <tt>removeAll</tt>, <tt>retainAll</tt> and
+     * <tt>clear</tt> operations.  It does not support the
+     * <tt>add</tt> or <tt>addAll</tt> operations.
+     *
+     * <p>As this map has no per-mapping objects, the iterator of the
+     * set, and its {@code forEach} method, create an entry for each
+     * mapping traversed.  {@link #forEach(BiConsumer)} avoids this.
+     *
+     * @return a set view of the mappings contained in this map
+     */
+    public Set<Map.Entry<K,V>> entrySet() {
+        Set<Map.Entry<K,V>> es;
+        return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+        public final int size()                 { return size; }
+        public final void clear()               { CompactHashMap.this.clear(); }
+        public final Iterator<Map.Entry<K,V>> iterator() {
+            return new EntryIterator();
+        }
+        public final boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            int i = entryOf(e.getKey());
+            return i >= 0 && Objects.equals(table[(i << 1) + 1], e.getValue());
+        }
+        public final boolean remove(Object o) {
+            if (o instanceof Map.Entry) {
+                Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+                return CompactHashMap.this.remove(e.getKey(), e.getValue());
+            }
+            return false;
+        }
+        public final Spliterator<Map.Entry<K,V>> spliterator() {
+            return Spliterators.spliterator(this, Spliterator.SIZED |
+                                            Spliterator.ORDERED |
+                                            Spliterator.DISTINCT);
+        }
+        public final void forEach(Consumer<? super Map.Entry<K,V>> action) {
+            if (action == null)
+                throw new NullPointerException();
+            int mc = modCount;
+            Object[] tab = table;
+            for (int e = 0, u = used; e < u && modCount == mc; ++e) {
+                if (tab[e << 1] != REMOVED)
+                    action.accept(new Entry(tab, e));
+            }
+            if (modCount != mc)
+                throw new ConcurrentModificationException();
+        }
+    }
+
+    // Map overrides
+
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (action == null)
+            throw new NullPointerException();
+        int mc = modCount;
+        Object[] tab = table;
+        for (int e = 0, u = used; e < u && modCount == mc; ++e) {
+            Object k;
+            if ((k = tab[e << 1]) != REMOVED)
+                action.accept((K)k, (V)tab[(e << 1) + 1]);
+        }
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+    }
+
+    @SuppressWarnings("unchecked")
+    public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+        if (function == null)
+            throw new NullPointerException();
+        int mc = modCount;
+        Object[] tab = table;
+        for (int e = 0, u = used; e < u && modCount == mc; ++e) {
+            Object k;
+            if ((k = tab[e << 1]) != REMOVED)
+                tab[(e << 1) + 1] = function.apply((K)k, (V)tab[(e << 1) + 1]);
+        }
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+    }
+
+    /* ------------------------------------------------------------ */
+    // Cloning and serialization
+
+    /**
+     * Returns a shallow copy of this <tt>CompactHashMap</tt> instance:
+     * the keys and values themselves are not cloned.
+     *
+     * @return a shallow copy of this map
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public Object clone() {
+        CompactHashMap<K,V> result;
+        try {
+            result = (CompactHashMap<K,V>)super.clone();
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError(e);
+        }
+        if (index != null) {
+            result.index = index.clone();
+            result.hashes = hashes.clone();
+            result.table = table.clone();
+        }
+        result.entrySet = null;
+        result.modCount = 0;
+        return result;
+    }
+
+    /**
+     * Save the state of the <tt>CompactHashMap</tt> instance to a stream
+     * (i.e., serialize it).
+     *
+     * @serialData The <i>size</i> of the map (the number of key-value
+     *             mappings) is emitted (int), followed by the key
+     *             (Object) and value (Object) for each key-value
+     *             mapping, in insertion order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws IOException {
+        s.defaultWriteObject();
+        s.writeInt(size);
+        Object[] tab = table;
+        for (int e = 0, u = used; e < u; ++e) {
+            Object k;
+            if ((k = tab[e << 1]) != REMOVED) {
+                s.writeObject(k);
+                s.writeObject(tab[(e << 1) + 1]);
+            }
+        }
+    }
+
+    /**
+     * Reconstitute the {@code CompactHashMap} instance from a stream
+     * (i.e., deserialize it).
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(java.io.ObjectInputStream s)
+        throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        int mappings = s.readInt();
+        if (mappings < 0)
+            throw new InvalidObjectException("Illegal mappings count: " +
+                                             mappings);
+        initialCapacity = mappings;
+        for (int i = 0; i < mappings; i++) {
+            K key = (K) s.readObject();
+            V value = (V) s.readObject();
+            putVal(key, value, false);
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    // iterators and entries
+
+    /**
+     * A view of one mapping, as created by the iterators of the
+     * entry set.  Values are read and written in the table that held
+     * the mapping when the entry was created.
+     */
+    final class Entry implements Map.Entry<K,V> {
+        final Object[] tab;
+        final int j;            // index of value in tab
+        final K key;
+
+        @SuppressWarnings("unchecked")
+        Entry(Object[] tab, int e) {
+            this.tab = tab;
+            this.j = (e << 1) + 1;
+            this.key = (K)tab[e << 1];
+        }
+
+        public final K getKey()        { return key; }
+        @SuppressWarnings("unchecked")
+        public final V getValue()      { return (V)tab[j]; }
+        public final String toString() { return key + "=" + getValue(); }
+
+        public final int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(getValue());
+        }
+
+        @SuppressWarnings("unchecked")
+        public final V setValue(V newValue) {
+            V oldValue = (V)tab[j];
+            tab[j] = newValue;
+            return oldValue;
+        }
+
+        public final boolean equals(Object o) {
+            if (o == this)
+                return true;
+            if (o instanceof Map.Entry) {
+                Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+                if (Objects.equals(key, e.getKey()) &&
+                    Objects.equals(getValue(), e.getValue()))
+                    return true;
+            }
+            return false;
+        }
+    }
+
+    abstract class CompactIterator {
+        int next;               // next mapping to return, or used
+        int current;            // current mapping, or -1
+        int expectedModCount;   // for fast-fail
+
+        CompactIterator() {
+            expectedModCount = modCount;
+            current = -1;
+            advance(0);
+        }
+
+        private void advance(int e) {
+            Object[] tab = table;
+            int u = used;
+            while (e < u && tab[e << 1] == REMOVED)
+                ++e;
+            next = e;
+        }
+
+        public final boolean hasNext() {
+            return next < used;
+        }
+
+        final int nextEntry() {
+            int e = next;
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (e >= used)
+                throw new NoSuchElementException();
+            current = e;
+            advance(e + 1);
+            return e;
+        }
+
+        public final void remove() {
+            int e = current;
+            if (e < 0)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            current = -1;
+            removeEntry(e);
+            expectedModCount = modCount;
+        }
+    }
+
+    final class KeyIterator extends CompactIterator
+        implements Iterator<K> {
+        @SuppressWarnings("unchecked")
+        public final K next() { return (K)table[nextEntry() << 1]; }
+    }
+
+    final class ValueIterator extends CompactIterator
+        implements Iterator<V> {
+        @SuppressWarnings("unchecked")
+        public final V next() { return (V)table[(nextEntry() << 1) + 1]; }
+    }
+
+    final class EntryIterator extends CompactIterator
+        implements Iterator<Map.Entry<K,V>> {
+        public final Map.Entry<K,V> next() {
+            return new Entry(table, nextEntry());
+        }
+    }
+}
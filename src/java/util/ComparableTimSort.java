@@ -95,6 +95,14 @@ class ComparableTimSort {
     private int tmpBase; // base of tmp array slice
     private int tmpLen;  // length of tmp array slice
 
+    /**
+     * The per-thread scratch array, if tmp was taken from it, and the
+     * length of its prefix that may have been used, which is cleared
+     * before the array is given back.
+     */
+    private Object[] scratch;
+    private int scratchUsed;
+
     /**
      * A stack of pending runs yet to be merged.  Run i starts at
      * address base[i] and extends for len[i] elements.  It's always
@@ -125,9 +133,9 @@ class ComparableTimSort {
         int tlen = (len < 2 * INITIAL_TMP_STORAGE_LENGTH) ?
             len >>> 1 : INITIAL_TMP_STORAGE_LENGTH;
         if (work == null || workLen < tlen || workBase + tlen > work.length) {
-            tmp = new Object[tlen];
+            tmp = scratch = TimSort.acquireScratch();
             tmpBase = 0;
-            tmpLen = tlen;
+            tmpLen = tmp.length;
         }
         else {
             tmp = work;
@@ -221,6 +229,7 @@ class ComparableTimSort {
         assert lo == hi;
         ts.mergeForceCollapse();
         assert ts.stackSize == 1;
+        ts.returnScratch();
     }
 
     /**
@@ -477,7 +486,9 @@ class ComparableTimSort {
             return;
 
         // Merge remaining runs, using tmp array with min(len1, len2) elements
-        if (len1 <= len2)
+        if (len1 < MIN_MERGE && len2 < MIN_MERGE)
+            mergeShort(base1, len1, base2, len2);
+        else if (len1 <= len2)
             mergeLo(base1, len1, base2, len2);
         else
             mergeHi(base1, len1, base2, len2);
@@ -628,6 +639,65 @@ class ComparableTimSort {
         return ofs;
     }
 
+    /**
+     * Merges two adjacent runs in place, in a stable fashion, when both
+     * are shorter than MIN_MERGE.  For such runs the bookkeeping of
+     * galloping costs more than it can save, so this is a plain merge
+     * that copies the shorter run into tmp, and merges forward if it is
+     * the first run or backward if it is the second.  The runs must
+     * satisfy the same conditions as for mergeLo and mergeHi, except
+     * for their relative lengths.
+     *
+     * @param base1 index of first element in first run to be merged
+     * @param len1  length of first run to be merged (must be > 0)
+     * @param base2 index of first element in second run to be merged
+     *        (must be aBase + aLen)
+     * @param len2  length of second run to be merged (must be > 0)
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void mergeShort(int base1, int len1, int base2, int len2) {
+        assert len1 > 0 && len2 > 0 && base1 + len1 == base2;
+
+        Object[] a = this.a; // For performance
+        if (len1 <= len2) {
+            Object[] tmp = ensureCapacity(len1);
+            int cursor1 = tmpBase, end1 = cursor1 + len1; // Indexes into tmp
+            int cursor2 = base2, end2 = base2 + len2;    // Indexes into a
+            int dest = base1;                             // Indexes into a
+            System.arraycopy(a, base1, tmp, cursor1, len1);
+            try {
+                while (cursor1 < end1 && cursor2 < end2) {
+                    if (((Comparable) a[cursor2]).compareTo(tmp[cursor1]) < 0)
+                        a[dest++] = a[cursor2++];
+                    else
+                        a[dest++] = tmp[cursor1++];
+                }
+            } finally {
+                // What remains of run 1 fills the gap up to cursor2
+                System.arraycopy(tmp, cursor1, a, dest, end1 - cursor1);
+            }
+        } else {
+            Object[] tmp = ensureCapacity(len2);
+            int tmpBase = this.tmpBase;
+            int cursor1 = base1 + len1 - 1;   // Indexes into a
+            int cursor2 = tmpBase + len2 - 1; // Indexes into tmp
+            int dest = base2 + len2 - 1;      // Indexes into a
+            System.arraycopy(a, base2, tmp, tmpBase, len2);
+            try {
+                while (cursor2 >= tmpBase && cursor1 >= base1) {
+                    if (((Comparable) tmp[cursor2]).compareTo(a[cursor1]) < 0)
+                        a[dest--] = a[cursor1--];
+                    else
+                        a[dest--] = tmp[cursor2--];
+                }
+            } finally {
+                // What remains of run 2 fills the gap down to cursor1
+                int n = cursor2 - tmpBase + 1;
+                System.arraycopy(tmp, tmpBase, a, dest - n + 1, n);
+            }
+        }
+    }
+
     /**
      * Merges two adjacent runs in place, in a stable fashion.  The first
      * element of the first run must be greater than the first element of the
@@ -872,6 +942,21 @@ class ComparableTimSort {
         }
     }
 
+    /**
+     * Gives the scratch array back to this thread, if tmp was taken
+     * from it, after clearing the part that may hold elements.  If the
+     * sort fails, for example because the comparator throws, this is
+     * not called and the array is dropped, so the next sort on this
+     * thread allocates another.
+     */
+    private void returnScratch() {
+        Object[] s = scratch;
+        if (s != null) {
+            scratch = null;
+            TimSort.releaseScratch(s, scratchUsed);
+        }
+    }
+
     /**
      * Ensures that the external array tmp has at least the specified
      * number of elements, increasing its size if necessary.  The size
@@ -880,7 +965,9 @@ class ComparableTimSort {
      * @param minCapacity the minimum required capacity of the tmp array
      * @return tmp, whether or not it grew
      */
-    private Object[]  ensureCapacity(int minCapacity) {
+    private Object[] ensureCapacity(int minCapacity) {
+        if (tmp == scratch && minCapacity > scratchUsed)
+            scratchUsed = minCapacity;
         if (tmpLen < minCapacity) {
             // Compute smallest power of 2 > minCapacity
             int newSize = minCapacity;
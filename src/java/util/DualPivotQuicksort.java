@@ -31,6 +31,8 @@ package java.util;
  * offers O(n log(n)) performance on many data sets that cause other
  * quicksorts to degrade to quadratic performance, and is typically
  * faster than traditional (one-pivot) Quicksort implementations.
+ * Large int, long, float and double arrays that are not nearly sorted
+ * are handed to {@link RadixSort}, whose running time is linear.
  *
  * All exposed methods are package-private, designed to be invoked
  * from public methods (in class Arrays) after performing any
@@ -138,11 +140,15 @@ final class DualPivotQuicksort {
             }
 
             /*
-             * The array is not highly structured,
-             * use Quicksort instead of merge sort.
+             * The array is not highly structured, use Quicksort
+             * (or radix sort if large) instead of merge sort.
              */
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                if (right - left >= RadixSort.RADIX_SORT_THRESHOLD) {
+                    RadixSort.sort(a, left, right, work, workBase, workLen);
+                } else {
+                    sort(a, left, right, true);
+                }
                 return;
             }
         }
@@ -586,11 +592,15 @@ final class DualPivotQuicksort {
             }
 
             /*
-             * The array is not highly structured,
-             * use Quicksort instead of merge sort.
+             * The array is not highly structured, use Quicksort
+             * (or radix sort if large) instead of merge sort.
              */
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                if (right - left >= RadixSort.RADIX_SORT_THRESHOLD) {
+                    RadixSort.sort(a, left, right, work, workBase, workLen);
+                } else {
+                    sort(a, left, right, true);
+                }
                 return;
             }
         }
@@ -2134,11 +2144,15 @@ final class DualPivotQuicksort {
             }
 
             /*
-             * The array is not highly structured,
-             * use Quicksort instead of merge sort.
+             * The array is not highly structured, use Quicksort
+             * (or radix sort if large) instead of merge sort.
              */
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                if (right - left >= RadixSort.RADIX_SORT_THRESHOLD) {
+                    RadixSort.sort(a, left, right, work, workBase, workLen);
+                } else {
+                    sort(a, left, right, true);
+                }
                 return;
             }
         }
@@ -2673,11 +2687,15 @@ final class DualPivotQuicksort {
             }
 
             /*
-             * The array is not highly structured,
-             * use Quicksort instead of merge sort.
+             * The array is not highly structured, use Quicksort
+             * (or radix sort if large) instead of merge sort.
              */
             if (++count == MAX_RUN_COUNT) {
-                sort(a, left, right, true);
+                if (right - left >= RadixSort.RADIX_SORT_THRESHOLD) {
+                    RadixSort.sort(a, left, right, work, workBase, workLen);
+                } else {
+                    sort(a, left, right, true);
+                }
                 return;
             }
         }
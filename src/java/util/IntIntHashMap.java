@@ -0,0 +1,917 @@
+/*
+ * Copyright (c) 1997, 2017, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntIntConsumer;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Hash table mapping primitive {@code int} keys to {@code int} values.
+ * This class provides the commonly used operations of {@link HashMap}
+ * for {@code int} keys and values, but stores them unboxed in
+ * open-addressed arrays, so that no {@code Integer} or entry object
+ * is allocated per mapping.  A map of {@code n} entries thus occupies
+ * little more than {@code 8n / loadFactor} bytes.  All {@code int}
+ * values, including zero, may be used as keys.  Since values cannot
+ * be {@code null}, {@link #get} returns zero for absent keys; use
+ * {@link #containsKey} or {@link #getOrDefault} to distinguish them.
+ *
+ * <p>This implementation provides constant-time performance for the
+ * basic operations ({@code get} and {@code put}), assuming the keys
+ * are not specially chosen to collide.  Traversal requires time
+ * proportional to the capacity of the table plus its size.  As with
+ * {@code HashMap}, the <i>load factor</i> bounds how full the table
+ * may become before its capacity is doubled; it must be less than
+ * one.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * If multiple threads access a map concurrently, and at least one of
+ * the threads modifies the map structurally, it <i>must</i> be
+ * synchronized externally.
+ *
+ * <p>Keys and values may be traversed with {@link #forEach}, and as
+ * primitive streams using {@link #keyStream} and {@link #valueStream}.
+ * These are <i>fail-fast</i>: if the map is structurally modified
+ * during traversal, other than by the traversal itself, a
+ * {@link ConcurrentModificationException} is thrown on a best-effort
+ * basis.
+ *
+ * @see HashMap
+ * @see IntHashSet
+ * @since 1.8
+ */
+public class IntIntHashMap implements Cloneable, Serializable {
+
+    private static final long serialVersionUID = -6408146237435658617L;
+
+    /*
+     * Implementation notes.
+     *
+     * The table is a pair of parallel keys and vals arrays of
+     * power-of-two length, probed linearly from the spread hash of
+     * the key, with zero in keys marking an empty slot.  The key zero
+     * itself is kept outside the arrays, in hasZeroKey and zeroValue.
+     * Removal uses backward shift deletion rather than tombstones, so
+     * a probe sequence always ends at the first empty slot, and the
+     * threshold (capacity * loadFactor, always below capacity) bounds
+     * the length of probe sequences.
+     */
+
+    /** The default initial capacity, in mappings */
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /** The maximum table length */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /** The default load factor */
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /** Keys of the table, zero for empty slots */
+    transient int[] keys;
+
+    /** Values of the table, parallel to keys */
+    transient int[] vals;
+
+    /** Whether the key zero is mapped */
+    transient boolean hasZeroKey;
+
+    /** The value of the key zero, if mapped, else zero */
+    transient int zeroValue;
+
+    /** The number of mappings, including that of key zero */
+    transient int size;
+
+    /** The number of structural modifications, for fail-fast traversal */
+    transient int modCount;
+
+    /** The size at which the table is next doubled */
+    transient int threshold;
+
+    /**
+     * The load factor for the hash table.
+     *
+     * @serial
+     */
+    final float loadFactor;
+
+    /**
+     * Spreads the bits of the golden-ratio product of the key into
+     * its low bits, which select the slot.
+     */
+    static int spread(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the power-of-two table length needed to hold the given
+     * number of mappings within the load factor.
+     */
+    static int tableSizeFor(int expectedSize, float loadFactor) {
+        double c = Math.ceil(expectedSize / (double)loadFactor) + 1.0;
+        if (c >= MAXIMUM_CAPACITY)
+            return MAXIMUM_CAPACITY;
+        int n = Math.max(2, (int)c);
+        return Integer.highestOneBit(n - 1) << 1;
+    }
+
+    /**
+     * Constructs an empty map with the specified initial capacity and
+     * load factor.
+     *
+     * @param  initialCapacity the number of mappings the map can hold
+     *         without resizing
+     * @param  loadFactor      the load factor
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is not greater than zero and less than one
+     */
+    public IntIntHashMap(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        this.loadFactor = loadFactor;
+        allocate(tableSizeFor(initialCapacity, loadFactor));
+    }
+
+    /**
+     * Constructs an empty map with the specified initial capacity and
+     * the default load factor (0.75).
+     *
+     * @param  initialCapacity the number of mappings the map can hold
+     *         without resizing
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public IntIntHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty map with the default initial capacity (16)
+     * and the default load factor (0.75).
+     */
+    public IntIntHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    /** Creates empty arrays of length n, and sets the threshold */
+    final void allocate(int n) {
+        keys = new int[n];
+        vals = new int[n];
+        threshold = Math.min((int)(n * loadFactor), n - 1);
+    }
+
+    /**
+     * Returns the slot of the key, or if absent, ~slot of the empty
+     * slot where it would be inserted.  Not used for key zero.
+     */
+    final int indexOf(int key) {
+        int[] ks = keys;
+        int m = ks.length - 1, i = spread(key) & m;
+        for (int k; (k = ks[i]) != 0; i = (i + 1) & m) {
+            if (k == key)
+                return i;
+        }
+        return ~i;
+    }
+
+    /**
+     * Inserts a mapping for a nonzero key at the empty slot i found
+     * by indexOf, first doubling the table if it is full.
+     */
+    final void insertAt(int i, int key, int value) {
+        if (size >= threshold) {
+            resize();
+            i = ~indexOf(key);
+        }
+        keys[i] = key;
+        vals[i] = value;
+        ++size;
+        ++modCount;
+    }
+
+    /** Removes the mapping at slot i, closing up the probe sequence */
+    final void removeAt(int i) {
+        int[] ks = keys, vs = vals;
+        int m = ks.length - 1;
+        for (int j = i;;) {
+            j = (j + 1) & m;
+            int k = ks[j];
+            if (k == 0)
+                break;
+            int ideal = spread(k) & m;
+            if (((j - ideal) & m) >= ((j - i) & m)) {
+                ks[i] = k;
+                vs[i] = vs[j];
+                i = j;
+            }
+        }
+        ks[i] = 0;
+        vs[i] = 0;
+        --size;
+        ++modCount;
+    }
+
+    /** Doubles the table, or if already maximal, uses its last free slot */
+    final void resize() {
+        int[] oks = keys, ovs = vals;
+        int n = oks.length;
+        if (n >= MAXIMUM_CAPACITY) {
+            if (threshold >= n - 1)
+                throw new IllegalStateException("Map is full");
+            threshold = n - 1;
+            return;
+        }
+        allocate(n << 1);
+        int[] ks = keys, vs = vals;
+        int m = ks.length - 1;
+        for (int j = 0; j < n; ++j) {
+            int k = oks[j];
+            if (k != 0) {
+                int i = spread(k) & m;
+                while (ks[i] != 0)
+                    i = (i + 1) & m;
+                ks[i] = k;
+                vs[i] = ovs[j];
+            }
+        }
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     *
+     * @return {@code true} if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or zero
+     * if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or zero
+     */
+    public int get(int key) {
+        return getOrDefault(key, 0);
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or the
+     * given default value if this map contains no mapping for the
+     * key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the value to return if this map contains
+     * no mapping for the given key
+     * @return the mapping for the key, if present; else the default value
+     */
+    public int getOrDefault(int key, int defaultValue) {
+        if (key == 0)
+            return hasZeroKey ? zeroValue : defaultValue;
+        int[] ks = keys;
+        int m = ks.length - 1;
+        for (int i = spread(key) & m, k; (k = ks[i]) != 0; i = (i + 1) & m) {
+            if (k == key)
+                return vals[i];
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Returns {@code true} if this map contains a mapping for the
+     * specified key.
+     *
+     * @param key possible key
+     * @return {@code true} if this map contains a mapping for the key
+     */
+    public boolean containsKey(int key) {
+        return (key == 0) ? hasZeroKey : indexOf(key) >= 0;
+    }
+
+    /**
+     * Returns {@code true} if this map maps one or more keys to the
+     * specified value.  This takes time proportional to the capacity
+     * of the table.
+     *
+     * @param value value whose presence in this map is to be tested
+     * @return {@code true} if this map maps one or more keys to the
+     *         specified value
+     */
+    public boolean containsValue(int value) {
+        if (hasZeroKey && zeroValue == value)
+            return true;
+        int[] ks = keys, vs = vals;
+        for (int i = 0; i < ks.length; ++i) {
+            if (ks[i] != 0 && vs[i] == value)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this
+     * map, replacing any previous value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with {@code key}, or
+     *         zero if there was no mapping for {@code key}
+     */
+    public int put(int key, int value) {
+        int old;
+        if (key == 0) {
+            old = zeroValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                ++size;
+                ++modCount;
+            }
+            zeroValue = value;
+        }
+        else {
+            int i = indexOf(key);
+            if (i < 0) {
+                insertAt(~i, key, value);
+                old = 0;
+            }
+            else {
+                old = vals[i];
+                vals[i] = value;
+            }
+        }
+        return old;
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return {@code true} if the mapping was added
+     */
+    public boolean putIfAbsent(int key, int value) {
+        if (key == 0) {
+            if (hasZeroKey)
+                return false;
+            hasZeroKey = true;
+            zeroValue = value;
+            ++size;
+            ++modCount;
+            return true;
+        }
+        int i = indexOf(key);
+        if (i >= 0)
+            return false;
+        insertAt(~i, key, value);
+        return true;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if
+     * present.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return {@code true} if a mapping was removed
+     */
+    public boolean remove(int key) {
+        if (key == 0) {
+            if (!hasZeroKey)
+                return false;
+            removeZeroKey();
+            return true;
+        }
+        int i = indexOf(key);
+        if (i < 0)
+            return false;
+        removeAt(i);
+        return true;
+    }
+
+    /**
+     * Removes the entry for a key only if it is currently mapped to
+     * the given value.
+     *
+     * @param key key with which the specified value is associated
+     * @param value value expected to be associated with the specified key
+     * @return {@code true} if the value was removed
+     */
+    public boolean remove(int key, int value) {
+        if (key == 0) {
+            if (!hasZeroKey || zeroValue != value)
+                return false;
+            removeZeroKey();
+            return true;
+        }
+        int i = indexOf(key);
+        if (i < 0 || vals[i] != value)
+            return false;
+        removeAt(i);
+        return true;
+    }
+
+    final void removeZeroKey() {
+        hasZeroKey = false;
+        zeroValue = 0;
+        --size;
+        ++modCount;
+    }
+
+    /**
+     * Replaces the entry for a key only if it is currently mapped to
+     * the given value.
+     *
+     * @param key key with which the specified value is associated
+     * @param oldValue value expected to be associated with the specified key
+     * @param newValue value to be associated with the specified key
+     * @return {@code true} if the value was replaced
+     */
+    public boolean replace(int key, int oldValue, int newValue) {
+        if (key == 0) {
+            if (!hasZeroKey || zeroValue != oldValue)
+                return false;
+            zeroValue = newValue;
+            return true;
+        }
+        int i = indexOf(key);
+        if (i < 0 || vals[i] != oldValue)
+            return false;
+        vals[i] = newValue;
+        return true;
+    }
+
+    /**
+     * Adds the given value to the value mapped to the key, treating
+     * an absent key as mapped to zero.
+     *
+     * @param key the key
+     * @param delta the value to add
+     * @return the updated value
+     */
+    public int addAndGet(int key, int delta) {
+        return merge(key, delta, Integer::sum);
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * computes its value using the given mapping function and enters
+     * it into this map.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param mappingFunction the function to compute a value
+     * @return the current (existing or computed) value associated with
+     *         the specified key
+     * @throws NullPointerException if the mappingFunction is null
+     * @throws ConcurrentModificationException if it is detected that the
+     *         mapping function modified this map
+     */
+    public int computeIfAbsent(int key, IntUnaryOperator mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        if (key == 0) {
+            if (!hasZeroKey) {
+                int mc = modCount;
+                int v = mappingFunction.applyAsInt(key);
+                if (mc != modCount)
+                    throw new ConcurrentModificationException();
+                hasZeroKey = true;
+                zeroValue = v;
+                ++size;
+                ++modCount;
+            }
+            return zeroValue;
+        }
+        int i = indexOf(key);
+        if (i >= 0)
+            return vals[i];
+        int mc = modCount;
+        int v = mappingFunction.applyAsInt(key);
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+        insertAt(~i, key, v);
+        return v;
+    }
+
+    /**
+     * Computes a new value for the specified key given the key and
+     * its current value, or the given initial value if the key is
+     * not mapped, and associates the key with it.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param initialValue the value to pass to the function if the key
+     * is not mapped
+     * @param remappingFunction the function to compute a value, given
+     * the key and its current value (or the initial value)
+     * @return the new value associated with the specified key
+     * @throws NullPointerException if the remappingFunction is null
+     * @throws ConcurrentModificationException if it is detected that the
+     *         remapping function modified this map
+     */
+    public int compute(int key, int initialValue,
+                       IntBinaryOperator remappingFunction) {
+        if (remappingFunction == null)
+            throw new NullPointerException();
+        int mc = modCount;
+        if (key == 0) {
+            int v = remappingFunction.applyAsInt(
+                key, hasZeroKey ? zeroValue : initialValue);
+            if (mc != modCount)
+                throw new ConcurrentModificationException();
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                ++size;
+                ++modCount;
+            }
+            return zeroValue = v;
+        }
+        int i = indexOf(key);
+        int v = remappingFunction.applyAsInt(
+            key, (i >= 0) ? vals[i] : initialValue);
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+        if (i >= 0)
+            vals[i] = v;
+        else
+            insertAt(~i, key, v);
+        return v;
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.  Otherwise, replaces the
+     * value with the results of the given remapping function.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value the value to use if absent
+     * @param remappingFunction the function to recompute a value if present,
+     * given the current value and the given value
+     * @return the new value associated with the specified key
+     * @throws NullPointerException if the remappingFunction is null
+     * @throws ConcurrentModificationException if it is detected that the
+     *         remapping function modified this map
+     */
+    public int merge(int key, int value, IntBinaryOperator remappingFunction) {
+        if (remappingFunction == null)
+            throw new NullPointerException();
+        int mc = modCount;
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                ++size;
+                ++modCount;
+                return zeroValue = value;
+            }
+            int v = remappingFunction.applyAsInt(zeroValue, value);
+            if (mc != modCount)
+                throw new ConcurrentModificationException();
+            return zeroValue = v;
+        }
+        int i = indexOf(key);
+        if (i < 0) {
+            insertAt(~i, key, value);
+            return value;
+        }
+        int v = remappingFunction.applyAsInt(vals[i], value);
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+        vals[i] = v;
+        return v;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, 0);
+            Arrays.fill(vals, 0);
+            hasZeroKey = false;
+            zeroValue = 0;
+            size = 0;
+            ++modCount;
+        }
+    }
+
+    /**
+     * Performs the given action for each mapping in this map, passing
+     * the key and the value.
+     *
+     * @param action the action to be performed for each mapping
+     * @throws NullPointerException if the action is null
+     * @throws ConcurrentModificationException if the map is
+     *         structurally modified by the action
+     */
+    public void forEach(IntIntConsumer action) {
+        if (action == null)
+            throw new NullPointerException();
+        int mc = modCount;
+        if (hasZeroKey)
+            action.accept(0, zeroValue);
+        int[] ks = keys, vs = vals;
+        for (int i = 0; i < ks.length && modCount == mc; ++i) {
+            int k;
+            if ((k = ks[i]) != 0)
+                action.accept(k, vs[i]);
+        }
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfInt} over the keys of this map.
+     * The spliterator reports {@link Spliterator#SIZED} and
+     * {@link Spliterator#DISTINCT}, and is fail-fast.
+     *
+     * @return a spliterator over the keys of this map
+     */
+    public Spliterator.OfInt keySpliterator() {
+        return new TableSpliterator(this, keys, hasZeroKey, 0,
+                                    0, keys.length, size,
+                                    Spliterator.SIZED | Spliterator.DISTINCT);
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfInt} over the values of this map,
+     * in the same order as {@link #keySpliterator}.  The spliterator
+     * reports {@link Spliterator#SIZED}, and is fail-fast.
+     *
+     * @return a spliterator over the values of this map
+     */
+    public Spliterator.OfInt valueSpliterator() {
+        return new TableSpliterator(this, vals, hasZeroKey, zeroValue,
+                                    0, keys.length, size,
+                                    Spliterator.SIZED);
+    }
+
+    /**
+     * Returns a sequential {@code IntStream} of the keys of this map.
+     *
+     * @return a stream of the keys of this map
+     */
+    public IntStream keyStream() {
+        return StreamSupport.intStream(keySpliterator(), false);
+    }
+
+    /**
+     * Returns a sequential {@code IntStream} of the values of this map.
+     *
+     * @return a stream of the values of this map
+     */
+    public IntStream valueStream() {
+        return StreamSupport.intStream(valueSpliterator(), false);
+    }
+
+    /**
+     * Compares the specified object with this map for equality.
+     * Returns {@code true} if the given object is also an
+     * {@code IntIntHashMap} and the two maps have the same mappings.
+     *
+     * @param o object to be compared for equality with this map
+     * @return {@code true} if the specified object is equal to this map
+     */
+    public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof IntIntHashMap))
+            return false;
+        IntIntHashMap m = (IntIntHashMap)o;
+        if (m.size != size ||
+            (hasZeroKey && (!m.hasZeroKey || m.zeroValue != zeroValue)))
+            return false;
+        int[] ks = keys, vs = vals;
+        for (int i = 0; i < ks.length; ++i) {
+            int k, j;
+            if ((k = ks[i]) != 0 &&
+                ((j = m.indexOf(k)) < 0 || m.vals[j] != vs[i]))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash code value for this map, which is the same as
+     * that of a {@code Map<Integer,Integer>} with the same mappings.
+     *
+     * @return the hash code value for this map
+     */
+    public int hashCode() {
+        int h = hasZeroKey ? zeroValue : 0;
+        int[] ks = keys, vs = vals;
+        for (int i = 0; i < ks.length; ++i) {
+            int k;
+            if ((k = ks[i]) != 0)
+                h += k ^ vs[i];
+        }
+        return h;
+    }
+
+    /**
+     * Returns a string representation of this map, in the format of
+     * {@link AbstractMap#toString}.
+     *
+     * @return a string representation of this map
+     */
+    public String toString() {
+        StringBuilder sb = new StringBuilder().append('{');
+        forEach((k, v) -> {
+            if (sb.length() > 1)
+                sb.append(", ");
+            sb.append(k).append('=').append(v);
+        });
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Returns a shallow copy of this map.
+     *
+     * @return a copy of this map
+     */
+    public IntIntHashMap clone() {
+        IntIntHashMap result;
+        try {
+            result = (IntIntHashMap)super.clone();
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError(e);
+        }
+        result.keys = keys.clone();
+        result.vals = vals.clone();
+        result.modCount = 0;
+        return result;
+    }
+
+    /**
+     * Saves this map to a stream.
+     *
+     * @serialData The number of mappings (int) is emitted, followed
+     *             by the key (int) and value (int) of each mapping.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws IOException {
+        s.defaultWriteObject();
+        s.writeInt(size);
+        if (hasZeroKey) {
+            s.writeInt(0);
+            s.writeInt(zeroValue);
+        }
+        int[] ks = keys, vs = vals;
+        for (int i = 0; i < ks.length; ++i) {
+            if (ks[i] != 0) {
+                s.writeInt(ks[i]);
+                s.writeInt(vs[i]);
+            }
+        }
+    }
+
+    /**
+     * Reconstitutes this map from a stream.
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new InvalidObjectException("Illegal load factor: " +
+                                             loadFactor);
+        int n = s.readInt();
+        if (n < 0)
+            throw new InvalidObjectException("Illegal mappings count: " + n);
+        allocate(tableSizeFor(n, loadFactor));
+        for (int i = 0; i < n; ++i) {
+            int k = s.readInt();
+            put(k, s.readInt());
+        }
+    }
+
+    /**
+     * Spliterator over the keys or values of slots [index, fence) of
+     * the table, preceded by those of key zero if zero is set.
+     */
+    static final class TableSpliterator implements Spliterator.OfInt {
+        final IntIntHashMap map;
+        final int[] keys;
+        final int[] elements;       // keys or vals
+        final int zeroElement;      // element for key zero
+        final int expectedModCount;
+        final int characteristics;
+        boolean zero;               // key zero not yet traversed
+        int index, fence;           // range of slots
+        int est;                    // size estimate
+
+        TableSpliterator(IntIntHashMap map, int[] elements, boolean zero,
+                         int zeroElement, int index, int fence, int est,
+                         int characteristics) {
+            this.map = map;
+            this.keys = map.keys;
+            this.elements = elements;
+            this.zero = zero;
+            this.zeroElement = zeroElement;
+            this.index = index;
+            this.fence = fence;
+            this.est = est;
+            this.expectedModCount = map.modCount;
+            this.characteristics = characteristics;
+        }
+
+        public TableSpliterator trySplit() {
+            int lo = index, mid = (lo + fence) >>> 1;
+            if (lo >= mid)
+                return null;
+            boolean z = zero;
+            zero = false;
+            index = mid;
+            return new TableSpliterator(map, elements, z, zeroElement,
+                                        lo, mid, est >>>= 1,
+                                        characteristics & ~Spliterator.SIZED);
+        }
+
+        public boolean tryAdvance(IntConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            if (map.modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (zero) {
+                zero = false;
+                action.accept(zeroElement);
+                return true;
+            }
+            int[] ks = keys;
+            while (index < fence) {
+                int i = index++;
+                if (ks[i] != 0) {
+                    action.accept(elements[i]);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public void forEachRemaining(IntConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            int[] ks = keys, es = elements;
+            if (zero) {
+                zero = false;
+                action.accept(zeroElement);
+            }
+            int i = index, hi = fence;
+            index = hi;
+            for (; i < hi; ++i) {
+                if (ks[i] != 0)
+                    action.accept(es[i]);
+            }
+            if (map.modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+        }
+
+        public long estimateSize() {
+            return est;
+        }
+
+        public int characteristics() {
+            return characteristics;
+        }
+    }
+}
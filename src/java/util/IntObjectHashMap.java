@@ -0,0 +1,852 @@
+/*
+ * Copyright (c) 1997, 2017, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Hash table mapping primitive {@code int} keys to objects.  This
+ * class provides the commonly used operations of {@link HashMap} for
+ * {@code int} keys, but stores keys unboxed in an open-addressed
+ * array, parallel to an array of values, so that no {@code Integer}
+ * or entry object is allocated per mapping.  All {@code int} values,
+ * including zero, may be used as keys.  Like
+ * {@link java.util.concurrent.ConcurrentHashMap}, this class does not
+ * allow {@code null} to be used as a value, so {@link #get} returns
+ * {@code null} exactly when a key is absent.
+ *
+ * <p>This implementation provides constant-time performance for the
+ * basic operations ({@code get} and {@code put}), assuming the keys
+ * are not specially chosen to collide.  Traversal requires time
+ * proportional to the capacity of the table plus its size.  As with
+ * {@code HashMap}, the <i>load factor</i> bounds how full the table
+ * may become before its capacity is doubled; it must be less than
+ * one.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * If multiple threads access a map concurrently, and at least one of
+ * the threads modifies the map structurally, it <i>must</i> be
+ * synchronized externally.
+ *
+ * <p>Mappings may be traversed with {@link #forEach}, and keys as a
+ * primitive stream using {@link #keyStream}.  These are
+ * <i>fail-fast</i>: if the map is structurally modified during
+ * traversal, other than by the traversal itself, a
+ * {@link ConcurrentModificationException} is thrown on a best-effort
+ * basis.
+ *
+ * @param <V> the type of mapped values
+ * @see HashMap
+ * @see IntIntHashMap
+ * @since 1.8
+ */
+public class IntObjectHashMap<V> implements Cloneable, Serializable {
+
+    private static final long serialVersionUID = 4279716383410557394L;
+
+    /*
+     * The table is organized as described for IntIntHashMap, with
+     * vals holding values as Objects.
+     */
+
+    /** The default initial capacity, in mappings */
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /** The maximum table length */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /** The default load factor */
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /** Keys of the table, zero for empty slots */
+    transient int[] keys;
+
+    /** Values of the table, parallel to keys */
+    transient Object[] vals;
+
+    /** The value of the key zero, or null if it is not mapped */
+    transient Object zeroValue;
+
+    /** The number of mappings, including that of key zero */
+    transient int size;
+
+    /** The number of structural modifications, for fail-fast traversal */
+    transient int modCount;
+
+    /** The size at which the table is next doubled */
+    transient int threshold;
+
+    /**
+     * The load factor for the hash table.
+     *
+     * @serial
+     */
+    final float loadFactor;
+
+    /**
+     * Constructs an empty map with the specified initial capacity and
+     * load factor.
+     *
+     * @param  initialCapacity the number of mappings the map can hold
+     *         without resizing
+     * @param  loadFactor      the load factor
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is not greater than zero and less than one
+     */
+    public IntObjectHashMap(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        this.loadFactor = loadFactor;
+        allocate(IntIntHashMap.tableSizeFor(initialCapacity, loadFactor));
+    }
+
+    /**
+     * Constructs an empty map with the specified initial capacity and
+     * the default load factor (0.75).
+     *
+     * @param  initialCapacity the number of mappings the map can hold
+     *         without resizing
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public IntObjectHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty map with the default initial capacity (16)
+     * and the default load factor (0.75).
+     */
+    public IntObjectHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    /** Creates empty arrays of length n, and sets the threshold */
+    final void allocate(int n) {
+        keys = new int[n];
+        vals = new Object[n];
+        threshold = Math.min((int)(n * loadFactor), n - 1);
+    }
+
+    /**
+     * Returns the slot of the key, or if absent, ~slot of the empty
+     * slot where it would be inserted.  Not used for key zero.
+     */
+    final int indexOf(int key) {
+        int[] ks = keys;
+        int m = ks.length - 1, i = IntIntHashMap.spread(key) & m;
+        for (int k; (k = ks[i]) != 0; i = (i + 1) & m) {
+            if (k == key)
+                return i;
+        }
+        return ~i;
+    }
+
+    /**
+     * Inserts a mapping for a nonzero key at the empty slot i found
+     * by indexOf, first doubling the table if it is full.
+     */
+    final void insertAt(int i, int key, Object value) {
+        if (size >= threshold) {
+            resize();
+            i = ~indexOf(key);
+        }
+        keys[i] = key;
+        vals[i] = value;
+        ++size;
+        ++modCount;
+    }
+
+    /** Removes the mapping at slot i, closing up the probe sequence */
+    final void removeAt(int i) {
+        int[] ks = keys;
+        Object[] vs = vals;
+        int m = ks.length - 1;
+        for (int j = i;;) {
+            j = (j + 1) & m;
+            int k = ks[j];
+            if (k == 0)
+                break;
+            int ideal = IntIntHashMap.spread(k) & m;
+            if (((j - ideal) & m) >= ((j - i) & m)) {
+                ks[i] = k;
+                vs[i] = vs[j];
+                i = j;
+            }
+        }
+        ks[i] = 0;
+        vs[i] = null;
+        --size;
+        ++modCount;
+    }
+
+    /** Doubles the table, or if already maximal, uses its last free slot */
+    final void resize() {
+        int[] oks = keys;
+        Object[] ovs = vals;
+        int n = oks.length;
+        if (n >= MAXIMUM_CAPACITY) {
+            if (threshold >= n - 1)
+                throw new IllegalStateException("Map is full");
+            threshold = n - 1;
+            return;
+        }
+        allocate(n << 1);
+        int[] ks = keys;
+        Object[] vs = vals;
+        int m = ks.length - 1;
+        for (int j = 0; j < n; ++j) {
+            int k = oks[j];
+            if (k != 0) {
+                int i = IntIntHashMap.spread(k) & m;
+                while (ks[i] != 0)
+                    i = (i + 1) & m;
+                ks[i] = k;
+                vs[i] = ovs[j];
+            }
+        }
+    }
+
+    /** Sets the value of key zero, which may be null to remove it */
+    final void setZeroValue(Object value) {
+        if (zeroValue == null) {
+            if (value != null) {
+                ++size;
+                ++modCount;
+            }
+        }
+        else if (value == null) {
+            --size;
+            ++modCount;
+        }
+        zeroValue = value;
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     *
+     * @return {@code true} if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or
+     *         {@code null} if this map contains no mapping for the key
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        if (key == 0)
+            return (V)zeroValue;
+        int[] ks = keys;
+        int m = ks.length - 1;
+        for (int i = IntIntHashMap.spread(key) & m, k; (k = ks[i]) != 0;
+             i = (i + 1) & m) {
+            if (k == key)
+                return (V)vals[i];
+        }
+        return null;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or the
+     * given default value if this map contains no mapping for the
+     * key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the value to return if this map contains
+     * no mapping for the given key
+     * @return the mapping for the key, if present; else the default value
+     */
+    public V getOrDefault(int key, V defaultValue) {
+        V v;
+        return (v = get(key)) == null ? defaultValue : v;
+    }
+
+    /**
+     * Returns {@code true} if this map contains a mapping for the
+     * specified key.
+     *
+     * @param key possible key
+     * @return {@code true} if this map contains a mapping for the key
+     */
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns {@code true} if this map maps one or more keys to the
+     * specified value.  This takes time proportional to the capacity
+     * of the table.
+     *
+     * @param value value whose presence in this map is to be tested
+     * @return {@code true} if this map maps one or more keys to the
+     *         specified value
+     */
+    public boolean containsValue(Object value) {
+        if (value == null)
+            return false;
+        if (value.equals(zeroValue))
+            return true;
+        for (Object v : vals) {
+            if (v != null && value.equals(v))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this
+     * map, replacing any previous value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     * @throws NullPointerException if the specified value is null
+     */
+    public V put(int key, V value) {
+        return putVal(key, value, false);
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified value is null
+     */
+    public V putIfAbsent(int key, V value) {
+        return putVal(key, value, true);
+    }
+
+    /** Implementation for put and putIfAbsent */
+    @SuppressWarnings("unchecked")
+    final V putVal(int key, V value, boolean onlyIfAbsent) {
+        if (value == null)
+            throw new NullPointerException();
+        Object old;
+        if (key == 0) {
+            if ((old = zeroValue) == null || !onlyIfAbsent)
+                setZeroValue(value);
+        }
+        else {
+            int i = indexOf(key);
+            if (i < 0) {
+                insertAt(~i, key, value);
+                old = null;
+            }
+            else {
+                old = vals[i];
+                if (!onlyIfAbsent)
+                    vals[i] = value;
+            }
+        }
+        return (V)old;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if
+     * present.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     */
+    public V remove(int key) {
+        return replaceVal(key, null, null);
+    }
+
+    /**
+     * Removes the entry for a key only if it is currently mapped to
+     * the given value.
+     *
+     * @param key key with which the specified value is associated
+     * @param value value expected to be associated with the specified key
+     * @return {@code true} if the value was removed
+     */
+    public boolean remove(int key, Object value) {
+        return value != null && replaceVal(key, null, value) != null;
+    }
+
+    /**
+     * Replaces the entry for a key only if it is currently mapped to
+     * some value.
+     *
+     * @param key key with which the specified value is associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified value is null
+     */
+    public V replace(int key, V value) {
+        if (value == null)
+            throw new NullPointerException();
+        return replaceVal(key, value, null);
+    }
+
+    /**
+     * Replaces the entry for a key only if it is currently mapped to
+     * the given value.
+     *
+     * @param key key with which the specified value is associated
+     * @param oldValue value expected to be associated with the specified key
+     * @param newValue value to be associated with the specified key
+     * @return {@code true} if the value was replaced
+     * @throws NullPointerException if any of the values are null
+     */
+    public boolean replace(int key, V oldValue, V newValue) {
+        if (oldValue == null || newValue == null)
+            throw new NullPointerException();
+        return replaceVal(key, newValue, oldValue) != null;
+    }
+
+    /**
+     * Implementation for the four public remove/replace methods:
+     * Replaces the value with v, conditional upon match of cv if
+     * non-null.  If resulting value is null, delete.
+     */
+    @SuppressWarnings("unchecked")
+    final V replaceVal(int key, V value, Object cv) {
+        Object old;
+        if (key == 0) {
+            if ((old = zeroValue) == null ||
+                (cv != null && cv != old && !cv.equals(old)))
+                return null;
+            setZeroValue(value);
+        }
+        else {
+            int i = indexOf(key);
+            if (i < 0 || ((old = vals[i]) != cv && cv != null &&
+                          !cv.equals(old)))
+                return null;
+            if (value != null)
+                vals[i] = value;
+            else
+                removeAt(i);
+        }
+        return (V)old;
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * attempts to compute its value using the given mapping function
+     * and enters it into this map unless {@code null}.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param mappingFunction the function to compute a value
+     * @return the current (existing or computed) value associated with
+     *         the specified key, or null if the computed value is null
+     * @throws NullPointerException if the mappingFunction is null
+     * @throws ConcurrentModificationException if it is detected that the
+     *         mapping function modified this map
+     */
+    public V computeIfAbsent(int key,
+                             IntFunction<? extends V> mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        V v;
+        if ((v = get(key)) != null)
+            return v;
+        int mc = modCount;
+        if ((v = mappingFunction.apply(key)) != null) {
+            if (mc != modCount)
+                throw new ConcurrentModificationException();
+            if (key == 0)
+                setZeroValue(v);
+            else
+                insertAt(~indexOf(key), key, v);
+        }
+        return v;
+    }
+
+    /**
+     * Attempts to compute a mapping for the specified key from its
+     * current mapped value (or {@code null} if there is no current
+     * mapping).  If the function returns {@code null}, the mapping
+     * is removed (or remains absent if initially absent).
+     *
+     * @param key key with which the specified value is to be associated
+     * @param remappingFunction the function to compute a value, given
+     * the current value or {@code null}
+     * @return the new value associated with the specified key, or null
+     *         if none
+     * @throws NullPointerException if the remappingFunction is null
+     * @throws ConcurrentModificationException if it is detected that the
+     *         remapping function modified this map
+     */
+    public V compute(int key,
+                     Function<? super V, ? extends V> remappingFunction) {
+        if (remappingFunction == null)
+            throw new NullPointerException();
+        int mc = modCount;
+        int i = (key == 0) ? 0 : indexOf(key);
+        @SuppressWarnings("unchecked") V old =
+            (key == 0) ? (V)zeroValue : (i >= 0) ? (V)vals[i] : null;
+        V v = remappingFunction.apply(old);
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+        if (key == 0)
+            setZeroValue(v);
+        else if (i < 0) {
+            if (v != null)
+                insertAt(~i, key, v);
+        }
+        else if (v != null)
+            vals[i] = v;
+        else
+            removeAt(i);
+        return v;
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.  Otherwise, replaces the
+     * value with the results of the given remapping function, or
+     * removes if {@code null}.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value the value to use if absent
+     * @param remappingFunction the function to recompute a value if present
+     * @return the new value associated with the specified key, or null if none
+     * @throws NullPointerException if the value or remappingFunction
+     *         is null
+     * @throws ConcurrentModificationException if it is detected that the
+     *         remapping function modified this map
+     */
+    public V merge(int key, V value,
+                   BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (value == null || remappingFunction == null)
+            throw new NullPointerException();
+        return compute(key, old -> (old == null) ? value :
+                       remappingFunction.apply(old, value));
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, 0);
+            Arrays.fill(vals, null);
+            zeroValue = null;
+            size = 0;
+            ++modCount;
+        }
+    }
+
+    /**
+     * Performs the given action for each mapping in this map, passing
+     * the value and the key.
+     *
+     * @param action the action to be performed for each mapping
+     * @throws NullPointerException if the action is null
+     * @throws ConcurrentModificationException if the map is
+     *         structurally modified by the action
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(ObjIntConsumer<? super V> action) {
+        if (action == null)
+            throw new NullPointerException();
+        int mc = modCount;
+        if (zeroValue != null)
+            action.accept((V)zeroValue, 0);
+        int[] ks = keys;
+        Object[] vs = vals;
+        for (int i = 0; i < ks.length && modCount == mc; ++i) {
+            int k;
+            if ((k = ks[i]) != 0)
+                action.accept((V)vs[i], k);
+        }
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfInt} over the keys of this map.
+     * The spliterator reports {@link Spliterator#SIZED} and
+     * {@link Spliterator#DISTINCT}, and is fail-fast.
+     *
+     * @return a spliterator over the keys of this map
+     */
+    public Spliterator.OfInt keySpliterator() {
+        return new KeySpliterator(this, zeroValue != null, 0, keys.length,
+                                  size, Spliterator.SIZED |
+                                  Spliterator.DISTINCT);
+    }
+
+    /**
+     * Returns a sequential {@code IntStream} of the keys of this map.
+     *
+     * @return a stream of the keys of this map
+     */
+    public IntStream keyStream() {
+        return StreamSupport.intStream(keySpliterator(), false);
+    }
+
+    /**
+     * Compares the specified object with this map for equality.
+     * Returns {@code true} if the given object is also an
+     * {@code IntObjectHashMap} and the two maps have the same mappings.
+     *
+     * @param o object to be compared for equality with this map
+     * @return {@code true} if the specified object is equal to this map
+     */
+    public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof IntObjectHashMap))
+            return false;
+        IntObjectHashMap<?> m = (IntObjectHashMap<?>)o;
+        if (m.size != size ||
+            (zeroValue != null && !zeroValue.equals(m.zeroValue)))
+            return false;
+        int[] ks = keys;
+        Object[] vs = vals;
+        for (int i = 0; i < ks.length; ++i) {
+            int k;
+            if ((k = ks[i]) != 0 && !vs[i].equals(m.get(k)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash code value for this map, which is the same as
+     * that of a {@code Map<Integer,V>} with the same mappings.
+     *
+     * @return the hash code value for this map
+     */
+    public int hashCode() {
+        int h = (zeroValue == null) ? 0 : zeroValue.hashCode();
+        int[] ks = keys;
+        Object[] vs = vals;
+        for (int i = 0; i < ks.length; ++i) {
+            int k;
+            if ((k = ks[i]) != 0)
+                h += k ^ vs[i].hashCode();
+        }
+        return h;
+    }
+
+    /**
+     * Returns a string representation of this map, in the format of
+     * {@link AbstractMap#toString}.
+     *
+     * @return a string representation of this map
+     */
+    public String toString() {
+        StringBuilder sb = new StringBuilder().append('{');
+        forEach((v, k) -> {
+            if (sb.length() > 1)
+                sb.append(", ");
+            sb.append(k).append('=').append(v == this ? "(this Map)" : v);
+        });
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Returns a shallow copy of this map: the values themselves are
+     * not cloned.
+     *
+     * @return a shallow copy of this map
+     */
+    @SuppressWarnings("unchecked")
+    public IntObjectHashMap<V> clone() {
+        IntObjectHashMap<V> result;
+        try {
+            result = (IntObjectHashMap<V>)super.clone();
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError(e);
+        }
+        result.keys = keys.clone();
+        result.vals = vals.clone();
+        result.modCount = 0;
+        return result;
+    }
+
+    /**
+     * Saves this map to a stream.
+     *
+     * @serialData The number of mappings (int) is emitted, followed
+     *             by the key (int) and value (Object) of each mapping.
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws IOException {
+        s.defaultWriteObject();
+        s.writeInt(size);
+        if (zeroValue != null) {
+            s.writeInt(0);
+            s.writeObject(zeroValue);
+        }
+        int[] ks = keys;
+        Object[] vs = vals;
+        for (int i = 0; i < ks.length; ++i) {
+            if (ks[i] != 0) {
+                s.writeInt(ks[i]);
+                s.writeObject(vs[i]);
+            }
+        }
+    }
+
+    /**
+     * Reconstitutes this map from a stream.
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(java.io.ObjectInputStream s)
+        throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new InvalidObjectException("Illegal load factor: " +
+                                             loadFactor);
+        int n = s.readInt();
+        if (n < 0)
+            throw new InvalidObjectException("Illegal mappings count: " + n);
+        allocate(IntIntHashMap.tableSizeFor(n, loadFactor));
+        for (int i = 0; i < n; ++i) {
+            int k = s.readInt();
+            V v = (V)s.readObject();
+            if (v == null)
+                throw new InvalidObjectException("Null value");
+            put(k, v);
+        }
+    }
+
+    /**
+     * Spliterator over the keys of slots [index, fence) of the table,
+     * preceded by key zero if zero is set.
+     */
+    static final class KeySpliterator implements Spliterator.OfInt {
+        final IntObjectHashMap<?> map;
+        final int[] keys;
+        final int expectedModCount;
+        final int characteristics;
+        boolean zero;               // key zero not yet traversed
+        int index, fence;           // range of slots
+        int est;                    // size estimate
+
+        KeySpliterator(IntObjectHashMap<?> map, boolean zero, int index,
+                       int fence, int est, int characteristics) {
+            this.map = map;
+            this.keys = map.keys;
+            this.zero = zero;
+            this.index = index;
+            this.fence = fence;
+            this.est = est;
+            this.expectedModCount = map.modCount;
+            this.characteristics = characteristics;
+        }
+
+        public KeySpliterator trySplit() {
+            int lo = index, mid = (lo + fence) >>> 1;
+            if (lo >= mid)
+                return null;
+            boolean z = zero;
+            zero = false;
+            index = mid;
+            return new KeySpliterator(map, z, lo, mid, est >>>= 1,
+                                      characteristics & ~Spliterator.SIZED);
+        }
+
+        public boolean tryAdvance(IntConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            if (map.modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (zero) {
+                zero = false;
+                action.accept(0);
+                return true;
+            }
+            int[] ks = keys;
+            while (index < fence) {
+                int k = ks[index++];
+                if (k != 0) {
+                    action.accept(k);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public void forEachRemaining(IntConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            int[] ks = keys;
+            if (zero) {
+                zero = false;
+                action.accept(0);
+            }
+            int i = index, hi = fence;
+            index = hi;
+            for (; i < hi; ++i) {
+                int k;
+                if ((k = ks[i]) != 0)
+                    action.accept(k);
+            }
+            if (map.modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+        }
+
+        public long estimateSize() {
+            return est;
+        }
+
+        public int characteristics() {
+            return characteristics;
+        }
+    }
+}
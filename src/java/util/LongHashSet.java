@@ -0,0 +1,570 @@
+/*
+ * Copyright (c) 1997, 2017, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.Serializable;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Hash table set of primitive {@code long} values.  This class
+ * provides the commonly used operations of {@link HashSet} for
+ * {@code long} elements, but stores them unboxed in an open-addressed
+ * array, so that no {@code Long} or entry object is allocated per
+ * element.  A set of {@code n} elements thus occupies little more
+ * than {@code 8n / loadFactor} bytes.
+ *
+ * <p>This implementation provides constant-time performance for the
+ * basic operations ({@code add}, {@code remove} and {@code contains}),
+ * assuming the elements are not specially chosen to collide.
+ * Traversal requires time proportional to the capacity of the table
+ * plus its size.  As with {@code HashSet}, the <i>load factor</i>
+ * bounds how full the table may become before its capacity is
+ * doubled; it must be less than one.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * If multiple threads access a set concurrently, and at least one of
+ * the threads modifies the set, it <i>must</i> be synchronized
+ * externally.
+ *
+ * <p>The iterators and spliterators returned by this class are
+ * <i>fail-fast</i>: if the set is modified after their creation, a
+ * {@link ConcurrentModificationException} is thrown on a best-effort
+ * basis.  The iterators do not support removal.
+ *
+ * @see HashSet
+ * @see LongObjectHashMap
+ * @since 1.8
+ */
+public class LongHashSet implements Cloneable, Serializable {
+
+    private static final long serialVersionUID = -3396204286627183946L;
+
+    /*
+     * The table is organized as described for IntIntHashMap, without
+     * the values.
+     */
+
+    /** The default initial capacity, in elements */
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /** The maximum table length */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /** The default load factor */
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /** Elements of the table, zero for empty slots */
+    transient long[] keys;
+
+    /** Whether zero is an element */
+    transient boolean hasZero;
+
+    /** The number of elements, including zero */
+    transient int size;
+
+    /** The number of modifications, for fail-fast traversal */
+    transient int modCount;
+
+    /** The size at which the table is next doubled */
+    transient int threshold;
+
+    /**
+     * The load factor for the hash table.
+     *
+     * @serial
+     */
+    final float loadFactor;
+
+    /**
+     * Constructs an empty set with the specified initial capacity and
+     * load factor.
+     *
+     * @param  initialCapacity the number of elements the set can hold
+     *         without resizing
+     * @param  loadFactor      the load factor
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is not greater than zero and less than one
+     */
+    public LongHashSet(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        this.loadFactor = loadFactor;
+        allocate(IntIntHashMap.tableSizeFor(initialCapacity, loadFactor));
+    }
+
+    /**
+     * Constructs an empty set with the specified initial capacity and
+     * the default load factor (0.75).
+     *
+     * @param  initialCapacity the number of elements the set can hold
+     *         without resizing
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public LongHashSet(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty set with the default initial capacity (16)
+     * and the default load factor (0.75).
+     */
+    public LongHashSet() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    /** Creates an empty array of length n, and sets the threshold */
+    final void allocate(int n) {
+        keys = new long[n];
+        threshold = Math.min((int)(n * loadFactor), n - 1);
+    }
+
+    /**
+     * Returns the slot of the element, or if absent, ~slot of the
+     * empty slot where it would be inserted.  Not used for zero.
+     */
+    final int indexOf(long e) {
+        long[] ks = keys;
+        int m = ks.length - 1, i = LongObjectHashMap.spread(e) & m;
+        for (long k; (k = ks[i]) != 0L; i = (i + 1) & m) {
+            if (k == e)
+                return i;
+        }
+        return ~i;
+    }
+
+    /** Doubles the table, or if already maximal, uses its last free slot */
+    final void resize() {
+        long[] oks = keys;
+        int n = oks.length;
+        if (n >= MAXIMUM_CAPACITY) {
+            if (threshold >= n - 1)
+                throw new IllegalStateException("Set is full");
+            threshold = n - 1;
+            return;
+        }
+        allocate(n << 1);
+        long[] ks = keys;
+        int m = ks.length - 1;
+        for (long k : oks) {
+            if (k != 0L) {
+                int i = LongObjectHashMap.spread(k) & m;
+                while (ks[i] != 0L)
+                    i = (i + 1) & m;
+                ks[i] = k;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of elements in this set.
+     *
+     * @return the number of elements in this set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this set contains no elements.
+     *
+     * @return {@code true} if this set contains no elements
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns {@code true} if this set contains the specified element.
+     *
+     * @param e element whose presence in this set is to be tested
+     * @return {@code true} if this set contains the specified element
+     */
+    public boolean contains(long e) {
+        if (e == 0L)
+            return hasZero;
+        long[] ks = keys;
+        int m = ks.length - 1;
+        long k;
+        for (int i = LongObjectHashMap.spread(e) & m; (k = ks[i]) != 0L;
+             i = (i + 1) & m) {
+            if (k == e)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds the specified element to this set if it is not already
+     * present.
+     *
+     * @param e element to be added to this set
+     * @return {@code true} if this set did not already contain the
+     *         specified element
+     */
+    public boolean add(long e) {
+        if (e == 0L) {
+            if (hasZero)
+                return false;
+            hasZero = true;
+        }
+        else {
+            int i = indexOf(e);
+            if (i >= 0)
+                return false;
+            if (size >= threshold) {
+                resize();
+                i = indexOf(e);
+            }
+            keys[~i] = e;
+        }
+        ++size;
+        ++modCount;
+        return true;
+    }
+
+    /**
+     * Adds all of the given elements to this set.
+     *
+     * @param es the elements to be added to this set
+     * @return {@code true} if this set changed as a result of the call
+     * @throws NullPointerException if the array is null
+     */
+    public boolean addAll(long... es) {
+        boolean modified = false;
+        for (long e : es) {
+            if (add(e))
+                modified = true;
+        }
+        return modified;
+    }
+
+    /**
+     * Removes the specified element from this set if it is present.
+     *
+     * @param e element to be removed from this set, if present
+     * @return {@code true} if the set contained the specified element
+     */
+    public boolean remove(long e) {
+        if (e == 0L) {
+            if (!hasZero)
+                return false;
+            hasZero = false;
+        }
+        else {
+            int i = indexOf(e);
+            if (i < 0)
+                return false;
+            long[] ks = keys;
+            int m = ks.length - 1;
+            for (int j = i;;) {     // backward shift deletion
+                j = (j + 1) & m;
+                long k = ks[j];
+                if (k == 0L)
+                    break;
+                int ideal = LongObjectHashMap.spread(k) & m;
+                if (((j - ideal) & m) >= ((j - i) & m)) {
+                    ks[i] = k;
+                    i = j;
+                }
+            }
+            ks[i] = 0L;
+        }
+        --size;
+        ++modCount;
+        return true;
+    }
+
+    /**
+     * Removes all of the elements from this set.
+     */
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, 0L);
+            hasZero = false;
+            size = 0;
+            ++modCount;
+        }
+    }
+
+    /**
+     * Performs the given action for each element of this set.
+     *
+     * @param action the action to be performed for each element
+     * @throws NullPointerException if the action is null
+     * @throws ConcurrentModificationException if the set is
+     *         modified by the action
+     */
+    public void forEach(LongConsumer action) {
+        spliterator().forEachRemaining(action);
+    }
+
+    /**
+     * Returns an iterator over the elements in this set.  The
+     * iterator does not support removal.
+     *
+     * @return an iterator over the elements in this set
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfLong} over the elements in this
+     * set.  The spliterator reports {@link Spliterator#SIZED} and
+     * {@link Spliterator#DISTINCT}, and is fail-fast.
+     *
+     * @return a spliterator over the elements in this set
+     */
+    public Spliterator.OfLong spliterator() {
+        return new SetSpliterator(this, hasZero, 0, keys.length, size,
+                                  Spliterator.SIZED | Spliterator.DISTINCT);
+    }
+
+    /**
+     * Returns a sequential {@code LongStream} of the elements in this
+     * set.
+     *
+     * @return a stream of the elements in this set
+     */
+    public LongStream stream() {
+        return StreamSupport.longStream(spliterator(), false);
+    }
+
+    /**
+     * Returns an array containing all of the elements in this set.
+     *
+     * @return an array containing all of the elements in this set
+     */
+    public long[] toArray() {
+        long[] a = new long[size];
+        int j = 0;
+        if (hasZero)
+            ++j;                    // a[0] == 0L
+        for (long k : keys) {
+            if (k != 0L)
+                a[j++] = k;
+        }
+        return a;
+    }
+
+    /**
+     * Compares the specified object with this set for equality.
+     * Returns {@code true} if the given object is also an
+     * {@code LongHashSet} and the two sets have the same elements.
+     *
+     * @param o object to be compared for equality with this set
+     * @return {@code true} if the specified object is equal to this set
+     */
+    public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof LongHashSet))
+            return false;
+        LongHashSet s = (LongHashSet)o;
+        if (s.size != size || s.hasZero != hasZero)
+            return false;
+        for (long k : keys) {
+            if (k != 0L && s.indexOf(k) < 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash code value for this set, which is the same as
+     * that of a {@code Set<Long>} with the same elements.
+     *
+     * @return the hash code value for this set
+     */
+    public int hashCode() {
+        int h = 0;
+        for (long k : keys)
+            h += Long.hashCode(k);
+        return h;
+    }
+
+    /**
+     * Returns a string representation of this set, in the format of
+     * {@link AbstractCollection#toString}.
+     *
+     * @return a string representation of this set
+     */
+    public String toString() {
+        StringBuilder sb = new StringBuilder().append('[');
+        forEach(e -> {
+            if (sb.length() > 1)
+                sb.append(", ");
+            sb.append(e);
+        });
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Returns a copy of this set.
+     *
+     * @return a copy of this set
+     */
+    public LongHashSet clone() {
+        LongHashSet result;
+        try {
+            result = (LongHashSet)super.clone();
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError(e);
+        }
+        result.keys = keys.clone();
+        result.modCount = 0;
+        return result;
+    }
+
+    /**
+     * Saves this set to a stream.
+     *
+     * @serialData The number of elements (int) is emitted, followed
+     *             by each element (long).
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws IOException {
+        s.defaultWriteObject();
+        s.writeInt(size);
+        if (hasZero)
+            s.writeLong(0L);
+        for (long k : keys) {
+            if (k != 0L)
+                s.writeLong(k);
+        }
+    }
+
+    /**
+     * Reconstitutes this set from a stream.
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new InvalidObjectException("Illegal load factor: " +
+                                             loadFactor);
+        int n = s.readInt();
+        if (n < 0)
+            throw new InvalidObjectException("Illegal size: " + n);
+        allocate(IntIntHashMap.tableSizeFor(n, loadFactor));
+        for (int i = 0; i < n; ++i)
+            add(s.readLong());
+    }
+
+    /**
+     * Spliterator over the elements in slots [index, fence) of the
+     * table, preceded by zero if zero is set.
+     */
+    static final class SetSpliterator implements Spliterator.OfLong {
+        final LongHashSet set;
+        final long[] keys;
+        final int expectedModCount;
+        final int characteristics;
+        boolean zero;               // zero not yet traversed
+        int index, fence;           // range of slots
+        int est;                    // size estimate
+
+        SetSpliterator(LongHashSet set, boolean zero, int index, int fence,
+                       int est, int characteristics) {
+            this.set = set;
+            this.keys = set.keys;
+            this.zero = zero;
+            this.index = index;
+            this.fence = fence;
+            this.est = est;
+            this.expectedModCount = set.modCount;
+            this.characteristics = characteristics;
+        }
+
+        public SetSpliterator trySplit() {
+            int lo = index, mid = (lo + fence) >>> 1;
+            if (lo >= mid)
+                return null;
+            boolean z = zero;
+            zero = false;
+            index = mid;
+            return new SetSpliterator(set, z, lo, mid, est >>>= 1,
+                                      characteristics & ~Spliterator.SIZED);
+        }
+
+        public boolean tryAdvance(LongConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            if (set.modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (zero) {
+                zero = false;
+                action.accept(0L);
+                return true;
+            }
+            long[] ks = keys;
+            while (index < fence) {
+                long k = ks[index++];
+                if (k != 0L) {
+                    action.accept(k);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public void forEachRemaining(LongConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            long[] ks = keys;
+            if (zero) {
+                zero = false;
+                action.accept(0L);
+            }
+            int i = index, hi = fence;
+            index = hi;
+            for (; i < hi; ++i) {
+                long k;
+                if ((k = ks[i]) != 0L)
+                    action.accept(k);
+            }
+            if (set.modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+        }
+
+        public long estimateSize() {
+            return est;
+        }
+
+        public int characteristics() {
+            return characteristics;
+        }
+    }
+}
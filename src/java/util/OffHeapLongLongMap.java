@@ -0,0 +1,501 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.function.LongLongConsumer;
+
+/**
+ * Hash table mapping primitive {@code long} keys to {@code long}
+ * values, stored outside the Java heap.  Entries are kept in an
+ * open-addressed table of 16-byte slots in direct byte buffers, or in
+ * buffers mapped from a file, so a map of hundreds of millions of
+ * entries adds nothing to the work of the garbage collector.  As with
+ * {@link LongObjectHashMap}, all {@code long} values, including zero,
+ * may be used as keys, and {@link #get} returns zero for absent keys.
+ * The table is doubled when it becomes three quarters full.
+ *
+ * <p>The memory of a map is released by {@link #close}, not by the
+ * garbage collector, and a closed map throws
+ * {@link IllegalStateException} if used.
+ *
+ * <p>A map constructed with a {@link FileChannel} keeps its entries in
+ * that file, and can be reopened with the same entries by constructing
+ * a map with a channel for the same file.  Changes are written back to
+ * the file by the operating system, and {@link #force} writes them
+ * to the storage device.  The file is laid out in native byte order.
+ * Doubling the table of a file-backed map builds the new table in
+ * direct memory before copying it into the file, which is extended;
+ * if this fails, {@link java.io.UncheckedIOException} is thrown.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * If multiple threads access a map concurrently, and at least one of
+ * the threads modifies the map structurally, it <i>must</i> be
+ * synchronized externally.  Traversal by {@link #forEach} is
+ * <i>fail-fast</i>: if the map is structurally modified during
+ * traversal, a {@link ConcurrentModificationException} is thrown on a
+ * best-effort basis.
+ *
+ * @see LongObjectHashMap
+ * @see OffHeapRecordList
+ * @see OffHeapLongSortedSet
+ * @since 1.8
+ */
+public class OffHeapLongLongMap implements Closeable {
+
+    /** Identifies files holding maps: "OHLLMAP1" */
+    static final long MAGIC = 0x4F484C4C4D415031L;
+
+    /** Header slots */
+    static final int SIZE = 3, HAS_ZERO_KEY = 4, ZERO_VALUE = 5;
+
+    /** Layout of entries */
+    static final int KEY = 0, VALUE = 8, ENTRY_SIZE = 16;
+
+    /** The minimum, and default, capacity of the table */
+    static final long MIN_CAPACITY = 16L;
+
+    /** The maximum capacity of the table */
+    static final long MAXIMUM_CAPACITY = 1L << 40;
+
+    /** The table, or null if closed */
+    private OffHeapStorage storage;
+
+    /** The capacity of the table minus one */
+    private long mask;
+
+    /** The number of nonzero keys at which to double the table */
+    private long threshold;
+
+    /** The number of mappings, including any for key zero */
+    private long size;
+
+    /** Whether key zero is mapped, and its value, held apart */
+    private boolean hasZeroKey;
+    private long zeroValue;
+
+    /** The number of structural modifications */
+    private int modCount;
+
+    /** Returns the capacity to hold the given number of mappings */
+    static long capacityFor(long expectedSize) {
+        if (expectedSize < 0)
+            throw new IllegalArgumentException("Illegal expected size: " +
+                                               expectedSize);
+        long c = MIN_CAPACITY;
+        while (c < MAXIMUM_CAPACITY && c - (c >>> 2) <= expectedSize)
+            c <<= 1;
+        return c;
+    }
+
+    /** Spreads the bits of a key over the index */
+    static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    /**
+     * Constructs an empty map, in direct memory, with room for the
+     * specified number of mappings.
+     *
+     * @param expectedSize the number of mappings the map can hold
+     *        without doubling its table
+     * @throws IllegalArgumentException if the expected size is negative
+     */
+    public OffHeapLongLongMap(long expectedSize) {
+        init(OffHeapStorage.allocate(MAGIC, ENTRY_SIZE,
+                                     capacityFor(expectedSize)));
+    }
+
+    /**
+     * Constructs an empty map, in direct memory, with the default
+     * capacity (16).
+     */
+    public OffHeapLongLongMap() {
+        this(0L);
+    }
+
+    /**
+     * Constructs a map held in the file of the specified channel,
+     * which must be open for reading and writing.  If the file is
+     * empty, the map is empty, with room for the specified number of
+     * mappings; otherwise, the file must hold a map, whose mappings
+     * this map has.  Closing the map does not close the channel.
+     *
+     * @param channel the channel of the file holding the map
+     * @param expectedSize the number of mappings a new map can hold
+     *        without doubling its table
+     * @throws IOException if the file is not empty and does not hold
+     *         a map, or if an I/O error occurs
+     * @throws IllegalArgumentException if the expected size is negative
+     */
+    public OffHeapLongLongMap(FileChannel channel, long expectedSize)
+        throws IOException {
+        OffHeapStorage s = OffHeapStorage.map(channel, MAGIC, ENTRY_SIZE,
+                                              capacityFor(expectedSize));
+        long c = s.capacity();
+        if (c < MIN_CAPACITY || (c & (c - 1)) != 0) {
+            s.close();
+            throw new IOException("Corrupt map file");
+        }
+        init(s);
+    }
+
+    private void init(OffHeapStorage s) {
+        long c = s.capacity();
+        storage = s;
+        mask = c - 1;
+        threshold = c - (c >>> 2);
+        size = s.getHeader(SIZE);
+        hasZeroKey = s.getHeader(HAS_ZERO_KEY) != 0L;
+        zeroValue = s.getHeader(ZERO_VALUE);
+    }
+
+    private OffHeapStorage storage() {
+        OffHeapStorage s = storage;
+        if (s == null)
+            throw new IllegalStateException("Map is closed");
+        return s;
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public long size() {
+        storage();
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     *
+     * @return {@code true} if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size() == 0L;
+    }
+
+    /**
+     * Returns the slot holding the given nonzero key, or if absent,
+     * the complement of the empty slot at which to insert it.
+     */
+    private long indexOf(OffHeapStorage s, long key) {
+        long m = mask;
+        for (long i = mix(key) & m;; i = (i + 1) & m) {
+            long k = s.getLong(i, KEY);
+            if (k == key)
+                return i;
+            if (k == 0L)
+                return ~i;
+        }
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or zero
+     * if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or zero
+     */
+    public long get(long key) {
+        return getOrDefault(key, 0L);
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or the
+     * given default value if this map contains no mapping for the
+     * key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the value to return if this map contains
+     * no mapping for the given key
+     * @return the mapping for the key, if present; else the default value
+     */
+    public long getOrDefault(long key, long defaultValue) {
+        OffHeapStorage s = storage();
+        if (key == 0L)
+            return hasZeroKey ? zeroValue : defaultValue;
+        long i = indexOf(s, key);
+        return (i >= 0L) ? s.getLong(i, VALUE) : defaultValue;
+    }
+
+    /**
+     * Returns {@code true} if this map contains a mapping for the
+     * specified key.
+     *
+     * @param key possible key
+     * @return {@code true} if this map contains a mapping for the key
+     */
+    public boolean containsKey(long key) {
+        OffHeapStorage s = storage();
+        return (key == 0L) ? hasZeroKey : indexOf(s, key) >= 0L;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this
+     * map, replacing any previous value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with {@code key}, or
+     *         zero if there was no mapping for {@code key}
+     */
+    public long put(long key, long value) {
+        OffHeapStorage s = storage();
+        if (key == 0L) {
+            long old = zeroValue;
+            if (!hasZeroKey)
+                setZeroKey(s, true);
+            s.putHeader(ZERO_VALUE, zeroValue = value);
+            return old;
+        }
+        long i = indexOf(s, key);
+        if (i < 0L) {
+            insertAt(s, ~i, key, value);
+            return 0L;
+        }
+        long old = s.getLong(i, VALUE);
+        s.putLong(i, VALUE, value);
+        return old;
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return {@code true} if the mapping was added
+     */
+    public boolean putIfAbsent(long key, long value) {
+        OffHeapStorage s = storage();
+        if (key == 0L) {
+            if (hasZeroKey)
+                return false;
+            setZeroKey(s, true);
+            s.putHeader(ZERO_VALUE, zeroValue = value);
+            return true;
+        }
+        long i = indexOf(s, key);
+        if (i >= 0L)
+            return false;
+        insertAt(s, ~i, key, value);
+        return true;
+    }
+
+    /**
+     * Adds the given delta to the value mapped to the specified key,
+     * treating an absent mapping as zero, and returns the new value.
+     *
+     * @param key the key whose value is to be updated
+     * @param delta the amount to add
+     * @return the new value associated with the key
+     */
+    public long addAndGet(long key, long delta) {
+        OffHeapStorage s = storage();
+        long v;
+        if (key == 0L) {
+            if (!hasZeroKey)
+                setZeroKey(s, true);
+            s.putHeader(ZERO_VALUE, v = zeroValue += delta);
+        } else {
+            long i = indexOf(s, key);
+            if (i < 0L)
+                insertAt(s, ~i, key, v = delta);
+            else
+                s.putLong(i, VALUE, v = s.getLong(i, VALUE) + delta);
+        }
+        return v;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if
+     * present.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return {@code true} if a mapping was removed
+     */
+    public boolean remove(long key) {
+        OffHeapStorage s = storage();
+        if (key == 0L) {
+            if (!hasZeroKey)
+                return false;
+            setZeroKey(s, false);
+            s.putHeader(ZERO_VALUE, zeroValue = 0L);
+            return true;
+        }
+        long i = indexOf(s, key);
+        if (i < 0L)
+            return false;
+        removeAt(s, i);
+        return true;
+    }
+
+    private void setZeroKey(OffHeapStorage s, boolean present) {
+        hasZeroKey = present;
+        s.putHeader(HAS_ZERO_KEY, present ? 1L : 0L);
+        s.putHeader(SIZE, present ? ++size : --size);
+        ++modCount;
+    }
+
+    private void insertAt(OffHeapStorage s, long i, long key, long value) {
+        long keys = hasZeroKey ? size : size + 1;
+        if (keys > threshold) {
+            resize();
+            s = storage;
+            i = ~indexOf(s, key);
+        }
+        s.putLong(i, KEY, key);
+        s.putLong(i, VALUE, value);
+        s.putHeader(SIZE, ++size);
+        ++modCount;
+    }
+
+    /** Removes the entry at slot i, shifting back later colliding entries */
+    private void removeAt(OffHeapStorage s, long i) {
+        long m = mask;
+        for (long j = i;;) {
+            j = (j + 1) & m;
+            long k = s.getLong(j, KEY);
+            if (k == 0L)
+                break;
+            long ideal = mix(k) & m;
+            if (((j - ideal) & m) >= ((j - i) & m)) {
+                s.putLong(i, KEY, k);
+                s.putLong(i, VALUE, s.getLong(j, VALUE));
+                i = j;
+            }
+        }
+        s.putLong(i, KEY, 0L);
+        s.putLong(i, VALUE, 0L);
+        s.putHeader(SIZE, --size);
+        ++modCount;
+    }
+
+    /** Doubles the table */
+    private void resize() {
+        OffHeapStorage s = storage;
+        long oldCap = mask + 1, newCap = oldCap << 1;
+        if (oldCap >= MAXIMUM_CAPACITY)
+            throw new IllegalStateException("Map is full");
+        OffHeapStorage t = OffHeapStorage.allocate(MAGIC, ENTRY_SIZE, newCap);
+        long m = newCap - 1;
+        for (long j = 0L; j < oldCap; ++j) {
+            long k = s.getLong(j, KEY);
+            if (k != 0L) {
+                long i = mix(k) & m;
+                while (t.getLong(i, KEY) != 0L)
+                    i = (i + 1) & m;
+                t.putLong(i, KEY, k);
+                t.putLong(i, VALUE, s.getLong(j, VALUE));
+            }
+        }
+        if (s.isMapped()) {
+            try {
+                s.ensureCapacity(newCap);
+                s.copyFrom(t, newCap);
+            } finally {
+                t.close();
+            }
+        } else {
+            for (int h = SIZE; h < OffHeapStorage.HEADER_SLOTS; ++h)
+                t.putHeader(h, s.getHeader(h));
+            s.close();
+            storage = t;
+        }
+        mask = m;
+        threshold = newCap - (newCap >>> 2);
+    }
+
+    /**
+     * Removes all of the mappings from this map.  The capacity of the
+     * table is unchanged.
+     */
+    public void clear() {
+        OffHeapStorage s = storage();
+        if (size > 0L) {
+            s.zero(0L, mask + 1);
+            hasZeroKey = false;
+            zeroValue = size = 0L;
+            s.putHeader(HAS_ZERO_KEY, 0L);
+            s.putHeader(ZERO_VALUE, 0L);
+            s.putHeader(SIZE, 0L);
+            ++modCount;
+        }
+    }
+
+    /**
+     * Performs the given action for each mapping in this map, in no
+     * particular order, until all have been processed or the action
+     * throws an exception.
+     *
+     * @param action the action to be performed for each mapping
+     * @throws NullPointerException if the specified action is null
+     * @throws ConcurrentModificationException if the map is modified
+     *         by the action
+     */
+    public void forEach(LongLongConsumer action) {
+        if (action == null)
+            throw new NullPointerException();
+        OffHeapStorage s = storage();
+        int mc = modCount;
+        if (hasZeroKey)
+            action.accept(0L, zeroValue);
+        for (long j = 0L, n = mask + 1; j < n && modCount == mc; ++j) {
+            long k = s.getLong(j, KEY);
+            if (k != 0L)
+                action.accept(k, s.getLong(j, VALUE));
+        }
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Writes any changes to a file-backed map to the storage device
+     * holding the file.  Has no effect on a map in direct memory.
+     */
+    public void force() {
+        storage().force();
+    }
+
+    /**
+     * Releases the memory, or the mapping of the file, holding this
+     * map.  Once a map is closed, its methods other than {@code close}
+     * throw {@link IllegalStateException}.  Closing a closed map has no
+     * effect.
+     */
+    public void close() {
+        OffHeapStorage s = storage;
+        if (s != null) {
+            storage = null;
+            s.close();
+        }
+    }
+}
@@ -0,0 +1,422 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.function.LongConsumer;
+
+/**
+ * Sorted set of primitive {@code long} values, stored outside the
+ * Java heap.  Elements are kept in ascending order in a contiguous
+ * array in direct byte buffers, or in buffers mapped from a file, so
+ * a set of hundreds of millions of elements adds nothing to the work
+ * of the garbage collector, and takes eight bytes per element.
+ *
+ * <p>Membership is tested by binary search.  Elements added one at a
+ * time are first held in a small {@link LongHashSet} on the heap, and
+ * merged into the sorted array when that holds an eighth as many
+ * elements as the array (but not more than about a million), so that
+ * adding takes amortized constant time.  Adding many elements at once
+ * with {@link #addAll} sorts and merges them directly.  Removing an
+ * element from the sorted array takes time linear in the number of
+ * elements after it.  Traversal, and methods that depend on order,
+ * first merge any added elements.
+ *
+ * <p>The memory of a set is released by {@link #close}, not by the
+ * garbage collector, and a closed set throws
+ * {@link IllegalStateException} if used.
+ *
+ * <p>A set constructed with a {@link FileChannel} keeps its elements
+ * in that file, and can be reopened with the same elements by
+ * constructing a set with a channel for the same file.  Elements
+ * added but not yet merged are only written to the file by
+ * {@link #force} and {@link #close}, which merge them first.  The file
+ * is laid out in native byte order; if extending it fails,
+ * {@link java.io.UncheckedIOException} is thrown.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * If multiple threads access a set concurrently, and at least one of
+ * the threads modifies it, it <i>must</i> be synchronized externally.
+ * Traversal is <i>fail-fast</i>: if the set is modified during
+ * traversal, a {@link ConcurrentModificationException} is thrown on a
+ * best-effort basis.
+ *
+ * @see OffHeapLongLongMap
+ * @see OffHeapRecordList
+ * @since 1.8
+ */
+public class OffHeapLongSortedSet implements Closeable {
+
+    /** Identifies files holding sorted sets: "OHLSSET1" */
+    static final long MAGIC = 0x4F484C5353455431L;
+
+    /** Header slots */
+    static final int SIZE = 3;
+
+    /** The default capacity */
+    static final long DEFAULT_CAPACITY = 16L;
+
+    /** The size of an element, in bytes */
+    static final int ELEMENT_SIZE = 8;
+
+    /** The number of pending elements that is always allowed */
+    static final int MIN_PENDING = 1 << 12;
+
+    /** The number of pending elements that forces a merge */
+    static final int MAX_PENDING = 1 << 20;
+
+    /** The sorted elements, or null if closed */
+    private OffHeapStorage storage;
+
+    /** The number of sorted elements */
+    private long count;
+
+    /** Added elements not yet merged; none are in the sorted array */
+    private final LongHashSet pending = new LongHashSet();
+
+    /** The number of modifications, for fail-fast traversal */
+    private int modCount;
+
+    /**
+     * Constructs an empty set, in direct memory, with room for the
+     * specified number of sorted elements.
+     *
+     * @param initialCapacity the number of elements the set can hold
+     *        without growing
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public OffHeapLongSortedSet(long initialCapacity) {
+        if (initialCapacity < 0L)
+            throw new IllegalArgumentException("Illegal capacity: " +
+                                               initialCapacity);
+        storage = OffHeapStorage.allocate(MAGIC, ELEMENT_SIZE,
+                                          initialCapacity);
+    }
+
+    /**
+     * Constructs an empty set, in direct memory, with the default
+     * initial capacity (16).
+     */
+    public OffHeapLongSortedSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a set held in the file of the specified channel,
+     * which must be open for reading and writing.  If the file is
+     * empty, the set is empty; otherwise the file must hold a set,
+     * whose elements this set has.  Closing the set does not close
+     * the channel.
+     *
+     * @param channel the channel of the file holding the set
+     * @throws IOException if the file is not empty and does not hold
+     *         a set, or if an I/O error occurs
+     */
+    public OffHeapLongSortedSet(FileChannel channel) throws IOException {
+        OffHeapStorage s = OffHeapStorage.map(channel, MAGIC, ELEMENT_SIZE,
+                                              DEFAULT_CAPACITY);
+        long n = s.getHeader(SIZE);
+        if (n < 0L || n > s.capacity()) {
+            s.close();
+            throw new IOException("Corrupt sorted set file");
+        }
+        storage = s;
+        count = n;
+    }
+
+    private OffHeapStorage storage() {
+        OffHeapStorage s = storage;
+        if (s == null)
+            throw new IllegalStateException("Set is closed");
+        return s;
+    }
+
+    /**
+     * Returns the index of the key in the sorted elements, or if
+     * absent, the complement of the index at which it would be
+     * inserted, as for {@link Arrays#binarySearch(long[], long)}.
+     */
+    private long search(OffHeapStorage s, long key) {
+        long lo = 0L, hi = count - 1;
+        while (lo <= hi) {
+            long mid = (lo + hi) >>> 1;
+            long v = s.getLong(mid, 0);
+            if (v < key)
+                lo = mid + 1;
+            else if (v > key)
+                hi = mid - 1;
+            else
+                return mid;
+        }
+        return ~lo;
+    }
+
+    /**
+     * Returns the number of elements in this set.
+     *
+     * @return the number of elements in this set
+     */
+    public long size() {
+        storage();
+        return count + pending.size();
+    }
+
+    /**
+     * Returns {@code true} if this set contains no elements.
+     *
+     * @return {@code true} if this set contains no elements
+     */
+    public boolean isEmpty() {
+        return size() == 0L;
+    }
+
+    /**
+     * Returns {@code true} if this set contains the specified element.
+     *
+     * @param e element whose presence in this set is to be tested
+     * @return {@code true} if this set contains the specified element
+     */
+    public boolean contains(long e) {
+        OffHeapStorage s = storage();
+        return pending.contains(e) || search(s, e) >= 0L;
+    }
+
+    /**
+     * Adds the specified element to this set if it is not already
+     * present.
+     *
+     * @param e element to be added to this set
+     * @return {@code true} if this set did not already contain the
+     *         specified element
+     */
+    public boolean add(long e) {
+        OffHeapStorage s = storage();
+        if (search(s, e) >= 0L || !pending.add(e))
+            return false;
+        ++modCount;
+        int n = pending.size();
+        if (n >= MIN_PENDING && (n >= MAX_PENDING || n >= (count >>> 3)))
+            merge(s);
+        return true;
+    }
+
+    /**
+     * Adds all of the specified elements to this set, sorting those
+     * not already present and merging them into the sorted elements.
+     *
+     * @param es elements to be added to this set
+     * @return {@code true} if this set changed as a result of the call
+     * @throws NullPointerException if the specified array is null
+     */
+    public boolean addAll(long... es) {
+        OffHeapStorage s = storage();
+        merge(s);
+        long[] a = es.clone();
+        Arrays.sort(a);
+        int k = 0;
+        for (int i = 0; i < a.length; ++i) {
+            long e = a[i];
+            if ((k == 0 || a[k - 1] != e) && search(s, e) < 0L)
+                a[k++] = e;
+        }
+        if (k == 0)
+            return false;
+        mergeSorted(s, a, k);
+        return true;
+    }
+
+    /**
+     * Removes the specified element from this set if it is present.
+     *
+     * @param e element to be removed from this set, if present
+     * @return {@code true} if this set contained the specified element
+     */
+    public boolean remove(long e) {
+        OffHeapStorage s = storage();
+        if (!pending.remove(e)) {
+            long i = search(s, e);
+            if (i < 0L)
+                return false;
+            for (long n = count - 1; i < n; ++i)
+                s.putLong(i, 0, s.getLong(i + 1, 0));
+            s.putHeader(SIZE, --count);
+        }
+        ++modCount;
+        return true;
+    }
+
+    /**
+     * Returns the first (lowest) element currently in this set.
+     *
+     * @return the first (lowest) element currently in this set
+     * @throws NoSuchElementException if this set is empty
+     */
+    public long first() {
+        OffHeapStorage s = storage();
+        merge(s);
+        if (count == 0L)
+            throw new NoSuchElementException();
+        return s.getLong(0L, 0);
+    }
+
+    /**
+     * Returns the last (highest) element currently in this set.
+     *
+     * @return the last (highest) element currently in this set
+     * @throws NoSuchElementException if this set is empty
+     */
+    public long last() {
+        OffHeapStorage s = storage();
+        merge(s);
+        if (count == 0L)
+            throw new NoSuchElementException();
+        return s.getLong(count - 1, 0);
+    }
+
+    /**
+     * Returns an iterator over the elements in this set, in ascending
+     * order.  The iterator does not support removal.
+     *
+     * @return an iterator over the elements in this set
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        final OffHeapStorage s = storage();
+        merge(s);
+        return new PrimitiveIterator.OfLong() {
+            private final int expectedModCount = modCount;
+            private long next;
+            public boolean hasNext() {
+                return next < count;
+            }
+            public long nextLong() {
+                if (storage == null)
+                    throw new IllegalStateException("Set is closed");
+                if (modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+                if (next >= count)
+                    throw new NoSuchElementException();
+                return s.getLong(next++, 0);
+            }
+        };
+    }
+
+    /**
+     * Performs the given action for each element of this set, in
+     * ascending order, until all have been processed or the action
+     * throws an exception.
+     *
+     * @param action the action to be performed for each element
+     * @throws NullPointerException if the specified action is null
+     * @throws ConcurrentModificationException if the set is modified
+     *         by the action
+     */
+    public void forEach(LongConsumer action) {
+        if (action == null)
+            throw new NullPointerException();
+        OffHeapStorage s = storage();
+        merge(s);
+        int mc = modCount;
+        for (long i = 0L, n = count; i < n && modCount == mc; ++i)
+            action.accept(s.getLong(i, 0));
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Removes all of the elements from this set.  The capacity of the
+     * set is unchanged.
+     */
+    public void clear() {
+        OffHeapStorage s = storage();
+        pending.clear();
+        s.putHeader(SIZE, count = 0L);
+        ++modCount;
+    }
+
+    /** Merges the pending elements into the sorted elements */
+    private void merge(OffHeapStorage s) {
+        int k = pending.size();
+        if (k > 0) {
+            long[] a = pending.toArray();
+            pending.clear();
+            Arrays.sort(a);
+            mergeSorted(s, a, k);
+        }
+    }
+
+    /**
+     * Merges the first k elements of a, which are sorted, distinct,
+     * and absent from the sorted elements, into them, working backward
+     * from the end so that no other space is needed.
+     */
+    private void mergeSorted(OffHeapStorage s, long[] a, int k) {
+        long n = count, c = s.capacity();
+        if (n + k > c)
+            s.ensureCapacity(Math.max(n + k, c + (c >> 1)));
+        long i = n - 1, d = n + k - 1;
+        for (int j = k - 1; j >= 0; --d) {
+            long v;
+            if (i >= 0L && (v = s.getLong(i, 0)) > a[j]) {
+                s.putLong(d, 0, v);
+                --i;
+            } else
+                s.putLong(d, 0, a[j--]);
+        }
+        s.putHeader(SIZE, count = n + k);
+        ++modCount;
+    }
+
+    /**
+     * Merges any added elements, and writes any changes to a
+     * file-backed set to the storage device holding the file.  Has no
+     * other effect on a set in direct memory.
+     */
+    public void force() {
+        OffHeapStorage s = storage();
+        merge(s);
+        s.force();
+    }
+
+    /**
+     * Releases the memory, or the mapping of the file, holding this
+     * set, after merging any added elements into a file-backed set.
+     * Once a set is closed, its methods other than {@code close} throw
+     * {@link IllegalStateException}.  Closing a closed set has no
+     * effect.
+     */
+    public void close() {
+        OffHeapStorage s = storage;
+        if (s != null) {
+            if (s.isMapped())
+                merge(s);
+            storage = null;
+            pending.clear();
+            s.close();
+        }
+    }
+}
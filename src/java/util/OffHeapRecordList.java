@@ -0,0 +1,432 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * List of fixed-size records, stored outside the Java heap.  Each
+ * record is a sequence of {@link #recordSize} bytes, read and written
+ * whole as byte arrays, or field by field as primitive values at
+ * given byte offsets within it.  Records are kept contiguously in
+ * direct byte buffers, or in buffers mapped from a file, so a list of
+ * hundreds of millions of records adds nothing to the work of the
+ * garbage collector.  Records are indexed by {@code long}, and the
+ * list grows as records are appended, increasing its capacity by half
+ * when full.
+ *
+ * <p>The memory of a list is released by {@link #close}, not by the
+ * garbage collector, and a closed list throws
+ * {@link IllegalStateException} if used.
+ *
+ * <p>A list constructed with a {@link FileChannel} keeps its records
+ * in that file, and can be reopened with the same records by
+ * constructing a list with a channel for the same file.  Changes are
+ * written back to the file by the operating system, and
+ * {@link #force} writes them to the storage device.  Primitive fields
+ * are stored in native byte order.  Growing a file-backed list
+ * extends the file without copying the records it already holds; if
+ * this fails, {@link java.io.UncheckedIOException} is thrown.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * If multiple threads access a list concurrently, and at least one of
+ * the threads modifies it, it <i>must</i> be synchronized externally.
+ *
+ * @see OffHeapLongLongMap
+ * @see OffHeapLongSortedSet
+ * @since 1.8
+ */
+public class OffHeapRecordList implements Closeable {
+
+    /** Identifies files holding record lists: "OHRLIST1" */
+    static final long MAGIC = 0x4F48524C49535431L;
+
+    /** Header slots */
+    static final int SIZE = 3;
+
+    /** The default capacity */
+    static final long DEFAULT_CAPACITY = 16L;
+
+    /** The size of a record, in bytes */
+    private final int recordSize;
+
+    /** The records, or null if closed */
+    private OffHeapStorage storage;
+
+    /** The number of records */
+    private long size;
+
+    /**
+     * Constructs an empty list, in direct memory, of records of the
+     * specified size, with room for the specified number of records.
+     *
+     * @param recordSize the number of bytes of each record
+     * @param initialCapacity the number of records the list can hold
+     *        without growing
+     * @throws IllegalArgumentException if the record size is not
+     *         positive or greater than {@code 2^30}, or if the initial
+     *         capacity is negative
+     */
+    public OffHeapRecordList(int recordSize, long initialCapacity) {
+        if (initialCapacity < 0L)
+            throw new IllegalArgumentException("Illegal capacity: " +
+                                               initialCapacity);
+        this.recordSize = recordSize;
+        this.storage = OffHeapStorage.allocate(MAGIC, recordSize,
+                                               initialCapacity);
+    }
+
+    /**
+     * Constructs an empty list, in direct memory, of records of the
+     * specified size, with the default initial capacity (16).
+     *
+     * @param recordSize the number of bytes of each record
+     * @throws IllegalArgumentException if the record size is not
+     *         positive or greater than {@code 2^30}
+     */
+    public OffHeapRecordList(int recordSize) {
+        this(recordSize, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a list held in the file of the specified channel,
+     * which must be open for reading and writing.  If the file is
+     * empty, the list is empty; otherwise the file must hold a list of
+     * records of the specified size, whose records this list has.
+     * Closing the list does not close the channel.
+     *
+     * @param channel the channel of the file holding the list
+     * @param recordSize the number of bytes of each record
+     * @throws IOException if the file is not empty and does not hold
+     *         a list of records of the specified size, or if an I/O
+     *         error occurs
+     * @throws IllegalArgumentException if the record size is not
+     *         positive or greater than {@code 2^30}
+     */
+    public OffHeapRecordList(FileChannel channel, int recordSize)
+        throws IOException {
+        OffHeapStorage s = OffHeapStorage.map(channel, MAGIC, recordSize,
+                                              DEFAULT_CAPACITY);
+        long n = s.getHeader(SIZE);
+        if (n < 0L || n > s.capacity()) {
+            s.close();
+            throw new IOException("Corrupt record list file");
+        }
+        this.recordSize = recordSize;
+        this.storage = s;
+        this.size = n;
+    }
+
+    private OffHeapStorage storage() {
+        OffHeapStorage s = storage;
+        if (s == null)
+            throw new IllegalStateException("List is closed");
+        return s;
+    }
+
+    /**
+     * Returns the storage holding the record with the given index,
+     * after checking that it is in range.
+     */
+    private OffHeapStorage storage(long index) {
+        OffHeapStorage s = storage();
+        if (index < 0L || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index +
+                                                ", Size: " + size);
+        return s;
+    }
+
+    private void checkField(int offset, int width) {
+        if (offset < 0 || offset > recordSize - width)
+            throw new IndexOutOfBoundsException("Offset: " + offset +
+                                                ", Record size: " + recordSize);
+    }
+
+    /**
+     * Returns the number of bytes of each record.
+     *
+     * @return the number of bytes of each record
+     */
+    public int recordSize() {
+        return recordSize;
+    }
+
+    /**
+     * Returns the number of records in this list.
+     *
+     * @return the number of records in this list
+     */
+    public long size() {
+        storage();
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this list contains no records.
+     *
+     * @return {@code true} if this list contains no records
+     */
+    public boolean isEmpty() {
+        return size() == 0L;
+    }
+
+    /**
+     * Increases the capacity of this list, if necessary, to hold at
+     * least the number of records specified by the argument.
+     *
+     * @param minCapacity the desired minimum capacity
+     */
+    public void ensureCapacity(long minCapacity) {
+        OffHeapStorage s = storage();
+        long c = s.capacity();
+        if (minCapacity > c) {
+            long nc = c + (c >> 1);
+            s.ensureCapacity(Math.max(minCapacity, nc));
+        }
+    }
+
+    /**
+     * Appends a record of zero bytes to the end of this list.  Its
+     * fields may then be set by index.
+     *
+     * @return the index of the new record
+     */
+    public long add() {
+        OffHeapStorage s = storage();
+        long i = size;
+        ensureCapacity(i + 1);
+        s.zero(i, i + 1);
+        s.putHeader(SIZE, size = i + 1);
+        return i;
+    }
+
+    /**
+     * Appends a record, whose bytes are copied from the specified
+     * array, to the end of this list.
+     *
+     * @param src the array holding the record
+     * @param off the index in {@code src} of the first byte of the record
+     * @return the index of the new record
+     * @throws IndexOutOfBoundsException if {@code off} is negative or
+     *         {@code off + recordSize()} is greater than
+     *         {@code src.length}
+     */
+    public long add(byte[] src, int off) {
+        OffHeapStorage s = storage();
+        checkArray(src.length, off);
+        long i = size;
+        ensureCapacity(i + 1);
+        s.put(i, src, off);
+        s.putHeader(SIZE, size = i + 1);
+        return i;
+    }
+
+    private void checkArray(int length, int off) {
+        if (off < 0 || off > length - recordSize)
+            throw new IndexOutOfBoundsException("Offset: " + off +
+                                                ", Length: " + length);
+    }
+
+    /**
+     * Copies the record at the specified index into the specified
+     * array.
+     *
+     * @param index index of the record
+     * @param dst the array into which to copy the record
+     * @param off the index in {@code dst} at which to copy the first byte
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         ({@code index < 0 || index >= size()}), or if {@code off}
+     *         is negative or {@code off + recordSize()} is greater than
+     *         {@code dst.length}
+     */
+    public void get(long index, byte[] dst, int off) {
+        OffHeapStorage s = storage(index);
+        checkArray(dst.length, off);
+        s.get(index, dst, off);
+    }
+
+    /**
+     * Replaces the record at the specified index with bytes copied
+     * from the specified array.
+     *
+     * @param index index of the record
+     * @param src the array holding the new record
+     * @param off the index in {@code src} of the first byte of the record
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         ({@code index < 0 || index >= size()}), or if {@code off}
+     *         is negative or {@code off + recordSize()} is greater than
+     *         {@code src.length}
+     */
+    public void set(long index, byte[] src, int off) {
+        OffHeapStorage s = storage(index);
+        checkArray(src.length, off);
+        s.put(index, src, off);
+    }
+
+    /**
+     * Returns the {@code long} field at the specified byte offset of
+     * the record at the specified index.
+     *
+     * @param index index of the record
+     * @param offset the offset of the field within the record
+     * @return the value of the field
+     * @throws IndexOutOfBoundsException if the index is out of range,
+     *         or the field does not lie within a record
+     */
+    public long getLong(long index, int offset) {
+        OffHeapStorage s = storage(index);
+        checkField(offset, 8);
+        return s.getLong(index, offset);
+    }
+
+    /**
+     * Sets the {@code long} field at the specified byte offset of the
+     * record at the specified index.
+     *
+     * @param index index of the record
+     * @param offset the offset of the field within the record
+     * @param value the new value of the field
+     * @throws IndexOutOfBoundsException if the index is out of range,
+     *         or the field does not lie within a record
+     */
+    public void putLong(long index, int offset, long value) {
+        OffHeapStorage s = storage(index);
+        checkField(offset, 8);
+        s.putLong(index, offset, value);
+    }
+
+    /**
+     * Returns the {@code int} field at the specified byte offset of
+     * the record at the specified index.
+     *
+     * @param index index of the record
+     * @param offset the offset of the field within the record
+     * @return the value of the field
+     * @throws IndexOutOfBoundsException if the index is out of range,
+     *         or the field does not lie within a record
+     */
+    public int getInt(long index, int offset) {
+        OffHeapStorage s = storage(index);
+        checkField(offset, 4);
+        return s.getInt(index, offset);
+    }
+
+    /**
+     * Sets the {@code int} field at the specified byte offset of the
+     * record at the specified index.
+     *
+     * @param index index of the record
+     * @param offset the offset of the field within the record
+     * @param value the new value of the field
+     * @throws IndexOutOfBoundsException if the index is out of range,
+     *         or the field does not lie within a record
+     */
+    public void putInt(long index, int offset, int value) {
+        OffHeapStorage s = storage(index);
+        checkField(offset, 4);
+        s.putInt(index, offset, value);
+    }
+
+    /**
+     * Returns the {@code double} field at the specified byte offset of
+     * the record at the specified index.
+     *
+     * @param index index of the record
+     * @param offset the offset of the field within the record
+     * @return the value of the field
+     * @throws IndexOutOfBoundsException if the index is out of range,
+     *         or the field does not lie within a record
+     */
+    public double getDouble(long index, int offset) {
+        OffHeapStorage s = storage(index);
+        checkField(offset, 8);
+        return s.getDouble(index, offset);
+    }
+
+    /**
+     * Sets the {@code double} field at the specified byte offset of the
+     * record at the specified index.
+     *
+     * @param index index of the record
+     * @param offset the offset of the field within the record
+     * @param value the new value of the field
+     * @throws IndexOutOfBoundsException if the index is out of range,
+     *         or the field does not lie within a record
+     */
+    public void putDouble(long index, int offset, double value) {
+        OffHeapStorage s = storage(index);
+        checkField(offset, 8);
+        s.putDouble(index, offset, value);
+    }
+
+    /**
+     * Removes the records at the end of this list beyond the specified
+     * size.  The capacity of the list is unchanged.
+     *
+     * @param newSize the number of records to keep
+     * @throws IllegalArgumentException if {@code newSize} is negative
+     *         or greater than {@code size()}
+     */
+    public void truncate(long newSize) {
+        OffHeapStorage s = storage();
+        if (newSize < 0L || newSize > size)
+            throw new IllegalArgumentException("Illegal size: " + newSize);
+        s.putHeader(SIZE, size = newSize);
+    }
+
+    /**
+     * Removes all of the records from this list.  The capacity of the
+     * list is unchanged.
+     */
+    public void clear() {
+        truncate(0L);
+    }
+
+    /**
+     * Writes any changes to a file-backed list to the storage device
+     * holding the file.  Has no effect on a list in direct memory.
+     */
+    public void force() {
+        storage().force();
+    }
+
+    /**
+     * Releases the memory, or the mapping of the file, holding this
+     * list.  Once a list is closed, its methods other than
+     * {@code close} and {@code recordSize} throw
+     * {@link IllegalStateException}.  Closing a closed list has no
+     * effect.
+     */
+    public void close() {
+        OffHeapStorage s = storage;
+        if (s != null) {
+            storage = null;
+            s.close();
+        }
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import sun.misc.Cleaner;
+import sun.nio.ch.DirectBuffer;
+
+/**
+ * Storage for the off-heap collections: an array of fixed-size units,
+ * such as map entries or records, held in direct byte buffers or in
+ * buffers mapped from a file, and so invisible to the garbage
+ * collector.  As a byte buffer holds at most 2GB, units are spread over
+ * segments, each holding a power of two of them, so that a unit never
+ * straddles two buffers and units are located with a shift and a mask.
+ *
+ * A small header of HEADER_SLOTS longs precedes the units.  The first
+ * three slots hold a magic number identifying the kind of collection,
+ * the unit size, and the capacity in units; collections use the others
+ * for their own state.  In a file, the header is at position zero and
+ * segments follow it contiguously, so a file can be mapped again with
+ * the same layout.  Data is stored in native byte order, so files are
+ * only portable between platforms of the same endianness.
+ *
+ * Storage is released by close, rather than when its buffers become
+ * unreachable, by running the cleaners of the buffers; using storage
+ * after it is closed could crash the VM, so each collection checks
+ * that it is open before every operation.  This class is not
+ * thread-safe.
+ *
+ * @since 1.8
+ */
+final class OffHeapStorage {
+
+    /** The number of header slots */
+    static final int HEADER_SLOTS = 8;
+
+    /** Header slot numbers used by this class */
+    static final int MAGIC = 0, UNIT_SIZE = 1, CAPACITY = 2;
+
+    /** The size of the header in bytes */
+    static final int HEADER_SIZE = HEADER_SLOTS * 8;
+
+    /** The maximum number of bytes in a segment */
+    static final int MAX_SEGMENT_SIZE = 1 << 30;
+
+    /** The file holding the storage, or null if direct */
+    private final FileChannel channel;
+
+    /** The size of a unit, in bytes */
+    final int unitSize;
+
+    /** log2 of the number of units per segment */
+    private final int segmentShift;
+
+    /** The mask of the index of a unit in its segment */
+    private final long segmentMask;
+
+    /** The header buffer */
+    private ByteBuffer header;
+
+    /** The segments; all but the last are full */
+    private ByteBuffer[] segments;
+
+    /** The number of units in all segments */
+    private long capacity;
+
+    private OffHeapStorage(FileChannel channel, int unitSize) {
+        if (unitSize <= 0 || unitSize > MAX_SEGMENT_SIZE)
+            throw new IllegalArgumentException("Illegal unit size: " +
+                                               unitSize);
+        this.channel = channel;
+        this.unitSize = unitSize;
+        this.segmentShift = 31 - Integer.numberOfLeadingZeros
+            (MAX_SEGMENT_SIZE / unitSize);
+        this.segmentMask = (1L << segmentShift) - 1;
+        this.segments = new ByteBuffer[0];
+    }
+
+    /**
+     * Returns new storage in direct buffers, for the given number of
+     * units, all zero.
+     */
+    static OffHeapStorage allocate(long magic, int unitSize, long units) {
+        OffHeapStorage s = new OffHeapStorage(null, unitSize);
+        s.header = ByteBuffer.allocateDirect(HEADER_SIZE)
+            .order(ByteOrder.nativeOrder());
+        s.header.putLong(MAGIC << 3, magic);
+        s.header.putLong(UNIT_SIZE << 3, unitSize);
+        s.ensureCapacity(units);
+        return s;
+    }
+
+    /**
+     * Returns storage mapped from the given file.  If the file is
+     * empty, it is initialized with a header and the given number of
+     * units, all zero; otherwise its header must match the given magic
+     * number and unit size, and all of its units are mapped.
+     *
+     * @throws IOException if the file is not empty and was not
+     *         created by storage of the same kind, or if mapping fails
+     */
+    static OffHeapStorage map(FileChannel channel, long magic,
+                              int unitSize, long units)
+        throws IOException {
+        OffHeapStorage s = new OffHeapStorage(channel, unitSize);
+        boolean created = channel.size() == 0;
+        s.header = channel.map(FileChannel.MapMode.READ_WRITE, 0L,
+                               HEADER_SIZE).order(ByteOrder.nativeOrder());
+        if (created) {
+            s.header.putLong(MAGIC << 3, magic);
+            s.header.putLong(UNIT_SIZE << 3, unitSize);
+        } else {
+            if (s.header.getLong(MAGIC << 3) != magic ||
+                s.header.getLong(UNIT_SIZE << 3) != unitSize) {
+                s.close();
+                throw new IOException("Incompatible file contents");
+            }
+            units = s.header.getLong(CAPACITY << 3);
+        }
+        try {
+            s.ensureCapacity(units);
+        } catch (UncheckedIOException ex) {
+            s.close();
+            throw ex.getCause();
+        } catch (RuntimeException ex) {
+            s.close();
+            throw ex;
+        }
+        return s;
+    }
+
+    /** Returns true if the storage is mapped from a file */
+    boolean isMapped() {
+        return channel != null;
+    }
+
+    /** Returns the number of units */
+    long capacity() {
+        return capacity;
+    }
+
+    long getHeader(int slot) {
+        return header.getLong(slot << 3);
+    }
+
+    void putHeader(int slot, long value) {
+        header.putLong(slot << 3, value);
+    }
+
+    /**
+     * Ensures room for at least the given number of units, all of
+     * which beyond the current capacity are zero.  Only the last
+     * segment is ever replaced; in a file, the new mapping of it
+     * includes its previous contents.
+     *
+     * @throws UncheckedIOException if mapping fails
+     */
+    void ensureCapacity(long units) {
+        if (units <= capacity)
+            return;
+        long perSegment = segmentMask + 1;
+        int n = (int)((units + segmentMask) >>> segmentShift);
+        ByteBuffer[] segs = Arrays.copyOf(segments, n);
+        for (int i = Math.max(segments.length - 1, 0); i < n; ++i) {
+            long u = Math.min(perSegment, units - ((long)i << segmentShift));
+            int bytes = (int)u * unitSize;
+            ByteBuffer old = segs[i];
+            if (old != null && old.capacity() == bytes)
+                continue;
+            ByteBuffer b = newSegment(i, bytes);
+            if (old != null) {
+                if (channel == null) {
+                    ByteBuffer d = old.duplicate();
+                    d.clear();
+                    b.put(d);
+                    b.clear();
+                }
+                free(old);
+            }
+            segs[i] = b;
+        }
+        segments = segs;
+        capacity = units;
+        header.putLong(CAPACITY << 3, units);
+    }
+
+    private ByteBuffer newSegment(int i, int bytes) {
+        ByteBuffer b;
+        if (channel == null)
+            b = ByteBuffer.allocateDirect(bytes);
+        else {
+            long pos = HEADER_SIZE +
+                ((long)i << segmentShift) * unitSize;
+            try {
+                b = channel.map(FileChannel.MapMode.READ_WRITE, pos, bytes);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        return b.order(ByteOrder.nativeOrder());
+    }
+
+    private ByteBuffer segment(long unit) {
+        return segments[(int)(unit >>> segmentShift)];
+    }
+
+    private int offset(long unit, int offset) {
+        return (int)(unit & segmentMask) * unitSize + offset;
+    }
+
+    long getLong(long unit, int offset) {
+        return segment(unit).getLong(offset(unit, offset));
+    }
+
+    void putLong(long unit, int offset, long value) {
+        segment(unit).putLong(offset(unit, offset), value);
+    }
+
+    int getInt(long unit, int offset) {
+        return segment(unit).getInt(offset(unit, offset));
+    }
+
+    void putInt(long unit, int offset, int value) {
+        segment(unit).putInt(offset(unit, offset), value);
+    }
+
+    double getDouble(long unit, int offset) {
+        return segment(unit).getDouble(offset(unit, offset));
+    }
+
+    void putDouble(long unit, int offset, double value) {
+        segment(unit).putDouble(offset(unit, offset), value);
+    }
+
+    /** Copies a unit into dst, starting at index off */
+    void get(long unit, byte[] dst, int off) {
+        ByteBuffer d = segment(unit).duplicate();
+        d.position(offset(unit, 0));
+        d.get(dst, off, unitSize);
+    }
+
+    /** Copies a unit from src, starting at index off */
+    void put(long unit, byte[] src, int off) {
+        ByteBuffer d = segment(unit).duplicate();
+        d.position(offset(unit, 0));
+        d.put(src, off, unitSize);
+    }
+
+    /** Sets all bytes of the units in [from, to) to zero */
+    void zero(long from, long to) {
+        byte[] zeros = new byte[unitSize];
+        for (long u = from; u < to; ++u)
+            put(u, zeros, 0);
+    }
+
+    /**
+     * Copies the first units of another storage with the same unit
+     * size into this one.
+     */
+    void copyFrom(OffHeapStorage src, long units) {
+        for (long u = 0; u < units; ) {
+            long n = Math.min(units - u, (segmentMask + 1) - (u & segmentMask));
+            ByteBuffer s = src.segment(u).duplicate(), d = segment(u).duplicate();
+            int pos = offset(u, 0);
+            s.limit(pos + (int)n * unitSize).position(pos);
+            d.position(pos);
+            d.put(s);
+            u += n;
+        }
+    }
+
+    /**
+     * Writes any changes to a mapped file to the storage device.
+     */
+    void force() {
+        if (channel != null) {
+            ((MappedByteBuffer)header).force();
+            for (ByteBuffer b : segments)
+                ((MappedByteBuffer)b).force();
+        }
+    }
+
+    /**
+     * Releases the memory or mappings of all buffers.  Storage must
+     * not be used after it is closed.
+     */
+    void close() {
+        ByteBuffer h = header;
+        ByteBuffer[] segs = segments;
+        header = null;
+        segments = null;
+        capacity = 0L;
+        if (h != null)
+            free(h);
+        if (segs != null) {
+            for (ByteBuffer b : segs)
+                free(b);
+        }
+    }
+
+    private static void free(ByteBuffer b) {
+        Cleaner c = ((DirectBuffer)b).cleaner();
+        if (c != null)
+            c.clean();
+    }
+}
@@ -0,0 +1,600 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class implements least-significant-digit radix sorting of
+ * primitive arrays, optionally carrying a second array of values
+ * along with the keys, or sorting an array of indexes by the elements
+ * they refer to.  Unlike comparison sorts, radix sorting takes time
+ * linear in the number of elements, at the price of a workspace as
+ * large as the range sorted, which makes it the faster choice for
+ * large arrays of random keys.
+ *
+ * Keys are mapped to unsigned integers of the same width that order
+ * as the keys do, and sorted one byte at a time starting from the
+ * least significant, using a stable counting sort for each byte that
+ * moves elements back and forth between the array and the workspace.
+ * A byte for which all keys have the same digit needs no moves, so
+ * its pass is skipped, which makes sorting keys of a small range of
+ * values (such as non-negative ints below 2^16) proportionally
+ * cheaper.
+ *
+ * Floating-point keys are mapped from their {@code floatToIntBits} or
+ * {@code doubleToLongBits} representations by inverting all bits of
+ * negative values and the sign bit of others, which orders them as
+ * {@link Float#compareTo} and {@link Double#compareTo} do: -0.0 before
+ * 0.0, and all NaNs, which are collapsed into a single representation,
+ * after positive infinity.  The elements themselves are moved as is.
+ *
+ * Parallel sorts split the range into one chunk per worker thread of
+ * the common pool, which count digits of their elements and then move
+ * them in parallel; each pass computes the position of the first
+ * element of each digit in each chunk from the counts of all chunks.
+ *
+ * All exposed methods are package-private, designed to be invoked
+ * from public methods (in class Arrays) after performing any
+ * necessary array bounds checks and expanding parameters into the
+ * required forms.
+ *
+ * @since 1.8
+ */
+final class RadixSort {
+
+    /**
+     * Prevents instantiation.
+     */
+    private RadixSort() {}
+
+    /*
+     * Tuning parameters.
+     */
+
+    /**
+     * If the length of an array to be sorted is at least this constant,
+     * and the array has no long runs, DualPivotQuicksort uses radix sort
+     * in preference to Quicksort.
+     */
+    static final int RADIX_SORT_THRESHOLD = 1 << 16;
+
+    /**
+     * The minimum number of elements of a chunk in parallel sorting.
+     * Using smaller chunks makes the counts of all chunks dominate.
+     */
+    private static final int MIN_CHUNK_LENGTH = 1 << 16;
+
+    /** The number of bits of a digit */
+    private static final int DIGIT_BITS = 8;
+
+    /** The number of values of a digit */
+    private static final int RADIX = 1 << DIGIT_BITS;
+
+    /** The mask of a digit */
+    private static final int DIGIT_MASK = RADIX - 1;
+
+    /*
+     * Key mappings to unsigned integers.
+     */
+
+    static int key(int x) {
+        return x ^ Integer.MIN_VALUE;
+    }
+
+    static long key(long x) {
+        return x ^ Long.MIN_VALUE;
+    }
+
+    static int key(float x) {
+        int b = Float.floatToIntBits(x);
+        return b ^ ((b >> 31) | Integer.MIN_VALUE);
+    }
+
+    static long key(double x) {
+        long b = Double.doubleToLongBits(x);
+        return b ^ ((b >> 63) | Long.MIN_VALUE);
+    }
+
+    /*
+     * Entry points.  Ranges are given by the indexes of their first
+     * and last elements, inclusive, as in DualPivotQuicksort.  Work
+     * array slices are used if large enough, and allocated otherwise.
+     */
+
+    static void sort(int[] a, int left, int right,
+                     int[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new int[n];
+            workBase = 0;
+        }
+        run(new IntSorter(a, work, null, null, left, right + 1,
+                          workBase - left), 1);
+    }
+
+    static void sort(long[] a, int left, int right,
+                     long[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new long[n];
+            workBase = 0;
+        }
+        run(new LongSorter(a, work, null, null, left, right + 1,
+                           workBase - left), 1);
+    }
+
+    static void sort(float[] a, int left, int right,
+                     float[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new float[n];
+            workBase = 0;
+        }
+        run(new FloatSorter(a, work, left, right + 1, workBase - left), 1);
+    }
+
+    static void sort(double[] a, int left, int right,
+                     double[] work, int workBase, int workLen) {
+        int n = right - left + 1;
+        if (work == null || workLen < n || workBase + n > work.length) {
+            work = new double[n];
+            workBase = 0;
+        }
+        run(new DoubleSorter(a, work, left, right + 1, workBase - left), 1);
+    }
+
+    static void parallelSort(int[] a, int left, int right) {
+        int n = right - left + 1;
+        run(new IntSorter(a, new int[n], null, null, left, right + 1, -left),
+            chunks(n));
+    }
+
+    static void parallelSort(long[] a, int left, int right) {
+        int n = right - left + 1;
+        run(new LongSorter(a, new long[n], null, null, left, right + 1, -left),
+            chunks(n));
+    }
+
+    static void parallelSort(float[] a, int left, int right) {
+        int n = right - left + 1;
+        run(new FloatSorter(a, new float[n], left, right + 1, -left),
+            chunks(n));
+    }
+
+    static void parallelSort(double[] a, int left, int right) {
+        int n = right - left + 1;
+        run(new DoubleSorter(a, new double[n], left, right + 1, -left),
+            chunks(n));
+    }
+
+    /**
+     * Sorts keys, moving the element of values at the same index
+     * along with each key.  The arrays must have the same length.
+     */
+    static void sort(int[] keys, int[] values, boolean parallel) {
+        int n = keys.length;
+        run(new IntSorter(keys, new int[n], values, new int[n], 0, n, 0),
+            parallel ? chunks(n) : 1);
+    }
+
+    static void sort(long[] keys, long[] values, boolean parallel) {
+        int n = keys.length;
+        run(new LongSorter(keys, new long[n], values, new long[n], 0, n, 0),
+            parallel ? chunks(n) : 1);
+    }
+
+    /**
+     * Returns the indexes of the elements of the array in the order
+     * in which sorting would place them.
+     */
+    static int[] argsort(int[] a) {
+        int n = a.length;
+        IndexSorter s = new IntIndexSorter(a, identity(n), new int[n]);
+        run(s, 1);
+        return s.index;
+    }
+
+    static int[] argsort(long[] a) {
+        int n = a.length;
+        IndexSorter s = new LongIndexSorter(a, identity(n), new int[n]);
+        run(s, 1);
+        return s.index;
+    }
+
+    static int[] argsort(float[] a) {
+        int n = a.length;
+        IndexSorter s = new FloatIndexSorter(a, identity(n), new int[n]);
+        run(s, 1);
+        return s.index;
+    }
+
+    static int[] argsort(double[] a) {
+        int n = a.length;
+        IndexSorter s = new DoubleIndexSorter(a, identity(n), new int[n]);
+        run(s, 1);
+        return s.index;
+    }
+
+    private static int[] identity(int n) {
+        int[] index = new int[n];
+        for (int i = 0; i < n; ++i)
+            index[i] = i;
+        return index;
+    }
+
+    /**
+     * Returns the number of chunks to sort n elements in parallel.
+     */
+    private static int chunks(int n) {
+        int p = ForkJoinPool.getCommonPoolParallelism();
+        return Math.max(1, Math.min(p, n / MIN_CHUNK_LENGTH));
+    }
+
+    /* ---------------- Driver -------------- */
+
+    /**
+     * Sorts the elements of the sorter in the given number of chunks,
+     * in parallel if more than one.
+     */
+    static void run(Sorter s, int chunks) {
+        int lo = s.lo, n = s.hi - lo;
+        if (n < 2)
+            return;
+        int[] bounds = new int[chunks + 1];
+        for (int c = 0; c <= chunks; ++c)
+            bounds[c] = lo + (int)((long)n * c / chunks);
+        int[][] counts = new int[chunks][RADIX];
+        for (int d = 0, passes = s.passes(); d < passes; ++d) {
+            int shift = d * DIGIT_BITS;
+            for (int[] count : counts)
+                Arrays.fill(count, 0);
+            invoke(s, Step.COUNT, shift, bounds, counts);
+
+            // Skip the pass if all elements have the same digit
+            boolean skip = false;
+            for (int v = 0; v < RADIX && !skip; ++v) {
+                int total = 0;
+                for (int[] count : counts)
+                    total += count[v];
+                skip = (total == n);
+            }
+            if (skip)
+                continue;
+
+            // Replace counts by the positions to move elements to
+            for (int v = 0, pos = lo; v < RADIX; ++v) {
+                for (int[] count : counts) {
+                    int t = count[v];
+                    count[v] = pos;
+                    pos += t;
+                }
+            }
+            invoke(s, Step.MOVE, shift, bounds, counts);
+            s.inWork = !s.inWork;
+        }
+        if (s.inWork)
+            invoke(s, Step.COPY, 0, bounds, counts);
+    }
+
+    /**
+     * Performs an operation of the sorter on each chunk.
+     */
+    private static void invoke(Sorter s, int op, int shift,
+                               int[] bounds, int[][] counts) {
+        int chunks = counts.length;
+        if (chunks == 1)
+            new Step(s, op, shift, bounds[0], bounds[1], counts[0]).compute();
+        else {
+            Step[] steps = new Step[chunks];
+            for (int c = 0; c < chunks; ++c)
+                steps[c] = new Step(s, op, shift, bounds[c], bounds[c + 1],
+                                    counts[c]);
+            ForkJoinTask.invokeAll(steps);
+        }
+    }
+
+    static final class Step extends RecursiveAction {
+        private static final long serialVersionUID = 3128504337196014624L;
+        static final int COUNT = 0, MOVE = 1, COPY = 2;
+        final Sorter sorter;
+        final int op, shift, from, to;
+        final int[] count;
+        Step(Sorter sorter, int op, int shift, int from, int to, int[] count) {
+            this.sorter = sorter; this.op = op; this.shift = shift;
+            this.from = from; this.to = to; this.count = count;
+        }
+        public final void compute() {
+            switch (op) {
+            case COUNT: sorter.count(from, to, shift, count); break;
+            case MOVE:  sorter.move(from, to, shift, count); break;
+            default:    sorter.copyBack(from, to); break;
+            }
+        }
+    }
+
+    /* ---------------- Sorters -------------- */
+
+    /**
+     * The elements of a sorter lie in [lo, hi) of its array, and at
+     * the same indexes plus wo in its work array.  Operations read
+     * elements from the work array if inWork, else from the array,
+     * and write them to the other.
+     */
+    abstract static class Sorter {
+        final int lo, hi, wo;
+        boolean inWork;
+        Sorter(int lo, int hi, int wo) {
+            this.lo = lo; this.hi = hi; this.wo = wo;
+        }
+
+        /** Returns the number of digits of keys */
+        abstract int passes();
+
+        /** Counts the digits at shift of elements in [from, to) */
+        abstract void count(int from, int to, int shift, int[] count);
+
+        /**
+         * Moves elements in [from, to) to the positions given by pos
+         * for their digit at shift, incrementing them.
+         */
+        abstract void move(int from, int to, int shift, int[] pos);
+
+        /** Copies elements in [from, to) from the work array */
+        abstract void copyBack(int from, int to);
+    }
+
+    static final class IntSorter extends Sorter {
+        final int[] a, w, v, vw;
+        IntSorter(int[] a, int[] w, int[] v, int[] vw,
+                  int lo, int hi, int wo) {
+            super(lo, hi, wo);
+            this.a = a; this.w = w; this.v = v; this.vw = vw;
+        }
+        int passes() { return Integer.SIZE / DIGIT_BITS; }
+        void count(int from, int to, int shift, int[] count) {
+            int[] src = inWork ? w : a;
+            int o = inWork ? wo : 0;
+            for (int i = from + o, e = to + o; i < e; ++i)
+                count[(key(src[i]) >>> shift) & DIGIT_MASK]++;
+        }
+        void move(int from, int to, int shift, int[] pos) {
+            int[] src = a, dst = w, vs = v, vd = vw;
+            int so = 0, dO = wo;
+            if (inWork) {
+                src = w; dst = a; vs = vw; vd = v; so = wo; dO = 0;
+            }
+            for (int i = from; i < to; ++i) {
+                int x = src[i + so];
+                int p = pos[(key(x) >>> shift) & DIGIT_MASK]++ + dO;
+                dst[p] = x;
+                if (vs != null)
+                    vd[p] = vs[i + so];
+            }
+        }
+        void copyBack(int from, int to) {
+            System.arraycopy(w, from + wo, a, from, to - from);
+            if (v != null)
+                System.arraycopy(vw, from + wo, v, from, to - from);
+        }
+    }
+
+    static final class LongSorter extends Sorter {
+        final long[] a, w, v, vw;
+        LongSorter(long[] a, long[] w, long[] v, long[] vw,
+                   int lo, int hi, int wo) {
+            super(lo, hi, wo);
+            this.a = a; this.w = w; this.v = v; this.vw = vw;
+        }
+        int passes() { return Long.SIZE / DIGIT_BITS; }
+        void count(int from, int to, int shift, int[] count) {
+            long[] src = inWork ? w : a;
+            int o = inWork ? wo : 0;
+            for (int i = from + o, e = to + o; i < e; ++i)
+                count[(int)(key(src[i]) >>> shift) & DIGIT_MASK]++;
+        }
+        void move(int from, int to, int shift, int[] pos) {
+            long[] src = a, dst = w, vs = v, vd = vw;
+            int so = 0, dO = wo;
+            if (inWork) {
+                src = w; dst = a; vs = vw; vd = v; so = wo; dO = 0;
+            }
+            for (int i = from; i < to; ++i) {
+                long x = src[i + so];
+                int p = pos[(int)(key(x) >>> shift) & DIGIT_MASK]++ + dO;
+                dst[p] = x;
+                if (vs != null)
+                    vd[p] = vs[i + so];
+            }
+        }
+        void copyBack(int from, int to) {
+            System.arraycopy(w, from + wo, a, from, to - from);
+            if (v != null)
+                System.arraycopy(vw, from + wo, v, from, to - from);
+        }
+    }
+
+    static final class FloatSorter extends Sorter {
+        final float[] a, w;
+        FloatSorter(float[] a, float[] w, int lo, int hi, int wo) {
+            super(lo, hi, wo);
+            this.a = a; this.w = w;
+        }
+        int passes() { return Float.SIZE / DIGIT_BITS; }
+        void count(int from, int to, int shift, int[] count) {
+            float[] src = inWork ? w : a;
+            int o = inWork ? wo : 0;
+            for (int i = from + o, e = to + o; i < e; ++i)
+                count[(key(src[i]) >>> shift) & DIGIT_MASK]++;
+        }
+        void move(int from, int to, int shift, int[] pos) {
+            float[] src = a, dst = w;
+            int so = 0, dO = wo;
+            if (inWork) {
+                src = w; dst = a; so = wo; dO = 0;
+            }
+            for (int i = from; i < to; ++i) {
+                float x = src[i + so];
+                dst[pos[(key(x) >>> shift) & DIGIT_MASK]++ + dO] = x;
+            }
+        }
+        void copyBack(int from, int to) {
+            System.arraycopy(w, from + wo, a, from, to - from);
+        }
+    }
+
+    static final class DoubleSorter extends Sorter {
+        final double[] a, w;
+        DoubleSorter(double[] a, double[] w, int lo, int hi, int wo) {
+            super(lo, hi, wo);
+            this.a = a; this.w = w;
+        }
+        int passes() { return Double.SIZE / DIGIT_BITS; }
+        void count(int from, int to, int shift, int[] count) {
+            double[] src = inWork ? w : a;
+            int o = inWork ? wo : 0;
+            for (int i = from + o, e = to + o; i < e; ++i)
+                count[(int)(key(src[i]) >>> shift) & DIGIT_MASK]++;
+        }
+        void move(int from, int to, int shift, int[] pos) {
+            double[] src = a, dst = w;
+            int so = 0, dO = wo;
+            if (inWork) {
+                src = w; dst = a; so = wo; dO = 0;
+            }
+            for (int i = from; i < to; ++i) {
+                double x = src[i + so];
+                dst[pos[(int)(key(x) >>> shift) & DIGIT_MASK]++ + dO] = x;
+            }
+        }
+        void copyBack(int from, int to) {
+            System.arraycopy(w, from + wo, a, from, to - from);
+        }
+    }
+
+    /**
+     * Base of sorters of indexes, whose keys are the elements of
+     * another array at those indexes.  The index array is never
+     * replaced by its work array, but moves are done to and fro as
+     * for other sorters.
+     */
+    abstract static class IndexSorter extends Sorter {
+        final int[] index, w;
+        IndexSorter(int[] index, int[] w) {
+            super(0, index.length, 0);
+            this.index = index; this.w = w;
+        }
+        final void copyBack(int from, int to) {
+            System.arraycopy(w, from, index, from, to - from);
+        }
+    }
+
+    static final class IntIndexSorter extends IndexSorter {
+        final int[] a;
+        IntIndexSorter(int[] a, int[] index, int[] w) {
+            super(index, w);
+            this.a = a;
+        }
+        int passes() { return Integer.SIZE / DIGIT_BITS; }
+        void count(int from, int to, int shift, int[] count) {
+            int[] src = inWork ? w : index;
+            for (int i = from; i < to; ++i)
+                count[(key(a[src[i]]) >>> shift) & DIGIT_MASK]++;
+        }
+        void move(int from, int to, int shift, int[] pos) {
+            int[] src = inWork ? w : index, dst = inWork ? index : w;
+            for (int i = from; i < to; ++i) {
+                int x = src[i];
+                dst[pos[(key(a[x]) >>> shift) & DIGIT_MASK]++] = x;
+            }
+        }
+    }
+
+    static final class LongIndexSorter extends IndexSorter {
+        final long[] a;
+        LongIndexSorter(long[] a, int[] index, int[] w) {
+            super(index, w);
+            this.a = a;
+        }
+        int passes() { return Long.SIZE / DIGIT_BITS; }
+        void count(int from, int to, int shift, int[] count) {
+            int[] src = inWork ? w : index;
+            for (int i = from; i < to; ++i)
+                count[(int)(key(a[src[i]]) >>> shift) & DIGIT_MASK]++;
+        }
+        void move(int from, int to, int shift, int[] pos) {
+            int[] src = inWork ? w : index, dst = inWork ? index : w;
+            for (int i = from; i < to; ++i) {
+                int x = src[i];
+                dst[pos[(int)(key(a[x]) >>> shift) & DIGIT_MASK]++] = x;
+            }
+        }
+    }
+
+    static final class FloatIndexSorter extends IndexSorter {
+        final float[] a;
+        FloatIndexSorter(float[] a, int[] index, int[] w) {
+            super(index, w);
+            this.a = a;
+        }
+        int passes() { return Float.SIZE / DIGIT_BITS; }
+        void count(int from, int to, int shift, int[] count) {
+            int[] src = inWork ? w : index;
+            for (int i = from; i < to; ++i)
+                count[(key(a[src[i]]) >>> shift) & DIGIT_MASK]++;
+        }
+        void move(int from, int to, int shift, int[] pos) {
+            int[] src = inWork ? w : index, dst = inWork ? index : w;
+            for (int i = from; i < to; ++i) {
+                int x = src[i];
+                dst[pos[(key(a[x]) >>> shift) & DIGIT_MASK]++] = x;
+            }
+        }
+    }
+
+    static final class DoubleIndexSorter extends IndexSorter {
+        final double[] a;
+        DoubleIndexSorter(double[] a, int[] index, int[] w) {
+            super(index, w);
+            this.a = a;
+        }
+        int passes() { return Double.SIZE / DIGIT_BITS; }
+        void count(int from, int to, int shift, int[] count) {
+            int[] src = inWork ? w : index;
+            for (int i = from; i < to; ++i)
+                count[(int)(key(a[src[i]]) >>> shift) & DIGIT_MASK]++;
+        }
+        void move(int from, int to, int shift, int[] pos) {
+            int[] src = inWork ? w : index, dst = inWork ? index : w;
+            for (int i = from; i < to; ++i) {
+                int x = src[i];
+                dst[pos[(int)(key(a[x]) >>> shift) & DIGIT_MASK]++] = x;
+            }
+        }
+    }
+}
@@ -1228,6 +1228,34 @@ public final class Spliterators {
 
     //
 
+    /**
+     * Returns the number of elements to transfer into the array of the next
+     * split of a spliterator that can only be traversed sequentially, such
+     * as one over an iterator.
+     *
+     * <p>If the spliterator is {@code SIZED}, a batch takes half of the
+     * remaining elements, so that the source is split as evenly as an array
+     * would be.  Otherwise batch sizes double from {@code BATCH_UNIT} with
+     * each split, so that the source is split O(log(#elements)) times.
+     * Either way a batch has at least {@code BATCH_UNIT} elements, unless
+     * fewer remain, and at most {@code MAX_BATCH}.
+     *
+     * @param batch the size of the previous batch, or zero if none
+     * @param est the estimated number of remaining elements
+     * @param characteristics the characteristics of the spliterator
+     * @return the number of elements of the next batch
+     */
+    static int batchSize(int batch, long est, int characteristics) {
+        long n = ((characteristics & Spliterator.SIZED) != 0)
+                 ? est >>> 1
+                 : (long) batch << 1;
+        if (n < AbstractSpliterator.BATCH_UNIT)
+            n = AbstractSpliterator.BATCH_UNIT;
+        if (n > est)
+            n = est;
+        return (int) Math.min(n, AbstractSpliterator.MAX_BATCH);
+    }
+
     /**
      * An abstract {@code Spliterator} that implements {@code trySplit} to
      * permit limited parallelism.
@@ -1254,7 +1282,7 @@ public final class Spliterators {
      * @since 1.8
      */
     public static abstract class AbstractSpliterator<T> implements Spliterator<T> {
-        static final int BATCH_UNIT = 1 << 10;  // batch array size increment
+        static final int BATCH_UNIT = 1 << 10;  // initial batch array size
         static final int MAX_BATCH = 1 << 25;  // max batch array size;
         private final int characteristics;
         private long est;             // size estimate
@@ -1294,26 +1322,18 @@ public final class Spliterators {
         @Override
         public Spliterator<T> trySplit() {
             /*
-             * Split into arrays of arithmetically increasing batch
-             * sizes.  This will only improve parallel performance if
-             * per-element Consumer actions are more costly than
-             * transferring them into an array.  The use of an
-             * arithmetic progression in split sizes provides overhead
-             * vs parallelism bounds that do not particularly favor or
-             * penalize cases of lightweight vs heavyweight element
-             * operations, across combinations of #elements vs #cores,
-             * whether or not either are known.  We generate
-             * O(sqrt(#elements)) splits, allowing O(sqrt(#cores))
-             * potential speedup.
+             * Split into arrays of geometrically increasing batch
+             * sizes, see batchSize.  This will only improve parallel
+             * performance if per-element Consumer actions are more
+             * costly than transferring them into an array.  As each
+             * array in turn splits evenly, a geometric progression
+             * generates only O(log(#elements)) splits of the source
+             * while still allowing O(#cores) potential speedup.
              */
             HoldingConsumer<T> holder = new HoldingConsumer<>();
             long s = est;
             if (s > 1 && tryAdvance(holder)) {
-                int n = batch + BATCH_UNIT;
-                if (n > s)
-                    n = (int) s;
-                if (n > MAX_BATCH)
-                    n = MAX_BATCH;
+                int n = batchSize(batch, s, characteristics);
                 Object[] a = new Object[n];
                 int j = 0;
                 do { a[j] = holder.value; } while (++j < n && tryAdvance(holder));
@@ -1377,8 +1397,6 @@ public final class Spliterators {
      * @since 1.8
      */
     public static abstract class AbstractIntSpliterator implements Spliterator.OfInt {
-        static final int MAX_BATCH = AbstractSpliterator.MAX_BATCH;
-        static final int BATCH_UNIT = AbstractSpliterator.BATCH_UNIT;
         private final int characteristics;
         private long est;             // size estimate
         private int batch;            // batch size for splits
@@ -1419,11 +1437,7 @@ public final class Spliterators {
             HoldingIntConsumer holder = new HoldingIntConsumer();
             long s = est;
             if (s > 1 && tryAdvance(holder)) {
-                int n = batch + BATCH_UNIT;
-                if (n > s)
-                    n = (int) s;
-                if (n > MAX_BATCH)
-                    n = MAX_BATCH;
+                int n = batchSize(batch, s, characteristics);
                 int[] a = new int[n];
                 int j = 0;
                 do { a[j] = holder.value; } while (++j < n && tryAdvance(holder));
@@ -1487,8 +1501,6 @@ public final class Spliterators {
      * @since 1.8
      */
     public static abstract class AbstractLongSpliterator implements Spliterator.OfLong {
-        static final int MAX_BATCH = AbstractSpliterator.MAX_BATCH;
-        static final int BATCH_UNIT = AbstractSpliterator.BATCH_UNIT;
         private final int characteristics;
         private long est;             // size estimate
         private int batch;            // batch size for splits
@@ -1529,11 +1541,7 @@ public final class Spliterators {
             HoldingLongConsumer holder = new HoldingLongConsumer();
             long s = est;
             if (s > 1 && tryAdvance(holder)) {
-                int n = batch + BATCH_UNIT;
-                if (n > s)
-                    n = (int) s;
-                if (n > MAX_BATCH)
-                    n = MAX_BATCH;
+                int n = batchSize(batch, s, characteristics);
                 long[] a = new long[n];
                 int j = 0;
                 do { a[j] = holder.value; } while (++j < n && tryAdvance(holder));
@@ -1597,8 +1605,6 @@ public final class Spliterators {
      * @since 1.8
      */
     public static abstract class AbstractDoubleSpliterator implements Spliterator.OfDouble {
-        static final int MAX_BATCH = AbstractSpliterator.MAX_BATCH;
-        static final int BATCH_UNIT = AbstractSpliterator.BATCH_UNIT;
         private final int characteristics;
         private long est;             // size estimate
         private int batch;            // batch size for splits
@@ -1639,11 +1645,7 @@ public final class Spliterators {
             HoldingDoubleConsumer holder = new HoldingDoubleConsumer();
             long s = est;
             if (s > 1 && tryAdvance(holder)) {
-                int n = batch + BATCH_UNIT;
-                if (n > s)
-                    n = (int) s;
-                if (n > MAX_BATCH)
-                    n = MAX_BATCH;
+                int n = batchSize(batch, s, characteristics);
                 double[] a = new double[n];
                 int j = 0;
                 do { a[j] = holder.value; } while (++j < n && tryAdvance(holder));
@@ -1689,8 +1691,6 @@ public final class Spliterators {
      * permit limited parallelism.
      */
     static class IteratorSpliterator<T> implements Spliterator<T> {
-        static final int BATCH_UNIT = 1 << 10;  // batch array size increment
-        static final int MAX_BATCH = 1 << 25;  // max batch array size;
         private final Collection<? extends T> collection; // null OK
         private Iterator<? extends T> it;
         private final int characteristics;
@@ -1753,17 +1753,13 @@ public final class Spliterators {
         @Override
         public Spliterator<T> trySplit() {
             /*
-             * Split into arrays of arithmetically increasing batch
-             * sizes.  This will only improve parallel performance if
-             * per-element Consumer actions are more costly than
-             * transferring them into an array.  The use of an
-             * arithmetic progression in split sizes provides overhead
-             * vs parallelism bounds that do not particularly favor or
-             * penalize cases of lightweight vs heavyweight element
-             * operations, across combinations of #elements vs #cores,
-             * whether or not either are known.  We generate
-             * O(sqrt(#elements)) splits, allowing O(sqrt(#cores))
-             * potential speedup.
+             * Split into arrays of geometrically increasing batch
+             * sizes, see batchSize.  This will only improve parallel
+             * performance if per-element Consumer actions are more
+             * costly than transferring them into an array.  As each
+             * array in turn splits evenly, a geometric progression
+             * generates only O(log(#elements)) splits of the source
+             * while still allowing O(#cores) potential speedup.
              */
             Iterator<? extends T> i;
             long s;
@@ -1774,11 +1770,7 @@ public final class Spliterators {
             else
                 s = est;
             if (s > 1 && i.hasNext()) {
-                int n = batch + BATCH_UNIT;
-                if (n > s)
-                    n = (int) s;
-                if (n > MAX_BATCH)
-                    n = MAX_BATCH;
+                int n = batchSize(batch, s, characteristics);
                 Object[] a = new Object[n];
                 int j = 0;
                 do { a[j] = i.next(); } while (++j < n && i.hasNext());
@@ -1841,8 +1833,6 @@ public final class Spliterators {
      * permit limited parallelism.
      */
     static final class IntIteratorSpliterator implements Spliterator.OfInt {
-        static final int BATCH_UNIT = IteratorSpliterator.BATCH_UNIT;
-        static final int MAX_BATCH = IteratorSpliterator.MAX_BATCH;
         private PrimitiveIterator.OfInt it;
         private final int characteristics;
         private long est;             // size estimate
@@ -1886,11 +1876,7 @@ public final class Spliterators {
             PrimitiveIterator.OfInt i = it;
             long s = est;
             if (s > 1 && i.hasNext()) {
-                int n = batch + BATCH_UNIT;
-                if (n > s)
-                    n = (int) s;
-                if (n > MAX_BATCH)
-                    n = MAX_BATCH;
+                int n = batchSize(batch, s, characteristics);
                 int[] a = new int[n];
                 int j = 0;
                 do { a[j] = i.nextInt(); } while (++j < n && i.hasNext());
@@ -1935,8 +1921,6 @@ public final class Spliterators {
     }
 
     static final class LongIteratorSpliterator implements Spliterator.OfLong {
-        static final int BATCH_UNIT = IteratorSpliterator.BATCH_UNIT;
-        static final int MAX_BATCH = IteratorSpliterator.MAX_BATCH;
         private PrimitiveIterator.OfLong it;
         private final int characteristics;
         private long est;             // size estimate
@@ -1980,11 +1964,7 @@ public final class Spliterators {
             PrimitiveIterator.OfLong i = it;
             long s = est;
             if (s > 1 && i.hasNext()) {
-                int n = batch + BATCH_UNIT;
-                if (n > s)
-                    n = (int) s;
-                if (n > MAX_BATCH)
-                    n = MAX_BATCH;
+                int n = batchSize(batch, s, characteristics);
                 long[] a = new long[n];
                 int j = 0;
                 do { a[j] = i.nextLong(); } while (++j < n && i.hasNext());
@@ -2029,8 +2009,6 @@ public final class Spliterators {
     }
 
     static final class DoubleIteratorSpliterator implements Spliterator.OfDouble {
-        static final int BATCH_UNIT = IteratorSpliterator.BATCH_UNIT;
-        static final int MAX_BATCH = IteratorSpliterator.MAX_BATCH;
         private PrimitiveIterator.OfDouble it;
         private final int characteristics;
         private long est;             // size estimate
@@ -2074,11 +2052,7 @@ public final class Spliterators {
             PrimitiveIterator.OfDouble i = it;
             long s = est;
             if (s > 1 && i.hasNext()) {
-                int n = batch + BATCH_UNIT;
-                if (n > s)
-                    n = (int) s;
-                if (n > MAX_BATCH)
-                    n = MAX_BATCH;
+                int n = batchSize(batch, s, characteristics);
                 double[] a = new double[n];
                 int j = 0;
                 do { a[j] = i.nextDouble(); } while (++j < n && i.hasNext());
@@ -111,6 +111,47 @@ class TimSort<T> {
      */
     private static final int INITIAL_TMP_STORAGE_LENGTH = 256;
 
+    /**
+     * Per-thread scratch arrays, used as tmp when sorting arrays of
+     * exact type Object[] (as do List.sort and Collections.sort)
+     * without a workspace, so that sorting many small lists allocates
+     * no temp storage.  The array is as long as the largest initial
+     * tmp, so arrays shorter than twice this never need another.  Each
+     * thread's array is held in a one-element holder that is emptied
+     * while the array is in use, so a sort nested in a comparator
+     * allocates its own.  Arrays are cleared before being given back,
+     * and so never retain elements.
+     */
+    static final int SCRATCH_LENGTH = INITIAL_TMP_STORAGE_LENGTH;
+
+    private static final ThreadLocal<Object[][]> scratchHolder =
+        new ThreadLocal<Object[][]>() {
+            protected Object[][] initialValue() {
+                return new Object[1][];
+            }
+        };
+
+    /**
+     * Returns this thread's scratch array, or a new one if it is in use.
+     */
+    static Object[] acquireScratch() {
+        Object[][] h = scratchHolder.get();
+        Object[] s = h[0];
+        if (s == null)
+            return new Object[SCRATCH_LENGTH];
+        h[0] = null;
+        return s;
+    }
+
+    /**
+     * Clears the first used elements of a scratch array obtained from
+     * acquireScratch, and makes it this thread's scratch array.
+     */
+    static void releaseScratch(Object[] s, int used) {
+        Arrays.fill(s, 0, Math.min(used, s.length), null);
+        scratchHolder.get()[0] = s;
+    }
+
     /**
      * Temp storage for merges. A workspace array may optionally be
      * provided in constructor, and if so will be used as long as it
@@ -120,6 +161,14 @@ class TimSort<T> {
     private int tmpBase; // base of tmp array slice
     private int tmpLen;  // length of tmp array slice
 
+    /**
+     * The per-thread scratch array, if tmp was taken from it, and the
+     * length of its prefix that may have been used, which is cleared
+     * before the array is given back.
+     */
+    private Object[] scratch;
+    private int scratchUsed;
+
     /**
      * A stack of pending runs yet to be merged.  Run i starts at
      * address base[i] and extends for len[i] elements.  It's always
@@ -152,12 +201,19 @@ class TimSort<T> {
         int tlen = (len < 2 * INITIAL_TMP_STORAGE_LENGTH) ?
             len >>> 1 : INITIAL_TMP_STORAGE_LENGTH;
         if (work == null || workLen < tlen || workBase + tlen > work.length) {
-            @SuppressWarnings({"unchecked", "UnnecessaryLocalVariable"})
-            T[] newArray = (T[])java.lang.reflect.Array.newInstance
-                (a.getClass().getComponentType(), tlen);
-            tmp = newArray;
+            if (a.getClass() == Object[].class) {
+                @SuppressWarnings("unchecked")
+                T[] s = (T[])(scratch = acquireScratch());
+                tmp = s;
+                tmpLen = s.length;
+            } else {
+                @SuppressWarnings({"unchecked", "UnnecessaryLocalVariable"})
+                T[] newArray = (T[])java.lang.reflect.Array.newInstance
+                    (a.getClass().getComponentType(), tlen);
+                tmp = newArray;
+                tmpLen = tlen;
+            }
             tmpBase = 0;
-            tmpLen = tlen;
         }
         else {
             tmp = work;
@@ -253,6 +309,7 @@ class TimSort<T> {
         assert lo == hi;
         ts.mergeForceCollapse();
         assert ts.stackSize == 1;
+        ts.returnScratch();
     }
 
     /**
@@ -510,7 +567,9 @@ class TimSort<T> {
             return;
 
         // Merge remaining runs, using tmp array with min(len1, len2) elements
-        if (len1 <= len2)
+        if (len1 < MIN_MERGE && len2 < MIN_MERGE)
+            mergeShort(base1, len1, base2, len2);
+        else if (len1 <= len2)
             mergeLo(base1, len1, base2, len2);
         else
             mergeHi(base1, len1, base2, len2);
@@ -662,6 +721,64 @@ class TimSort<T> {
         return ofs;
     }
 
+    /**
+     * Merges two adjacent runs in place, in a stable fashion, when both
+     * are shorter than MIN_MERGE.  For such runs the bookkeeping of
+     * galloping costs more than it can save, so this is a plain merge
+     * that copies the shorter run into tmp, and merges forward if it is
+     * the first run or backward if it is the second.  The runs must
+     * satisfy the same conditions as for mergeLo and mergeHi, except
+     * for their relative lengths.
+     *
+     * @param base1 index of first element in first run to be merged
+     * @param len1  length of first run to be merged (must be > 0)
+     * @param base2 index of first element in second run to be merged
+     *        (must be aBase + aLen)
+     * @param len2  length of second run to be merged (must be > 0)
+     */
+    private void mergeShort(int base1, int len1, int base2, int len2) {
+        assert len1 > 0 && len2 > 0 && base1 + len1 == base2;
+
+        T[] a = this.a; // For performance
+        if (len1 <= len2) {
+            T[] tmp = ensureCapacity(len1);
+            int cursor1 = tmpBase, end1 = cursor1 + len1; // Indexes into tmp
+            int cursor2 = base2, end2 = base2 + len2;    // Indexes into a
+            int dest = base1;                             // Indexes into a
+            System.arraycopy(a, base1, tmp, cursor1, len1);
+            try {
+                while (cursor1 < end1 && cursor2 < end2) {
+                    if (c.compare(a[cursor2], tmp[cursor1]) < 0)
+                        a[dest++] = a[cursor2++];
+                    else
+                        a[dest++] = tmp[cursor1++];
+                }
+            } finally {
+                // What remains of run 1 fills the gap up to cursor2
+                System.arraycopy(tmp, cursor1, a, dest, end1 - cursor1);
+            }
+        } else {
+            T[] tmp = ensureCapacity(len2);
+            int tmpBase = this.tmpBase;
+            int cursor1 = base1 + len1 - 1;   // Indexes into a
+            int cursor2 = tmpBase + len2 - 1; // Indexes into tmp
+            int dest = base2 + len2 - 1;      // Indexes into a
+            System.arraycopy(a, base2, tmp, tmpBase, len2);
+            try {
+                while (cursor2 >= tmpBase && cursor1 >= base1) {
+                    if (c.compare(tmp[cursor2], a[cursor1]) < 0)
+                        a[dest--] = a[cursor1--];
+                    else
+                        a[dest--] = tmp[cursor2--];
+                }
+            } finally {
+                // What remains of run 2 fills the gap down to cursor1
+                int n = cursor2 - tmpBase + 1;
+                System.arraycopy(tmp, tmpBase, a, dest - n + 1, n);
+            }
+        }
+    }
+
     /**
      * Merges two adjacent runs in place, in a stable fashion.  The first
      * element of the first run must be greater than the first element of the
@@ -905,6 +1022,21 @@ class TimSort<T> {
         }
     }
 
+    /**
+     * Gives the scratch array back to this thread, if tmp was taken
+     * from it, after clearing the part that may hold elements.  If the
+     * sort fails, for example because the comparator throws, this is
+     * not called and the array is dropped, so the next sort on this
+     * thread allocates another.
+     */
+    private void returnScratch() {
+        Object[] s = scratch;
+        if (s != null) {
+            scratch = null;
+            releaseScratch(s, scratchUsed);
+        }
+    }
+
     /**
      * Ensures that the external array tmp has at least the specified
      * number of elements, increasing its size if necessary.  The size
@@ -914,6 +1046,8 @@ class TimSort<T> {
      * @return tmp, whether or not it grew
      */
     private T[] ensureCapacity(int minCapacity) {
+        if (tmp == scratch && minCapacity > scratchUsed)
+            scratchUsed = minCapacity;
         if (tmpLen < minCapacity) {
             // Compute smallest power of 2 > minCapacity
             int newSize = minCapacity;
@@ -49,6 +49,15 @@ import java.util.concurrent.atomic.AtomicInteger;
  * wants to terminate a timer's task execution thread rapidly, the caller
  * should invoke the timer's <tt>cancel</tt> method.
  *
+ * <p>A timer may instead be created with several task execution threads
+ * using the {@link #Timer(String, boolean, int)} constructor.  Such a
+ * timer divides its tasks among a number of independent queues, each
+ * with its own thread, so that a task that takes excessive time delays
+ * only those tasks that share its queue, and threads scheduling or
+ * cancelling tasks rarely contend with each other.  Tasks are assigned
+ * to queues without regard to their execution times, so tasks scheduled
+ * for the same time may run concurrently, and in no particular order.
+ *
  * <p>If the timer's task execution thread terminates unexpectedly, for
  * example, because its <tt>stop</tt> method is invoked, any further
  * attempt to schedule a task on the timer will result in an
@@ -77,6 +86,10 @@ import java.util.concurrent.atomic.AtomicInteger;
  * scheduled tasks (thousands should present no problem).  Internally,
  * it uses a binary heap to represent its task queue, so the cost to schedule
  * a task is O(log n), where n is the number of concurrently scheduled tasks.
+ * Cancelling a task takes constant time.  As further tasks are scheduled,
+ * the timer checks its queue a few tasks at a time, and once cancelled tasks
+ * make up more than half of it, the timer thread removes them in bulk, so
+ * that their removal costs amortized constant time per scheduled task.
  *
  * <p>Implementation note: All constructors start a timer thread.
  *
@@ -88,17 +101,19 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 public class Timer {
     /**
-     * The timer task queue.  This data structure is shared with the timer
-     * thread.  The timer produces tasks, via its various schedule calls,
-     * and the timer thread consumes, executing timer tasks as appropriate,
-     * and removing them from the queue when they're obsolete.
+     * The timer task queues.  Each queue is shared with the timer thread
+     * at the same index of threads.  The timer produces tasks, via its
+     * various schedule calls, and the timer threads consume, executing
+     * timer tasks as appropriate, and removing them from the queues when
+     * they're obsolete.  Unless created with more than one thread, a
+     * timer has exactly one queue.
      */
-    private final TaskQueue queue = new TaskQueue();
+    private final TaskQueue[] queues;
 
     /**
-     * The timer thread.
+     * The timer threads.
      */
-    private final TimerThread thread = new TimerThread(queue);
+    private final TimerThread[] threads;
 
     /**
      * This object causes the timer's task execution thread to exit
@@ -109,9 +124,12 @@ public class Timer {
      */
     private final Object threadReaper = new Object() {
         protected void finalize() throws Throwable {
-            synchronized(queue) {
-                thread.newTasksMayBeScheduled = false;
-                queue.notify(); // In case queue is empty.
+            for (TimerThread thread : threads) {
+                TaskQueue queue = thread.queue;
+                synchronized(queue) {
+                    thread.newTasksMayBeScheduled = false;
+                    queue.notify(); // In case queue is empty.
+                }
             }
         }
     };
@@ -156,8 +174,8 @@ public class Timer {
      * @since 1.5
      */
     public Timer(String name) {
-        thread.setName(name);
-        thread.start();
+        this(name, 1);
+        threads[0].start();
     }
 
     /**
@@ -171,9 +189,50 @@ public class Timer {
      * @since 1.5
      */
     public Timer(String name, boolean isDaemon) {
-        thread.setName(name);
-        thread.setDaemon(isDaemon);
-        thread.start();
+        this(name, 1);
+        threads[0].setDaemon(isDaemon);
+        threads[0].start();
+    }
+
+    /**
+     * Creates a new timer with the specified number of associated
+     * threads, which may be specified to
+     * {@linkplain Thread#setDaemon run as daemons}.  If more than one
+     * thread is requested, each is named by appending a hyphen and its
+     * index to the given name.
+     *
+     * @param name the name of the associated threads
+     * @param isDaemon true if the associated threads should run as daemons
+     * @param nThreads the number of task execution threads
+     * @throws NullPointerException if {@code name} is null
+     * @throws IllegalArgumentException if {@code nThreads <= 0}
+     * @since 1.8
+     */
+    public Timer(String name, boolean isDaemon, int nThreads) {
+        this(name, nThreads);
+        for (TimerThread thread : threads) {
+            thread.setDaemon(isDaemon);
+            thread.start();
+        }
+    }
+
+    /**
+     * Creates the queues and named, but not yet started, threads.
+     */
+    private Timer(String name, int nThreads) {
+        if (name == null)
+            throw new NullPointerException();
+        if (nThreads <= 0)
+            throw new IllegalArgumentException("Non-positive thread count.");
+        TaskQueue[] qs = new TaskQueue[nThreads];
+        TimerThread[] ts = new TimerThread[nThreads];
+        for (int i = 0; i < nThreads; i++) {
+            qs[i] = new TaskQueue();
+            ts[i] = new TimerThread(qs[i], ts);
+            ts[i].setName(nThreads == 1 ? name : name + "-" + i);
+        }
+        this.queues = qs;
+        this.threads = ts;
     }
 
     /**
@@ -392,6 +451,8 @@ public class Timer {
         if (Math.abs(period) > (Long.MAX_VALUE >> 1))
             period >>= 1;
 
+        TimerThread thread = threads[indexFor(task)];
+        TaskQueue queue = thread.queue;
         synchronized(queue) {
             if (!thread.newTasksMayBeScheduled)
                 throw new IllegalStateException("Timer already cancelled.");
@@ -406,11 +467,27 @@ public class Timer {
             }
 
             queue.add(task);
-            if (queue.getMin() == task)
+            boolean purge = queue.sweep();
+            if (queue.getMin() == task || purge)
                 queue.notify();
         }
     }
 
+    /**
+     * Returns the index of the queue to which the given task is
+     * assigned.  Spreading tasks by identity hash rather than by a
+     * shared counter means that scheduling threads never write to
+     * common state outside of the chosen queue.
+     */
+    private int indexFor(TimerTask task) {
+        int n = threads.length;
+        if (n == 1)
+            return 0;
+        int h = System.identityHashCode(task);
+        h ^= (h >>> 16);
+        return (h & 0x7fffffff) % n;
+    }
+
     /**
      * Terminates this timer, discarding any currently scheduled tasks.
      * Does not interfere with a currently executing task (if it exists).
@@ -426,11 +503,8 @@ public class Timer {
      * calls have no effect.
      */
     public void cancel() {
-        synchronized(queue) {
-            thread.newTasksMayBeScheduled = false;
-            queue.clear();
-            queue.notify();  // In case queue was already empty.
-        }
+        for (TimerThread thread : threads)
+            thread.terminate();
     }
 
     /**
@@ -456,16 +530,10 @@ public class Timer {
      public int purge() {
          int result = 0;
 
-         synchronized(queue) {
-             for (int i = queue.size(); i > 0; i--) {
-                 if (queue.get(i).state == TimerTask.CANCELLED) {
-                     queue.quickRemove(i);
-                     result++;
-                 }
+         for (TaskQueue queue : queues) {
+             synchronized(queue) {
+                 result += queue.purge();
              }
-
-             if (result != 0)
-                 queue.heapify();
          }
 
          return result;
@@ -494,10 +562,17 @@ class TimerThread extends Thread {
      * Otherwise, the Timer would never be garbage-collected and this
      * thread would never go away.
      */
-    private TaskQueue queue;
+    final TaskQueue queue;
+
+    /**
+     * All threads of our Timer, including this one.  Like the queue,
+     * this does not reference the Timer itself.
+     */
+    private final TimerThread[] siblings;
 
-    TimerThread(TaskQueue queue) {
+    TimerThread(TaskQueue queue, TimerThread[] siblings) {
         this.queue = queue;
+        this.siblings = siblings;
     }
 
     public void run() {
@@ -505,10 +580,21 @@ class TimerThread extends Thread {
             mainLoop();
         } finally {
             // Someone killed this Thread, behave as if Timer cancelled
-            synchronized(queue) {
-                newTasksMayBeScheduled = false;
-                queue.clear();  // Eliminate obsolete references
-            }
+            for (TimerThread thread : siblings)
+                thread.terminate();
+        }
+    }
+
+    /**
+     * Prevents further scheduling on this thread's queue and discards
+     * the tasks in it, causing this thread to exit once it finishes any
+     * task it is currently executing.
+     */
+    void terminate() {
+        synchronized(queue) {
+            newTasksMayBeScheduled = false;
+            queue.clear();  // Eliminate obsolete references
+            queue.notify(); // In case queue was already empty.
         }
     }
 
@@ -521,6 +607,10 @@ class TimerThread extends Thread {
                 TimerTask task;
                 boolean taskFired;
                 synchronized(queue) {
+                    // Remove cancelled tasks if a sweep found too many
+                    if (queue.purgeRequested)
+                        queue.purge();
+
                     // Wait for queue to become non-empty
                     while (queue.isEmpty() && newTasksMayBeScheduled)
                         queue.wait();
@@ -583,6 +673,32 @@ class TaskQueue {
      */
     private int size = 0;
 
+    /**
+     * The index of the next task to be examined by the sweep in progress,
+     * and the number of cancelled tasks it has found so far.  The heap
+     * changes during a sweep, so this number is approximate.
+     */
+    private int sweepIndex = 1;
+    private int sweepCancelled = 0;
+
+    /**
+     * Set when a sweep finds that cancelled tasks make up more than half
+     * of the queue, so that the timer thread purges them.
+     */
+    boolean purgeRequested = false;
+
+    /**
+     * The number of tasks examined by each call to sweep.  As it is more
+     * than one, each sweep completes even while the queue is growing.
+     */
+    private static final int SWEEP_STEP = 2;
+
+    /**
+     * The queue size below which cancelled tasks are not purged
+     * automatically, as they then occupy little space.
+     */
+    private static final int PURGE_THRESHOLD = 64;
+
     /**
      * Returns the number of tasks currently on the queue.
      */
@@ -665,6 +781,55 @@ class TaskQueue {
             queue[i] = null;
 
         size = 0;
+        sweepIndex = 1;
+        sweepCancelled = 0;
+        purgeRequested = false;
+    }
+
+    /**
+     * Examines the next few tasks of the sweep in progress, counting those
+     * that are cancelled, and starts a new sweep once the end of the queue
+     * is reached.  Returns true if a sweep just completed and found that
+     * cancelled tasks make up more than half of a queue of at least
+     * PURGE_THRESHOLD tasks, in which case purgeRequested is set and the
+     * timer thread should be notified.  Called each time a task is added,
+     * so that the cost of a purge is amortized over the additions of a
+     * whole sweep.  Must be called holding the queue's monitor.
+     */
+    boolean sweep() {
+        for (int n = SWEEP_STEP; n > 0; n--) {
+            if (sweepIndex > size) {
+                boolean purge = size >= PURGE_THRESHOLD &&
+                                sweepCancelled > (size >>> 1);
+                sweepIndex = 1;
+                sweepCancelled = 0;
+                if (purge && !purgeRequested)
+                    return purgeRequested = true;
+                break;
+            }
+            if (queue[sweepIndex++].state == TimerTask.CANCELLED)
+                sweepCancelled++;
+        }
+        return false;
+    }
+
+    /**
+     * Removes all cancelled tasks from the queue, and returns their
+     * number.  Must be called holding the queue's monitor.
+     */
+    int purge() {
+        purgeRequested = false;
+        int result = 0;
+        for (int i = size; i > 0; i--) {
+            if (queue[i].state == TimerTask.CANCELLED) {
+                quickRemove(i);
+                result++;
+            }
+        }
+
+        if (result != 0)
+            heapify();
+        return result;
     }
 
     /**
@@ -337,6 +337,28 @@ public class ArrayBlockingQueue<E> extends AbstractQueue<E>
         }
     }
 
+    /**
+     * Inserts elements {@code a[from]} through {@code a[to - 1]} at
+     * the tail of this queue, in order, for as long as there is
+     * space, holding the lock only once. Elements must be non-null.
+     * Used by ThreadPoolExecutor.executeAll.
+     *
+     * @return the index of the first element not inserted
+     */
+    @SuppressWarnings("unchecked")
+    final int offerAll(Object[] a, int from, int to) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            int i = from;
+            while (i < to && count < items.length)
+                enqueue((E)a[i++]);
+            return i;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /**
      * Inserts the specified element at the tail of this queue, waiting
      * for space to become available if the queue is full.
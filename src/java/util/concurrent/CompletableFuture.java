@@ -35,6 +35,11 @@
 
 package java.util.concurrent;
 import java.util.function.Supplier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.function.Consumer;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
@@ -1313,6 +1318,67 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         return d;
     }
 
+    /* ------------- Batched conjunction -------------- */
+
+    /**
+     * Countdown shared by the AllRelays of one allOfBatch call.
+     * Unlike andTree, which needs a BiRelay, CoCompletion and
+     * intermediate CompletableFuture per pair of sources, this
+     * needs only one small Completion per source.
+     */
+    static final class AllCountdown {
+        CompletableFuture<Void> dep;    // the dependent to complete
+        CompletableFuture<?>[] cfs;     // the sources
+        volatile int pending;           // number of sources not yet done
+        AllCountdown(CompletableFuture<Void> dep, CompletableFuture<?>[] cfs) {
+            this.dep = dep; this.cfs = cfs; this.pending = cfs.length;
+        }
+
+        /**
+         * Records that one source is done. On the last arrival,
+         * completes dep with the exception of the first (by index)
+         * exceptionally completed source, if any, as andTree would,
+         * else with null, and returns dep; otherwise returns null.
+         */
+        final CompletableFuture<Void> arrive() {
+            if (UNSAFE.getAndAddInt(this, PENDING, -1) != 1)
+                return null;
+            CompletableFuture<Void> d = dep;
+            CompletableFuture<?>[] as = cfs;
+            dep = null; cfs = null;
+            Object r; Throwable x;
+            for (CompletableFuture<?> a : as) {
+                if ((r = a.result) instanceof AltResult &&
+                    (x = ((AltResult)r).ex) != null) {
+                    d.completeThrowable(x, r);
+                    return d;
+                }
+            }
+            d.completeNull();
+            return d;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class AllRelay extends Completion { // for allOfBatch
+        AllCountdown ctr;
+        CompletableFuture<?> src;
+        AllRelay(AllCountdown ctr, CompletableFuture<?> src) {
+            this.ctr = ctr; this.src = src;
+        }
+        final CompletableFuture<Void> tryFire(int mode) {
+            AllCountdown g; CompletableFuture<?> a; CompletableFuture<Void> d;
+            if ((g = ctr) == null || (a = src) == null || a.result == null ||
+                !compareAndSetForkJoinTaskTag((short)0, (short)1))
+                return null;
+            ctr = null; src = null;
+            if ((d = g.arrive()) == null)
+                return null;
+            return d.postFire(a, mode);
+        }
+        final boolean isLive() { return ctr != null; }
+    }
+
     /* ------------- Projected (Ored) BiCompletions -------------- */
 
     /** Pushes completion to this and b unless either done. */
@@ -2225,6 +2291,48 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         return andTree(cfs, 0, cfs.length - 1);
     }
 
+    /**
+     * Returns a new CompletableFuture that is completed when all of
+     * the given CompletableFutures complete, with the same outcome
+     * as {@link #allOf} for the same futures in iteration order.
+     * Unlike {@code allOf}, which links the futures pairwise through
+     * a tree of intermediate CompletableFutures, this method uses a
+     * single shared count of incomplete futures, and so requires
+     * less space and time when there are many of them.
+     *
+     * @param cfs the CompletableFutures
+     * @return a new CompletableFuture that is completed when all of the
+     * given CompletableFutures complete
+     * @throws NullPointerException if the collection or any of its
+     * elements are {@code null}
+     * @since 1.8
+     */
+    public static CompletableFuture<Void> allOfBatch(
+        Collection<? extends CompletableFuture<?>> cfs) {
+        CompletableFuture<?>[] as = cfs.toArray(new CompletableFuture<?>[0]);
+        for (CompletableFuture<?> a : as) {
+            if (a == null)
+                throw new NullPointerException();
+        }
+        CompletableFuture<Void> d = new CompletableFuture<Void>();
+        if (as.length == 0)
+            d.result = NIL;
+        else {
+            AllCountdown g = new AllCountdown(d, as);
+            for (CompletableFuture<?> a : as) {
+                if (a.result != null)
+                    g.arrive();
+                else {
+                    AllRelay c = new AllRelay(g, a);
+                    while (a.result == null && !a.tryPushStack(c))
+                        lazySetNext(c, null); // clear on failure
+                    c.tryFire(SYNC);
+                }
+            }
+        }
+        return d;
+    }
+
     /**
      * Returns a new CompletableFuture that is completed when any of
      * the given CompletableFutures complete, with the same result.
@@ -2244,6 +2352,424 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         return orTree(cfs, 0, cfs.length - 1);
     }
 
+    /* ------------- Structured fan-out -------------- */
+
+    /**
+     * A group of asynchronous tasks, run with bounded concurrency,
+     * whose outcomes are combined into a single CompletableFuture.
+     * Tasks are added with {@link #fork}, which returns a
+     * CompletableFuture for the outcome of each, and are run using
+     * the scope's executor, at most a given number at a time; the
+     * others wait in order of forking.  The scope is then closed by
+     * one of:
+     *
+     * <ul>
+     * <li>{@link #allOf}, returning a CompletableFuture that is
+     * completed with the results of all tasks, in the order in which
+     * they were forked, or, as soon as any task completes
+     * exceptionally, with a CompletionException holding this
+     * exception as its cause.
+     * <li>{@link #anyOf}, returning a CompletableFuture that is
+     * completed with the result of the first task to complete
+     * normally, or, if all tasks complete exceptionally, with a
+     * CompletionException holding the exception of one of them.
+     * </ul>
+     *
+     * <p>As soon as the outcome of a closed scope is known, the scope
+     * is <em>shut down</em>: waiting tasks are never run, and the
+     * CompletableFutures of all tasks that are not yet complete are
+     * cancelled.  As with {@link CompletableFuture#cancel}, this does
+     * not interrupt tasks that are already running, but their results
+     * are discarded.  Tasks that complete before the scope is closed
+     * are taken into account when it is closed.  Cancelling the
+     * CompletableFuture returned by {@code allOf} or {@code anyOf}, or
+     * invoking {@link #cancel}, also shuts the scope down.  Cancelling
+     * the CompletableFuture of a single task counts as its exceptional
+     * completion.
+     *
+     * <p>Unlike the static {@link CompletableFuture#allOf} and {@link
+     * CompletableFuture#anyOf} methods, which link their arguments
+     * through a tree of intermediate CompletableFutures, a scope
+     * records the completion of each task in constant time, so
+     * combining {@code n} tasks takes time and space linear in
+     * {@code n}.
+     *
+     * <p><b>Sample Usage.</b> Sending a request to each of a number of
+     * services, with at most eight requests outstanding, and failing
+     * as soon as one of them fails:
+     *
+     * <pre> {@code
+     * CompletableFuture.Scope<Reply> scope =
+     *   new CompletableFuture.Scope<>(executor, 8);
+     * for (Service s : services)
+     *   scope.fork(() -> s.send(request));
+     * List<Reply> replies = scope.allOf().join();}</pre>
+     *
+     * @param <T> the type of results of the tasks
+     * @since 1.8
+     */
+    public static final class Scope<T> {
+        // Values for state
+        static final int OPEN = 0;    // accepting forks
+        static final int ALL  = 1;    // closed by allOf
+        static final int ANY  = 2;    // closed by anyOf
+        static final int DONE = 3;    // outcome known or cancelled
+
+        final Executor executor;
+        final int maxConcurrency;
+        /*
+         * All other fields are guarded by the Scope's monitor, except
+         * that once state is DONE, tasks, all, any, firstSuccess and
+         * firstFailure are no longer written.
+         */
+        final ArrayList<CompletableFuture<T>> tasks =
+            new ArrayList<CompletableFuture<T>>();
+        final ArrayDeque<ScopeTask<T>> waiting =
+            new ArrayDeque<ScopeTask<T>>();
+        int running;                    // tasks given to the executor
+        int incomplete;                 // tasks not yet complete
+        int state;
+        CompletableFuture<List<T>> all; // the outcome, if closed by allOf
+        CompletableFuture<T> any;       // the outcome, if closed by anyOf
+        CompletableFuture<T> firstSuccess;
+        CompletableFuture<T> firstFailure;
+
+        /**
+         * Creates a new scope running its tasks using the default
+         * asynchronous execution facility of CompletableFuture.
+         *
+         * @param maxConcurrency the maximum number of tasks to run
+         * at any one time
+         * @throws IllegalArgumentException if {@code maxConcurrency}
+         * is less than one
+         */
+        public Scope(int maxConcurrency) {
+            this(asyncPool, maxConcurrency);
+        }
+
+        /**
+         * Creates a new scope running its tasks using the given
+         * executor.
+         *
+         * @param executor the executor to use for running tasks
+         * @param maxConcurrency the maximum number of tasks to run
+         * at any one time
+         * @throws NullPointerException if the executor is null
+         * @throws IllegalArgumentException if {@code maxConcurrency}
+         * is less than one
+         */
+        public Scope(Executor executor, int maxConcurrency) {
+            if (maxConcurrency < 1)
+                throw new IllegalArgumentException();
+            this.executor = screenExecutor(executor);
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        /**
+         * Adds a task to this scope, running it with the scope's
+         * executor as soon as fewer than the maximum number of tasks
+         * are running.
+         *
+         * @param supplier a function returning the value to be used
+         * to complete the returned CompletableFuture
+         * @return a new CompletableFuture for the outcome of the task
+         * @throws NullPointerException if the supplier is null
+         * @throws IllegalStateException if this scope is already
+         * closed or cancelled
+         */
+        public CompletableFuture<T> fork(Supplier<? extends T> supplier) {
+            if (supplier == null) throw new NullPointerException();
+            CompletableFuture<T> d = new CompletableFuture<T>();
+            ScopeTask<T> t = new ScopeTask<T>(this, d, supplier);
+            d.pushStack(new ScopeRelay<T>(this, d));
+            synchronized (this) {
+                if (state != OPEN)
+                    throw new IllegalStateException();
+                tasks.add(d);
+                ++incomplete;
+                if (running < maxConcurrency)
+                    ++running;
+                else {
+                    waiting.add(t);
+                    t = null;
+                }
+            }
+            if (t != null)
+                execute(t);
+            return d;
+        }
+
+        /**
+         * Closes this scope, returning a new CompletableFuture that is
+         * completed with the results of all tasks in the order in
+         * which they were forked, or exceptionally as soon as any task
+         * completes exceptionally.  If no tasks were forked, returns a
+         * CompletableFuture completed with an empty list.
+         *
+         * @return a new CompletableFuture for the results of all tasks
+         * @throws IllegalStateException if this scope is already
+         * closed or cancelled
+         */
+        public CompletableFuture<List<T>> allOf() {
+            CompletableFuture<List<T>> d = new ScopeFuture<List<T>>(this);
+            boolean done;
+            synchronized (this) {
+                if (state != OPEN)
+                    throw new IllegalStateException();
+                all = d;
+                done = firstFailure != null || incomplete == 0;
+                state = done ? DONE : ALL;
+            }
+            if (done)
+                finish(ALL);
+            return d;
+        }
+
+        /**
+         * Closes this scope, returning a new CompletableFuture that is
+         * completed with the result of the first task to complete
+         * normally, or exceptionally if all tasks complete
+         * exceptionally.  If no tasks were forked, returns a
+         * CompletableFuture completed exceptionally with a
+         * CompletionException holding a NoSuchElementException.
+         *
+         * @return a new CompletableFuture for the result of any task
+         * @throws IllegalStateException if this scope is already
+         * closed or cancelled
+         */
+        public CompletableFuture<T> anyOf() {
+            CompletableFuture<T> d = new ScopeFuture<T>(this);
+            boolean done;
+            synchronized (this) {
+                if (state != OPEN)
+                    throw new IllegalStateException();
+                any = d;
+                done = firstSuccess != null || incomplete == 0;
+                state = done ? DONE : ANY;
+            }
+            if (done)
+                finish(ANY);
+            return d;
+        }
+
+        /**
+         * Shuts this scope down, cancelling the CompletableFuture
+         * returned when it was closed, if any, and those of all tasks
+         * not yet complete.  Has no effect if the scope is already
+         * shut down.
+         *
+         * @return {@code true} if this scope is now shut down as a
+         * result of this call
+         */
+        public boolean cancel() {
+            CompletableFuture<?> d;
+            synchronized (this) {
+                if (state == DONE)
+                    return false;
+                state = DONE;
+                d = (all != null) ? all : any;
+            }
+            if (d != null)
+                d.cancel(false);
+            shutdown();
+            return true;
+        }
+
+        /**
+         * Returns {@code true} if this scope has been shut down.
+         *
+         * @return {@code true} if this scope has been shut down
+         */
+        public synchronized boolean isShutdown() {
+            return state == DONE;
+        }
+
+        /**
+         * Gives t to the executor, or, if it rejects t, completes it
+         * with the exception and tries the next waiting task instead.
+         */
+        final void execute(ScopeTask<T> t) {
+            while (t != null) {
+                try {
+                    executor.execute(t);
+                    return;
+                } catch (Throwable ex) {
+                    t.reject(ex);
+                    t = next();
+                }
+            }
+        }
+
+        /**
+         * Called when a task given to the executor is finished.
+         * Returns the next waiting task to take its place, skipping
+         * those already cancelled, or null if none.
+         */
+        final ScopeTask<T> next() {
+            ScopeTask<T> t; CompletableFuture<T> d;
+            synchronized (this) {
+                while ((t = waiting.poll()) != null) {
+                    if ((d = t.dep) != null && d.result == null)
+                        return t;
+                }
+                --running;
+                return null;
+            }
+        }
+
+        /**
+         * Records the completion of the task with the given
+         * CompletableFuture, finishing the scope if this decides
+         * its outcome.
+         */
+        final void arrive(CompletableFuture<T> a) {
+            Object r = a.result;
+            boolean failed = (r instanceof AltResult &&
+                              ((AltResult)r).ex != null);
+            int s;
+            synchronized (this) {
+                --incomplete;
+                if ((s = state) == DONE)
+                    return;
+                if (!failed) {
+                    if (firstSuccess == null)
+                        firstSuccess = a;
+                }
+                else if (firstFailure == null)
+                    firstFailure = a;
+                if (s == OPEN ||
+                    (incomplete != 0 && (s == ALL) != failed))
+                    return;
+                state = DONE;
+            }
+            finish(s);
+        }
+
+        /**
+         * Completes the outcome of a scope closed by the given mode,
+         * and shuts it down.  Called only by the thread setting
+         * state to DONE.
+         */
+        final void finish(int mode) {
+            CompletableFuture<T> a; Object r;
+            if (mode == ALL) {
+                CompletableFuture<List<T>> d = all;
+                if ((a = firstFailure) != null) {
+                    r = a.result;
+                    d.completeThrowable(((AltResult)r).ex, r);
+                    d.postComplete();
+                }
+                else {
+                    ArrayList<T> results = new ArrayList<T>(tasks.size());
+                    for (CompletableFuture<T> f : tasks) {
+                        @SuppressWarnings("unchecked") T t =
+                            ((r = f.result) instanceof AltResult) ? null :
+                            (T) r;
+                        results.add(t);
+                    }
+                    d.complete(results);
+                }
+            }
+            else {
+                CompletableFuture<T> d = any;
+                if ((a = firstSuccess) != null)
+                    d.completeRelay(a.result);
+                else if ((a = firstFailure) != null) {
+                    r = a.result;
+                    d.completeThrowable(((AltResult)r).ex, r);
+                }
+                else
+                    d.completeThrowable(new NoSuchElementException());
+                d.postComplete();
+            }
+            shutdown();
+        }
+
+        /**
+         * Discards waiting tasks and cancels all incomplete ones.
+         */
+        final void shutdown() {
+            Object[] fs;
+            synchronized (this) {
+                waiting.clear();
+                fs = tasks.toArray();
+            }
+            for (Object f : fs)
+                ((CompletableFuture<?>)f).cancel(false);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class ScopeTask<T> extends ForkJoinTask<Void>
+            implements Runnable, AsynchronousCompletionTask {
+        Scope<T> scope; CompletableFuture<T> dep; Supplier<? extends T> fn;
+        ScopeTask(Scope<T> scope, CompletableFuture<T> dep,
+                  Supplier<? extends T> fn) {
+            this.scope = scope; this.dep = dep; this.fn = fn;
+        }
+
+        public final Void getRawResult() { return null; }
+        public final void setRawResult(Void v) {}
+        public final boolean exec() { run(); return true; }
+
+        public void run() {
+            Scope<T> s; CompletableFuture<T> d; Supplier<? extends T> f;
+            if ((s = scope) != null && (d = dep) != null && (f = fn) != null) {
+                scope = null; dep = null; fn = null;
+                if (d.result == null) {
+                    try {
+                        d.completeValue(f.get());
+                    } catch (Throwable ex) {
+                        d.completeThrowable(ex);
+                    }
+                }
+                d.postComplete();
+                s.execute(s.next());
+            }
+        }
+
+        /** Completes dep with the executor's rejection exception. */
+        final void reject(Throwable ex) {
+            CompletableFuture<T> d;
+            if ((d = dep) != null) {
+                scope = null; dep = null; fn = null;
+                d.completeThrowable(ex);
+                d.postComplete();
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class ScopeRelay<T> extends Completion { // for Scope
+        Scope<T> scope;
+        CompletableFuture<T> src;
+        ScopeRelay(Scope<T> scope, CompletableFuture<T> src) {
+            this.scope = scope; this.src = src;
+        }
+        final CompletableFuture<?> tryFire(int mode) {
+            Scope<T> s; CompletableFuture<T> a;
+            if ((s = scope) == null || (a = src) == null || a.result == null ||
+                !compareAndSetForkJoinTaskTag((short)0, (short)1))
+                return null;
+            scope = null; src = null;
+            s.arrive(a);
+            return null;
+        }
+        final boolean isLive() { return scope != null; }
+    }
+
+    /** The outcome of a Scope, shutting it down if cancelled. */
+    static final class ScopeFuture<U> extends CompletableFuture<U> {
+        final Scope<?> scope;
+        ScopeFuture(Scope<?> scope) { this.scope = scope; }
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled)
+                scope.cancel();
+            return cancelled;
+        }
+    }
+
     /* ------------- Control and status methods -------------- */
 
     /**
@@ -2369,6 +2895,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
     private static final long RESULT;
     private static final long STACK;
     private static final long NEXT;
+    private static final long PENDING;
     static {
         try {
             final sun.misc.Unsafe u;
@@ -2378,6 +2905,8 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
             STACK = u.objectFieldOffset(k.getDeclaredField("stack"));
             NEXT = u.objectFieldOffset
                 (Completion.class.getDeclaredField("next"));
+            PENDING = u.objectFieldOffset
+                (AllCountdown.class.getDeclaredField("pending"));
         } catch (Exception x) {
             throw new Error(x);
         }
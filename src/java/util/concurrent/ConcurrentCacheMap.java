@@ -0,0 +1,1429 @@
+/*
+ * Copyright (c) 2012, 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * A {@link ConcurrentMap} with a bounded total weight that evicts
+ * entries as needed to remain within it, and that may additionally
+ * expire entries a fixed time after they were last written or
+ * accessed.  Mappings are held in a {@link ConcurrentHashMap}, so
+ * retrievals, and updates of different keys, have the same
+ * concurrency properties as in that class; in particular, retrieval
+ * operations do not entail locking.
+ *
+ * <p>Each entry has a weight, computed by the <em>weigher</em> supplied
+ * at construction when it is inserted or its value is replaced; by
+ * default every entry has weight one, so that the maximum weight is
+ * simply a bound on the number of entries.  When the total weight
+ * exceeds the maximum, entries are evicted according to the map's
+ * {@link EvictionPolicy}.  Eviction, like expiration, is performed
+ * shortly after the operation that makes it necessary, rather than
+ * within it, so the total weight may temporarily exceed the maximum.
+ * The {@link #cleanUp} method performs any pending eviction at once.
+ *
+ * <p>Expired entries are never returned by retrieval operations or
+ * iterators, but may be counted by {@link #size} until they are
+ * removed.
+ *
+ * <p>Like {@code ConcurrentHashMap}, this class does <em>not</em>
+ * allow {@code null} to be used as a key or value.  Iterators and
+ * spliterators are <a href="package-summary.html#Weakly"><i>weakly
+ * consistent</i></a>, and iterating does not count as access to the
+ * entries iterated over.
+ *
+ * <p>This class and its views and iterators implement all of the
+ * <em>optional</em> methods of the {@link Map} and {@link Iterator}
+ * interfaces.
+ *
+ * @since 1.8
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ */
+public class ConcurrentCacheMap<K,V> extends AbstractMap<K,V>
+    implements ConcurrentMap<K,V> {
+
+    /*
+     * Overview:
+     *
+     * Entries are Nodes stored as the values of a ConcurrentHashMap,
+     * "data", so all key-level concurrency control, resizing and
+     * treeification come from that class. The eviction and expiration
+     * policies need additional ordering state (which entries were
+     * used least recently, or least often), which is kept in linked
+     * lists threaded through the Nodes and guarded by a single
+     * evictionLock. To keep that lock off the fast paths, map
+     * operations never update policy state directly. Instead they
+     * record what they did in buffers that are drained, under the
+     * lock, by whichever thread next obtains it with tryLock.
+     *
+     * Reads record the node read in one of several lossy ring
+     * buffers (ReadBuffer), chosen by ThreadLocalRandom probe as in
+     * LongAdder. A read that finds its buffer full, or loses a race
+     * to insert, is simply not recorded, so reads never block and
+     * never allocate. Writes (insertion, update, removal) must not be
+     * lost, so they are appended as WriteTasks to an unbounded
+     * ConcurrentLinkedQueue. After appending, the writer tries to
+     * perform maintenance, and loops while tasks remain after
+     * releasing the lock, so that a task appended while another
+     * thread held the lock is not stranded.
+     *
+     * Each Node is protected by its own monitor for changes of value
+     * and for removal from data. A node is removed from data only
+     * while holding its monitor, and is marked retired in the same
+     * critical section. So a thread holding the monitor of a
+     * non-retired node knows it is still mapped, and may update it in
+     * place. Lock ordering is evictionLock, then node monitor, then
+     * (inside ConcurrentHashMap) bin lock. Writers release node
+     * monitors before trying evictionLock.
+     *
+     * Because tasks from different threads may be appended out of
+     * order, maintenance must tolerate, for example, a REMOVE task for
+     * a node preceding its ADD task, or eviction of a node whose
+     * REMOVE task is still pending. Node.queue is NONE whenever a node
+     * is not linked, which makes such cases no-ops. A retired node is
+     * never linked by a later ADD.
+     *
+     * Policies:
+     *
+     * LRU keeps all nodes in a single access-ordered list ("probation")
+     * and evicts from its head.
+     *
+     * LFU uses the same list, but evicts the least frequently used of
+     * the first few nodes, using the frequency sketch below. This is a
+     * sampled approximation of LFU, which keeps every operation
+     * constant-time and lets frequencies age.
+     *
+     * WINDOW_TINY_LFU follows Einziger et al, "TinyLFU: A Highly
+     * Efficient Cache Admission Policy". New nodes enter a small LRU
+     * window (1% of the maximum weight). Nodes leaving the window
+     * become candidates for the main region, a segmented LRU whose
+     * probation segment holds nodes on trial and whose protected
+     * segment (80% of the main region) holds nodes accessed while on
+     * probation. When the map is over its maximum, each candidate is
+     * compared with the victim at the head of probation, and the one
+     * with the lower estimated frequency is evicted. To avoid an
+     * attacker pinning the main region by flooding it with
+     * moderately frequent keys, a rejected candidate with a
+     * nontrivial frequency is occasionally admitted anyway.
+     *
+     * Frequencies are estimated by a 4-bit count-min sketch
+     * (FrequencySketch) that halves all its counters after a sample
+     * period, so that old popularity fades. The sketch grows with
+     * the number of entries, up to the maximum.
+     *
+     * Expiration uses each node's writeTime and accessTime. Access
+     * order is (approximately, as reads may be dropped) the order of
+     * each policy list, and a separate list threaded through the
+     * nodes keeps write order. Maintenance removes expired nodes from
+     * the heads of these lists. Expired nodes found by reads are
+     * removed directly by the reading thread.
+     */
+
+    /**
+     * The eviction policies supported by {@code ConcurrentCacheMap}.
+     *
+     * @since 1.8
+     */
+    public enum EvictionPolicy {
+        /**
+         * Evicts the least recently used entry.  Best suited to
+         * workloads in which recently used entries are likely to be
+         * used again soon.
+         */
+        LRU,
+
+        /**
+         * Evicts an entry used infrequently, chosen from among the
+         * least recently used entries using an estimate of each
+         * entry's frequency of use that decays over time.  Best suited
+         * to workloads with a stable set of popular entries.
+         */
+        LFU,
+
+        /**
+         * Admits new entries through a small least-recently-used
+         * window, after which an entry is retained only if it is
+         * estimated to be used more frequently than the entry that
+         * would be evicted in its place.  Gives hit rates close to the
+         * better of {@link #LRU} and {@link #LFU} over a wide range of
+         * workloads, and resists pollution by scans of entries that
+         * are used only once.
+         */
+        WINDOW_TINY_LFU
+    }
+
+    /* ---------------- Constants -------------- */
+
+    /** Value of expiration durations when expiration is disabled */
+    private static final long NEVER = Long.MAX_VALUE;
+
+    /** Number of CPUS, to size read buffers */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /** Upper bound on the number of read buffers */
+    private static final int MAX_READ_BUFFERS = 64;
+
+    /** Number of least recently used nodes considered by LFU eviction */
+    private static final int LFU_SAMPLE = 8;
+
+    /** Fraction of the maximum weight not allocated to the window */
+    private static final double PERCENT_MAIN = 0.99d;
+
+    /** Fraction of the main region allocated to the protected segment */
+    private static final double PERCENT_PROTECTED = 0.80d;
+
+    /** Values of Node.queue */
+    static final int NONE = 0, WINDOW = 1, PROBATION = 2, PROTECTED = 3;
+
+    /** Values of WriteTask.op */
+    static final int ADD = 0, UPDATE = 1, REMOVE = 2;
+
+    /* ---------------- Nodes -------------- */
+
+    /**
+     * A key-value mapping, with the state used by eviction and
+     * expiration.
+     */
+    static final class Node<K,V> {
+        final K key;
+        volatile V value;
+        volatile int weight;
+        volatile long writeTime;
+        volatile long accessTime;
+        /** Set, holding this node's monitor, once removed from data */
+        volatile boolean retired;
+
+        // Fields below are guarded by evictionLock
+        int queue;              // NONE, WINDOW, PROBATION or PROTECTED
+        int policyWeight;       // weight as accounted in weightedSize
+        Node<K,V> prev, next;   // links in window, probation or protected
+        Node<K,V> prevW, nextW; // links in write order
+        boolean inWriteOrder;
+
+        Node(K key, V value, int weight, long now) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = now;
+            this.accessTime = now;
+        }
+    }
+
+    /**
+     * A doubly-linked list of nodes, linked either through their
+     * queue links or through their write-order links.  Guarded by
+     * evictionLock.
+     */
+    static final class NodeList<K,V> {
+        final boolean writeOrder;
+        Node<K,V> head, tail;
+
+        NodeList(boolean writeOrder) {
+            this.writeOrder = writeOrder;
+        }
+
+        Node<K,V> nextOf(Node<K,V> n) {
+            return writeOrder ? n.nextW : n.next;
+        }
+
+        private Node<K,V> prevOf(Node<K,V> n) {
+            return writeOrder ? n.prevW : n.prev;
+        }
+
+        private void setNext(Node<K,V> n, Node<K,V> s) {
+            if (writeOrder) n.nextW = s; else n.next = s;
+        }
+
+        private void setPrev(Node<K,V> n, Node<K,V> p) {
+            if (writeOrder) n.prevW = p; else n.prev = p;
+        }
+
+        void linkLast(Node<K,V> n) {
+            Node<K,V> t = tail;
+            setPrev(n, t);
+            setNext(n, null);
+            if (t == null)
+                head = n;
+            else
+                setNext(t, n);
+            tail = n;
+        }
+
+        void unlink(Node<K,V> n) {
+            Node<K,V> p = prevOf(n), s = nextOf(n);
+            if (p == null)
+                head = s;
+            else
+                setNext(p, s);
+            if (s == null)
+                tail = p;
+            else
+                setPrev(s, p);
+            setPrev(n, null);
+            setNext(n, null);
+        }
+
+        void moveToLast(Node<K,V> n) {
+            if (n != tail) {
+                unlink(n);
+                linkLast(n);
+            }
+        }
+    }
+
+    /**
+     * A record of a write, to be applied to the policy state.
+     */
+    static final class WriteTask<K,V> {
+        final Node<K,V> node;
+        final int op;
+        WriteTask(Node<K,V> node, int op) {
+            this.node = node;
+            this.op = op;
+        }
+    }
+
+    /**
+     * A bounded, lossy, multiple-producer buffer of nodes read,
+     * drained under evictionLock.
+     */
+    static final class ReadBuffer<K,V> {
+        static final int SIZE = 16;
+        static final int MASK = SIZE - 1;
+
+        /** Count of claimed slots; CASed by readers */
+        final AtomicLong writeCount = new AtomicLong();
+        /** Count of drained slots; written only under evictionLock */
+        volatile long readCount;
+        final AtomicReferenceArray<Node<K,V>> slots =
+            new AtomicReferenceArray<Node<K,V>>(SIZE);
+
+        /**
+         * Tries to record a read, returning false if the buffer is
+         * full.  The read is dropped if it loses a race with another.
+         */
+        boolean offer(Node<K,V> n) {
+            long w = writeCount.get();
+            if (w - readCount >= SIZE)
+                return false;
+            if (writeCount.compareAndSet(w, w + 1L))
+                slots.lazySet((int)w & MASK, n);
+            return true;
+        }
+    }
+
+    /**
+     * A count-min sketch estimating frequencies of use with 4-bit
+     * counters, sixteen to a long, in four rows addressed by
+     * independent hashes.  After sampleSize increments all counters
+     * are halved.  Guarded by evictionLock.
+     */
+    static final class FrequencySketch {
+        static final long[] SEED = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+            0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+        static final long RESET_MASK = 0x7777777777777777L;
+        static final long ONE_MASK = 0x1111111111111111L;
+
+        long[] table;
+        int sampleSize;
+        int size;
+
+        /**
+         * Grows the sketch, if needed, to accurately estimate the
+         * frequencies of the given number of entries, discarding
+         * existing counts if it grows.
+         */
+        void ensureCapacity(long maximumSize) {
+            int n = (int)Math.min(Math.max(maximumSize, 16L), 1L << 26);
+            if (table == null || table.length < n) {
+                int c = 1;
+                while (c < n)
+                    c <<= 1;
+                table = new long[c];
+                sampleSize = 10 * c;
+                size = 0;
+            }
+        }
+
+        static int spread(int h) {
+            h *= 0x9e3779b9;
+            return h ^ (h >>> 16);
+        }
+
+        private int indexOf(int h, int i) {
+            long x = (h + SEED[i]) * SEED[i];
+            x += (x >>> 32);
+            return (int)x & (table.length - 1);
+        }
+
+        int frequency(Object key) {
+            int h = spread(key.hashCode());
+            int start = (h & 3) << 2;
+            int f = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; ++i) {
+                long word = table[indexOf(h, i)];
+                f = Math.min(f, (int)((word >>> ((start + i) << 2)) & 0xfL));
+            }
+            return f;
+        }
+
+        void increment(Object key) {
+            int h = spread(key.hashCode());
+            int start = (h & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; ++i) {
+                int j = indexOf(h, i);
+                int offset = (start + i) << 2;
+                long mask = 0xfL << offset;
+                if ((table[j] & mask) != mask) {
+                    table[j] += 1L << offset;
+                    added = true;
+                }
+            }
+            if (added && ++size >= sampleSize) {
+                int odd = 0;
+                long[] tab = table;
+                for (int j = 0; j < tab.length; ++j) {
+                    odd += Long.bitCount(tab[j] & ONE_MASK);
+                    tab[j] = (tab[j] >>> 1) & RESET_MASK;
+                }
+                size = (size >>> 1) - (odd >>> 2);
+            }
+        }
+    }
+
+    /* ---------------- Fields -------------- */
+
+    /** The mappings */
+    final ConcurrentHashMap<K,Node<K,V>> data;
+
+    /** The weigher, or null if every entry weighs one */
+    private final ToIntBiFunction<? super K, ? super V> weigher;
+
+    /** The eviction policy */
+    private final EvictionPolicy policy;
+
+    /** Lock guarding all policy state */
+    final ReentrantLock evictionLock = new ReentrantLock();
+
+    /** Pending writes */
+    final ConcurrentLinkedQueue<WriteTask<K,V>> writeBuffer =
+        new ConcurrentLinkedQueue<WriteTask<K,V>>();
+
+    /** Read buffers; length is a power of two */
+    final ReadBuffer<K,V>[] readBuffers;
+
+    private volatile long expireAfterWriteNanos = NEVER;
+    private volatile long expireAfterAccessNanos = NEVER;
+
+    // Policy state, guarded by evictionLock
+    private long maximum;
+    private long windowMaximum;
+    private long protectedMaximum;
+    private long weightedSize;
+    private long windowWeight;
+    private long protectedWeight;
+    private final NodeList<K,V> window = new NodeList<K,V>(false);
+    private final NodeList<K,V> probation = new NodeList<K,V>(false);
+    private final NodeList<K,V> protectedList = new NodeList<K,V>(false);
+    private final NodeList<K,V> writeOrder = new NodeList<K,V>(true);
+    private final FrequencySketch sketch;
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Creates a new, empty map holding at most the given number of
+     * entries, using the {@link EvictionPolicy#WINDOW_TINY_LFU
+     * WINDOW_TINY_LFU} eviction policy.
+     *
+     * @param maximumSize the maximum number of entries
+     * @throws IllegalArgumentException if {@code maximumSize} is negative
+     */
+    public ConcurrentCacheMap(long maximumSize) {
+        this(maximumSize, null, EvictionPolicy.WINDOW_TINY_LFU);
+    }
+
+    /**
+     * Creates a new, empty map holding at most the given number of
+     * entries, using the given eviction policy.
+     *
+     * @param maximumSize the maximum number of entries
+     * @param policy the eviction policy
+     * @throws IllegalArgumentException if {@code maximumSize} is negative
+     * @throws NullPointerException if {@code policy} is null
+     */
+    public ConcurrentCacheMap(long maximumSize, EvictionPolicy policy) {
+        this(maximumSize, null, policy);
+    }
+
+    /**
+     * Creates a new, empty map whose entries have at most the given
+     * total weight, as computed by the given weigher, using the given
+     * eviction policy.  The weigher is invoked, with the key and value,
+     * whenever an entry is inserted or its value replaced; it must
+     * return a non-negative weight.  An entry of weight zero is evicted
+     * only when it expires or when entries of nonzero weight cannot
+     * otherwise be retained.
+     *
+     * @param maximumWeight the maximum total weight of entries
+     * @param weigher the function computing the weight of an entry,
+     *        or {@code null} if every entry weighs one
+     * @param policy the eviction policy
+     * @throws IllegalArgumentException if {@code maximumWeight} is
+     *         negative
+     * @throws NullPointerException if {@code policy} is null
+     */
+    public ConcurrentCacheMap(long maximumWeight,
+                              ToIntBiFunction<? super K, ? super V> weigher,
+                              EvictionPolicy policy) {
+        if (maximumWeight < 0L)
+            throw new IllegalArgumentException();
+        if (policy == null)
+            throw new NullPointerException();
+        this.weigher = weigher;
+        this.policy = policy;
+        this.data = new ConcurrentHashMap<K,Node<K,V>>();
+        if (policy == EvictionPolicy.LRU)
+            this.sketch = null;
+        else {
+            this.sketch = new FrequencySketch();
+            sketch.ensureCapacity(16L);
+        }
+        int n = 1;
+        while (n < NCPU && n < MAX_READ_BUFFERS)
+            n <<= 1;
+        @SuppressWarnings("unchecked")
+        ReadBuffer<K,V>[] bs = (ReadBuffer<K,V>[])new ReadBuffer<?,?>[n];
+        for (int i = 0; i < n; ++i)
+            bs[i] = new ReadBuffer<K,V>();
+        this.readBuffers = bs;
+        setMaximum(maximumWeight);
+    }
+
+    /**
+     * Returns the eviction policy of this map.
+     *
+     * @return the eviction policy
+     */
+    public EvictionPolicy getEvictionPolicy() {
+        return policy;
+    }
+
+    /**
+     * Returns the maximum total weight of entries in this map.
+     *
+     * @return the maximum weight
+     * @see #setMaximumWeight
+     */
+    public long getMaximumWeight() {
+        final ReentrantLock lock = evictionLock;
+        lock.lock();
+        try {
+            return maximum;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets the maximum total weight of entries in this map, evicting
+     * entries if the map exceeds the new maximum.
+     *
+     * @param maximumWeight the new maximum weight
+     * @throws IllegalArgumentException if {@code maximumWeight} is
+     *         negative
+     * @see #getMaximumWeight
+     */
+    public void setMaximumWeight(long maximumWeight) {
+        if (maximumWeight < 0L)
+            throw new IllegalArgumentException();
+        final ReentrantLock lock = evictionLock;
+        lock.lock();
+        try {
+            setMaximum(maximumWeight);
+            maintenance();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the total weight of the entries in this map, as of the
+     * most recent maintenance.
+     *
+     * @return the total weight of entries
+     */
+    public long weightedSize() {
+        final ReentrantLock lock = evictionLock;
+        lock.lock();
+        try {
+            return weightedSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets the time after which an entry expires once it has been
+     * inserted or its value has been replaced.  A duration that
+     * converts to {@code Long.MAX_VALUE} nanoseconds disables this
+     * form of expiration, which is the initial setting.  The new
+     * duration applies to existing entries as well as new ones.
+     *
+     * @param duration the time after writing at which entries expire
+     * @param unit the time unit of the {@code duration} argument
+     * @throws IllegalArgumentException if {@code duration} is negative
+     * @throws NullPointerException if {@code unit} is null
+     */
+    public void setExpireAfterWrite(long duration, TimeUnit unit) {
+        if (duration < 0L)
+            throw new IllegalArgumentException();
+        expireAfterWriteNanos = unit.toNanos(duration);
+        cleanUp();
+    }
+
+    /**
+     * Returns the time after writing at which entries expire.
+     *
+     * @param unit the desired time unit
+     * @return the expiration duration, or {@code Long.MAX_VALUE}
+     *         converted to the given unit if disabled
+     * @see #setExpireAfterWrite
+     */
+    public long getExpireAfterWrite(TimeUnit unit) {
+        return unit.convert(expireAfterWriteNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets the time after which an entry expires once it has been
+     * inserted, retrieved or had its value replaced.  A duration that
+     * converts to {@code Long.MAX_VALUE} nanoseconds disables this
+     * form of expiration, which is the initial setting.  The new
+     * duration applies to existing entries as well as new ones, but
+     * retrievals made while it was disabled are not taken into
+     * account.
+     *
+     * @param duration the time after last access at which entries expire
+     * @param unit the time unit of the {@code duration} argument
+     * @throws IllegalArgumentException if {@code duration} is negative
+     * @throws NullPointerException if {@code unit} is null
+     */
+    public void setExpireAfterAccess(long duration, TimeUnit unit) {
+        if (duration < 0L)
+            throw new IllegalArgumentException();
+        expireAfterAccessNanos = unit.toNanos(duration);
+        cleanUp();
+    }
+
+    /**
+     * Returns the time after last access at which entries expire.
+     *
+     * @param unit the desired time unit
+     * @return the expiration duration, or {@code Long.MAX_VALUE}
+     *         converted to the given unit if disabled
+     * @see #setExpireAfterAccess
+     */
+    public long getExpireAfterAccess(TimeUnit unit) {
+        return unit.convert(expireAfterAccessNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Performs any pending maintenance: applies buffered reads and
+     * writes to the eviction policy, removes expired entries, and
+     * evicts entries while the total weight exceeds the maximum.
+     * Maintenance is otherwise performed automatically as the map is
+     * used, so calling this method is never required.
+     */
+    public void cleanUp() {
+        final ReentrantLock lock = evictionLock;
+        lock.lock();
+        try {
+            maintenance();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map, which may
+     * include expired mappings that have not yet been removed.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * Returns the number of mappings, which may include expired
+     * mappings that have not yet been removed.  This method should be
+     * used instead of {@link #size} because a map may contain more
+     * mappings than can be represented as an int.
+     *
+     * @return the number of mappings
+     */
+    public long mappingCount() {
+        return data.mappingCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isEmpty() {
+        return data.isEmpty();
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code null} if this map contains no unexpired mapping for the
+     * key.  The retrieval counts as an access for the purposes of
+     * eviction and of expiration after access.
+     *
+     * @throws NullPointerException if the specified key is null
+     */
+    public V get(Object key) {
+        Node<K,V> n = data.get(key);
+        if (n == null)
+            return null;
+        V v = n.value;
+        if (expires()) {
+            long now = System.nanoTime();
+            if (hasExpired(n, now)) {
+                removeIfExpired(n, now);
+                return null;
+            }
+            if (expireAfterAccessNanos != NEVER)
+                n.accessTime = now;
+        }
+        recordRead(n);
+        return v;
+    }
+
+    /**
+     * Tests if the specified object is a key in this map, without
+     * counting as an access to the mapping.
+     *
+     * @param  key possible key
+     * @return {@code true} if the specified object is a key of an
+     *         unexpired mapping in this map
+     * @throws NullPointerException if the specified key is null
+     */
+    public boolean containsKey(Object key) {
+        Node<K,V> n = data.get(key);
+        return n != null && !hasExpired(n, System.nanoTime());
+    }
+
+    /**
+     * Returns {@code true} if this map maps one or more keys to the
+     * specified value.  Note: This method requires a full internal
+     * traversal of the map.
+     *
+     * @param value value whose presence in this map is to be tested
+     * @return {@code true} if this map maps one or more keys to the
+     *         specified value
+     * @throws NullPointerException if the specified value is null
+     */
+    public boolean containsValue(Object value) {
+        if (value == null)
+            throw new NullPointerException();
+        long now = System.nanoTime();
+        for (Node<K,V> n : data.values()) {
+            V v = n.value;
+            if (value.equals(v) && !hasExpired(n, now))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Maps the specified key to the specified value in this map,
+     * evicting other entries if necessary.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no unexpired mapping for
+     *         {@code key}
+     * @throws NullPointerException if the specified key or value is null
+     * @throws IllegalArgumentException if the weigher returns a
+     *         negative weight
+     */
+    public V put(K key, V value) {
+        return putVal(key, value, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no unexpired mapping for the key
+     * @throws NullPointerException if the specified key or value is null
+     * @throws IllegalArgumentException if the weigher returns a
+     *         negative weight
+     */
+    public V putIfAbsent(K key, V value) {
+        return putVal(key, value, true);
+    }
+
+    /** Implementation for put and putIfAbsent */
+    private V putVal(K key, V value, boolean onlyIfAbsent) {
+        if (key == null || value == null) throw new NullPointerException();
+        int weight = weigh(key, value);
+        long now = System.nanoTime();
+        Node<K,V> node = null;
+        for (;;) {
+            Node<K,V> prior = data.get(key);
+            if (prior == null) {
+                if (node == null)
+                    node = new Node<K,V>(key, value, weight, now);
+                if ((prior = data.putIfAbsent(key, node)) == null) {
+                    afterWrite(node, ADD);
+                    return null;
+                }
+            }
+            V oldValue;
+            boolean expired;
+            synchronized (prior) {
+                if (prior.retired)
+                    continue;
+                oldValue = prior.value;
+                if (expired = hasExpired(prior, now)) {
+                    if (node == null)
+                        node = new Node<K,V>(key, value, weight, now);
+                    data.replace(key, prior, node);
+                    prior.retired = true;
+                }
+                else if (!onlyIfAbsent) {
+                    prior.value = value;
+                    prior.weight = weight;
+                    prior.writeTime = prior.accessTime = now;
+                }
+            }
+            if (expired) {
+                writeBuffer.add(new WriteTask<K,V>(prior, REMOVE));
+                afterWrite(node, ADD);
+                return null;
+            }
+            if (onlyIfAbsent) {
+                if (expireAfterAccessNanos != NEVER)
+                    prior.accessTime = now;
+                recordRead(prior);
+            }
+            else
+                afterWrite(prior, UPDATE);
+            return oldValue;
+        }
+    }
+
+    /**
+     * Copies all of the mappings from the specified map to this one.
+     *
+     * @param m mappings to be stored in this map
+     */
+    public void putAll(Map<? extends K, ? extends V> m) {
+        for (Map.Entry<? extends K, ? extends V> e : m.entrySet())
+            putVal(e.getKey(), e.getValue(), false);
+    }
+
+    /**
+     * Removes the key (and its corresponding value) from this map.
+     * This method does nothing if the key is not in the map.
+     *
+     * @param  key the key that needs to be removed
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no unexpired mapping for
+     *         {@code key}
+     * @throws NullPointerException if the specified key is null
+     */
+    public V remove(Object key) {
+        long now = System.nanoTime();
+        Node<K,V> n;
+        while ((n = data.get(key)) != null) {
+            V oldValue;
+            synchronized (n) {
+                if (n.retired)
+                    continue;
+                oldValue = hasExpired(n, now) ? null : n.value;
+                data.remove(key, n);
+                n.retired = true;
+            }
+            afterWrite(n, REMOVE);
+            return oldValue;
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if the specified key is null
+     */
+    public boolean remove(Object key, Object value) {
+        if (key == null)
+            throw new NullPointerException();
+        if (value == null)
+            return false;
+        long now = System.nanoTime();
+        Node<K,V> n;
+        while ((n = data.get(key)) != null) {
+            boolean expired;
+            synchronized (n) {
+                if (n.retired)
+                    continue;
+                if (!(expired = hasExpired(n, now)) && !value.equals(n.value))
+                    return false;
+                data.remove(key, n);
+                n.retired = true;
+            }
+            afterWrite(n, REMOVE);
+            return !expired;
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if any of the arguments are null
+     * @throws IllegalArgumentException if the weigher returns a
+     *         negative weight
+     */
+    public boolean replace(K key, V oldValue, V newValue) {
+        if (key == null || oldValue == null || newValue == null)
+            throw new NullPointerException();
+        return replaceVal(key, oldValue, newValue) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no unexpired mapping for the key
+     * @throws NullPointerException if the specified key or value is null
+     * @throws IllegalArgumentException if the weigher returns a
+     *         negative weight
+     */
+    public V replace(K key, V value) {
+        if (key == null || value == null)
+            throw new NullPointerException();
+        return replaceVal(key, null, value);
+    }
+
+    /**
+     * Implementation for the replace methods: replaces the value of an
+     * unexpired mapping, if its value equals expect or expect is null,
+     * returning the old value, or null if not replaced.
+     */
+    private V replaceVal(K key, Object expect, V value) {
+        int weight = weigh(key, value);
+        long now = System.nanoTime();
+        Node<K,V> n;
+        while ((n = data.get(key)) != null) {
+            V oldValue;
+            synchronized (n) {
+                if (n.retired)
+                    continue;
+                oldValue = n.value;
+                if (hasExpired(n, now) ||
+                    (expect != null && !expect.equals(oldValue)))
+                    oldValue = null;
+                else {
+                    n.value = value;
+                    n.weight = weight;
+                    n.writeTime = n.accessTime = now;
+                }
+            }
+            if (oldValue == null)
+                removeIfExpired(n, now);
+            else
+                afterWrite(n, UPDATE);
+            return oldValue;
+        }
+        return null;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    public void clear() {
+        for (K key : data.keySet())
+            remove(key);
+    }
+
+    /**
+     * Returns a {@link Set} view of the mappings contained in this map.
+     * The set is backed by the map, so changes to the map are
+     * reflected in the set, and vice-versa.  The set supports element
+     * removal, which removes the corresponding mapping from the map,
+     * via the {@code Iterator.remove}, {@code Set.remove},
+     * {@code removeAll}, {@code retainAll}, and {@code clear}
+     * operations.  Setting the value of an entry writes through to the
+     * map.
+     *
+     * <p>The view's iterators are
+     * <a href="package-summary.html#Weakly"><i>weakly consistent</i></a>,
+     * and do not return expired entries.
+     *
+     * @return the set view
+     */
+    public Set<Map.Entry<K,V>> entrySet() {
+        EntrySetView es;
+        return (es = entrySet) != null ? es : (entrySet = new EntrySetView());
+    }
+
+    private transient EntrySetView entrySet;
+
+    /* ---------------- Internals -------------- */
+
+    /** Returns whether any form of expiration is enabled */
+    private boolean expires() {
+        return expireAfterWriteNanos != NEVER || expireAfterAccessNanos != NEVER;
+    }
+
+    /** Returns whether the given node has expired at time now */
+    final boolean hasExpired(Node<K,V> n, long now) {
+        long d;
+        return (((d = expireAfterWriteNanos) != NEVER &&
+                 now - n.writeTime >= d) ||
+                ((d = expireAfterAccessNanos) != NEVER &&
+                 now - n.accessTime >= d));
+    }
+
+    private int weigh(K key, V value) {
+        if (weigher == null)
+            return 1;
+        int w = weigher.applyAsInt(key, value);
+        if (w < 0)
+            throw new IllegalArgumentException("negative weight");
+        return w;
+    }
+
+    /**
+     * Removes the given node if it is still mapped and has expired.
+     * Called by threads that find expired nodes.
+     */
+    private void removeIfExpired(Node<K,V> n, long now) {
+        boolean removed = false;
+        synchronized (n) {
+            if (!n.retired && hasExpired(n, now)) {
+                data.remove(n.key, n);
+                n.retired = removed = true;
+            }
+        }
+        if (removed)
+            afterWrite(n, REMOVE);
+    }
+
+    /** Records a read of the given node */
+    private void recordRead(Node<K,V> n) {
+        ReadBuffer<K,V>[] bs = readBuffers;
+        int h;
+        if ((h = ThreadLocalRandom.getProbe()) == 0) {
+            ThreadLocalRandom.localInit();
+            h = ThreadLocalRandom.getProbe();
+        }
+        if (!bs[h & (bs.length - 1)].offer(n)) {
+            ThreadLocalRandom.advanceProbe(h);
+            tryMaintenance();
+        }
+    }
+
+    /** Records a write of the given node and performs maintenance */
+    private void afterWrite(Node<K,V> n, int op) {
+        writeBuffer.add(new WriteTask<K,V>(n, op));
+        tryMaintenance();
+    }
+
+    /**
+     * Performs maintenance unless another thread is doing so,
+     * repeating if writes remain after releasing the lock.
+     */
+    private void tryMaintenance() {
+        final ReentrantLock lock = evictionLock;
+        do {
+            if (!lock.tryLock())
+                return;
+            try {
+                maintenance();
+            } finally {
+                lock.unlock();
+            }
+        } while (!writeBuffer.isEmpty());
+    }
+
+    /** Sets maximum and derived maxima.  Call holding evictionLock. */
+    private void setMaximum(long max) {
+        maximum = max;
+        windowMaximum = max - (long)(PERCENT_MAIN * max);
+        protectedMaximum = (long)(PERCENT_PROTECTED * (max - windowMaximum));
+    }
+
+    /** Drains buffers, expires and evicts.  Call holding evictionLock. */
+    final void maintenance() {
+        for (ReadBuffer<K,V> b : readBuffers) {
+            long r = b.readCount, w = b.writeCount.get();
+            for (; r < w; ++r) {
+                int i = (int)r & ReadBuffer.MASK;
+                Node<K,V> n = b.slots.get(i);
+                if (n == null)
+                    break;      // claimed but not yet written
+                b.slots.lazySet(i, null);
+                onAccess(n);
+            }
+            b.readCount = r;
+        }
+        WriteTask<K,V> t;
+        while ((t = writeBuffer.poll()) != null) {
+            Node<K,V> n = t.node;
+            if (t.op == ADD)
+                onAdd(n);
+            else if (t.op == UPDATE)
+                onUpdate(n);
+            else
+                unlinkNode(n);
+        }
+        if (sketch != null)
+            sketch.ensureCapacity(Math.min(maximum, data.mappingCount()));
+        if (expires())
+            expireEntries(System.nanoTime());
+        evictEntries();
+    }
+
+    private void onAdd(Node<K,V> n) {
+        if (n.retired || n.queue != NONE)
+            return;
+        int w = n.policyWeight = n.weight;
+        weightedSize += w;
+        if (sketch != null)
+            sketch.increment(n.key);
+        if (policy == EvictionPolicy.WINDOW_TINY_LFU) {
+            n.queue = WINDOW;
+            window.linkLast(n);
+            windowWeight += w;
+        }
+        else {
+            n.queue = PROBATION;
+            probation.linkLast(n);
+        }
+        writeOrder.linkLast(n);
+        n.inWriteOrder = true;
+    }
+
+    private void onUpdate(Node<K,V> n) {
+        int q = n.queue;
+        if (q == NONE)
+            return;
+        int w = n.weight, d = w - n.policyWeight;
+        n.policyWeight = w;
+        weightedSize += d;
+        if (q == WINDOW)
+            windowWeight += d;
+        else if (q == PROTECTED)
+            protectedWeight += d;
+        writeOrder.moveToLast(n);
+        onAccess(n);
+    }
+
+    private void onAccess(Node<K,V> n) {
+        int q = n.queue;
+        if (q == NONE)
+            return;
+        if (sketch != null)
+            sketch.increment(n.key);
+        if (q == WINDOW)
+            window.moveToLast(n);
+        else if (q == PROTECTED)
+            protectedList.moveToLast(n);
+        else if (policy != EvictionPolicy.WINDOW_TINY_LFU)
+            probation.moveToLast(n);
+        else {
+            probation.unlink(n);
+            protectedList.linkLast(n);
+            n.queue = PROTECTED;
+            protectedWeight += n.policyWeight;
+            Node<K,V> p;
+            while (protectedWeight > protectedMaximum &&
+                   (p = protectedList.head) != null) {
+                protectedList.unlink(p);
+                protectedWeight -= p.policyWeight;
+                probation.linkLast(p);
+                p.queue = PROBATION;
+            }
+        }
+    }
+
+    /** Unlinks the node from all policy lists, if linked */
+    private void unlinkNode(Node<K,V> n) {
+        int q = n.queue;
+        if (q == NONE)
+            return;
+        int w = n.policyWeight;
+        if (q == WINDOW) {
+            window.unlink(n);
+            windowWeight -= w;
+        }
+        else if (q == PROTECTED) {
+            protectedList.unlink(n);
+            protectedWeight -= w;
+        }
+        else
+            probation.unlink(n);
+        n.queue = NONE;
+        weightedSize -= w;
+        if (n.inWriteOrder) {
+            writeOrder.unlink(n);
+            n.inWriteOrder = false;
+        }
+    }
+
+    /**
+     * Removes the node from the map, unless onlyIfExpired and it has
+     * not expired, and unlinks it.  Returns false if not removed.
+     */
+    private boolean evict(Node<K,V> n, boolean onlyIfExpired, long now) {
+        synchronized (n) {
+            if (!n.retired) {
+                if (onlyIfExpired && !hasExpired(n, now))
+                    return false;
+                data.remove(n.key, n);
+                n.retired = true;
+            }
+        }
+        unlinkNode(n);
+        return true;
+    }
+
+    private void expireEntries(long now) {
+        Node<K,V> n;
+        if (expireAfterAccessNanos != NEVER) {
+            while ((n = window.head) != null && evict(n, true, now))
+                ;
+            while ((n = probation.head) != null && evict(n, true, now))
+                ;
+            while ((n = protectedList.head) != null && evict(n, true, now))
+                ;
+        }
+        if (expireAfterWriteNanos != NEVER) {
+            while ((n = writeOrder.head) != null && evict(n, true, now))
+                ;
+        }
+    }
+
+    private void evictEntries() {
+        if (policy != EvictionPolicy.WINDOW_TINY_LFU) {
+            Node<K,V> victim;
+            while (weightedSize > maximum &&
+                   (victim = (policy == EvictionPolicy.LFU) ?
+                    sampledVictim() : probation.head) != null)
+                evict(victim, false, 0L);
+            return;
+        }
+
+        // Move the window's excess to probation, remembering the first
+        Node<K,V> candidate = null, n;
+        while (windowWeight > windowMaximum && (n = window.head) != null) {
+            window.unlink(n);
+            windowWeight -= n.policyWeight;
+            probation.linkLast(n);
+            n.queue = PROBATION;
+            if (candidate == null)
+                candidate = n;
+        }
+
+        while (weightedSize > maximum) {
+            Node<K,V> victim = probation.head;
+            if (victim == null) {
+                if ((victim = protectedList.head) == null &&
+                    (victim = window.head) == null)
+                    break;
+                evict(victim, false, 0L);
+            }
+            else if (candidate == null || candidate == victim) {
+                // No candidates, or only candidates left: evict oldest
+                if (candidate == victim)
+                    candidate = probation.nextOf(victim);
+                evict(victim, false, 0L);
+            }
+            else {
+                Node<K,V> next = probation.nextOf(candidate);
+                if (admit(candidate.key, victim.key))
+                    evict(victim, false, 0L);
+                else {
+                    evict(candidate, false, 0L);
+                    candidate = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the least frequently used of the first LFU_SAMPLE
+     * nodes of probation, or null if empty.
+     */
+    private Node<K,V> sampledVictim() {
+        Node<K,V> victim = probation.head;
+        if (victim != null) {
+            int f = sketch.frequency(victim.key);
+            Node<K,V> n = victim;
+            for (int i = 1; i < LFU_SAMPLE && (n = n.next) != null; ++i) {
+                int g = sketch.frequency(n.key);
+                if (g < f) {
+                    f = g;
+                    victim = n;
+                }
+            }
+        }
+        return victim;
+    }
+
+    /** Returns whether the candidate should replace the victim */
+    private boolean admit(K candidate, K victim) {
+        int c = sketch.frequency(candidate), v = sketch.frequency(victim);
+        if (c > v)
+            return true;
+        if (c <= 5)
+            return false;
+        return (ThreadLocalRandom.current().nextInt() & 127) == 0;
+    }
+
+    /* ---------------- Views -------------- */
+
+    /**
+     * Entry returned by the entry set iterator, writing through to
+     * the map on setValue.
+     */
+    final class WriteThroughEntry extends AbstractMap.SimpleEntry<K,V> {
+        private static final long serialVersionUID = 4136728491012573218L;
+
+        WriteThroughEntry(K key, V value) {
+            super(key, value);
+        }
+
+        public V setValue(V value) {
+            if (value == null) throw new NullPointerException();
+            V v = super.setValue(value);
+            ConcurrentCacheMap.this.put(getKey(), value);
+            return v;
+        }
+    }
+
+    final class EntryIterator implements Iterator<Map.Entry<K,V>> {
+        private final Iterator<Node<K,V>> it = data.values().iterator();
+        private final long now = System.nanoTime();
+        private Node<K,V> nextNode;
+        private V nextValue;
+        private K lastKey;
+
+        EntryIterator() {
+            advance();
+        }
+
+        private void advance() {
+            while (it.hasNext()) {
+                Node<K,V> n = it.next();
+                V v = n.value;
+                if (!n.retired && !hasExpired(n, now)) {
+                    nextNode = n;
+                    nextValue = v;
+                    return;
+                }
+            }
+            nextNode = null;
+            nextValue = null;
+        }
+
+        public boolean hasNext() {
+            return nextNode != null;
+        }
+
+        public Map.Entry<K,V> next() {
+            Node<K,V> n = nextNode;
+            if (n == null)
+                throw new NoSuchElementException();
+            Map.Entry<K,V> e = new WriteThroughEntry(n.key, nextValue);
+            lastKey = n.key;
+            advance();
+            return e;
+        }
+
+        public void remove() {
+            K k = lastKey;
+            if (k == null)
+                throw new IllegalStateException();
+            lastKey = null;
+            ConcurrentCacheMap.this.remove(k);
+        }
+    }
+
+    final class EntrySetView extends AbstractSet<Map.Entry<K,V>> {
+        public Iterator<Map.Entry<K,V>> iterator() {
+            return new EntryIterator();
+        }
+
+        public boolean contains(Object o) {
+            Object k, v, r; Map.Entry<?,?> e; Node<K,V> n;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?,?>)o).getKey()) != null &&
+                    (n = data.get(k)) != null &&
+                    (r = n.value) != null &&
+                    (v = e.getValue()) != null &&
+                    (v == r || v.equals(r)) &&
+                    !hasExpired(n, System.nanoTime()));
+        }
+
+        public boolean remove(Object o) {
+            Object k, v; Map.Entry<?,?> e;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?,?>)o).getKey()) != null &&
+                    (v = e.getValue()) != null &&
+                    ConcurrentCacheMap.this.remove(k, v));
+        }
+
+        public int size() {
+            return ConcurrentCacheMap.this.size();
+        }
+
+        public boolean isEmpty() {
+            return ConcurrentCacheMap.this.isEmpty();
+        }
+
+        public void clear() {
+            ConcurrentCacheMap.this.clear();
+        }
+    }
+}
@@ -1407,7 +1407,7 @@ public class ConcurrentLinkedDeque<E>
             Node<E> p;
             final ConcurrentLinkedDeque<E> q = this.queue;
             int b = batch;
-            int n = (b <= 0) ? 1 : (b >= MAX_BATCH) ? MAX_BATCH : b + 1;
+            int n = (b <= 0) ? 1 : (b >= MAX_BATCH >>> 1) ? MAX_BATCH : b << 1;
             if (!exhausted &&
                 ((p = current) != null || (p = q.first()) != null)) {
                 if (p.item == null && p == (p = p.next))
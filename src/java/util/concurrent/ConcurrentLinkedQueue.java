@@ -818,7 +818,7 @@ public class ConcurrentLinkedQueue<E> extends AbstractQueue<E>
             Node<E> p;
             final ConcurrentLinkedQueue<E> q = this.queue;
             int b = batch;
-            int n = (b <= 0) ? 1 : (b >= MAX_BATCH) ? MAX_BATCH : b + 1;
+            int n = (b <= 0) ? 1 : (b >= MAX_BATCH >>> 1) ? MAX_BATCH : b << 1;
             if (!exhausted &&
                 ((p = current) != null || (p = q.first()) != null) &&
                 p.next != null) {
@@ -0,0 +1,834 @@
+/*
+ * Copyright (c) 2012, 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A concurrent hash table mapping primitive {@code long} keys to
+ * primitive {@code long} values, stored unboxed in open-addressed
+ * arrays.  This class is organized in the same way as {@link
+ * ConcurrentLongObjectMap}: retrievals generally do not block, and
+ * updates lock one of a number of segments determined by the hash of
+ * the key.
+ *
+ * <p>All {@code long} values may be used as keys and as values.
+ * Methods such as {@link #get} that return a value for a key that
+ * may be absent return zero in that case, so that a map can be used
+ * directly as a sparse table of counters, as in {@code
+ * map.addAndGet(id, 1)}; {@link #getOrDefault} and {@link
+ * #containsKey} distinguish absent keys from keys mapped to zero.
+ *
+ * <p>Keys and values may be traversed with {@link #keySpliterator}
+ * and {@link #valueSpliterator}, or the corresponding {@code
+ * LongStream}s.  Traversal is
+ * <a href="package-summary.html#Weakly"><i>weakly consistent</i></a>.
+ *
+ * @since 1.8
+ */
+public class ConcurrentLongLongMap {
+
+    /*
+     * See ConcurrentLongObjectMap for an overview of the
+     * implementation. The only difference is that, as zero is a valid
+     * value, find() reports a missing key by returning a
+     * caller-supplied default value.
+     */
+
+    /* ---------------- Constants -------------- */
+
+    /** The largest possible segment table capacity */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /** The default initial capacity of the map */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** The default concurrency level */
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /** The maximum number of segments */
+    private static final int MAX_SEGMENTS = 1 << 16;
+
+    /** The minimum capacity of a segment's table */
+    private static final int MIN_SEGMENT_TABLE_CAPACITY = 4;
+
+    /* ---------------- Segments -------------- */
+
+    /**
+     * A linear-probing table holding the mappings of keys whose hash
+     * selects this segment.  All methods other than find and the
+     * volatile size must be called holding the write lock (or, for
+     * copying, the read lock).
+     */
+    static final class Segment extends StampedLock {
+        private static final long serialVersionUID = -3284738497713585284L;
+
+        long[] keys;
+        long[] vals;
+        boolean hasZero;
+        long zeroValue;
+        /** Number of mappings, including that of key zero */
+        volatile int size;
+
+        Segment(int capacity) {
+            keys = new long[capacity];
+            vals = new long[capacity];
+        }
+
+        /**
+         * Returns the value for the key, or dflt.  May be called
+         * without locking, in which case the result is meaningless
+         * unless subsequently validated.
+         */
+        long find(long key, int h, long dflt) {
+            if (key == 0L)
+                return hasZero ? zeroValue : dflt;
+            long[] ks = keys, vs = vals;
+            int n = ks.length;
+            if (vs.length != n)
+                return dflt;    // racing with rehash
+            for (int m = n - 1, i = h & m, probes = n; probes > 0;
+                 i = (i + 1) & m, --probes) {
+                long k = ks[i];
+                if (k == key)
+                    return vs[i];
+                if (k == 0L)
+                    break;
+            }
+            return dflt;
+        }
+
+        /**
+         * Returns true if the key is present, with the same locking
+         * requirements as find.
+         */
+        boolean contains(long key, int h) {
+            if (key == 0L)
+                return hasZero;
+            long[] ks = keys;
+            for (int n = ks.length, m = n - 1, i = h & m, probes = n;
+                 probes > 0; i = (i + 1) & m, --probes) {
+                long k = ks[i];
+                if (k == key)
+                    return true;
+                if (k == 0L)
+                    break;
+            }
+            return false;
+        }
+
+        /**
+         * Returns the index of the key, or if absent, ~index of the
+         * empty slot where it would be inserted.  Not used for key
+         * zero.
+         */
+        int indexOf(long key, int h) {
+            long[] ks = keys;
+            int m = ks.length - 1, i = h & m;
+            for (long k; (k = ks[i]) != 0L; i = (i + 1) & m) {
+                if (k == key)
+                    return i;
+            }
+            return ~i;
+        }
+
+        /**
+         * Inserts a mapping at the empty slot i, found by indexOf,
+         * then rehashes if now too full.
+         */
+        void insertAt(int i, long key, long value) {
+            keys[i] = key;
+            vals[i] = value;
+            int s = size + 1;
+            size = s;
+            int n = keys.length;
+            if (s > n - (n >>> 2) && n < MAXIMUM_CAPACITY)
+                rehash(n << 1);
+        }
+
+        /** Removes the mapping at slot i, closing up the probe sequence */
+        void removeAt(int i) {
+            long[] ks = keys, vs = vals;
+            int m = ks.length - 1;
+            for (int j = i;;) {
+                j = (j + 1) & m;
+                long k = ks[j];
+                if (k == 0L)
+                    break;
+                int ideal = spread(k) & m;
+                if (((j - ideal) & m) >= ((j - i) & m)) {
+                    ks[i] = k;
+                    vs[i] = vs[j];
+                    i = j;
+                }
+            }
+            ks[i] = 0L;
+            vs[i] = 0L;
+            size = size - 1;
+        }
+
+        void rehash(int capacity) {
+            long[] oks = keys, ovs = vals;
+            long[] ks = new long[capacity], vs = new long[capacity];
+            int m = capacity - 1;
+            for (int j = 0; j < oks.length; ++j) {
+                long k = oks[j];
+                if (k != 0L) {
+                    int i = spread(k) & m;
+                    while (ks[i] != 0L)
+                        i = (i + 1) & m;
+                    ks[i] = k;
+                    vs[i] = ovs[j];
+                }
+            }
+            keys = ks;
+            vals = vs;
+        }
+
+        /**
+         * Sets the value for the key, inserting if absent.  Returns
+         * the previous value, or zero if none.
+         */
+        long set(long key, int h, long value) {
+            long old = 0L;
+            if (key == 0L) {
+                if (hasZero)
+                    old = zeroValue;
+                else {
+                    hasZero = true;
+                    size = size + 1;
+                }
+                zeroValue = value;
+            }
+            else {
+                int i = indexOf(key, h);
+                if (i < 0)
+                    insertAt(~i, key, value);
+                else {
+                    old = vals[i];
+                    vals[i] = value;
+                }
+            }
+            return old;
+        }
+
+        /** Removes the key, returning true if it was present */
+        boolean delete(long key, int h) {
+            if (key == 0L) {
+                if (!hasZero)
+                    return false;
+                hasZero = false;
+                zeroValue = 0L;
+                size = size - 1;
+                return true;
+            }
+            int i = indexOf(key, h);
+            if (i < 0)
+                return false;
+            removeAt(i);
+            return true;
+        }
+
+        /** Copies keys, or values, into an array of length size */
+        long[] copy(boolean values) {
+            int n = size, j = 0;
+            long[] a = new long[n];
+            if (hasZero)
+                a[j++] = values ? zeroValue : 0L;
+            long[] ks = keys, src = values ? vals : keys;
+            for (int i = 0; i < ks.length && j < n; ++i)
+                if (ks[i] != 0L)
+                    a[j++] = src[i];
+            return a;
+        }
+
+        void clear() {
+            Arrays.fill(keys, 0L);
+            Arrays.fill(vals, 0L);
+            hasZero = false;
+            zeroValue = 0L;
+            size = 0;
+        }
+    }
+
+    /* ---------------- Fields -------------- */
+
+    /** The segments; length is a power of two */
+    final Segment[] segments;
+
+    /** Shift of the spread hash selecting a segment */
+    private final int segmentShift;
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Creates a new, empty map with the default initial capacity (16)
+     * and concurrency level (16).
+     */
+    public ConcurrentLongLongMap() {
+        this(DEFAULT_CAPACITY, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Creates a new, empty map with an initial table size
+     * accommodating the specified number of elements without the
+     * need to dynamically resize.
+     *
+     * @param initialCapacity the initial capacity
+     * @throws IllegalArgumentException if the initial capacity of
+     * elements is negative
+     */
+    public ConcurrentLongLongMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Creates a new, empty map with an initial table size based on
+     * the given number of elements ({@code initialCapacity}) and
+     * number of concurrently updating threads ({@code
+     * concurrencyLevel}).
+     *
+     * @param initialCapacity the initial capacity
+     * @param concurrencyLevel the estimated number of concurrently
+     * updating threads, used as a sizing hint
+     * @throws IllegalArgumentException if the initial capacity is
+     * negative or the concurrency level is nonpositive
+     */
+    public ConcurrentLongLongMap(int initialCapacity, int concurrencyLevel) {
+        if (initialCapacity < 0 || concurrencyLevel <= 0)
+            throw new IllegalArgumentException();
+        int ssize = 1, sshift = 0;
+        while (ssize < concurrencyLevel && ssize < MAX_SEGMENTS) {
+            ssize <<= 1;
+            ++sshift;
+        }
+        long perSegment = ((long)initialCapacity + ssize - 1) / ssize;
+        long want = perSegment + (perSegment / 3) + 1; // load factor 3/4
+        int cap = MIN_SEGMENT_TABLE_CAPACITY;
+        while (cap < want && cap < MAXIMUM_CAPACITY)
+            cap <<= 1;
+        Segment[] ss = new Segment[ssize];
+        for (int i = 0; i < ssize; ++i)
+            ss[i] = new Segment(cap);
+        this.segments = ss;
+        this.segmentShift = 32 - sshift;
+    }
+
+    /**
+     * Spreads a key into a hash.  The low bits select a slot within a
+     * segment, and the high bits the segment.
+     */
+    static final int spread(long key) {
+        long h = key * 0x9e3779b97f4a7c15L;
+        return (int)(h ^ (h >>> 32));
+    }
+
+    private Segment segmentFor(int h) {
+        Segment[] ss = segments;
+        return ss[(ss.length == 1) ? 0 : (h >>> segmentShift)];
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.  If the
+     * map contains more than {@code Integer.MAX_VALUE} elements,
+     * returns {@code Integer.MAX_VALUE}.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        long n = mappingCount();
+        return (n > (long)Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int)n;
+    }
+
+    /**
+     * Returns the number of mappings.  The value returned is an
+     * estimate; the actual count may differ if there are concurrent
+     * insertions or removals.
+     *
+     * @return the number of mappings
+     */
+    public long mappingCount() {
+        long n = 0L;
+        for (Segment s : segments)
+            n += s.size;
+        return n;
+    }
+
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     *
+     * @return {@code true} if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        for (Segment s : segments)
+            if (s.size != 0)
+                return false;
+        return true;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or the
+     * given default value if this map contains no mapping for the
+     * key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the value to return if this map contains
+     * no mapping for the given key
+     * @return the mapping for the key, if present; else the default value
+     */
+    public long getOrDefault(long key, long defaultValue) {
+        int h = spread(key);
+        Segment s = segmentFor(h);
+        long stamp = s.tryOptimisticRead();
+        long v = s.find(key, h, defaultValue);
+        if (!s.validate(stamp)) {
+            stamp = s.readLock();
+            try {
+                v = s.find(key, h, defaultValue);
+            } finally {
+                s.unlockRead(stamp);
+            }
+        }
+        return v;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or zero
+     * if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or zero
+     */
+    public long get(long key) {
+        return getOrDefault(key, 0L);
+    }
+
+    /**
+     * Tests if the specified key is a key in this map.
+     *
+     * @param key possible key
+     * @return {@code true} if the specified key is a key in this map
+     */
+    public boolean containsKey(long key) {
+        int h = spread(key);
+        Segment s = segmentFor(h);
+        long stamp = s.tryOptimisticRead();
+        boolean found = s.contains(key, h);
+        if (!s.validate(stamp)) {
+            stamp = s.readLock();
+            try {
+                found = s.contains(key, h);
+            } finally {
+                s.unlockRead(stamp);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Maps the specified key to the specified value in this map.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with {@code key}, or
+     *         zero if there was no mapping for {@code key}
+     */
+    public long put(long key, long value) {
+        int h = spread(key);
+        Segment s = segmentFor(h);
+        long stamp = s.writeLock();
+        try {
+            return s.set(key, h, value);
+        } finally {
+            s.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return {@code true} if the mapping was added
+     */
+    public boolean putIfAbsent(long key, long value) {
+        int h = spread(key);
+        Segment s = segmentFor(h);
+        long stamp = s.writeLock();
+        try {
+            if (key == 0L) {
+                if (s.hasZero)
+                    return false;
+                s.hasZero = true;
+                s.zeroValue = value;
+                s.size = s.size + 1;
+                return true;
+            }
+            int i = s.indexOf(key, h);
+            if (i >= 0)
+                return false;
+            s.insertAt(~i, key, value);
+            return true;
+        } finally {
+            s.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes the key (and its corresponding value) from this map.
+     * This method does nothing if the key is not in the map.
+     *
+     * @param key the key that needs to be removed
+     * @return {@code true} if a mapping was removed
+     */
+    public boolean remove(long key) {
+        int h = spread(key);
+        Segment s = segmentFor(h);
+        long stamp = s.writeLock();
+        try {
+            return s.delete(key, h);
+        } finally {
+            s.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes the entry for a key only if currently mapped to a given
+     * value.
+     *
+     * @param key key with which the specified value is associated
+     * @param value value expected to be associated with the specified key
+     * @return {@code true} if the value was removed
+     */
+    public boolean remove(long key, long value) {
+        int h = spread(key);
+        Segment s = segmentFor(h);
+        long stamp = s.writeLock();
+        try {
+            if (key == 0L ? (!s.hasZero || s.zeroValue != value) :
+                s.find(key, h, ~value) != value)
+                return false;
+            return s.delete(key, h);
+        } finally {
+            s.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Replaces the entry for a key only if currently mapped to a given
+     * value.
+     *
+     * @param key key with which the specified value is associated
+     * @param oldValue value expected to be associated with the specified key
+     * @param newValue value to be associated with the specified key
+     * @return {@code true} if the value was replaced
+     */
+    public boolean replace(long key, long oldValue, long newValue) {
+        int h = spread(key);
+        Segment s = segmentFor(h);
+        long stamp = s.writeLock();
+        try {
+            if (s.find(key, h, ~oldValue) != oldValue)
+                return false;
+            s.set(key, h, newValue);
+            return true;
+        } finally {
+            s.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Atomically adds the given value to the value mapped to the
+     * key, treating an absent key as mapped to zero.
+     *
+     * @param key the key
+     * @param delta the value to add
+     * @return the updated value
+     */
+    public long addAndGet(long key, long delta) {
+        int h = spread(key);
+        Segment s = segmentFor(h);
+        long stamp = s.writeLock();
+        try {
+            long v = s.find(key, h, 0L) + delta;
+            s.set(key, h, v);
+            return v;
+        } finally {
+            s.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * computes its value using the given mapping function and enters
+     * it into this map.  The entire method invocation is performed
+     * atomically, so the function is applied at most once per key.
+     * Some attempted update operations on this map by other threads
+     * may be blocked while computation is in progress, so the
+     * computation should be short and simple, and must not attempt
+     * to update any other mappings of this map.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param mappingFunction the function to compute a value
+     * @return the current (existing or computed) value associated with
+     *         the specified key
+     * @throws NullPointerException if the mappingFunction is null
+     */
+    public long computeIfAbsent(long key, LongUnaryOperator mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        int h = spread(key);
+        Segment s = segmentFor(h);
+        long stamp = s.writeLock();
+        try {
+            if (key == 0L) {
+                if (!s.hasZero) {
+                    s.zeroValue = mappingFunction.applyAsLong(key);
+                    s.hasZero = true;
+                    s.size = s.size + 1;
+                }
+                return s.zeroValue;
+            }
+            int i = s.indexOf(key, h);
+            if (i >= 0)
+                return s.vals[i];
+            long v = mappingFunction.applyAsLong(key);
+            s.insertAt(~s.indexOf(key, h), key, v);
+            return v;
+        } finally {
+            s.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.  Otherwise, replaces the
+     * value with the results of the given remapping function.  The
+     * entire method invocation is performed atomically, with the same
+     * restrictions on the function as {@link #computeIfAbsent}.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value the value to use if absent
+     * @param remappingFunction the function to recompute a value if present
+     * @return the new value associated with the specified key
+     * @throws NullPointerException if the remappingFunction is null
+     */
+    public long merge(long key, long value,
+                      LongBinaryOperator remappingFunction) {
+        if (remappingFunction == null)
+            throw new NullPointerException();
+        int h = spread(key);
+        Segment s = segmentFor(h);
+        long stamp = s.writeLock();
+        try {
+            boolean present = (key == 0L) ? s.hasZero : s.indexOf(key, h) >= 0;
+            long v = present ?
+                remappingFunction.applyAsLong(s.find(key, h, 0L), value) :
+                value;
+            s.set(key, h, v);
+            return v;
+        } finally {
+            s.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    public void clear() {
+        for (Segment s : segments) {
+            long stamp = s.writeLock();
+            try {
+                s.clear();
+            } finally {
+                s.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfLong} over the keys of this map.
+     *
+     * <p>The spliterator is
+     * <a href="package-summary.html#Weakly"><i>weakly consistent</i></a>,
+     * and reports {@link Spliterator#CONCURRENT},
+     * {@link Spliterator#DISTINCT}, and {@link Spliterator#NONNULL}.
+     * It splits along segment boundaries.
+     *
+     * @return a spliterator over the keys of this map
+     */
+    public Spliterator.OfLong keySpliterator() {
+        return new SegmentSpliterator(this, 0, segments.length, false);
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfLong} over the values of this
+     * map.
+     *
+     * <p>The spliterator is
+     * <a href="package-summary.html#Weakly"><i>weakly consistent</i></a>,
+     * and reports {@link Spliterator#CONCURRENT} and
+     * {@link Spliterator#NONNULL}.  It splits along segment
+     * boundaries.
+     *
+     * @return a spliterator over the values of this map
+     */
+    public Spliterator.OfLong valueSpliterator() {
+        return new SegmentSpliterator(this, 0, segments.length, true);
+    }
+
+    /**
+     * Returns a sequential {@code LongStream} of the keys of this map.
+     * Use {@code keyStream().parallel()} for a parallel stream.
+     *
+     * @return a stream of the keys of this map
+     */
+    public LongStream keyStream() {
+        return StreamSupport.longStream(keySpliterator(), false);
+    }
+
+    /**
+     * Returns a sequential {@code LongStream} of the values of this
+     * map.  Use {@code valueStream().parallel()} for a parallel
+     * stream.
+     *
+     * @return a stream of the values of this map
+     */
+    public LongStream valueStream() {
+        return StreamSupport.longStream(valueSpliterator(), false);
+    }
+
+    /**
+     * Returns a string representation of this map, in the format of
+     * {@link java.util.AbstractMap#toString}.
+     *
+     * @return a string representation of this map
+     */
+    public String toString() {
+        StringBuilder sb = new StringBuilder().append('{');
+        for (Segment s : segments) {
+            long[] ks, vs;
+            long stamp = s.readLock();
+            try {
+                ks = s.copy(false);
+                vs = s.copy(true);
+            } finally {
+                s.unlockRead(stamp);
+            }
+            for (int i = 0; i < ks.length; ++i) {
+                if (sb.length() > 1)
+                    sb.append(", ");
+                sb.append(ks[i]).append('=').append(vs[i]);
+            }
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Spliterator over the keys or values of the segments in [index,
+     * fence), copying each segment under its read lock when reached.
+     */
+    static final class SegmentSpliterator implements Spliterator.OfLong {
+        final ConcurrentLongLongMap map;
+        final boolean values;
+        int index, fence;       // segment range
+        long[] buf;             // elements of current segment
+        int next;               // index of next element of buf
+
+        SegmentSpliterator(ConcurrentLongLongMap map, int index, int fence,
+                           boolean values) {
+            this.map = map;
+            this.index = index;
+            this.fence = fence;
+            this.values = values;
+        }
+
+        private boolean fill() {
+            while (buf == null || next >= buf.length) {
+                if (index >= fence)
+                    return false;
+                Segment s = map.segments[index++];
+                long stamp = s.readLock();
+                try {
+                    buf = s.copy(values);
+                    next = 0;
+                } finally {
+                    s.unlockRead(stamp);
+                }
+            }
+            return true;
+        }
+
+        public SegmentSpliterator trySplit() {
+            int lo = index, mid = (lo + fence) >>> 1;
+            return (mid <= lo) ? null :
+                new SegmentSpliterator(map, lo, index = mid, values);
+        }
+
+        public boolean tryAdvance(LongConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            if (!fill())
+                return false;
+            action.accept(buf[next++]);
+            return true;
+        }
+
+        public void forEachRemaining(LongConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            while (fill()) {
+                long[] b = buf;
+                for (int i = next; i < b.length; ++i)
+                    action.accept(b[i]);
+                next = b.length;
+            }
+        }
+
+        public long estimateSize() {
+            long n = (buf == null) ? 0L : buf.length - next;
+            Segment[] ss = map.segments;
+            for (int i = index; i < fence; ++i)
+                n += ss[i].size;
+            return n;
+        }
+
+        public int characteristics() {
+            return values ?
+                Spliterator.CONCURRENT | Spliterator.NONNULL :
+                Spliterator.CONCURRENT | Spliterator.DISTINCT |
+                Spliterator.NONNULL;
+        }
+    }
+}
@@ -0,0 +1,848 @@
+/*
+ * Copyright (c) 2012, 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiFunction;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A concurrent hash table mapping primitive {@code long} keys to
+ * objects.  This class provides the commonly used operations of
+ * {@link ConcurrentHashMap}, with the same thread-safety guarantees,
+ * for {@code long} keys, but stores keys unboxed in open-addressed
+ * arrays, so that no {@code Long} or entry object is allocated per
+ * mapping and lookups do not follow per-entry pointers.
+ *
+ * <p>Retrieval operations ({@code get} and {@code containsKey})
+ * generally do not block, and reflect the most recently completed
+ * update operations holding upon their onset.  Update operations
+ * lock only one of a number of <em>segments</em> of the table,
+ * determined by the hash of the key, so that updates of different
+ * keys usually proceed in parallel.  The expected number of
+ * concurrently updating threads may be given as a
+ * {@code concurrencyLevel} hint at construction.  Each segment is
+ * resized independently as it fills.
+ *
+ * <p>Like {@link ConcurrentHashMap}, this class does not allow
+ * {@code null} to be used as a value.  All {@code long} values,
+ * including zero, may be used as keys.
+ *
+ * <p>Keys may be traversed with {@link #keySpliterator} or
+ * {@link #keyStream}, and mappings with {@link #forEach}.  Traversal
+ * is <a href="package-summary.html#Weakly"><i>weakly consistent</i></a>:
+ * it reflects the contents of each segment at some point during the
+ * traversal.
+ *
+ * @since 1.8
+ * @param <V> the type of mapped values
+ */
+public class ConcurrentLongObjectMap<V> {
+
+    /*
+     * Overview:
+     *
+     * The table is split into a power-of-two number of Segments, in
+     * the manner of the segmented ConcurrentHashMap of Java 7, chosen
+     * by the high bits of the spread key. Each Segment is a
+     * linear-probing hash table of parallel keys and vals arrays, with
+     * zero in keys marking an empty slot. The key zero is kept
+     * outside the arrays, in hasZero and zeroValue.
+     *
+     * Each Segment extends StampedLock. Updates hold the write lock,
+     * so the arrays can be rearranged freely: removal uses backward
+     * shift deletion rather than tombstones, and a Segment that
+     * reaches three quarters full is rehashed into arrays of twice
+     * the length. Rehashing is thus confined to one segment, so the
+     * table as a whole grows incrementally, without the per-slot
+     * forwarding that ConcurrentHashMap needs to let updates continue
+     * during a table-wide transfer.
+     *
+     * Retrievals use StampedLock's optimistic read mode. find() reads
+     * the arrays without locking, so it may observe them mid-update,
+     * and is written so that this can cause neither an exception nor
+     * an endless loop. The result is then discarded unless validate()
+     * shows that no write lock was acquired in the meantime. After a
+     * failed validation the lookup is repeated under the read lock.
+     *
+     * The per-segment sizes are volatile, and play the role of
+     * ConcurrentHashMap's counter cells: updates to different
+     * segments do not contend, and mappingCount sums them.
+     */
+
+    /* ---------------- Constants -------------- */
+
+    /** The largest possible segment table capacity */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /** The default initial capacity of the map */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** The default concurrency level */
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /** The maximum number of segments */
+    private static final int MAX_SEGMENTS = 1 << 16;
+
+    /** The minimum capacity of a segment's table */
+    private static final int MIN_SEGMENT_TABLE_CAPACITY = 4;
+
+    /* ---------------- Segments -------------- */
+
+    /**
+     * A linear-probing table holding the mappings of keys whose hash
+     * selects this segment.  All methods other than find and the
+     * volatile size must be called holding the write lock (or, for
+     * copying, the read lock).
+     */
+    static final class Segment<V> extends StampedLock {
+        private static final long serialVersionUID = 2249069246763182397L;
+
+        long[] keys;
+        Object[] vals;
+        boolean hasZero;
+        Object zeroValue;
+        /** Number of mappings, including that of key zero */
+        volatile int size;
+
+        Segment(int capacity) {
+            keys = new long[capacity];
+            vals = new Object[capacity];
+        }
+
+        /**
+         * Returns the value for the key, or null.  May be called
+         * without locking, in which case the result is meaningless
+         * unless subsequently validated.
+         */
+        Object find(long key, int h) {
+            if (key == 0L)
+                return hasZero ? zeroValue : null;
+            long[] ks = keys;
+            Object[] vs = vals;
+            int n = ks.length;
+            if (vs.length != n)
+                return null;    // racing with rehash
+            for (int m = n - 1, i = h & m, probes = n; probes > 0;
+                 i = (i + 1) & m, --probes) {
+                long k = ks[i];
+                if (k == key)
+                    return vs[i];
+                if (k == 0L)
+                    break;
+            }
+            return null;
+        }
+
+        /**
+         * Returns the index of the key, or if absent, ~index of the
+         * empty slot where it would be inserted.  Not used for key
+         * zero.
+         */
+        int indexOf(long key, int h) {
+            long[] ks = keys;
+            int m = ks.length - 1, i = h & m;
+            for (long k; (k = ks[i]) != 0L; i = (i + 1) & m) {
+                if (k == key)
+                    return i;
+            }
+            return ~i;
+        }
+
+        /**
+         * Inserts a mapping at the empty slot i, found by indexOf,
+         * then rehashes if now too full.
+         */
+        void insertAt(int i, long key, Object value) {
+            keys[i] = key;
+            vals[i] = value;
+            int s = size + 1;
+            size = s;
+            int n = keys.length;
+            if (s > n - (n >>> 2) && n < MAXIMUM_CAPACITY)
+                rehash(n << 1);
+        }
+
+        /** Removes the mapping at slot i, closing up the probe sequence */
+        void removeAt(int i) {
+            long[] ks = keys;
+            Object[] vs = vals;
+            int m = ks.length - 1;
+            for (int j = i;;) {
+                j = (j + 1) & m;
+                long k = ks[j];
+                if (k == 0L)
+                    break;
+                int ideal = spread(k) & m;
+                if (((j - ideal) & m) >= ((j - i) & m)) {
+                    ks[i] = k;
+                    vs[i] = vs[j];
+                    i = j;
+                }
+            }
+            ks[i] = 0L;
+            vs[i] = null;
+            size = size - 1;
+        }
+
+        void rehash(int capacity) {
+            long[] oks = keys;
+            Object[] ovs = vals;
+            long[] ks = new long[capacity];
+            Object[] vs = new Object[capacity];
+            int m = capacity - 1;
+            for (int j = 0; j < oks.length; ++j) {
+                long k = oks[j];
+                if (k != 0L) {
+                    int i = spread(k) & m;
+                    while (ks[i] != 0L)
+                        i = (i + 1) & m;
+                    ks[i] = k;
+                    vs[i] = ovs[j];
+                }
+            }
+            keys = ks;
+            vals = vs;
+        }
+
+        void clear() {
+            Arrays.fill(keys, 0L);
+            Arrays.fill(vals, null);
+            hasZero = false;
+            zeroValue = null;
+            size = 0;
+        }
+    }
+
+    /* ---------------- Fields -------------- */
+
+    /** The segments; length is a power of two */
+    final Segment<V>[] segments;
+
+    /** Shift of the spread hash selecting a segment */
+    private final int segmentShift;
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Creates a new, empty map with the default initial capacity (16)
+     * and concurrency level (16).
+     */
+    public ConcurrentLongObjectMap() {
+        this(DEFAULT_CAPACITY, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Creates a new, empty map with an initial table size
+     * accommodating the specified number of elements without the
+     * need to dynamically resize.
+     *
+     * @param initialCapacity the initial capacity
+     * @throws IllegalArgumentException if the initial capacity of
+     * elements is negative
+     */
+    public ConcurrentLongObjectMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Creates a new, empty map with an initial table size based on
+     * the given number of elements ({@code initialCapacity}) and
+     * number of concurrently updating threads ({@code
+     * concurrencyLevel}).
+     *
+     * @param initialCapacity the initial capacity
+     * @param concurrencyLevel the estimated number of concurrently
+     * updating threads, used as a sizing hint
+     * @throws IllegalArgumentException if the initial capacity is
+     * negative or the concurrency level is nonpositive
+     */
+    public ConcurrentLongObjectMap(int initialCapacity, int concurrencyLevel) {
+        if (initialCapacity < 0 || concurrencyLevel <= 0)
+            throw new IllegalArgumentException();
+        int ssize = 1, sshift = 0;
+        while (ssize < concurrencyLevel && ssize < MAX_SEGMENTS) {
+            ssize <<= 1;
+            ++sshift;
+        }
+        long perSegment = ((long)initialCapacity + ssize - 1) / ssize;
+        long want = perSegment + (perSegment / 3) + 1; // load factor 3/4
+        int cap = MIN_SEGMENT_TABLE_CAPACITY;
+        while (cap < want && cap < MAXIMUM_CAPACITY)
+            cap <<= 1;
+        @SuppressWarnings("unchecked")
+        Segment<V>[] ss = (Segment<V>[])new Segment<?>[ssize];
+        for (int i = 0; i < ssize; ++i)
+            ss[i] = new Segment<V>(cap);
+        this.segments = ss;
+        this.segmentShift = 32 - sshift;
+    }
+
+    /**
+     * Spreads a key into a hash.  The low bits select a slot within a
+     * segment, and the high bits the segment.
+     */
+    static final int spread(long key) {
+        long h = key * 0x9e3779b97f4a7c15L;
+        return (int)(h ^ (h >>> 32));
+    }
+
+    private Segment<V> segmentFor(int h) {
+        Segment<V>[] ss = segments;
+        return ss[(ss.length == 1) ? 0 : (h >>> segmentShift)];
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.  If the
+     * map contains more than {@code Integer.MAX_VALUE} elements,
+     * returns {@code Integer.MAX_VALUE}.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        long n = mappingCount();
+        return (n > (long)Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int)n;
+    }
+
+    /**
+     * Returns the number of mappings.  The value returned is an
+     * estimate; the actual count may differ if there are concurrent
+     * insertions or removals.
+     *
+     * @return the number of mappings
+     */
+    public long mappingCount() {
+        long n = 0L;
+        for (Segment<V> s : segments)
+            n += s.size;
+        return n;
+    }
+
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     *
+     * @return {@code true} if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        for (Segment<V> s : segments)
+            if (s.size != 0)
+                return false;
+        return true;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or
+     *         {@code null} if this map contains no mapping for the key
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int h = spread(key);
+        Segment<V> s = segmentFor(h);
+        long stamp = s.tryOptimisticRead();
+        Object v = s.find(key, h);
+        if (!s.validate(stamp)) {
+            stamp = s.readLock();
+            try {
+                v = s.find(key, h);
+            } finally {
+                s.unlockRead(stamp);
+            }
+        }
+        return (V)v;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or the
+     * given default value if this map contains no mapping for the
+     * key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the value to return if this map contains
+     * no mapping for the given key
+     * @return the mapping for the key, if present; else the default value
+     */
+    public V getOrDefault(long key, V defaultValue) {
+        V v;
+        return (v = get(key)) == null ? defaultValue : v;
+    }
+
+    /**
+     * Tests if the specified key is a key in this map.
+     *
+     * @param key possible key
+     * @return {@code true} if the specified key is a key in this map
+     */
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Maps the specified key to the specified value in this map.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     * @throws NullPointerException if the specified value is null
+     */
+    public V put(long key, V value) {
+        return putVal(key, value, false);
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified value is null
+     */
+    public V putIfAbsent(long key, V value) {
+        return putVal(key, value, true);
+    }
+
+    /** Implementation for put and putIfAbsent */
+    @SuppressWarnings("unchecked")
+    final V putVal(long key, V value, boolean onlyIfAbsent) {
+        if (value == null) throw new NullPointerException();
+        int h = spread(key);
+        Segment<V> s = segmentFor(h);
+        long stamp = s.writeLock();
+        try {
+            Object old;
+            if (key == 0L) {
+                old = s.zeroValue;
+                if (!s.hasZero) {
+                    s.hasZero = true;
+                    s.size = s.size + 1;
+                }
+                if (old == null || !onlyIfAbsent)
+                    s.zeroValue = value;
+            }
+            else {
+                int i = s.indexOf(key, h);
+                if (i < 0) {
+                    s.insertAt(~i, key, value);
+                    old = null;
+                }
+                else if ((old = s.vals[i]) == null || !onlyIfAbsent)
+                    s.vals[i] = value;
+            }
+            return (V)old;
+        } finally {
+            s.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes the key (and its corresponding value) from this map.
+     * This method does nothing if the key is not in the map.
+     *
+     * @param key the key that needs to be removed
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     */
+    public V remove(long key) {
+        return replaceNode(key, null, null);
+    }
+
+    /**
+     * Removes the entry for a key only if currently mapped to a given
+     * value.
+     *
+     * @param key key with which the specified value is associated
+     * @param value value expected to be associated with the specified key
+     * @return {@code true} if the value was removed
+     */
+    public boolean remove(long key, Object value) {
+        return value != null && replaceNode(key, null, value) != null;
+    }
+
+    /**
+     * Replaces the entry for a key only if currently mapped to some
+     * value.
+     *
+     * @param key key with which the specified value is associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified value is null
+     */
+    public V replace(long key, V value) {
+        if (value == null)
+            throw new NullPointerException();
+        return replaceNode(key, value, null);
+    }
+
+    /**
+     * Replaces the entry for a key only if currently mapped to a given
+     * value.
+     *
+     * @param key key with which the specified value is associated
+     * @param oldValue value expected to be associated with the specified key
+     * @param newValue value to be associated with the specified key
+     * @return {@code true} if the value was replaced
+     * @throws NullPointerException if any of the values are null
+     */
+    public boolean replace(long key, V oldValue, V newValue) {
+        if (oldValue == null || newValue == null)
+            throw new NullPointerException();
+        return replaceNode(key, newValue, oldValue) != null;
+    }
+
+    /**
+     * Implementation for the four public remove/replace methods:
+     * Replaces the value with v, conditional upon match of cv if
+     * non-null.  If resulting value is null, delete.
+     */
+    @SuppressWarnings("unchecked")
+    final V replaceNode(long key, V value, Object cv) {
+        int h = spread(key);
+        Segment<V> s = segmentFor(h);
+        long stamp = s.writeLock();
+        try {
+            Object old;
+            if (key == 0L) {
+                if ((old = s.zeroValue) == null ||
+                    (cv != null && cv != old && !cv.equals(old)))
+                    return null;
+                if (value != null)
+                    s.zeroValue = value;
+                else {
+                    s.hasZero = false;
+                    s.zeroValue = null;
+                    s.size = s.size - 1;
+                }
+            }
+            else {
+                int i = s.indexOf(key, h);
+                if (i < 0 || (old = s.vals[i]) == null ||
+                    (cv != null && cv != old && !cv.equals(old)))
+                    return null;
+                if (value != null)
+                    s.vals[i] = value;
+                else
+                    s.removeAt(i);
+            }
+            return (V)old;
+        } finally {
+            s.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * attempts to compute its value using the given mapping function
+     * and enters it into this map unless {@code null}.  The entire
+     * method invocation is performed atomically, so the function is
+     * applied at most once per key.  Some attempted update operations
+     * on this map by other threads may be blocked while computation
+     * is in progress, so the computation should be short and simple,
+     * and must not attempt to update any other mappings of this map.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param mappingFunction the function to compute a value
+     * @return the current (existing or computed) value associated with
+     *         the specified key, or null if the computed value is null
+     * @throws NullPointerException if the mappingFunction is null
+     */
+    public V computeIfAbsent(long key,
+                             LongFunction<? extends V> mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        V v;
+        if ((v = get(key)) != null)
+            return v;
+        int h = spread(key);
+        Segment<V> s = segmentFor(h);
+        long stamp = s.writeLock();
+        try {
+            @SuppressWarnings("unchecked") V old = (V)s.find(key, h);
+            if (old != null)
+                return old;
+            if ((v = mappingFunction.apply(key)) != null) {
+                if (key == 0L) {
+                    s.hasZero = true;
+                    s.zeroValue = v;
+                    s.size = s.size + 1;
+                }
+                else
+                    s.insertAt(~s.indexOf(key, h), key, v);
+            }
+            return v;
+        } finally {
+            s.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * If the specified key is not already associated with a
+     * (non-null) value, associates it with the given value.
+     * Otherwise, replaces the value with the results of the given
+     * remapping function, or removes if {@code null}. The entire
+     * method invocation is performed atomically, with the same
+     * restrictions on the function as {@link #computeIfAbsent}.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value the value to use if absent
+     * @param remappingFunction the function to recompute a value if present
+     * @return the new value associated with the specified key, or null if none
+     * @throws NullPointerException if the value or remappingFunction
+     *         is null
+     */
+    public V merge(long key, V value,
+                   BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (value == null || remappingFunction == null)
+            throw new NullPointerException();
+        int h = spread(key);
+        Segment<V> s = segmentFor(h);
+        long stamp = s.writeLock();
+        try {
+            if (key == 0L) {
+                @SuppressWarnings("unchecked") V old = (V)s.zeroValue;
+                V v = (old == null) ? value :
+                    remappingFunction.apply(old, value);
+                if (v != null) {
+                    if (!s.hasZero) {
+                        s.hasZero = true;
+                        s.size = s.size + 1;
+                    }
+                    s.zeroValue = v;
+                }
+                else if (s.hasZero) {
+                    s.hasZero = false;
+                    s.zeroValue = null;
+                    s.size = s.size - 1;
+                }
+                return v;
+            }
+            int i = s.indexOf(key, h);
+            if (i < 0) {
+                s.insertAt(~i, key, value);
+                return value;
+            }
+            @SuppressWarnings("unchecked") V old = (V)s.vals[i];
+            V v = remappingFunction.apply(old, value);
+            if (v != null)
+                s.vals[i] = v;
+            else
+                s.removeAt(i);
+            return v;
+        } finally {
+            s.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    public void clear() {
+        for (Segment<V> s : segments) {
+            long stamp = s.writeLock();
+            try {
+                s.clear();
+            } finally {
+                s.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Performs the given action for each mapping in this map, passing
+     * the value and the key.  Each segment is copied under its read
+     * lock, and the action invoked without holding any lock.
+     *
+     * @param action the action
+     * @throws NullPointerException if the action is null
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(ObjLongConsumer<? super V> action) {
+        if (action == null)
+            throw new NullPointerException();
+        for (Segment<V> s : segments) {
+            long[] ks;
+            Object[] vs;
+            int n;
+            long stamp = s.readLock();
+            try {
+                n = s.size;
+                ks = new long[n];
+                vs = new Object[n];
+                int j = 0;
+                if (s.hasZero)
+                    vs[j++] = s.zeroValue;  // with ks[0] == 0L
+                long[] sks = s.keys;
+                Object[] svs = s.vals;
+                for (int i = 0; i < sks.length && j < n; ++i) {
+                    if (sks[i] != 0L) {
+                        ks[j] = sks[i];
+                        vs[j++] = svs[i];
+                    }
+                }
+            } finally {
+                s.unlockRead(stamp);
+            }
+            for (int j = 0; j < n; ++j)
+                action.accept((V)vs[j], ks[j]);
+        }
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfLong} over the keys of this map.
+     *
+     * <p>The spliterator is
+     * <a href="package-summary.html#Weakly"><i>weakly consistent</i></a>,
+     * and reports {@link Spliterator#CONCURRENT},
+     * {@link Spliterator#DISTINCT}, and {@link Spliterator#NONNULL}.
+     * It splits along segment boundaries.
+     *
+     * @return a spliterator over the keys of this map
+     */
+    public Spliterator.OfLong keySpliterator() {
+        return new KeySpliterator(this, 0, segments.length);
+    }
+
+    /**
+     * Returns a sequential {@code LongStream} of the keys of this map.
+     * Use {@code keyStream().parallel()} for a parallel stream.
+     *
+     * @return a stream of the keys of this map
+     */
+    public LongStream keyStream() {
+        return StreamSupport.longStream(keySpliterator(), false);
+    }
+
+    /**
+     * Returns a string representation of this map, in the format of
+     * {@link java.util.AbstractMap#toString}.
+     *
+     * @return a string representation of this map
+     */
+    public String toString() {
+        final StringBuilder sb = new StringBuilder().append('{');
+        forEach((v, k) -> {
+            if (sb.length() > 1)
+                sb.append(", ");
+            sb.append(k).append('=').append(v == this ? "(this Map)" : v);
+        });
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Spliterator over the keys of the segments in [index, fence),
+     * copying each segment's keys under its read lock when reached.
+     */
+    static final class KeySpliterator implements Spliterator.OfLong {
+        final ConcurrentLongObjectMap<?> map;
+        int index, fence;       // segment range
+        long[] buf;             // keys of current segment
+        int next, limit;        // range of buf not yet traversed
+
+        KeySpliterator(ConcurrentLongObjectMap<?> map, int index, int fence) {
+            this.map = map;
+            this.index = index;
+            this.fence = fence;
+        }
+
+        private boolean fill() {
+            while (next >= limit) {
+                if (index >= fence)
+                    return false;
+                Segment<?> s = map.segments[index++];
+                long stamp = s.readLock();
+                try {
+                    int n = s.size;
+                    long[] b = (buf == null || buf.length < n) ? new long[n] : buf;
+                    int j = 0;
+                    if (s.hasZero)
+                        b[j++] = 0L;
+                    long[] ks = s.keys;
+                    for (int i = 0; i < ks.length && j < n; ++i)
+                        if (ks[i] != 0L)
+                            b[j++] = ks[i];
+                    buf = b;
+                    next = 0;
+                    limit = j;
+                } finally {
+                    s.unlockRead(stamp);
+                }
+            }
+            return true;
+        }
+
+        public KeySpliterator trySplit() {
+            int lo = index, mid = (lo + fence) >>> 1;
+            return (mid <= lo) ? null :
+                new KeySpliterator(map, lo, index = mid);
+        }
+
+        public boolean tryAdvance(LongConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            if (!fill())
+                return false;
+            action.accept(buf[next++]);
+            return true;
+        }
+
+        public void forEachRemaining(LongConsumer action) {
+            if (action == null)
+                throw new NullPointerException();
+            while (fill()) {
+                long[] b = buf;
+                int hi = limit;
+                for (int i = next; i < hi; ++i)
+                    action.accept(b[i]);
+                next = hi;
+            }
+        }
+
+        public long estimateSize() {
+            long n = limit - next;
+            Segment<?>[] ss = map.segments;
+            for (int i = index; i < fence; ++i)
+                n += ss[i].size;
+            return n;
+        }
+
+        public int characteristics() {
+            return Spliterator.CONCURRENT | Spliterator.DISTINCT |
+                Spliterator.NONNULL;
+        }
+    }
+}
@@ -0,0 +1,1049 @@
+/*
+ * Copyright (c) 2012, 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * A thread-safe hash map in which all mutative operations ({@code
+ * put}, {@code remove}, and so on) are implemented by making a new
+ * version of the map, in the manner of {@link CopyOnWriteArrayList}.
+ * Versions are persistent hash array mapped tries that share all
+ * structure not affected by an update, so that an update copies only
+ * the O(log<sub>32</sub> n) nodes on the path to the changed entry,
+ * rather than the whole map.
+ *
+ * <p>This is ordinarily too costly compared to {@link
+ * ConcurrentHashMap}, but may be more efficient when retrievals vastly
+ * outnumber updates: a retrieval never blocks, writes nothing, and
+ * consists only of reading a few small arrays.  All updates are
+ * serialized by a single lock.  Several updates can be combined into
+ * one new version with {@link #mutate}, which also makes them appear
+ * to other threads as a single atomic change.
+ *
+ * <p>{@link #snapshot} returns the current version as an unmodifiable
+ * map, in constant time.  Iterators and views traverse the version
+ * current when they were created, and never throw {@link
+ * java.util.ConcurrentModificationException}.  Iterators do not
+ * support {@code remove}, nor entries {@code setValue}.
+ *
+ * <p>Like {@link ConcurrentHashMap}, this class does <em>not</em>
+ * allow {@code null} to be used as a key or value.
+ *
+ * <p>Memory consistency effects: As with other concurrent
+ * collections, actions in a thread prior to placing an object into a
+ * {@code CopyOnWriteHashMap} <a href="package-summary.html#MemoryVisibility">
+ * <i>happen-before</i></a> actions subsequent to the access or removal
+ * of that element from the {@code CopyOnWriteHashMap} in another
+ * thread.
+ *
+ * @since 1.8
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ */
+public class CopyOnWriteHashMap<K,V> extends AbstractMap<K,V>
+        implements ConcurrentMap<K,V>, java.io.Serializable {
+    private static final long serialVersionUID = -1576290271537361926L;
+
+    /*
+     * Overview:
+     *
+     * Each version of the map is a Snapshot, holding the root node of
+     * a hash array mapped trie and the number of mappings. Readers
+     * read the volatile current Snapshot and descend from its root;
+     * nodes reachable from a published Snapshot are never modified.
+     *
+     * A BitmapNode at depth d covers the 5-bit chunk of the spread
+     * hash starting at bit 5d. Its array holds a key/value pair for
+     * each bit set in its bitmap, in bit order; a pair whose key is
+     * null instead holds, as its value, a child node for all keys
+     * sharing that chunk. Keys whose spread hashes are equal are kept
+     * in a CollisionNode, a plain array of pairs. After a removal
+     * leaves a child with a single mapping, the mapping is pulled up
+     * into the parent, so removals shrink the trie as well.
+     *
+     * Updates copy the nodes on the path from the root to the change,
+     * and publish a new Snapshot, under the lock. The Builder used by
+     * mutate instead tags each node it copies with an edit token, and
+     * modifies nodes carrying its own token in place, so that a batch
+     * of updates copies each affected node at most once. The token is
+     * discarded when mutate returns, after which all nodes are again
+     * treated as immutable.
+     *
+     * No memory reclamation scheme is needed: superseded versions are
+     * reclaimed by the garbage collector once no reader or iterator
+     * refers to them.
+     */
+
+    /** Number of hash bits consumed per trie level */
+    static final int BITS = 5;
+
+    /** Mask for the hash bits of one level */
+    static final int MASK = (1 << BITS) - 1;
+
+    /** The lock protecting all mutators */
+    final transient ReentrantLock lock = new ReentrantLock();
+
+    /** The current version. Accessed only via getSnapshot/setSnapshot. */
+    private transient volatile Snapshot<K,V> snapshot;
+
+    final Snapshot<K,V> getSnapshot() {
+        return snapshot;
+    }
+
+    final void setSnapshot(Snapshot<K,V> s) {
+        snapshot = s;
+    }
+
+    /**
+     * Spreads higher bits of the hash downward, as in HashMap, so that
+     * hash codes differing only in their high bits are separated at
+     * the first levels of the trie.
+     */
+    static final int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    static final int bitpos(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    /* ---------------- Nodes -------------- */
+
+    /** Holder for the previous value of an updated mapping */
+    static final class Change {
+        Object oldValue;
+    }
+
+    /**
+     * Base of trie nodes. Fields are modified only by the Builder
+     * owning the node's edit token, before the node is published.
+     */
+    abstract static class Node {
+        final Object edit;
+        Object[] array;
+
+        Node(Object edit, Object[] array) {
+            this.edit = edit;
+            this.array = array;
+        }
+
+        final boolean editableBy(Object edit) {
+            return edit != null && this.edit == edit;
+        }
+
+        /** Returns true if this node holds a single key/value pair */
+        final boolean isSingleton() {
+            return array.length == 2 && array[0] != null;
+        }
+
+        /**
+         * Returns a node including the given mapping, recording any
+         * previous value in c.
+         */
+        abstract Node assoc(Object edit, int shift, int hash,
+                            Object key, Object val, Change c);
+
+        /**
+         * Returns a node without the mapping for key, or null if none
+         * remain, recording any removed value in c.
+         */
+        abstract Node without(Object edit, int shift, int hash,
+                              Object key, Change c);
+    }
+
+    static final class BitmapNode extends Node {
+        int bitmap;
+
+        BitmapNode(Object edit, int bitmap, Object[] array) {
+            super(edit, array);
+            this.bitmap = bitmap;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1)) << 1;
+        }
+
+        /** Returns this node if editable, else a copy that is */
+        private BitmapNode editable(Object edit) {
+            return editableBy(edit) ? this :
+                new BitmapNode(edit, bitmap, array.clone());
+        }
+
+        private BitmapNode set(Object edit, int i, Object v) {
+            BitmapNode e = editable(edit);
+            e.array[i] = v;
+            return e;
+        }
+
+        private BitmapNode update(Object edit, int bitmap, Object[] array) {
+            if (!editableBy(edit))
+                return new BitmapNode(edit, bitmap, array);
+            this.bitmap = bitmap;
+            this.array = array;
+            return this;
+        }
+
+        Node assoc(Object edit, int shift, int hash,
+                   Object key, Object val, Change c) {
+            int bit = bitpos(hash, shift);
+            int i = index(bit);
+            Object[] a = array;
+            if ((bitmap & bit) != 0) {
+                Object k = a[i], v = a[i + 1];
+                if (k == null) {
+                    Node n = ((Node)v).assoc(edit, shift + BITS, hash,
+                                             key, val, c);
+                    return (n == v) ? this : set(edit, i + 1, n);
+                }
+                if (key == k || key.equals(k)) {
+                    c.oldValue = v;
+                    return (v == val) ? this : set(edit, i + 1, val);
+                }
+                Node n = pair(edit, shift + BITS, spread(k.hashCode()), k, v,
+                              hash, key, val);
+                BitmapNode e = editable(edit);
+                e.array[i] = null;
+                e.array[i + 1] = n;
+                return e;
+            }
+            int len = a.length;
+            Object[] b = new Object[len + 2];
+            System.arraycopy(a, 0, b, 0, i);
+            b[i] = key;
+            b[i + 1] = val;
+            System.arraycopy(a, i, b, i + 2, len - i);
+            return update(edit, bitmap | bit, b);
+        }
+
+        Node without(Object edit, int shift, int hash, Object key, Change c) {
+            int bit = bitpos(hash, shift);
+            if ((bitmap & bit) == 0)
+                return this;
+            int i = index(bit);
+            Object k = array[i], v = array[i + 1];
+            if (k == null) {
+                Node n = ((Node)v).without(edit, shift + BITS, hash, key, c);
+                if (n == v)
+                    return this;
+                if (n == null)
+                    return removePair(edit, bit, i);
+                BitmapNode e = editable(edit);
+                if (n.isSingleton()) {
+                    e.array[i] = n.array[0];
+                    e.array[i + 1] = n.array[1];
+                }
+                else
+                    e.array[i + 1] = n;
+                return e;
+            }
+            if (key != k && !key.equals(k))
+                return this;
+            c.oldValue = v;
+            return removePair(edit, bit, i);
+        }
+
+        private Node removePair(Object edit, int bit, int i) {
+            if (bitmap == bit)
+                return null;
+            Object[] a = array;
+            int len = a.length;
+            Object[] b = new Object[len - 2];
+            System.arraycopy(a, 0, b, 0, i);
+            System.arraycopy(a, i + 2, b, i, len - i - 2);
+            return update(edit, bitmap & ~bit, b);
+        }
+    }
+
+    static final class CollisionNode extends Node {
+        final int hash;
+
+        CollisionNode(Object edit, int hash, Object[] array) {
+            super(edit, array);
+            this.hash = hash;
+        }
+
+        private int indexOf(Object key) {
+            Object[] a = array;
+            for (int i = 0; i < a.length; i += 2)
+                if (key.equals(a[i]))
+                    return i;
+            return -1;
+        }
+
+        private Node update(Object edit, Object[] array) {
+            if (!editableBy(edit))
+                return new CollisionNode(edit, hash, array);
+            this.array = array;
+            return this;
+        }
+
+        Node assoc(Object edit, int shift, int hash,
+                   Object key, Object val, Change c) {
+            if (hash != this.hash)
+                return new BitmapNode(edit, bitpos(this.hash, shift),
+                                      new Object[] { null, this })
+                    .assoc(edit, shift, hash, key, val, c);
+            Object[] a = array;
+            int i = indexOf(key);
+            if (i >= 0) {
+                Object v = a[i + 1];
+                c.oldValue = v;
+                if (v == val)
+                    return this;
+                if (editableBy(edit)) {
+                    a[i + 1] = val;
+                    return this;
+                }
+                Object[] b = a.clone();
+                b[i + 1] = val;
+                return new CollisionNode(edit, hash, b);
+            }
+            int len = a.length;
+            Object[] b = new Object[len + 2];
+            System.arraycopy(a, 0, b, 0, len);
+            b[len] = key;
+            b[len + 1] = val;
+            return update(edit, b);
+        }
+
+        Node without(Object edit, int shift, int hash, Object key, Change c) {
+            int i;
+            if (hash != this.hash || (i = indexOf(key)) < 0)
+                return this;
+            Object[] a = array;
+            c.oldValue = a[i + 1];
+            int len = a.length;
+            if (len == 2)
+                return null;
+            Object[] b = new Object[len - 2];
+            System.arraycopy(a, 0, b, 0, i);
+            System.arraycopy(a, i + 2, b, i, len - i - 2);
+            return update(edit, b);
+        }
+    }
+
+    /**
+     * Returns a node holding two mappings with different keys, at the
+     * given shift.
+     */
+    static Node pair(Object edit, int shift, int h1, Object k1, Object v1,
+                     int h2, Object k2, Object v2) {
+        if (h1 == h2)
+            return new CollisionNode(edit, h1, new Object[] { k1, v1, k2, v2 });
+        int i1 = (h1 >>> shift) & MASK, i2 = (h2 >>> shift) & MASK;
+        if (i1 == i2)
+            return new BitmapNode(edit, 1 << i1, new Object[] {
+                    null, pair(edit, shift + BITS, h1, k1, v1, h2, k2, v2) });
+        Object[] a = (i1 < i2) ?
+            new Object[] { k1, v1, k2, v2 } :
+            new Object[] { k2, v2, k1, v1 };
+        return new BitmapNode(edit, (1 << i1) | (1 << i2), a);
+    }
+
+    /** Returns the value for key in the trie rooted at n, or null */
+    static Object find(Node n, Object key) {
+        int h = spread(key.hashCode());
+        for (int shift = 0; n != null; shift += BITS) {
+            Object[] a = n.array;
+            if (n instanceof BitmapNode) {
+                int bm = ((BitmapNode)n).bitmap, bit = bitpos(h, shift);
+                if ((bm & bit) == 0)
+                    return null;
+                int i = Integer.bitCount(bm & (bit - 1)) << 1;
+                Object k = a[i];
+                if (k == null)
+                    n = (Node)a[i + 1];
+                else
+                    return (key == k || key.equals(k)) ? a[i + 1] : null;
+            }
+            else {
+                if (((CollisionNode)n).hash == h) {
+                    for (int i = 0; i < a.length; i += 2)
+                        if (key.equals(a[i]))
+                            return a[i + 1];
+                }
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /** Applies action to each mapping in the trie rooted at n */
+    @SuppressWarnings("unchecked")
+    static <K,V> void forEach(Node n, BiConsumer<? super K, ? super V> action) {
+        Object[] a = n.array;
+        for (int i = 0; i < a.length; i += 2) {
+            Object k = a[i];
+            if (k == null)
+                forEach((Node)a[i + 1], action);
+            else
+                action.accept((K)k, (V)a[i + 1]);
+        }
+    }
+
+    /* ---------------- Versions and views -------------- */
+
+    /**
+     * An immutable version of the map.  Snapshots are exposed
+     * directly by {@link #snapshot}.
+     */
+    static final class Snapshot<K,V> extends AbstractMap<K,V> {
+        final Node root;        // null if empty
+        final int size;
+        transient Set<Map.Entry<K,V>> entrySet;
+
+        Snapshot(Node root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        public V get(Object key) {
+            return (root == null) ? null : (V)find(root, key);
+        }
+
+        public boolean containsKey(Object key) {
+            return root != null && find(root, key) != null;
+        }
+
+        public void forEach(BiConsumer<? super K, ? super V> action) {
+            if (action == null)
+                throw new NullPointerException();
+            if (root != null)
+                CopyOnWriteHashMap.<K,V>forEach(root, action);
+        }
+
+        public Set<Map.Entry<K,V>> entrySet() {
+            Set<Map.Entry<K,V>> es;
+            return (es = entrySet) != null ? es :
+                (entrySet = new AbstractSet<Map.Entry<K,V>>() {
+                    public Iterator<Map.Entry<K,V>> iterator() {
+                        return new EntryIterator<K,V>(root);
+                    }
+                    public int size() {
+                        return size;
+                    }
+                });
+        }
+    }
+
+    /**
+     * Iterator over the mappings of a trie, keeping the path from the
+     * root as a stack of arrays and positions.
+     */
+    static final class EntryIterator<K,V> implements Iterator<Map.Entry<K,V>> {
+        // 32-bit hashes need at most 7 levels, plus one for collisions
+        private final Object[][] arrays = new Object[8][];
+        private final int[] indices = new int[8];
+        private int depth = -1;
+        private Object nextKey, nextValue;
+
+        EntryIterator(Node root) {
+            if (root != null) {
+                arrays[depth = 0] = root.array;
+                advance();
+            }
+        }
+
+        private void advance() {
+            while (depth >= 0) {
+                Object[] a = arrays[depth];
+                int i = indices[depth];
+                if (i >= a.length) {
+                    arrays[depth--] = null;
+                    continue;
+                }
+                indices[depth] = i + 2;
+                Object k = a[i];
+                if (k == null) {
+                    arrays[++depth] = ((Node)a[i + 1]).array;
+                    indices[depth] = 0;
+                }
+                else {
+                    nextKey = k;
+                    nextValue = a[i + 1];
+                    return;
+                }
+            }
+            nextKey = nextValue = null;
+        }
+
+        public boolean hasNext() {
+            return nextKey != null;
+        }
+
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K,V> next() {
+            Object k = nextKey, v = nextValue;
+            if (k == null)
+                throw new NoSuchElementException();
+            advance();
+            return new AbstractMap.SimpleImmutableEntry<K,V>((K)k, (V)v);
+        }
+    }
+
+    /**
+     * Entry set of the map, reading the current version on each
+     * operation, and writing through to the map for removals.
+     */
+    final class EntrySetView extends AbstractSet<Map.Entry<K,V>> {
+        public Iterator<Map.Entry<K,V>> iterator() {
+            return new EntryIterator<K,V>(getSnapshot().root);
+        }
+        public int size() {
+            return CopyOnWriteHashMap.this.size();
+        }
+        public boolean isEmpty() {
+            return CopyOnWriteHashMap.this.isEmpty();
+        }
+        public boolean contains(Object o) {
+            Object k, v, r;
+            Map.Entry<?,?> e;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?,?>)o).getKey()) != null &&
+                    (r = get(k)) != null &&
+                    (v = e.getValue()) != null &&
+                    (v == r || v.equals(r)));
+        }
+        public boolean remove(Object o) {
+            Object k, v;
+            Map.Entry<?,?> e;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?,?>)o).getKey()) != null &&
+                    (v = e.getValue()) != null &&
+                    CopyOnWriteHashMap.this.remove(k, v));
+        }
+        public void clear() {
+            CopyOnWriteHashMap.this.clear();
+        }
+    }
+
+    private transient EntrySetView entrySet;
+
+    /* ---------------- Builder -------------- */
+
+    /**
+     * A mutable view of a new version of a {@link CopyOnWriteHashMap},
+     * passed to the action given to {@link CopyOnWriteHashMap#mutate}.
+     * Updates made through a builder are visible to the builder
+     * immediately, and to other threads only when {@code mutate}
+     * returns, all at once.  A builder may be used only by the thread
+     * calling {@code mutate}, and only until it returns.
+     *
+     * @param <K> the type of keys
+     * @param <V> the type of values
+     * @since 1.8
+     */
+    public static final class Builder<K,V> {
+        private Object edit;
+        private Node root;
+        private int size;
+        private final Change change = new Change();
+
+        Builder(Snapshot<K,V> s) {
+            this.edit = new Object();
+            this.root = s.root;
+            this.size = s.size;
+        }
+
+        private void checkValid() {
+            if (edit == null)
+                throw new IllegalStateException();
+        }
+
+        Snapshot<K,V> build() {
+            edit = null;
+            return new Snapshot<K,V>(root, size);
+        }
+
+        /**
+         * Returns the value to which the specified key is mapped in
+         * the version being built, or {@code null} if there is none.
+         *
+         * @param key the key
+         * @return the value, or {@code null}
+         * @throws NullPointerException if the key is null
+         * @throws IllegalStateException if the builder is no longer valid
+         */
+        @SuppressWarnings("unchecked")
+        public V get(Object key) {
+            checkValid();
+            if (key == null)
+                throw new NullPointerException();
+            return (root == null) ? null : (V)find(root, key);
+        }
+
+        /**
+         * Returns {@code true} if the version being built contains a
+         * mapping for the key.
+         *
+         * @param key the key
+         * @return {@code true} if there is a mapping for the key
+         * @throws NullPointerException if the key is null
+         * @throws IllegalStateException if the builder is no longer valid
+         */
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        /**
+         * Maps the key to the value in the version being built.
+         *
+         * @param key the key
+         * @param value the value
+         * @return the previous value for the key, or {@code null}
+         * @throws NullPointerException if the key or value is null
+         * @throws IllegalStateException if the builder is no longer valid
+         */
+        @SuppressWarnings("unchecked")
+        public V put(K key, V value) {
+            checkValid();
+            if (key == null || value == null)
+                throw new NullPointerException();
+            Change c = change;
+            c.oldValue = null;
+            Node r = (root != null) ? root :
+                new BitmapNode(edit, 0, new Object[0]);
+            root = r.assoc(edit, 0, spread(key.hashCode()), key, value, c);
+            Object old = c.oldValue;
+            if (old == null)
+                ++size;
+            return (V)old;
+        }
+
+        /**
+         * Removes the mapping for the key from the version being built.
+         *
+         * @param key the key
+         * @return the previous value for the key, or {@code null}
+         * @throws NullPointerException if the key is null
+         * @throws IllegalStateException if the builder is no longer valid
+         */
+        @SuppressWarnings("unchecked")
+        public V remove(Object key) {
+            checkValid();
+            if (key == null)
+                throw new NullPointerException();
+            if (root == null)
+                return null;
+            Change c = change;
+            c.oldValue = null;
+            root = root.without(edit, 0, spread(key.hashCode()), key, c);
+            Object old = c.oldValue;
+            if (old != null)
+                --size;
+            return (V)old;
+        }
+
+        /**
+         * Copies all of the mappings of the given map into the version
+         * being built.
+         *
+         * @param m the mappings to add
+         * @throws NullPointerException if the map or any of its keys
+         *         or values is null
+         * @throws IllegalStateException if the builder is no longer valid
+         */
+        public void putAll(Map<? extends K, ? extends V> m) {
+            for (Map.Entry<? extends K, ? extends V> e : m.entrySet())
+                put(e.getKey(), e.getValue());
+        }
+
+        /**
+         * Removes all mappings from the version being built.
+         *
+         * @throws IllegalStateException if the builder is no longer valid
+         */
+        public void clear() {
+            checkValid();
+            root = null;
+            size = 0;
+        }
+
+        /**
+         * Returns the number of mappings in the version being built.
+         *
+         * @return the number of mappings
+         * @throws IllegalStateException if the builder is no longer valid
+         */
+        public int size() {
+            checkValid();
+            return size;
+        }
+    }
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Creates an empty map.
+     */
+    public CopyOnWriteHashMap() {
+        setSnapshot(new Snapshot<K,V>(null, 0));
+    }
+
+    /**
+     * Creates a map containing the same mappings as the given map.
+     *
+     * @param m the map
+     * @throws NullPointerException if the specified map or any of its
+     *         keys or values is null
+     */
+    public CopyOnWriteHashMap(Map<? extends K, ? extends V> m) {
+        Builder<K,V> b = new Builder<K,V>(new Snapshot<K,V>(null, 0));
+        b.putAll(m);
+        setSnapshot(b.build());
+    }
+
+    /**
+     * Returns the current contents of this map as an unmodifiable
+     * map, which is unaffected by subsequent updates.  This takes
+     * constant time and space.
+     *
+     * @return an unmodifiable snapshot of this map
+     */
+    public Map<K,V> snapshot() {
+        return getSnapshot();
+    }
+
+    /**
+     * Atomically applies a batch of updates to this map.  The action
+     * is passed a {@link Builder} initialized with the current
+     * contents of this map, and the contents of the builder when the
+     * action returns become the new contents of this map.  Nodes
+     * copied for the batch are updated in place by subsequent
+     * operations of the batch, so a batch of many updates costs much
+     * less than performing them one at a time.  If the action throws
+     * an exception, this map is unchanged.
+     *
+     * <p>Other updates of this map block while the action runs, so
+     * the action should be short and must not update this map other
+     * than through the builder.
+     *
+     * @param action the updates to apply
+     * @throws NullPointerException if the action is null
+     */
+    public void mutate(Consumer<? super Builder<K,V>> action) {
+        if (action == null)
+            throw new NullPointerException();
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Builder<K,V> b = new Builder<K,V>(getSnapshot());
+            try {
+                action.accept(b);
+                setSnapshot(b.build());
+            } finally {
+                b.edit = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        return getSnapshot().size;
+    }
+
+    public boolean isEmpty() {
+        return getSnapshot().size == 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if the specified key is null
+     */
+    public V get(Object key) {
+        if (key == null)
+            throw new NullPointerException();
+        return getSnapshot().get(key);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if the specified key is null
+     */
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Maps the specified key to the specified value in this map.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     * @throws NullPointerException if the specified key or value is null
+     */
+    public V put(K key, V value) {
+        return putVal(key, value, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified key or value is null
+     */
+    public V putIfAbsent(K key, V value) {
+        return putVal(key, value, true);
+    }
+
+    /** Implementation for put and putIfAbsent */
+    @SuppressWarnings("unchecked")
+    final V putVal(K key, V value, boolean onlyIfAbsent) {
+        if (key == null || value == null)
+            throw new NullPointerException();
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Snapshot<K,V> s = getSnapshot();
+            Node r = s.root;
+            int h = spread(key.hashCode());
+            Object old;
+            if (onlyIfAbsent && r != null && (old = find(r, key)) != null)
+                return (V)old;
+            Change c = new Change();
+            if (r == null)
+                r = new BitmapNode(null, 0, new Object[0]);
+            Node nr = r.assoc(null, 0, h, key, value, c);
+            old = c.oldValue;
+            if (nr != s.root)
+                setSnapshot(new Snapshot<K,V>(nr, (old == null) ?
+                                              s.size + 1 : s.size));
+            return (V)old;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Copies all of the mappings from the specified map to this map,
+     * as a single atomic update.
+     *
+     * @param m mappings to be stored in this map
+     * @throws NullPointerException if the specified map or any of its
+     *         keys or values is null
+     */
+    public void putAll(final Map<? extends K, ? extends V> m) {
+        mutate(b -> b.putAll(m));
+    }
+
+    /**
+     * Removes the key (and its corresponding value) from this map.
+     * This method does nothing if the key is not in the map.
+     *
+     * @param  key the key that needs to be removed
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     * @throws NullPointerException if the specified key is null
+     */
+    public V remove(Object key) {
+        if (key == null)
+            throw new NullPointerException();
+        return replaceNode(key, null, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if the specified key is null
+     */
+    public boolean remove(Object key, Object value) {
+        if (key == null)
+            throw new NullPointerException();
+        return value != null && replaceNode(key, null, value) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if any of the arguments are null
+     */
+    public boolean replace(K key, V oldValue, V newValue) {
+        if (key == null || oldValue == null || newValue == null)
+            throw new NullPointerException();
+        return replaceNode(key, newValue, oldValue) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified key or value is null
+     */
+    public V replace(K key, V value) {
+        if (key == null || value == null)
+            throw new NullPointerException();
+        return replaceNode(key, value, null);
+    }
+
+    /**
+     * Implementation for the four public remove/replace methods:
+     * Replaces the value with v, conditional upon match of cv if
+     * non-null.  If resulting value is null, delete.
+     */
+    @SuppressWarnings("unchecked")
+    final V replaceNode(Object key, V value, Object cv) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            Snapshot<K,V> s = getSnapshot();
+            Node r = s.root;
+            Object old;
+            if (r == null || (old = find(r, key)) == null ||
+                (cv != null && cv != old && !cv.equals(old)))
+                return null;
+            int h = spread(key.hashCode());
+            Change c = new Change();
+            if (value != null)
+                setSnapshot(new Snapshot<K,V>(
+                                r.assoc(null, 0, h, key, value, c), s.size));
+            else
+                setSnapshot(new Snapshot<K,V>(
+                                r.without(null, 0, h, key, c), s.size - 1));
+            return (V)old;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    public void clear() {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            setSnapshot(new Snapshot<K,V>(null, 0));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        getSnapshot().forEach(action);
+    }
+
+    /**
+     * Returns a {@link Set} view of the mappings contained in this map.
+     * The set supports removal, which removes the corresponding
+     * mapping from this map, but not addition.  Its iterators
+     * traverse the mappings present when the iterator was created,
+     * and do not support {@code remove}.
+     *
+     * @return the set view
+     */
+    public Set<Map.Entry<K,V>> entrySet() {
+        EntrySetView es;
+        return (es = entrySet) != null ? es : (entrySet = new EntrySetView());
+    }
+
+    /**
+     * Saves this map to a stream (that is, serializes it).
+     *
+     * @param s the stream
+     * @throws java.io.IOException if an I/O error occurs
+     * @serialData the number of mappings (int), followed by the key
+     * (Object) and value (Object) of each mapping
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        s.defaultWriteObject();
+        Snapshot<K,V> snap = getSnapshot();
+        s.writeInt(snap.size);
+        for (Iterator<Map.Entry<K,V>> it = new EntryIterator<K,V>(snap.root);
+             it.hasNext(); ) {
+            Map.Entry<K,V> e = it.next();
+            s.writeObject(e.getKey());
+            s.writeObject(e.getValue());
+        }
+    }
+
+    /**
+     * Reconstitutes this map from a stream (that is, deserializes it).
+     *
+     * @param s the stream
+     * @throws ClassNotFoundException if the class of a serialized object
+     *         could not be found
+     * @throws java.io.IOException if an I/O error occurs
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+
+        // bind to new lock
+        resetLock();
+
+        int n = s.readInt();
+        Builder<K,V> b = new Builder<K,V>(new Snapshot<K,V>(null, 0));
+        for (int i = 0; i < n; ++i) {
+            K k = (K)s.readObject();
+            V v = (V)s.readObject();
+            b.put(k, v);
+        }
+        setSnapshot(b.build());
+    }
+
+    // Support for resetting lock while deserializing
+    private void resetLock() {
+        UNSAFE.putObjectVolatile(this, lockOffset, new ReentrantLock());
+    }
+    private static final sun.misc.Unsafe UNSAFE;
+    private static final long lockOffset;
+    static {
+        try {
+            UNSAFE = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = CopyOnWriteHashMap.class;
+            lockOffset = UNSAFE.objectFieldOffset
+                (k.getDeclaredField("lock"));
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -154,6 +154,53 @@ public class Executors {
                                       threadFactory);
     }
 
+    /**
+     * Creates a thread pool that reuses a fixed number of threads
+     * operating off an unbounded queue that is split into multiple
+     * shards, so that threads taking tasks rarely contend with each
+     * other or with submitters. Each thread owns a shard, from which
+     * it preferentially takes tasks, and otherwise steals from the
+     * shards of other threads. Tasks submitted by a thread of the
+     * pool are placed in its own shard.
+     * Apart from making no guarantees about the order in which
+     * submitted tasks are executed, the returned pool behaves as one
+     * created by {@link #newFixedThreadPool(int)}, and is most useful
+     * for large numbers of short tasks.
+     *
+     * @param nThreads the number of threads in the pool
+     * @return the newly created thread pool
+     * @throws IllegalArgumentException if {@code nThreads <= 0}
+     * @since 1.8
+     */
+    public static ExecutorService newShardedThreadPool(int nThreads) {
+        return new ThreadPoolExecutor(nThreads, nThreads,
+                                      0L, TimeUnit.MILLISECONDS,
+                                      new ShardedBlockingQueue<Runnable>(nThreads));
+    }
+
+    /**
+     * Creates a thread pool that reuses a fixed number of threads
+     * operating off a sharded unbounded queue, using the provided
+     * ThreadFactory to create new threads when needed.  Apart from
+     * making no guarantees about the order in which submitted tasks
+     * are executed, the returned pool behaves as one created by
+     * {@link #newFixedThreadPool(int, ThreadFactory)}.
+     *
+     * @param nThreads the number of threads in the pool
+     * @param threadFactory the factory to use when creating new threads
+     * @return the newly created thread pool
+     * @throws NullPointerException if threadFactory is null
+     * @throws IllegalArgumentException if {@code nThreads <= 0}
+     * @see #newShardedThreadPool(int)
+     * @since 1.8
+     */
+    public static ExecutorService newShardedThreadPool(int nThreads, ThreadFactory threadFactory) {
+        return new ThreadPoolExecutor(nThreads, nThreads,
+                                      0L, TimeUnit.MILLISECONDS,
+                                      new ShardedBlockingQueue<Runnable>(nThreads),
+                                      threadFactory);
+    }
+
     /**
      * Creates an Executor that uses a single worker thread operating
      * off an unbounded queue. (Note however that if this single
@@ -645,6 +645,23 @@ public class ForkJoinPool extends AbstractExecutorService {
      * be JVM-dependent and must access particular Thread class fields
      * to achieve this effect.
      *
+     * Locality Groups
+     * ===============
+     *
+     * When system property
+     * java.util.concurrent.ForkJoinPool.localityGroups is "true"
+     * (an internal, unsupported setting read once), pools divide
+     * their workers round-robin into one group per NUMA node listed
+     * in /sys/devices/system/node/online (capped at parallelism),
+     * and scan first makes one pass over the queues of the worker's
+     * own group (see scanLocal).  Java offers no way to bind threads
+     * to processors, so groups do not follow thread placement; the
+     * setting exists to measure whether preferring a fixed subset
+     * of victims helps a workload.  Steals within a group are
+     * counted per queue in nlocalSteals, beside nsteals, and
+     * reported by toString.  Otherwise localityGroups is zero, and
+     * scan and the counters are unaffected.
+     *
      * Style notes
      * ===========
      *
@@ -801,6 +818,8 @@ public class ForkJoinPool extends AbstractExecutorService {
         volatile int scanState;    // versioned, <0: inactive; odd:scanning
         int stackPred;             // pool stack (ctl) predecessor
         int nsteals;               // number of steals
+        int nlocalSteals;          // steals from queues in the same group
+        int group;                 // locality group, if grouped
         int hint;                  // randomization and stealer index hint
         int config;                // pool index and mode
         volatile int qlock;        // 1: locked, < 0: terminate; else 0
@@ -1075,6 +1094,11 @@ public class ForkJoinPool extends AbstractExecutorService {
                 nsteals = 0;            // if negative, correct for overflow
                 sc.getAndAdd((long)(s < 0 ? Integer.MAX_VALUE : s));
             }
+            if (p != null && (sc = p.localStealCounter) != null) {
+                int s = nlocalSteals;
+                nlocalSteals = 0;
+                sc.getAndAdd((long)(s < 0 ? Integer.MAX_VALUE : s));
+            }
         }
 
         /**
@@ -1281,6 +1305,11 @@ public class ForkJoinPool extends AbstractExecutorService {
      */
     private static int commonMaxSpares;
 
+    /**
+     * Number of locality groups for new pools, or 0 if disabled.
+     */
+    static final int LOCALITY_GROUPS;
+
     /**
      * Sequence number for creating workerNamePrefix.
      */
@@ -1396,6 +1425,9 @@ public class ForkJoinPool extends AbstractExecutorService {
     final UncaughtExceptionHandler ueh;  // per-worker UEH
     final String workerNamePrefix;       // to create worker name string
     volatile AtomicLong stealCounter;    // also used as sync monitor
+    final int localityGroups;            // 0 unless grouped
+    int nextGroup;                       // to assign locality groups
+    final AtomicLong localStealCounter;  // null unless grouped
 
     /**
      * Acquires the runState lock; returns current (locked) runState.
@@ -1556,6 +1588,10 @@ public class ForkJoinPool extends AbstractExecutorService {
                 }
                 w.hint = s;                           // use as random seed
                 w.config = i | mode;
+                if (localityGroups > 1) {             // round-robin groups
+                    w.group = nextGroup;
+                    nextGroup = (nextGroup + 1) % localityGroups;
+                }
                 w.scanState = i;                      // publication fence
                 ws[i] = w;
             }
@@ -1716,6 +1752,10 @@ public class ForkJoinPool extends AbstractExecutorService {
         WorkQueue[] ws; int m;
         if ((ws = workQueues) != null && (m = ws.length - 1) > 0 && w != null) {
             int ss = w.scanState;                     // initially non-negative
+            ForkJoinTask<?> lt;
+            if (ss >= 0 && localityGroups > 1 &&
+                (lt = scanLocal(w, ws, m, r)) != null)
+                return lt;
             for (int origin = r & m, k = origin, oldSum = 0, checkSum = 0;;) {
                 WorkQueue q; ForkJoinTask<?>[] a; ForkJoinTask<?> t;
                 int b, n; long c;
@@ -1731,6 +1771,9 @@ public class ForkJoinPool extends AbstractExecutorService {
                                     q.base = b + 1;
                                     if (n < -1)       // signal others
                                         signalWork(ws, q);
+                                    if (localityGroups != 0 && (k & 1) != 0 &&
+                                        q != w && q.group == w.group)
+                                        ++w.nlocalSteals;
                                     return t;
                                 }
                             }
@@ -1769,6 +1812,60 @@ public class ForkJoinPool extends AbstractExecutorService {
         return null;
     }
 
+    /**
+     * In grouped pools, tries to steal a top-level task from a
+     * worker queue in the same locality group as w before scan
+     * considers all queues. Makes a single pass over worker queues,
+     * starting at a random one, returning null if none in the group
+     * yields a task without contention.
+     *
+     * @param w the worker (via its WorkQueue)
+     * @param ws the workQueues array
+     * @param m its length - 1
+     * @param r a random seed
+     * @return a task, or null if none found
+     */
+    private ForkJoinTask<?> scanLocal(WorkQueue w, WorkQueue[] ws, int m,
+                                      int r) {
+        int g = w.group;
+        for (int origin = ((r << 1) | 1) & m, k = origin;;) {
+            WorkQueue q; ForkJoinTask<?> t; int b;
+            if ((q = ws[k]) != null && q != w && q.group == g &&
+                (b = q.base) - q.top < 0 && (t = q.pollAt(b)) != null) {
+                ++w.nlocalSteals;
+                if (q.base - q.top < 0)               // signal others
+                    signalWork(ws, q);
+                return t;
+            }
+            if ((k = (k + 2) & m) == origin)
+                return null;
+        }
+    }
+
+    /**
+     * Returns the number of NUMA nodes listed as online in Linux
+     * sysfs, or 1 if that cannot be determined.  Called only while
+     * privileged, from the static initializer.
+     */
+    private static int detectLocalityGroups() {
+        try (java.io.BufferedReader in = new java.io.BufferedReader
+             (new java.io.FileReader("/sys/devices/system/node/online"))) {
+            String nodes = in.readLine();
+            int n = 0;
+            if (nodes != null) {                      // eg "0-1,3"
+                for (String range : nodes.trim().split(",")) {
+                    int dash = range.indexOf('-');
+                    n += (dash < 0) ? 1 :
+                        Integer.parseInt(range.substring(dash + 1).trim()) -
+                        Integer.parseInt(range.substring(0, dash).trim()) + 1;
+                }
+            }
+            return Math.max(1, n);
+        } catch (java.io.IOException | RuntimeException ignore) {
+            return 1;
+        }
+    }
+
     /**
      * Possibly blocks worker w waiting for a task to steal, or
      * returns false if the worker should terminate.  If inactivating
@@ -2419,6 +2516,46 @@ public class ForkJoinPool extends AbstractExecutorService {
         externalSubmit(task);
     }
 
+    /**
+     * Tries to add tasks[from] through tasks[to - 1] to the
+     * submitter's current submission queue while holding its lock
+     * only once, growing the queue array as needed, and then signals
+     * at most one worker; others are activated as usual by workers
+     * finding more than one task in scan. Otherwise, or if the
+     * queue is busy or not yet created, pushes the first task via
+     * externalPush (initializing as needed) and retries with the
+     * rest.
+     *
+     * @param tasks the tasks. Caller must ensure non-null.
+     */
+    final void externalPushAll(ForkJoinTask<?>[] tasks, int from, int to) {
+        while (from < to) {
+            WorkQueue[] ws; WorkQueue q; int m;
+            int r = ThreadLocalRandom.getProbe();
+            int rs = runState;
+            if ((ws = workQueues) != null && (m = (ws.length - 1)) >= 0 &&
+                (q = ws[m & r & SQMASK]) != null && r != 0 && rs > 0 &&
+                U.compareAndSwapInt(q, QLOCK, 0, 1)) {
+                try {                          // locked version of push
+                    ForkJoinTask<?>[] a = q.array;
+                    int s = q.top, k = to - from;
+                    while (a == null || a.length - 1 < s - q.base + k)
+                        a = q.growArray();
+                    int am = a.length - 1;
+                    for (int i = from; i < to; ++i, ++s)
+                        U.putOrderedObject(a, ((am & s) << ASHIFT) + ABASE,
+                                           tasks[i]);
+                    U.putOrderedInt(q, QTOP, s);
+                } finally {
+                    U.compareAndSwapInt(q, QLOCK, 1, 0);
+                }
+                signalWork(ws, q);
+                return;
+            }
+            externalPush(tasks[from++]);
+        }
+    }
+
     /**
      * Returns common pool queue for an external thread.
      */
@@ -2565,6 +2702,9 @@ public class ForkJoinPool extends AbstractExecutorService {
                          int mode,
                          String workerNamePrefix) {
         this.workerNamePrefix = workerNamePrefix;
+        int g = Math.min(LOCALITY_GROUPS, parallelism);
+        this.localityGroups = (g > 1) ? g : 0;
+        this.localStealCounter = (g > 1) ? new AtomicLong() : null;
         this.factory = factory;
         this.ueh = handler;
         this.config = (parallelism & SMASK) | mode;
@@ -2648,6 +2788,63 @@ public class ForkJoinPool extends AbstractExecutorService {
         externalPush(job);
     }
 
+    /**
+     * Arranges for (asynchronous) execution of each of the given
+     * commands, with the same effect as invoking {@link
+     * #execute(Runnable)} for each of them, but normally placing
+     * them in a submission queue with a single lock acquisition and
+     * waking at most one worker directly.
+     *
+     * @param tasks the tasks
+     * @throws NullPointerException if {@code tasks} or any of its
+     *         elements is null, in which case no task is submitted
+     * @throws RejectedExecutionException if the tasks cannot be
+     *         scheduled for execution
+     * @since 1.8
+     */
+    public void executeAll(Collection<? extends Runnable> tasks) {
+        Object[] a = tasks.toArray();
+        int n = a.length;
+        ForkJoinTask<?>[] jobs = new ForkJoinTask<?>[n];
+        for (int i = 0; i < n; ++i) {
+            Object t = a[i];
+            if (t == null)
+                throw new NullPointerException();
+            jobs[i] = (t instanceof ForkJoinTask<?>) ? // avoid re-wrap
+                (ForkJoinTask<?>) t :
+                new ForkJoinTask.RunnableExecuteAction((Runnable) t);
+        }
+        externalPushAll(jobs, 0, n);
+    }
+
+    /**
+     * Submits each of the given value-returning tasks for execution,
+     * as if by {@link #executeAll}, and returns a list of Futures
+     * representing their pending results, in the same sequential
+     * order as produced by the iterator for the given task list.
+     *
+     * @param tasks the tasks
+     * @param <T> the type of the values returned from the tasks
+     * @return a list of Futures representing the tasks
+     * @throws NullPointerException if {@code tasks} or any of its
+     *         elements is null, in which case no task is submitted
+     * @throws RejectedExecutionException if the tasks cannot be
+     *         scheduled for execution
+     * @since 1.8
+     */
+    public <T> List<Future<T>> submitAll(Collection<? extends Callable<T>> tasks) {
+        ArrayList<Future<T>> futures = new ArrayList<>(tasks.size());
+        for (Callable<T> t : tasks) {
+            if (t == null)
+                throw new NullPointerException();
+            futures.add(new ForkJoinTask.AdaptedCallable<T>(t));
+        }
+        ForkJoinTask<?>[] jobs =
+            futures.toArray(new ForkJoinTask<?>[futures.size()]);
+        externalPushAll(jobs, 0, jobs.length);
+        return futures;
+    }
+
     /**
      * Submits a ForkJoinTask for execution.
      *
@@ -2864,6 +3061,27 @@ public class ForkJoinPool extends AbstractExecutorService {
         return count;
     }
 
+    /**
+     * Returns an estimate of the number of tasks stolen from one
+     * worker's queue by another worker in the same locality group:
+     * the sum of the per-queue counts kept beside nsteals, plus those
+     * of terminated workers.
+     */
+    final long getLocalStealCount() {
+        AtomicLong sc = localStealCounter;
+        if (sc == null)
+            return 0L;
+        long count = sc.get();
+        WorkQueue[] ws; WorkQueue w;
+        if ((ws = workQueues) != null) {
+            for (int i = 1; i < ws.length; i += 2) {
+                if ((w = ws[i]) != null)
+                    count += w.nlocalSteals;
+            }
+        }
+        return count;
+    }
+
     /**
      * Returns an estimate of the total number of tasks currently held
      * in queues by worker threads (but not including tasks submitted
@@ -3019,6 +3237,8 @@ public class ForkJoinPool extends AbstractExecutorService {
             ", active = " + ac +
             ", running = " + rc +
             ", steals = " + st +
+            (localityGroups == 0 ? "" :
+             ", local steals = " + getLocalStealCount()) +
             ", tasks = " + qt +
             ", submissions = " + qs +
             "]";
@@ -3392,6 +3612,12 @@ public class ForkJoinPool extends AbstractExecutorService {
         defaultForkJoinWorkerThreadFactory =
             new DefaultForkJoinWorkerThreadFactory();
         modifyThreadPermission = new RuntimePermission("modifyThread");
+        LOCALITY_GROUPS = java.security.AccessController.doPrivileged
+            (new java.security.PrivilegedAction<Integer>() {
+                public Integer run() {
+                    return Boolean.getBoolean
+                        ("java.util.concurrent.ForkJoinPool.localityGroups") ?
+                        detectLocalityGroups() : 0; }});
 
         common = java.security.AccessController.doPrivileged
             (new java.security.PrivilegedAction<ForkJoinPool>() {
@@ -1164,7 +1164,7 @@ public class LinkedBlockingDeque<E>
             Node<E> h;
             final LinkedBlockingDeque<E> q = this.queue;
             int b = batch;
-            int n = (b <= 0) ? 1 : (b >= MAX_BATCH) ? MAX_BATCH : b + 1;
+            int n = (b <= 0) ? 1 : (b >= MAX_BATCH >>> 1) ? MAX_BATCH : b << 1;
             if (!exhausted &&
                 ((h = current) != null || (h = q.first) != null) &&
                 h.next != null) {
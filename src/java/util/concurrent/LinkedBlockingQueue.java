@@ -431,6 +431,50 @@ public class LinkedBlockingQueue<E> extends AbstractQueue<E>
         return c >= 0;
     }
 
+    /**
+     * Inserts elements {@code a[from]} through {@code a[to - 1]} at
+     * the tail of this queue, in order, for as long as there is
+     * capacity, using a single acquisition of putLock and at most
+     * one signal to waiting takes (which propagate signals among
+     * themselves as usual). Elements must be non-null. Used by
+     * ThreadPoolExecutor.executeAll.
+     *
+     * @return the index of the first element not inserted
+     */
+    @SuppressWarnings("unchecked")
+    final int offerAll(Object[] a, int from, int to) {
+        final AtomicInteger count = this.count;
+        int n = Math.min(to - from, capacity - count.get());
+        if (n <= 0)
+            return from;
+        Node<E> first = new Node<E>((E)a[from]), last = first;
+        for (int i = from + 1; i < from + n; ++i)
+            last = last.next = new Node<E>((E)a[i]);
+        int c = -1, k = 0;
+        final ReentrantLock putLock = this.putLock;
+        putLock.lock();
+        try {
+            if ((k = Math.min(n, capacity - count.get())) > 0) {
+                if (k < n) {   // lost space to racing puts; trim
+                    last = first;
+                    for (int i = 1; i < k; ++i)
+                        last = last.next;
+                    last.next = null;
+                }
+                this.last.next = first;
+                this.last = last;
+                c = count.getAndAdd(k);
+                if (c + k < capacity)
+                    notFull.signal();
+            }
+        } finally {
+            putLock.unlock();
+        }
+        if (c == 0)
+            signalNotEmpty();
+        return from + Math.max(k, 0);
+    }
+
     public E take() throws InterruptedException {
         E x;
         int c = -1;
@@ -874,7 +918,7 @@ public class LinkedBlockingQueue<E> extends AbstractQueue<E>
             Node<E> h;
             final LinkedBlockingQueue<E> q = this.queue;
             int b = batch;
-            int n = (b <= 0) ? 1 : (b >= MAX_BATCH) ? MAX_BATCH : b + 1;
+            int n = (b <= 0) ? 1 : (b >= MAX_BATCH >>> 1) ? MAX_BATCH : b << 1;
             if (!exhausted &&
                 ((h = current) != null || (h = q.head.next) != null) &&
                 h.next != null) {
@@ -948,7 +948,7 @@ public class LinkedTransferQueue<E> extends AbstractQueue<E>
             Node p;
             final LinkedTransferQueue<E> q = this.queue;
             int b = batch;
-            int n = (b <= 0) ? 1 : (b >= MAX_BATCH) ? MAX_BATCH : b + 1;
+            int n = (b <= 0) ? 1 : (b >= MAX_BATCH >>> 1) ? MAX_BATCH : b << 1;
             if (!exhausted &&
                 ((p = current) != null || (p = q.firstDataNode()) != null) &&
                 p.next != null) {
@@ -0,0 +1,639 @@
+/*
+ * Copyright (c) 2012, 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded {@linkplain BlockingQueue blocking queue} backed by an
+ * array, for use by any number of producer threads and exactly one
+ * consumer thread.  This queue orders elements FIFO
+ * (first-in-first-out) with respect to the order in which producers
+ * claim positions in it.
+ *
+ * <p>Any thread may perform insertions ({@code offer}, {@code put} and
+ * {@link #offerAll offerAll}), but at any given time at most one
+ * thread may perform removals ({@code poll}, {@code take}, {@code
+ * peek}, {@code drainTo} and {@code clear}); the consumer need not be
+ * the same thread from one moment to the next, provided that
+ * hand-overs are properly synchronized.  Producers contend only on a
+ * single compare-and-set of the tail index, and the consumer removes
+ * elements without locks or atomic read-modify-write instructions.
+ * The indices updated by producers and by the consumer reside in
+ * separate cache lines.  Other methods, such as {@code size} and
+ * {@code iterator}, may be called by any thread.  The behavior of a
+ * queue used by more than one consumer at once is undefined.
+ *
+ * <p>A thread blocked in {@code put}, {@code take}, or their timed
+ * forms waits according to the {@link WaitStrategy} given at
+ * construction.
+ *
+ * <p>This queue does not support removal of arbitrary elements: {@link
+ * #remove(Object)}, and the {@code remove} method of its iterators,
+ * throw {@code UnsupportedOperationException}.  The iterator is
+ * <a href="package-summary.html#Weakly"><i>weakly consistent</i></a>.
+ *
+ * <p>This class and its iterator implement all of the <em>optional</em>
+ * methods of the {@link Collection} and {@link Iterator} interfaces
+ * except those removing arbitrary elements.
+ *
+ * @since 1.8
+ * @param <E> the type of elements held in this queue
+ */
+public class MpscArrayBlockingQueue<E> extends AbstractQueue<E>
+        implements BlockingQueue<E> {
+
+    /*
+     * The layout follows SpscArrayBlockingQueue: a circular array
+     * indexed by ever-increasing head and tail counters, grouped with
+     * @Contended so that producers and the consumer write to separate
+     * cache lines.
+     *
+     * Producers claim one slot (or, in offerAll, a run of slots) by
+     * CASing tail, and only then write the element(s) with ordered
+     * stores. A slot may thus be claimed but still null when the
+     * consumer reaches it. The producer may be descheduled between
+     * the CAS and the store, so the consumer never waits for such a
+     * slot in place: poll, peek and drainTo all treat it as not yet
+     * published, and take and timed poll wait for it through the wait
+     * strategy like for an empty queue. Under PARK the consumer thus
+     * parks unless the head slot is non-null, and every producer
+     * signals after its store, so a wakeup is not lost. The consumer
+     * clears each slot before publishing head with an ordered store,
+     * so a producer that has seen the new head may reuse the slot.
+     *
+     * headCache is a copy of head shared by all producers, refreshed
+     * only when the queue appears full. Its updates race, but since
+     * head only increases, a stale value can only make the queue
+     * appear fuller than it is, prompting a reread of head.
+     *
+     * Under the PARK strategy the single consumer parks as in
+     * SpscArrayBlockingQueue. As there may be many blocked producers,
+     * they instead wait on the notFull condition, counting themselves
+     * in producerWaiters, and the consumer signals (under the lock)
+     * only if that count is nonzero after a full fence.
+     */
+
+    /** The queued items; length is a power of two */
+    final Object[] items;
+
+    /** items.length - 1 */
+    private final int mask;
+
+    /** The capacity bound */
+    private final int capacity;
+
+    /** How blocked producers and consumers wait */
+    private final WaitStrategy waitStrategy;
+
+    /** True if waitStrategy is PARK */
+    private final boolean parking;
+
+    /** Count of claimed insertions; CASed by producers */
+    @sun.misc.Contended("producer")
+    private volatile long tail;
+
+    /** Producers' shared cached copy of head */
+    @sun.misc.Contended("producer")
+    private volatile long headCache;
+
+    /** Count of removals; written only by the consumer */
+    @sun.misc.Contended("consumer")
+    private volatile long head;
+
+    /** The consumer, if parked waiting for an element */
+    private volatile Thread consumerWaiter;
+
+    /** Number of producers waiting on notFull; updated under lock */
+    private volatile int producerWaiters;
+
+    /** Lock used only by producers blocked under PARK */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Condition for waiting puts */
+    private final Condition notFull = lock.newCondition();
+
+    /**
+     * Creates a {@code MpscArrayBlockingQueue} with the given (fixed)
+     * capacity and the {@link WaitStrategy#PARK PARK} wait strategy.
+     *
+     * @param capacity the capacity of this queue
+     * @throws IllegalArgumentException if {@code capacity < 1} or
+     *         {@code capacity > 1 << 30}
+     */
+    public MpscArrayBlockingQueue(int capacity) {
+        this(capacity, WaitStrategy.PARK);
+    }
+
+    /**
+     * Creates a {@code MpscArrayBlockingQueue} with the given (fixed)
+     * capacity and wait strategy.
+     *
+     * @param capacity the capacity of this queue
+     * @param waitStrategy how threads blocked in {@code put} and
+     *        {@code take} wait
+     * @throws IllegalArgumentException if {@code capacity < 1} or
+     *         {@code capacity > 1 << 30}
+     * @throws NullPointerException if {@code waitStrategy} is null
+     */
+    public MpscArrayBlockingQueue(int capacity, WaitStrategy waitStrategy) {
+        if (capacity < 1 || capacity > (1 << 30))
+            throw new IllegalArgumentException();
+        if (waitStrategy == null)
+            throw new NullPointerException();
+        int n = 1;
+        while (n < capacity)
+            n <<= 1;
+        this.items = new Object[n];
+        this.mask = n - 1;
+        this.capacity = capacity;
+        this.waitStrategy = waitStrategy;
+        this.parking = (waitStrategy == WaitStrategy.PARK);
+    }
+
+    /**
+     * Returns the wait strategy of this queue.
+     *
+     * @return the wait strategy
+     */
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    private long slotOffset(long index) {
+        return ((long)((int)index & mask) << ASHIFT) + ABASE;
+    }
+
+    // Signalling for PARK
+
+    /**
+     * Wakes up the consumer if it is parked.  Called by producers
+     * after writing an element.
+     */
+    private void signalConsumer() {
+        if (parking) {
+            UNSAFE.fullFence();
+            Thread w = consumerWaiter;
+            if (w != null)
+                LockSupport.unpark(w);
+        }
+    }
+
+    /**
+     * Wakes up blocked producers, if any.  Called by the consumer
+     * after publishing head.
+     */
+    private void signalProducers() {
+        if (parking) {
+            UNSAFE.fullFence();
+            if (producerWaiters != 0) {
+                final ReentrantLock lock = this.lock;
+                lock.lock();
+                try {
+                    notFull.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits, according to the wait strategy, for the queue to become
+     * non-empty.  May return spuriously.
+     *
+     * @param nanos the maximum time to park, if timed
+     */
+    private void awaitNotEmpty(boolean timed, long nanos)
+        throws InterruptedException {
+        if (Thread.interrupted())
+            throw new InterruptedException();
+        if (parking) {
+            consumerWaiter = Thread.currentThread();
+            if (UNSAFE.getObjectVolatile(items, slotOffset(head)) == null) {
+                if (timed)
+                    LockSupport.parkNanos(this, nanos);
+                else
+                    LockSupport.park(this);
+            }
+            consumerWaiter = null;
+        }
+        else if (waitStrategy == WaitStrategy.YIELD)
+            Thread.yield();
+    }
+
+    /**
+     * Waits, according to the wait strategy, for the queue to have
+     * space.  May return spuriously.
+     *
+     * @param nanos the maximum time to wait, if timed
+     */
+    private void awaitNotFull(boolean timed, long nanos)
+        throws InterruptedException {
+        if (parking) {
+            final ReentrantLock lock = this.lock;
+            lock.lockInterruptibly();
+            try {
+                ++producerWaiters;
+                try {
+                    if (tail - head >= capacity) {
+                        if (timed)
+                            notFull.awaitNanos(nanos);
+                        else
+                            notFull.await();
+                    }
+                } finally {
+                    --producerWaiters;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        else {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            if (waitStrategy == WaitStrategy.YIELD)
+                Thread.yield();
+        }
+    }
+
+    // Producer methods
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so immediately without exceeding the queue's
+     * capacity, returning {@code true} upon success and {@code false}
+     * if this queue is full.
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        if (e == null) throw new NullPointerException();
+        long t;
+        do {
+            t = tail;
+            if (t - headCache >= capacity) {
+                long h = head;
+                if (t - h >= capacity)
+                    return false;
+                headCache = h;
+            }
+        } while (!UNSAFE.compareAndSwapLong(this, TAIL, t, t + 1L));
+        UNSAFE.putOrderedObject(items, slotOffset(t), e);
+        signalConsumer();
+        return true;
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue, waiting
+     * for space to become available if the queue is full.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public void put(E e) throws InterruptedException {
+        while (!offer(e))
+            awaitNotFull(false, 0L);
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue, waiting
+     * up to the specified wait time for space to become available if
+     * the queue is full.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public boolean offer(E e, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (offer(e))
+            return true;
+        long nanos = unit.toNanos(timeout);
+        final long deadline = System.nanoTime() + nanos;
+        do {
+            if (nanos <= 0L)
+                return false;
+            awaitNotFull(true, nanos);
+            nanos = deadline - System.nanoTime();
+        } while (!offer(e));
+        return true;
+    }
+
+    /**
+     * Inserts as many elements of the given collection as there is
+     * space for, in the order returned by its iterator, claiming
+     * space for all of them with a single atomic update.  The
+     * inserted elements occupy consecutive positions in this queue,
+     * with no elements of other producers interleaved.
+     *
+     * @param c the collection of elements to insert
+     * @return the number of elements inserted
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null, in which case no elements are
+     *         inserted
+     * @throws IllegalArgumentException if the specified collection is
+     *         this queue
+     */
+    public int offerAll(Collection<? extends E> c) {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        Object[] a = c.toArray();
+        for (Object x : a)
+            if (x == null)
+                throw new NullPointerException();
+        long t;
+        int n;
+        do {
+            t = tail;
+            long h = head;
+            if ((n = (int)Math.min(capacity - (t - h), (long)a.length)) <= 0)
+                return 0;
+        } while (!UNSAFE.compareAndSwapLong(this, TAIL, t, t + n));
+        final Object[] items = this.items;
+        for (int i = 0; i < n; ++i)
+            UNSAFE.putOrderedObject(items, slotOffset(t + i), a[i]);
+        signalConsumer();
+        return n;
+    }
+
+    // Consumer methods
+
+    /**
+     * Retrieves and removes the head of this queue, or returns {@code
+     * null} if this queue is empty.  An element whose insertion is
+     * still in progress is not yet available, so this method may also
+     * return {@code null} while another thread is inserting.  May be
+     * called only by the consumer.
+     */
+    public E poll() {
+        final Object[] items = this.items;
+        final long h = head;
+        final long offset = slotOffset(h);
+        Object x = UNSAFE.getObjectVolatile(items, offset);
+        if (x == null)
+            return null;
+        UNSAFE.putObject(items, offset, null);
+        UNSAFE.putOrderedLong(this, HEAD, h + 1L);
+        signalProducers();
+        @SuppressWarnings("unchecked") E e = (E)x;
+        return e;
+    }
+
+    /**
+     * Retrieves and removes the head of this queue, waiting if
+     * necessary until an element becomes available.  May be called
+     * only by the consumer.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     */
+    public E take() throws InterruptedException {
+        E e;
+        while ((e = poll()) == null)
+            awaitNotEmpty(false, 0L);
+        return e;
+    }
+
+    /**
+     * Retrieves and removes the head of this queue, waiting up to the
+     * specified wait time if necessary for an element to become
+     * available.  May be called only by the consumer.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     */
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E e;
+        if ((e = poll()) == null) {
+            long nanos = unit.toNanos(timeout);
+            final long deadline = System.nanoTime() + nanos;
+            do {
+                if (nanos <= 0L)
+                    return null;
+                awaitNotEmpty(true, nanos);
+                nanos = deadline - System.nanoTime();
+            } while ((e = poll()) == null);
+        }
+        return e;
+    }
+
+    /**
+     * Retrieves, but does not remove, the head of this queue, or
+     * returns {@code null} if this queue is empty or its head element
+     * is still being inserted.  May be called only by the consumer.
+     */
+    public E peek() {
+        Object x = UNSAFE.getObjectVolatile(items, slotOffset(head));
+        @SuppressWarnings("unchecked") E e = (E)x;
+        return e;
+    }
+
+    /**
+     * Removes all available elements from this queue and adds them to
+     * the given collection, making the freed space available to
+     * producers all at once.  Stops early at an element whose
+     * insertion is still in progress.  May be called only by the
+     * consumer.
+     *
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Removes at most the given number of available elements from this
+     * queue and adds them to the given collection, making the freed
+     * space available to producers all at once.  Stops early at an
+     * element whose insertion is still in progress.  May be called
+     * only by the consumer.
+     *
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        final Object[] items = this.items;
+        final long h = head;
+        int i = 0;
+        try {
+            while (i < maxElements) {
+                long offset = slotOffset(h + i);
+                Object x = UNSAFE.getObjectVolatile(items, offset);
+                if (x == null)
+                    break;
+                UNSAFE.putObject(items, offset, null);
+                ++i;
+                @SuppressWarnings("unchecked") E e = (E)x;
+                c.add(e);
+            }
+            return i;
+        } finally {
+            // Restore invariants even if c.add() threw
+            if (i > 0) {
+                UNSAFE.putOrderedLong(this, HEAD, h + i);
+                signalProducers();
+            }
+        }
+    }
+
+    // Methods callable by any thread
+
+    /**
+     * Returns the number of elements in this queue, including those
+     * whose insertion is in progress.
+     *
+     * @return the number of elements in this queue
+     */
+    public int size() {
+        long h = head, t, before;
+        do {
+            before = h;
+            t = tail;
+            h = head;
+        } while (h != before);
+        long n = t - h;
+        return (n <= 0L) ? 0 : (n >= capacity) ? capacity : (int)n;
+    }
+
+    /**
+     * Returns {@code true} if this queue contains no elements.
+     *
+     * @return {@code true} if this queue contains no elements
+     */
+    public boolean isEmpty() {
+        return head == tail;
+    }
+
+    /**
+     * Returns the number of additional elements that this queue can
+     * ideally (in the absence of memory or resource constraints)
+     * accept without blocking.
+     */
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    /**
+     * Always throws {@code UnsupportedOperationException}, as elements
+     * cannot be removed other than from the head of this queue.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    public boolean remove(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns {@code true} if this queue contains the specified element.
+     * The result is only a snapshot, and may be inaccurate if elements
+     * are inserted or removed concurrently.
+     *
+     * @param o object to be checked for containment in this queue
+     * @return {@code true} if this queue contains the specified element
+     */
+    public boolean contains(Object o) {
+        if (o != null) {
+            for (Object x : toArray())
+                if (o.equals(x))
+                    return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns an array containing the elements of this queue, in proper
+     * sequence.  If elements are inserted or removed concurrently, the
+     * result may omit or include some of them.
+     *
+     * @return an array containing the elements in this queue
+     */
+    public Object[] toArray() {
+        final Object[] items = this.items;
+        final long h = head;
+        int n = (int)Math.max(Math.min(tail - h, (long)capacity), 0L);
+        Object[] a = new Object[n];
+        int k = 0;
+        for (int i = 0; i < n; ++i) {
+            Object x = UNSAFE.getObjectVolatile(items, slotOffset(h + i));
+            if (x != null)      // skip removed or unwritten slots
+                a[k++] = x;
+        }
+        return (k == n) ? a : java.util.Arrays.copyOf(a, k);
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements in this
+     * queue, in proper sequence.  The iterator does not reflect later
+     * changes to the queue, and does not support {@code remove}.
+     *
+     * <p>The returned iterator is
+     * <a href="package-summary.html#Weakly"><i>weakly consistent</i></a>.
+     *
+     * @return an iterator over the elements in this queue
+     */
+    public Iterator<E> iterator() {
+        return new SpscArrayBlockingQueue.Itr<E>(toArray());
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe UNSAFE;
+    private static final long HEAD;
+    private static final long TAIL;
+    private static final long ABASE;
+    private static final int ASHIFT;
+    static {
+        try {
+            UNSAFE = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = MpscArrayBlockingQueue.class;
+            HEAD = UNSAFE.objectFieldOffset
+                (k.getDeclaredField("head"));
+            TAIL = UNSAFE.objectFieldOffset
+                (k.getDeclaredField("tail"));
+            Class<?> ak = Object[].class;
+            ABASE = UNSAFE.arrayBaseOffset(ak);
+            int scale = UNSAFE.arrayIndexScale(ak);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -486,6 +486,20 @@ public class ScheduledThreadPoolExecutor
               new DelayedWorkQueue(), threadFactory, handler);
     }
 
+    /**
+     * Creates a new ScheduledThreadPoolExecutor using the given
+     * work queue, which must accept only RunnableScheduledFutures
+     * and return them only once their delays have expired. Used by
+     * TimingWheelScheduledExecutor.
+     */
+    ScheduledThreadPoolExecutor(int corePoolSize,
+                                BlockingQueue<Runnable> workQueue,
+                                ThreadFactory threadFactory,
+                                RejectedExecutionHandler handler) {
+        super(corePoolSize, Integer.MAX_VALUE, 0, NANOSECONDS,
+              workQueue, threadFactory, handler);
+    }
+
     /**
      * Returns the trigger time of a delayed action.
      */
@@ -622,6 +636,27 @@ public class ScheduledThreadPoolExecutor
         schedule(command, 0, NANOSECONDS);
     }
 
+    /**
+     * Executes each of the given commands with zero required delay,
+     * as if by {@link #execute} in iteration order.  Each command is
+     * individually wrapped and queued as a {@link ScheduledFuture}.
+     *
+     * @throws RejectedExecutionException at discretion of
+     *         {@code RejectedExecutionHandler}, if a task
+     *         cannot be accepted for execution because the
+     *         executor has been shut down
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public void executeAll(Collection<? extends Runnable> commands) {
+        Object[] a = commands.toArray();
+        for (Object r : a) {
+            if (r == null)
+                throw new NullPointerException();
+        }
+        for (Object r : a)
+            schedule((Runnable)r, 0, NANOSECONDS);
+    }
+
     // Override AbstractExecutorService methods
 
     /**
@@ -1280,4 +1315,678 @@ public class ScheduledThreadPoolExecutor
             }
         }
     }
+
+    /**
+     * Specialized delay queue for TimingWheelScheduledExecutor. Like
+     * DelayedWorkQueue, it accepts and returns only
+     * RunnableScheduledFutures, and returns them only once their
+     * delays have (to within one tick) expired.
+     */
+    static class TimingWheelQueue extends AbstractQueue<Runnable>
+        implements BlockingQueue<Runnable> {
+
+        /*
+         * A TimingWheelQueue is a hierarchical hashed timing wheel
+         * (see Varghese & Lauck, "Hashed and Hierarchical Timing
+         * Wheels") over time measured in ticks of tickNanos since
+         * the queue was created. Level L has WHEEL_SIZE buckets, each
+         * covering WHEEL_SIZE^L ticks, so that LEVELS levels cover
+         * 2^48 ticks; the rare tasks further out than that are kept
+         * in an overflow list. A task with trigger tick t is placed
+         * at the highest level at which t differs from the current
+         * tick, which makes insertion O(1). As the current tick
+         * advances to the start of a bucket, that bucket's tasks are
+         * moved down a level (or, at level 0, to the ready list),
+         * each task moving at most LEVELS times in total. One bitmap
+         * word per level records nonempty buckets, so the next tick
+         * at which anything happens is found with a few
+         * numberOfTrailingZeros calls rather than by scanning or by
+         * advancing tick by tick. Trigger ticks are rounded up, so
+         * tasks may run up to one tick late but never early.
+         *
+         * Rather than allocating a node per task, tasks and their
+         * links are kept in parallel arrays indexed by a slot that
+         * is recycled through a free list. As in DelayedWorkQueue,
+         * every ScheduledFutureTask records its slot in heapIndex
+         * (-1 when not queued), so cancellation with removeOnCancel
+         * unlinks it from its doubly linked bucket list in O(1)
+         * rather than O(log n). Other RunnableScheduledFutures fall
+         * back to linear search.
+         *
+         * Waiting uses the same leader-follower scheme as
+         * DelayedWorkQueue, except that the leader waits until the
+         * start of the next nonempty bucket rather than until the
+         * head task's trigger time.
+         */
+
+        private static final int WHEEL_SHIFT = 6;
+        private static final int WHEEL_SIZE = 1 << WHEEL_SHIFT; // bits per word
+        private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+        private static final int LEVELS = 8;
+        private static final int INITIAL_CAPACITY = 16;
+
+        // Special values of place[] besides bucket numbers
+        private static final int READY    = -1;
+        private static final int OVERFLOW = -2;
+        private static final int FREE     = -3;
+
+        /** Duration of one tick, in nanoseconds */
+        private final long tickNanos;
+        /** nanoTime at which tick 0 began */
+        private final long origin;
+        /** The last tick processed; all earlier tasks are ready */
+        private long current;
+
+        // Slot arrays; slots at or above used have never been used
+        private RunnableScheduledFuture<?>[] tasks =
+            new RunnableScheduledFuture<?>[INITIAL_CAPACITY];
+        private long[] ticks = new long[INITIAL_CAPACITY];
+        private int[] next = new int[INITIAL_CAPACITY];
+        private int[] prev = new int[INITIAL_CAPACITY];
+        private int[] place = new int[INITIAL_CAPACITY];
+        private int used;
+        private int freeSlots = -1;     // head of free list, linked by next
+
+        /** Heads of bucket lists, indexed by level * WHEEL_SIZE + bucket */
+        private final int[] heads = new int[LEVELS * WHEEL_SIZE];
+        /** Per-level bitmaps of nonempty buckets */
+        private final long[] nonEmpty = new long[LEVELS];
+        private int readyHead = -1, readyTail = -1;
+        private int overflowHead = -1;
+        /** Lower bound on the ticks of tasks in the overflow list */
+        private long overflowTick = Long.MAX_VALUE;
+
+        private int size = 0;
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * Thread designated to wait for the next nonempty bucket, as
+         * in DelayedWorkQueue.
+         */
+        private Thread leader = null;
+
+        /** The tick the leader is waiting for; meaningful only if leader != null */
+        private long wakeTick;
+
+        /**
+         * Condition signalled when a task becomes ready or due
+         * earlier than the leader is waiting for, or a new thread may
+         * need to become leader.
+         */
+        private final Condition available = lock.newCondition();
+
+        TimingWheelQueue(long tickNanos) {
+            this.tickNanos = tickNanos;
+            this.origin = System.nanoTime();
+            Arrays.fill(heads, -1);
+        }
+
+        /**
+         * Sets f's heapIndex if it is a ScheduledFutureTask.
+         */
+        private void setIndex(RunnableScheduledFuture<?> f, int idx) {
+            if (f instanceof ScheduledFutureTask)
+                ((ScheduledFutureTask)f).heapIndex = idx;
+        }
+
+        /** Returns the tick in progress at nanoTime now. */
+        private long tickAt(long now) {
+            long d = now - origin;
+            return (d <= 0L) ? 0L : d / tickNanos;
+        }
+
+        /**
+         * Returns the first tick at or after the trigger time of the
+         * task with the given delay, given current time now.
+         */
+        private long triggerTick(long now, long delay) {
+            long e = now - origin;
+            long d = (delay > Long.MAX_VALUE - e) ? Long.MAX_VALUE : e + delay;
+            return (d <= 0L) ? 0L : (d - 1) / tickNanos + 1;
+        }
+
+        /**
+         * Returns the first tick at or after the given nanoTime.
+         */
+        private long timeTick(long time) {
+            long d = time - origin;
+            return (d <= 0L) ? 0L : (d - 1) / tickNanos + 1;
+        }
+
+        /**
+         * Returns a free slot, growing arrays if necessary.  Call only
+         * when holding lock.
+         */
+        private int allocate() {
+            int i = freeSlots;
+            if (i >= 0)
+                freeSlots = next[i];
+            else {
+                if ((i = used++) >= tasks.length) {
+                    int oldCapacity = tasks.length;
+                    int newCapacity = oldCapacity + (oldCapacity >> 1); // grow 50%
+                    if (newCapacity < 0) // overflow
+                        newCapacity = Integer.MAX_VALUE;
+                    tasks = Arrays.copyOf(tasks, newCapacity);
+                    ticks = Arrays.copyOf(ticks, newCapacity);
+                    next = Arrays.copyOf(next, newCapacity);
+                    prev = Arrays.copyOf(prev, newCapacity);
+                    place = Arrays.copyOf(place, newCapacity);
+                }
+            }
+            return i;
+        }
+
+        /**
+         * Links slot i into the list appropriate for its tick relative
+         * to the current tick, returning the tick at which that list
+         * is next processed.  Call only when holding lock.
+         */
+        private long link(int i) {
+            long t = ticks[i], c = current, start;
+            prev[i] = -1;
+            if (t <= c) {
+                start = c;
+                next[i] = -1;
+                place[i] = READY;
+                if (readyTail < 0)
+                    readyHead = i;
+                else {
+                    next[readyTail] = i;
+                    prev[i] = readyTail;
+                }
+                readyTail = i;
+            }
+            else {
+                int level = (63 - Long.numberOfLeadingZeros(t ^ c)) / WHEEL_SHIFT;
+                int h;
+                if (level >= LEVELS) {
+                    h = overflowHead;
+                    overflowHead = i;
+                    place[i] = OVERFLOW;
+                    if (t < overflowTick)
+                        overflowTick = t;
+                    start = t;
+                }
+                else {
+                    int shift = level * WHEEL_SHIFT;
+                    int b = (int)(t >>> shift) & WHEEL_MASK;
+                    start = t & (-1L << shift);
+                    int k = level * WHEEL_SIZE + b;
+                    h = heads[k];
+                    heads[k] = i;
+                    place[i] = k;
+                    nonEmpty[level] |= 1L << b;
+                }
+                next[i] = h;
+                if (h >= 0)
+                    prev[h] = i;
+            }
+            return start;
+        }
+
+        /**
+         * Unlinks slot i from whatever list it is in.  Call only when
+         * holding lock.
+         */
+        private void unlink(int i) {
+            int p = prev[i], n = next[i], k = place[i];
+            if (p >= 0)
+                next[p] = n;
+            else if (k >= 0) {
+                if ((heads[k] = n) < 0)
+                    nonEmpty[k >>> WHEEL_SHIFT] &= ~(1L << (k & WHEEL_MASK));
+            }
+            else if (k == READY)
+                readyHead = n;
+            else
+                overflowHead = n;
+            if (n >= 0)
+                prev[n] = p;
+            else if (k == READY)
+                readyTail = p;
+        }
+
+        /**
+         * Unlinks and frees slot i, returning its task.  Call only when
+         * holding lock.
+         */
+        private RunnableScheduledFuture<?> release(int i) {
+            RunnableScheduledFuture<?> f = tasks[i];
+            unlink(i);
+            tasks[i] = null;
+            place[i] = FREE;
+            next[i] = freeSlots;
+            freeSlots = i;
+            --size;
+            setIndex(f, -1);
+            return f;
+        }
+
+        /**
+         * Returns the next tick after the current one at which a
+         * nonempty bucket starts or an overflow task may become due,
+         * or Long.MAX_VALUE if none.  Call only when holding lock.
+         */
+        private long nextTick() {
+            long c = current, t = overflowTick;
+            for (int level = 0; level < LEVELS; ++level) {
+                int shift = level * WHEEL_SHIFT;
+                int b = (int)(c >>> shift) & WHEEL_MASK;
+                long bits = (b == WHEEL_MASK) ? 0L :
+                    nonEmpty[level] & (-1L << (b + 1));
+                if (bits != 0L) {
+                    long hi = (c >>> (shift + WHEEL_SHIFT)) << (shift + WHEEL_SHIFT);
+                    long start = hi | ((long)Long.numberOfTrailingZeros(bits) << shift);
+                    if (start < t)
+                        t = start;
+                }
+            }
+            return t;
+        }
+
+        /**
+         * Advances the current tick to the tick in progress, moving
+         * tasks down through the levels and onto the ready list as
+         * their buckets are reached.  Call only when holding lock.
+         */
+        private void advance() {
+            long target = tickAt(System.nanoTime());
+            while (current < target) {
+                long t = nextTick();
+                if (t > target) {
+                    current = target;
+                    break;
+                }
+                current = t;
+                for (int level = LEVELS - 1; level >= 0; --level) {
+                    int shift = level * WHEEL_SHIFT;
+                    if ((t & ((1L << shift) - 1)) != 0L)
+                        continue;           // t is not a bucket start here
+                    int b = (int)(t >>> shift) & WHEEL_MASK;
+                    if ((nonEmpty[level] & (1L << b)) != 0L) {
+                        int k = level * WHEEL_SIZE + b;
+                        int i = heads[k];
+                        heads[k] = -1;
+                        nonEmpty[level] &= ~(1L << b);
+                        while (i >= 0) {
+                            int n = next[i];
+                            link(i);
+                            i = n;
+                        }
+                    }
+                }
+                if (overflowTick <= t) {
+                    int i = overflowHead;
+                    overflowHead = -1;
+                    overflowTick = Long.MAX_VALUE;
+                    while (i >= 0) {
+                        int n = next[i];
+                        link(i);
+                        i = n;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns nanoseconds until the start of the given tick.
+         */
+        private long delayUntil(long tick) {
+            if (tick - current >= Long.MAX_VALUE / tickNanos)
+                return Long.MAX_VALUE;
+            return origin + tick * tickNanos - System.nanoTime();
+        }
+
+        /**
+         * Finds slot of given object, or -1 if absent.
+         */
+        private int indexOf(Object x) {
+            if (x != null) {
+                if (x instanceof ScheduledFutureTask) {
+                    int i = ((ScheduledFutureTask) x).heapIndex;
+                    // Sanity check; x could conceivably be a
+                    // ScheduledFutureTask from some other pool.
+                    if (i >= 0 && i < used && tasks[i] == x)
+                        return i;
+                } else {
+                    for (int i = 0; i < used; i++)
+                        if (x.equals(tasks[i]))
+                            return i;
+                }
+            }
+            return -1;
+        }
+
+        public boolean contains(Object x) {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                return indexOf(x) != -1;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public boolean remove(Object x) {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                int i = indexOf(x);
+                if (i < 0)
+                    return false;
+                release(i);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public int size() {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                return size;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public boolean isEmpty() {
+            return size() == 0;
+        }
+
+        public int remainingCapacity() {
+            return Integer.MAX_VALUE;
+        }
+
+        /**
+         * Returns a ready task if there is one, else one of the tasks
+         * in the next bucket to be reached (not necessarily the
+         * earliest of them), else null.
+         */
+        public RunnableScheduledFuture<?> peek() {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                advance();
+                if (readyHead >= 0)
+                    return tasks[readyHead];
+                long t = nextTick();
+                if (t == Long.MAX_VALUE)
+                    return null;
+                for (int level = 0; level < LEVELS; ++level) {
+                    int shift = level * WHEEL_SHIFT;
+                    if ((t & ((1L << shift) - 1)) != 0L)
+                        break;
+                    int b = (int)(t >>> shift) & WHEEL_MASK;
+                    if ((nonEmpty[level] & (1L << b)) != 0L)
+                        return tasks[heads[level * WHEEL_SIZE + b]];
+                }
+                return (overflowHead < 0) ? null : tasks[overflowHead];
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public boolean offer(Runnable x) {
+            if (x == null)
+                throw new NullPointerException();
+            RunnableScheduledFuture<?> e = (RunnableScheduledFuture<?>)x;
+            // Our own tasks carry their trigger time; others only a delay
+            ScheduledFutureTask<?> sft = (e instanceof ScheduledFutureTask) ?
+                (ScheduledFutureTask<?>)e : null;
+            long delay = (sft != null) ? 0L : e.getDelay(NANOSECONDS);
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                // The wheel is not advanced here: linking relative to a
+                // stale current tick is still correct, and the next
+                // poll or take advances it anyway.
+                long t;
+                if (sft != null) {
+                    // Read the clock only for tasks due within a tick
+                    t = timeTick(sft.time);
+                    if (t <= current + 1L && sft.time - System.nanoTime() <= 0L)
+                        t = current;
+                }
+                else  // Tasks already due go straight to the ready list
+                    t = (delay <= 0L) ? current :
+                        triggerTick(System.nanoTime(), delay);
+                int i = allocate();
+                tasks[i] = e;
+                ticks[i] = t;
+                setIndex(e, i);
+                ++size;
+                // Without a leader, wake a waiting thread (if any) to
+                // become one; else only if the leader would wake too late
+                if (link(i) < wakeTick || leader == null) {
+                    leader = null;
+                    available.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+            return true;
+        }
+
+        public void put(Runnable e) {
+            offer(e);
+        }
+
+        public boolean add(Runnable e) {
+            return offer(e);
+        }
+
+        public boolean offer(Runnable e, long timeout, TimeUnit unit) {
+            return offer(e);
+        }
+
+        public RunnableScheduledFuture<?> poll() {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                advance();
+                return (readyHead < 0) ? null : release(readyHead);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public RunnableScheduledFuture<?> take() throws InterruptedException {
+            final ReentrantLock lock = this.lock;
+            lock.lockInterruptibly();
+            try {
+                for (;;) {
+                    advance();
+                    if (readyHead >= 0)
+                        return release(readyHead);
+                    long t = nextTick();
+                    if (t == Long.MAX_VALUE || leader != null)
+                        available.await();
+                    else {
+                        Thread thisThread = Thread.currentThread();
+                        leader = thisThread;
+                        wakeTick = t;
+                        try {
+                            available.awaitNanos(delayUntil(t));
+                        } finally {
+                            if (leader == thisThread)
+                                leader = null;
+                        }
+                    }
+                }
+            } finally {
+                if (leader == null && size != 0)
+                    available.signal();
+                lock.unlock();
+            }
+        }
+
+        public RunnableScheduledFuture<?> poll(long timeout, TimeUnit unit)
+            throws InterruptedException {
+            long nanos = unit.toNanos(timeout);
+            final ReentrantLock lock = this.lock;
+            lock.lockInterruptibly();
+            try {
+                for (;;) {
+                    advance();
+                    if (readyHead >= 0)
+                        return release(readyHead);
+                    if (nanos <= 0)
+                        return null;
+                    long t = nextTick();
+                    long delay = (t == Long.MAX_VALUE) ? Long.MAX_VALUE :
+                        delayUntil(t);
+                    if (nanos < delay || leader != null)
+                        nanos = available.awaitNanos(nanos);
+                    else {
+                        Thread thisThread = Thread.currentThread();
+                        leader = thisThread;
+                        wakeTick = t;
+                        try {
+                            long timeLeft = available.awaitNanos(delay);
+                            nanos -= delay - timeLeft;
+                        } finally {
+                            if (leader == thisThread)
+                                leader = null;
+                        }
+                    }
+                }
+            } finally {
+                if (leader == null && size != 0)
+                    available.signal();
+                lock.unlock();
+            }
+        }
+
+        public void clear() {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                for (int i = 0; i < used; i++) {
+                    RunnableScheduledFuture<?> t = tasks[i];
+                    if (t != null) {
+                        tasks[i] = null;
+                        setIndex(t, -1);
+                    }
+                }
+                Arrays.fill(heads, -1);
+                Arrays.fill(nonEmpty, 0L);
+                readyHead = readyTail = overflowHead = freeSlots = -1;
+                overflowTick = Long.MAX_VALUE;
+                used = size = 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public int drainTo(Collection<? super Runnable> c) {
+            return drainTo(c, Integer.MAX_VALUE);
+        }
+
+        public int drainTo(Collection<? super Runnable> c, int maxElements) {
+            if (c == null)
+                throw new NullPointerException();
+            if (c == this)
+                throw new IllegalArgumentException();
+            if (maxElements <= 0)
+                return 0;
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                advance();
+                int n = 0;
+                while (n < maxElements && readyHead >= 0) {
+                    c.add(tasks[readyHead]); // In this order, in case add() throws.
+                    release(readyHead);
+                    ++n;
+                }
+                return n;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Returns the queued tasks, in slot order. Call only when
+         * holding lock.
+         */
+        private RunnableScheduledFuture<?>[] snapshot() {
+            RunnableScheduledFuture<?>[] a = new RunnableScheduledFuture<?>[size];
+            for (int i = 0, n = 0; n < a.length; ++i) {
+                if (tasks[i] != null)
+                    a[n++] = tasks[i];
+            }
+            return a;
+        }
+
+        public Object[] toArray() {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                return Arrays.copyOf(snapshot(), size, Object[].class);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> T[] toArray(T[] a) {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                RunnableScheduledFuture<?>[] s = snapshot();
+                if (a.length < size)
+                    return (T[]) Arrays.copyOf(s, size, a.getClass());
+                System.arraycopy(s, 0, a, 0, size);
+                if (a.length > size)
+                    a[size] = null;
+                return a;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public Iterator<Runnable> iterator() {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                return new Itr(snapshot());
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Snapshot iterator that works off a copy of the queued tasks.
+         */
+        private class Itr implements Iterator<Runnable> {
+            final RunnableScheduledFuture<?>[] array;
+            int cursor = 0;     // index of next element to return
+            int lastRet = -1;   // index of last element, or -1 if no such
+
+            Itr(RunnableScheduledFuture<?>[] array) {
+                this.array = array;
+            }
+
+            public boolean hasNext() {
+                return cursor < array.length;
+            }
+
+            public Runnable next() {
+                if (cursor >= array.length)
+                    throw new NoSuchElementException();
+                lastRet = cursor;
+                return array[cursor++];
+            }
+
+            public void remove() {
+                if (lastRet < 0)
+                    throw new IllegalStateException();
+                TimingWheelQueue.this.remove(array[lastRet]);
+                lastRet = -1;
+            }
+        }
+    }
 }
@@ -0,0 +1,471 @@
+/*
+ * Copyright (c) 2012, 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An unbounded {@link BlockingQueue} that spreads its elements over
+ * a number of independent shards, used by {@link
+ * Executors#newShardedThreadPool} to avoid the single lock (or
+ * single head/tail pair) that all workers of a {@link
+ * ThreadPoolExecutor} otherwise contend on in {@code getTask}.
+ *
+ * <p>This queue does not order elements across shards: an element
+ * inserted after another may be removed before it. Elements within
+ * a single shard are removed in FIFO order.
+ *
+ * <p>Beware that, as with {@link ConcurrentLinkedQueue}, the {@code
+ * size} method is <em>NOT</em> a constant-time operation, and bulk
+ * operations are not guaranteed to be performed atomically.
+ *
+ * @param <E> the type of elements held in this queue
+ */
+final class ShardedBlockingQueue<E> extends AbstractQueue<E>
+        implements BlockingQueue<E>, java.io.Serializable {
+    private static final long serialVersionUID = -1183412396207138454L;
+
+    /*
+     * Overview:
+     *
+     * The queue is an array of ConcurrentLinkedQueues ("shards"),
+     * loosely following the way ForkJoinPool gives each worker its
+     * own WorkQueue. Each consumer thread (in practice, each worker
+     * of the pool) owns a shard, assigned round-robin by the first
+     * poll or take it performs and recorded in the owners
+     * ThreadLocal. Since there are at least as many shards as
+     * expected consumers, the workers of a pool own distinct shards
+     * unless workers have been replaced after dying. Consumers first
+     * poll their own shard, and otherwise "steal" by sweeping the
+     * remaining shards in order, starting just past their own, so
+     * they rarely touch the same queue head at the same time.
+     *
+     * A consumer inserting an element (a task submitting a subtask)
+     * uses its own shard, so the element is most likely run by the
+     * same thread. Other producers, which are normally external
+     * submitters, own no shard; they insert into a shard chosen by
+     * their ThreadLocalRandom probe, advancing the probe after each
+     * insertion so that a single submitting thread spreads its tasks
+     * over all shards. The probe only spreads elements: which
+     * consumer runs them is decided by ownership and stealing.
+     *
+     * Blocking is layered on top using a single lock and condition
+     * that are used only when a consumer finds all shards empty.
+     * Such a consumer increments waiters and rescans while holding
+     * the lock before awaiting. Producers read waiters after
+     * inserting, and signal (under the lock) only if it is nonzero.
+     * Because waiters is volatile and insertion is itself a volatile
+     * write, either the rescanning consumer sees the new element or
+     * the producer sees the waiter, so signals are never lost. In
+     * the common busy case no thread touches the lock at all.
+     */
+
+    /** The shards. Length is a power of two. */
+    private final ConcurrentLinkedQueue<E>[] shards;
+
+    /** Lock used only for blocking when all shards are empty */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Condition for waiting takes */
+    private final Condition notEmpty = lock.newCondition();
+
+    /** Number of consumers waiting on notEmpty; updated under lock */
+    private transient volatile int waiters;
+
+    /** Index of the shard owned by each consumer thread, or null */
+    private transient ThreadLocal<Integer> owners = new ThreadLocal<Integer>();
+
+    /** Index of the shard to be owned by the next new consumer */
+    private final AtomicInteger nextOwned = new AtomicInteger();
+
+    /**
+     * Creates a {@code ShardedBlockingQueue} with enough shards for
+     * the given number of concurrent consumers.
+     *
+     * @param parallelism the expected number of consumer threads
+     * @throws IllegalArgumentException if {@code parallelism <= 0}
+     */
+    @SuppressWarnings("unchecked")
+    ShardedBlockingQueue(int parallelism) {
+        if (parallelism <= 0)
+            throw new IllegalArgumentException();
+        int n = 1;
+        while (n < parallelism && n < (1 << 16))
+            n <<= 1;
+        ConcurrentLinkedQueue<E>[] qs =
+            (ConcurrentLinkedQueue<E>[])new ConcurrentLinkedQueue<?>[n];
+        for (int i = 0; i < n; ++i)
+            qs[i] = new ConcurrentLinkedQueue<E>();
+        this.shards = qs;
+    }
+
+    /**
+     * Returns the probe for the current thread, initializing if
+     * necessary.
+     */
+    private static int probe() {
+        int h;
+        if ((h = ThreadLocalRandom.getProbe()) == 0) {
+            ThreadLocalRandom.localInit();
+            h = ThreadLocalRandom.getProbe();
+        }
+        return h;
+    }
+
+    /**
+     * Returns the index of the shard owned by the current thread,
+     * making it a consumer owning the next shard if necessary.
+     */
+    private int ownedShard() {
+        Integer k;
+        if ((k = owners.get()) == null) {
+            k = nextOwned.getAndIncrement() & (shards.length - 1);
+            owners.set(k);
+        }
+        return k;
+    }
+
+    /**
+     * Signals a waiting take, if any. Called after each insertion.
+     */
+    private void signalNotEmpty() {
+        if (waiters != 0) {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Inserts the specified element into the shard owned by the
+     * current thread, or if it owns none, into one of the shards of
+     * this queue.  As the queue is unbounded, this method will never
+     * return {@code false}.
+     *
+     * @return {@code true} (as specified by {@link Queue#offer})
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        if (e == null) throw new NullPointerException();
+        ConcurrentLinkedQueue<E>[] qs = shards;
+        Integer k;
+        if ((k = owners.get()) != null)
+            qs[k].offer(e);
+        else {
+            int h = probe();
+            qs[h & (qs.length - 1)].offer(e);
+            ThreadLocalRandom.advanceProbe(h);
+        }
+        signalNotEmpty();
+        return true;
+    }
+
+    /**
+     * Inserts elements {@code a[from]} through {@code a[to - 1]},
+     * spreading them across shards, and then wakes up at most as
+     * many waiting takes as elements were inserted, with a single
+     * acquisition of the lock. Elements must be non-null. Used by
+     * ThreadPoolExecutor.executeAll.
+     *
+     * @return {@code to}, as all elements are inserted
+     */
+    @SuppressWarnings("unchecked")
+    final int offerAll(Object[] a, int from, int to) {
+        ConcurrentLinkedQueue<E>[] qs = shards;
+        int m = qs.length - 1, h = probe();
+        for (int i = from; i < to; ++i) {
+            qs[h & m].offer((E)a[i]);
+            h = ThreadLocalRandom.advanceProbe(h);
+        }
+        if (waiters != 0 && to > from) {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                for (int i = from; i < to && lock.hasWaiters(notEmpty); ++i)
+                    notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return to;
+    }
+
+    /**
+     * Inserts the specified element into this queue.  As the queue
+     * is unbounded, this method will never block.
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    public void put(E e) {
+        offer(e);
+    }
+
+    /**
+     * Inserts the specified element into this queue.  As the queue
+     * is unbounded, this method will never block or return {@code
+     * false}.
+     *
+     * @return {@code true} (as specified by
+     *  {@link BlockingQueue#offer(Object,long,TimeUnit) BlockingQueue.offer})
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e, long timeout, TimeUnit unit) {
+        return offer(e);
+    }
+
+    /**
+     * Removes an element from the shard owned by the current thread,
+     * or failing that, from the first nonempty other shard.
+     */
+    public E poll() {
+        ConcurrentLinkedQueue<E>[] qs = shards;
+        int n = qs.length, m = n - 1;
+        int h = ownedShard();
+        for (int i = 0; i < n; ++i) {
+            E e = qs[(h + i) & m].poll();
+            if (e != null)
+                return e;
+        }
+        return null;
+    }
+
+    public E take() throws InterruptedException {
+        E e;
+        if ((e = poll()) == null) {
+            final ReentrantLock lock = this.lock;
+            lock.lockInterruptibly();
+            try {
+                ++waiters;
+                try {
+                    while ((e = poll()) == null)
+                        notEmpty.await();
+                } finally {
+                    --waiters;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return e;
+    }
+
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E e;
+        if ((e = poll()) == null) {
+            long nanos = unit.toNanos(timeout);
+            final ReentrantLock lock = this.lock;
+            lock.lockInterruptibly();
+            try {
+                ++waiters;
+                try {
+                    while ((e = poll()) == null) {
+                        if (nanos <= 0)
+                            return null;
+                        nanos = notEmpty.awaitNanos(nanos);
+                    }
+                } finally {
+                    --waiters;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return e;
+    }
+
+    public E peek() {
+        ConcurrentLinkedQueue<E>[] qs = shards;
+        int n = qs.length, m = n - 1;
+        Integer k = owners.get();
+        int h = (k == null) ? 0 : k;
+        for (int i = 0; i < n; ++i) {
+            E e = qs[(h + i) & m].peek();
+            if (e != null)
+                return e;
+        }
+        return null;
+    }
+
+    /**
+     * Returns {@code true} if all shards are empty.
+     *
+     * @return {@code true} if this queue contains no elements
+     */
+    public boolean isEmpty() {
+        for (ConcurrentLinkedQueue<E> q : shards)
+            if (!q.isEmpty())
+                return false;
+        return true;
+    }
+
+    /**
+     * Returns the number of elements in this queue.  As with {@link
+     * ConcurrentLinkedQueue#size}, this requires a traversal, and
+     * the result may be inaccurate if the queue is modified during
+     * the traversal.
+     *
+     * @return the number of elements in this queue
+     */
+    public int size() {
+        long n = 0L;
+        for (ConcurrentLinkedQueue<E> q : shards)
+            n += q.size();
+        return (n >= Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int)n;
+    }
+
+    /**
+     * Always returns {@code Integer.MAX_VALUE} because a
+     * {@code ShardedBlockingQueue} is not capacity constrained.
+     * @return {@code Integer.MAX_VALUE} (as specified by
+     *         {@link BlockingQueue#remainingCapacity()})
+     */
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    public boolean contains(Object o) {
+        if (o != null) {
+            for (ConcurrentLinkedQueue<E> q : shards)
+                if (q.contains(o))
+                    return true;
+        }
+        return false;
+    }
+
+    public boolean remove(Object o) {
+        if (o != null) {
+            for (ConcurrentLinkedQueue<E> q : shards)
+                if (q.remove(o))
+                    return true;
+        }
+        return false;
+    }
+
+    /**
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        int n = 0;
+        for (ConcurrentLinkedQueue<E> q : shards) {
+            E e;
+            while (n < maxElements && (e = q.poll()) != null) {
+                c.add(e);
+                ++n;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Reconstitutes this queue from a stream (that is, deserializes
+     * it). Ownership of shards is not serialized.
+     * @param s the stream
+     * @throws ClassNotFoundException if the class of a serialized object
+     *         could not be found
+     * @throws java.io.IOException if an I/O error occurs
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        owners = new ThreadLocal<Integer>();
+    }
+
+    /**
+     * Returns an iterator over the elements in this queue, shard by
+     * shard, in no particular overall order.
+     *
+     * <p>The returned iterator is
+     * <a href="package-summary.html#Weakly"><i>weakly consistent</i></a>.
+     *
+     * @return an iterator over the elements in this queue
+     */
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+
+    /**
+     * Iterator chaining the weakly consistent iterators of the shards.
+     */
+    private final class Itr implements Iterator<E> {
+        private int index;            // index of next shard to traverse
+        private Iterator<E> current;  // iterator of shard being traversed
+        private Iterator<E> last;     // iterator that returned last element
+
+        public boolean hasNext() {
+            ConcurrentLinkedQueue<E>[] qs = shards;
+            for (;;) {
+                if (current != null && current.hasNext())
+                    return true;
+                if (index >= qs.length)
+                    return false;
+                current = qs[index++].iterator();
+            }
+        }
+
+        public E next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            E e = current.next();
+            last = current;
+            return e;
+        }
+
+        public void remove() {
+            Iterator<E> it = last;
+            if (it == null)
+                throw new IllegalStateException();
+            last = null;
+            it.remove();
+        }
+    }
+}
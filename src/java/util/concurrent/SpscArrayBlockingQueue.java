@@ -0,0 +1,625 @@
+/*
+ * Copyright (c) 2012, 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded {@linkplain BlockingQueue blocking queue} backed by an
+ * array, for use by exactly one producer thread and one consumer
+ * thread.  This queue orders elements FIFO (first-in-first-out).
+ *
+ * <p>At any given time, at most one thread may perform insertions
+ * ({@code offer}, {@code put} and {@link #offerAll offerAll}) and at
+ * most one thread may perform removals ({@code poll}, {@code take},
+ * {@code peek}, {@code drainTo} and {@code clear}); the producer and
+ * the consumer need not be the same thread from one moment to the
+ * next, provided that hand-overs are properly synchronized.  Under
+ * this restriction insertions and removals proceed without locks or
+ * atomic read-modify-write instructions, and because the indices
+ * updated by the producer and the consumer reside in separate cache
+ * lines, neither interferes with the other unless the queue becomes
+ * empty or full.  Other methods, such as {@code size} and {@code
+ * iterator}, may be called by any thread.  The behavior of a queue
+ * used by more than one producer or consumer at once is undefined.
+ *
+ * <p>A thread blocked in {@code put}, {@code take}, or their timed
+ * forms waits according to the {@link WaitStrategy} given at
+ * construction.
+ *
+ * <p>This queue does not support removal of arbitrary elements: {@link
+ * #remove(Object)}, and the {@code remove} method of its iterators,
+ * throw {@code UnsupportedOperationException}.  The iterator is
+ * <a href="package-summary.html#Weakly"><i>weakly consistent</i></a>.
+ *
+ * <p>This class and its iterator implement all of the <em>optional</em>
+ * methods of the {@link Collection} and {@link Iterator} interfaces
+ * except those removing arbitrary elements.
+ *
+ * @since 1.8
+ * @param <E> the type of elements held in this queue
+ */
+public class SpscArrayBlockingQueue<E> extends AbstractQueue<E>
+        implements BlockingQueue<E> {
+
+    /*
+     * The queue is a circular array indexed by two ever-increasing
+     * counters: tail, written only by the producer, and head, written
+     * only by the consumer.  The element for counter value i lives
+     * at items[i & mask]; the array length is the capacity rounded
+     * up to a power of two, and the producer keeps tail - head <=
+     * capacity.
+     *
+     * Each side publishes its counter with an ordered (release) store
+     * after writing (or clearing) the slot, and reads the other
+     * side's counter with a volatile (acquire) load, which is all the
+     * ordering a single-producer single-consumer ring needs.  Each
+     * side also keeps a private cached copy of the other's counter,
+     * and rereads the shared one only when the cache says the queue
+     * is full (for the producer) or empty (for the consumer), so that
+     * in steady state neither side reads the cache line the other is
+     * writing. The counters and caches are grouped with @Contended,
+     * as in Striped64.Cell, so that they occupy separate lines.
+     *
+     * Blocking under SPIN and YIELD is a simple retry loop. Under PARK,
+     * a waiting thread publishes itself in consumerWaiter or
+     * producerWaiter, rechecks the queue, and parks. The other side
+     * issues a full fence between publishing its counter and reading
+     * the waiter field, so that either the waiter sees the change or
+     * the other side sees the waiter (the same Dekker-style handshake
+     * as ShardedBlockingQueue's waiters count).
+     */
+
+    /** The queued items; length is a power of two */
+    final Object[] items;
+
+    /** items.length - 1 */
+    private final int mask;
+
+    /** The capacity bound */
+    private final int capacity;
+
+    /** How blocked producers and consumers wait */
+    private final WaitStrategy waitStrategy;
+
+    /** True if waitStrategy is PARK */
+    private final boolean parking;
+
+    /** Count of insertions; written only by the producer */
+    @sun.misc.Contended("producer")
+    private volatile long tail;
+
+    /** Producer's cached copy of head */
+    @sun.misc.Contended("producer")
+    private long headCache;
+
+    /** Count of removals; written only by the consumer */
+    @sun.misc.Contended("consumer")
+    private volatile long head;
+
+    /** Consumer's cached copy of tail */
+    @sun.misc.Contended("consumer")
+    private long tailCache;
+
+    /** The consumer, if parked waiting for an element */
+    private volatile Thread consumerWaiter;
+
+    /** The producer, if parked waiting for space */
+    private volatile Thread producerWaiter;
+
+    /**
+     * Creates a {@code SpscArrayBlockingQueue} with the given (fixed)
+     * capacity and the {@link WaitStrategy#PARK PARK} wait strategy.
+     *
+     * @param capacity the capacity of this queue
+     * @throws IllegalArgumentException if {@code capacity < 1} or
+     *         {@code capacity > 1 << 30}
+     */
+    public SpscArrayBlockingQueue(int capacity) {
+        this(capacity, WaitStrategy.PARK);
+    }
+
+    /**
+     * Creates a {@code SpscArrayBlockingQueue} with the given (fixed)
+     * capacity and wait strategy.
+     *
+     * @param capacity the capacity of this queue
+     * @param waitStrategy how threads blocked in {@code put} and
+     *        {@code take} wait
+     * @throws IllegalArgumentException if {@code capacity < 1} or
+     *         {@code capacity > 1 << 30}
+     * @throws NullPointerException if {@code waitStrategy} is null
+     */
+    public SpscArrayBlockingQueue(int capacity, WaitStrategy waitStrategy) {
+        if (capacity < 1 || capacity > (1 << 30))
+            throw new IllegalArgumentException();
+        if (waitStrategy == null)
+            throw new NullPointerException();
+        int n = 1;
+        while (n < capacity)
+            n <<= 1;
+        this.items = new Object[n];
+        this.mask = n - 1;
+        this.capacity = capacity;
+        this.waitStrategy = waitStrategy;
+        this.parking = (waitStrategy == WaitStrategy.PARK);
+    }
+
+    /**
+     * Returns the wait strategy of this queue.
+     *
+     * @return the wait strategy
+     */
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    // Signalling for PARK
+
+    /**
+     * Wakes up the consumer if it is parked.  Called by the producer
+     * after publishing tail.
+     */
+    private void signalConsumer() {
+        if (parking) {
+            UNSAFE.fullFence();
+            Thread w = consumerWaiter;
+            if (w != null)
+                LockSupport.unpark(w);
+        }
+    }
+
+    /**
+     * Wakes up the producer if it is parked.  Called by the consumer
+     * after publishing head.
+     */
+    private void signalProducer() {
+        if (parking) {
+            UNSAFE.fullFence();
+            Thread w = producerWaiter;
+            if (w != null)
+                LockSupport.unpark(w);
+        }
+    }
+
+    /**
+     * Waits, according to the wait strategy, for the queue to become
+     * non-empty.  May return spuriously.
+     *
+     * @param nanos the maximum time to park, if timed
+     */
+    private void awaitNotEmpty(boolean timed, long nanos)
+        throws InterruptedException {
+        if (Thread.interrupted())
+            throw new InterruptedException();
+        if (parking) {
+            consumerWaiter = Thread.currentThread();
+            if (head == tail) {
+                if (timed)
+                    LockSupport.parkNanos(this, nanos);
+                else
+                    LockSupport.park(this);
+            }
+            consumerWaiter = null;
+        }
+        else if (waitStrategy == WaitStrategy.YIELD)
+            Thread.yield();
+    }
+
+    /**
+     * Waits, according to the wait strategy, for the queue to have
+     * space.  May return spuriously.
+     *
+     * @param nanos the maximum time to park, if timed
+     */
+    private void awaitNotFull(boolean timed, long nanos)
+        throws InterruptedException {
+        if (Thread.interrupted())
+            throw new InterruptedException();
+        if (parking) {
+            producerWaiter = Thread.currentThread();
+            if (tail - head >= capacity) {
+                if (timed)
+                    LockSupport.parkNanos(this, nanos);
+                else
+                    LockSupport.park(this);
+            }
+            producerWaiter = null;
+        }
+        else if (waitStrategy == WaitStrategy.YIELD)
+            Thread.yield();
+    }
+
+    // Producer methods
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so immediately without exceeding the queue's
+     * capacity, returning {@code true} upon success and {@code false}
+     * if this queue is full.  May be called only by the producer.
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        if (e == null) throw new NullPointerException();
+        final long t = tail;
+        if (t - headCache >= capacity && t - (headCache = head) >= capacity)
+            return false;
+        items[(int)t & mask] = e;
+        UNSAFE.putOrderedLong(this, TAIL, t + 1L);
+        signalConsumer();
+        return true;
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue, waiting
+     * for space to become available if the queue is full.  May be
+     * called only by the producer.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public void put(E e) throws InterruptedException {
+        while (!offer(e))
+            awaitNotFull(false, 0L);
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue, waiting
+     * up to the specified wait time for space to become available if
+     * the queue is full.  May be called only by the producer.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public boolean offer(E e, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (offer(e))
+            return true;
+        long nanos = unit.toNanos(timeout);
+        final long deadline = System.nanoTime() + nanos;
+        do {
+            if (nanos <= 0L)
+                return false;
+            awaitNotFull(true, nanos);
+            nanos = deadline - System.nanoTime();
+        } while (!offer(e));
+        return true;
+    }
+
+    /**
+     * Inserts as many elements of the given collection as there is
+     * space for, in the order returned by its iterator, publishing
+     * them to the consumer all at once.  This is equivalent to, but
+     * cheaper than, calling {@link #offer(Object) offer} for each
+     * element until it returns {@code false}.  May be called only by
+     * the producer.
+     *
+     * @param c the collection of elements to insert
+     * @return the number of elements inserted
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null, in which case no elements are
+     *         inserted
+     * @throws IllegalArgumentException if the specified collection is
+     *         this queue
+     */
+    public int offerAll(Collection<? extends E> c) {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        Object[] a = c.toArray();
+        for (Object x : a)
+            if (x == null)
+                throw new NullPointerException();
+        final Object[] items = this.items;
+        final long t = tail;
+        long free = capacity - (t - (headCache = head));
+        int n = (int)Math.min(free, (long)a.length);
+        if (n > 0) {
+            for (int i = 0; i < n; ++i)
+                items[(int)(t + i) & mask] = a[i];
+            UNSAFE.putOrderedLong(this, TAIL, t + n);
+            signalConsumer();
+        }
+        return n;
+    }
+
+    // Consumer methods
+
+    /**
+     * Retrieves and removes the head of this queue, or returns {@code
+     * null} if this queue is empty.  May be called only by the
+     * consumer.
+     */
+    public E poll() {
+        final long h = head;
+        if (h >= tailCache && h >= (tailCache = tail))
+            return null;
+        final Object[] items = this.items;
+        int i = (int)h & mask;
+        @SuppressWarnings("unchecked") E e = (E)items[i];
+        items[i] = null;
+        UNSAFE.putOrderedLong(this, HEAD, h + 1L);
+        signalProducer();
+        return e;
+    }
+
+    /**
+     * Retrieves and removes the head of this queue, waiting if
+     * necessary until an element becomes available.  May be called
+     * only by the consumer.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     */
+    public E take() throws InterruptedException {
+        E e;
+        while ((e = poll()) == null)
+            awaitNotEmpty(false, 0L);
+        return e;
+    }
+
+    /**
+     * Retrieves and removes the head of this queue, waiting up to the
+     * specified wait time if necessary for an element to become
+     * available.  May be called only by the consumer.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     */
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E e;
+        if ((e = poll()) == null) {
+            long nanos = unit.toNanos(timeout);
+            final long deadline = System.nanoTime() + nanos;
+            do {
+                if (nanos <= 0L)
+                    return null;
+                awaitNotEmpty(true, nanos);
+                nanos = deadline - System.nanoTime();
+            } while ((e = poll()) == null);
+        }
+        return e;
+    }
+
+    /**
+     * Retrieves, but does not remove, the head of this queue, or
+     * returns {@code null} if this queue is empty.  May be called only
+     * by the consumer.
+     */
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        final long h = head;
+        if (h >= tailCache && h >= (tailCache = tail))
+            return null;
+        return (E)items[(int)h & mask];
+    }
+
+    /**
+     * Removes all available elements from this queue and adds them to
+     * the given collection, making the freed space available to the
+     * producer all at once.  May be called only by the consumer.
+     *
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Removes at most the given number of available elements from this
+     * queue and adds them to the given collection, making the freed
+     * space available to the producer all at once.  May be called only
+     * by the consumer.
+     *
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        if (maxElements <= 0)
+            return 0;
+        final Object[] items = this.items;
+        final long h = head;
+        int n = (int)Math.min((long)maxElements, (tailCache = tail) - h);
+        int i = 0;
+        try {
+            while (i < n) {
+                int k = (int)(h + i) & mask;
+                @SuppressWarnings("unchecked") E e = (E)items[k];
+                items[k] = null;
+                ++i;
+                c.add(e);
+            }
+            return n;
+        } finally {
+            // Restore invariants even if c.add() threw
+            if (i > 0) {
+                UNSAFE.putOrderedLong(this, HEAD, h + i);
+                signalProducer();
+            }
+        }
+    }
+
+    // Methods callable by any thread
+
+    /**
+     * Returns the number of elements in this queue.
+     *
+     * @return the number of elements in this queue
+     */
+    public int size() {
+        long h = head, t, before;
+        do {
+            before = h;
+            t = tail;
+            h = head;
+        } while (h != before);
+        long n = t - h;
+        return (n <= 0L) ? 0 : (n >= capacity) ? capacity : (int)n;
+    }
+
+    /**
+     * Returns {@code true} if this queue contains no elements.
+     *
+     * @return {@code true} if this queue contains no elements
+     */
+    public boolean isEmpty() {
+        return head == tail;
+    }
+
+    /**
+     * Returns the number of additional elements that this queue can
+     * ideally (in the absence of memory or resource constraints)
+     * accept without blocking.
+     */
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    /**
+     * Always throws {@code UnsupportedOperationException}, as elements
+     * cannot be removed other than from the head of this queue.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    public boolean remove(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns {@code true} if this queue contains the specified element.
+     * The result is only a snapshot, and may be inaccurate if elements
+     * are inserted or removed concurrently.
+     *
+     * @param o object to be checked for containment in this queue
+     * @return {@code true} if this queue contains the specified element
+     */
+    public boolean contains(Object o) {
+        if (o != null) {
+            for (Object x : toArray())
+                if (o.equals(x))
+                    return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns an array containing the elements of this queue, in proper
+     * sequence.  If elements are inserted or removed concurrently, the
+     * result may omit or include some of them.
+     *
+     * @return an array containing the elements in this queue
+     */
+    public Object[] toArray() {
+        final Object[] items = this.items;
+        final long h = head;
+        int n = (int)Math.max(Math.min(tail - h, (long)capacity), 0L);
+        Object[] a = new Object[n];
+        int k = 0;
+        for (int i = 0; i < n; ++i) {
+            Object x = UNSAFE.getObjectVolatile
+                (items, ((long)((int)(h + i) & mask) << ASHIFT) + ABASE);
+            if (x != null)      // skip slots emptied by the consumer
+                a[k++] = x;
+        }
+        return (k == n) ? a : java.util.Arrays.copyOf(a, k);
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements in this
+     * queue, in proper sequence.  The iterator does not reflect later
+     * changes to the queue, and does not support {@code remove}.
+     *
+     * <p>The returned iterator is
+     * <a href="package-summary.html#Weakly"><i>weakly consistent</i></a>.
+     *
+     * @return an iterator over the elements in this queue
+     */
+    public Iterator<E> iterator() {
+        return new Itr<E>(toArray());
+    }
+
+    /**
+     * Read-only iterator over a snapshot array.  Shared with
+     * MpscArrayBlockingQueue.
+     */
+    static final class Itr<E> implements Iterator<E> {
+        private final Object[] snapshot;
+        private int cursor;
+
+        Itr(Object[] snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        public boolean hasNext() {
+            return cursor < snapshot.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (cursor >= snapshot.length)
+                throw new NoSuchElementException();
+            return (E)snapshot[cursor++];
+        }
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe UNSAFE;
+    private static final long HEAD;
+    private static final long TAIL;
+    private static final long ABASE;
+    private static final int ASHIFT;
+    static {
+        try {
+            UNSAFE = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = SpscArrayBlockingQueue.class;
+            HEAD = UNSAFE.objectFieldOffset
+                (k.getDeclaredField("head"));
+            TAIL = UNSAFE.objectFieldOffset
+                (k.getDeclaredField("tail"));
+            Class<?> ak = Object[].class;
+            ABASE = UNSAFE.arrayBaseOffset(ak);
+            int scale = UNSAFE.arrayIndexScale(ak);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -42,6 +42,7 @@ import java.util.concurrent.locks.AbstractQueuedSynchronizer;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.*;
 
 /**
@@ -448,25 +449,29 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
     private final BlockingQueue<Runnable> workQueue;
 
     /**
-     * Lock held on access to workers set and related bookkeeping.
-     * While we could use a concurrent set of some sort, it turns out
-     * to be generally preferable to use a lock. Among the reasons is
-     * that this serializes interruptIdleWorkers, which avoids
-     * unnecessary interrupt storms, especially during shutdown.
-     * Otherwise exiting threads would concurrently interrupt those
-     * that have not yet interrupted. It also simplifies some of the
-     * associated statistics bookkeeping of largestPoolSize etc. We
-     * also hold mainLock on shutdown and shutdownNow, for the sake of
-     * ensuring workers set is stable while separately checking
-     * permission to interrupt and actually interrupting.
+     * Lock held when traversing the workers set to interrupt threads,
+     * and on termination. The workers set itself is a concurrent set,
+     * so that adding and removing workers (in addWorker and
+     * processWorkerExit) and the statistics methods (getPoolSize,
+     * getCompletedTaskCount etc) do not contend with each other or
+     * with shutdown. We still hold the lock while interrupting, since
+     * this serializes interruptIdleWorkers, which avoids unnecessary
+     * interrupt storms, especially during shutdown.  Otherwise
+     * exiting threads would concurrently interrupt those that have
+     * not yet interrupted. We also hold mainLock on shutdown and
+     * shutdownNow, for the sake of checking permission to interrupt
+     * and actually interrupting in a single pass.  Workers added
+     * concurrently with that pass are either interrupted by it or
+     * observe the new run state in getTask; in either case
+     * Thread.interrupt itself still performs the access check.
      */
     private final ReentrantLock mainLock = new ReentrantLock();
 
     /**
-     * Set containing all worker threads in pool. Accessed only when
-     * holding mainLock.
+     * Set containing all worker threads in pool. Updated without
+     * locking; traversals are weakly consistent.
      */
-    private final HashSet<Worker> workers = new HashSet<Worker>();
+    private final Set<Worker> workers = ConcurrentHashMap.newKeySet();
 
     /**
      * Wait condition to support awaitTermination
@@ -474,16 +479,18 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
     private final Condition termination = mainLock.newCondition();
 
     /**
-     * Tracks largest attained pool size. Accessed only under
-     * mainLock.
+     * Tracks largest attained pool size. Raised via CAS after each
+     * worker is added.
      */
-    private int largestPoolSize;
+    private final AtomicInteger largestPoolSize = new AtomicInteger();
 
     /**
-     * Counter for completed tasks. Updated only on termination of
-     * worker threads. Accessed only under mainLock.
+     * Counter for completed tasks, incremented by each worker after
+     * running a task. A LongAdder rather than per-worker counters so
+     * that reads need not traverse (or lock) the workers set, and so
+     * that the sum never decreases across successive calls.
      */
-    private long completedTaskCount;
+    private final LongAdder completedTaskCount = new LongAdder();
 
     /*
      * All user control parameters are declared as volatiles so that
@@ -606,8 +613,6 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         final Thread thread;
         /** Initial task to run.  Possibly null. */
         Runnable firstTask;
-        /** Per-thread task counter */
-        volatile long completedTasks;
 
         /**
          * Creates with given first task and thread from ThreadFactory.
@@ -932,26 +937,21 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
             w = new Worker(firstTask);
             final Thread t = w.thread;
             if (t != null) {
-                final ReentrantLock mainLock = this.mainLock;
-                mainLock.lock();
-                try {
-                    // Recheck while holding lock.
-                    // Back out on ThreadFactory failure or if
-                    // shut down before lock acquired.
-                    int rs = runStateOf(ctl.get());
-
-                    if (rs < SHUTDOWN ||
-                        (rs == SHUTDOWN && firstTask == null)) {
-                        if (t.isAlive()) // precheck that t is startable
-                            throw new IllegalThreadStateException();
-                        workers.add(w);
-                        int s = workers.size();
-                        if (s > largestPoolSize)
-                            largestPoolSize = s;
-                        workerAdded = true;
-                    }
-                } finally {
-                    mainLock.unlock();
+                // Recheck after thread creation.
+                // Back out on ThreadFactory failure or if
+                // shut down while creating the thread.
+                int rs = runStateOf(ctl.get());
+
+                if (rs < SHUTDOWN ||
+                    (rs == SHUTDOWN && firstTask == null)) {
+                    if (t.isAlive()) // precheck that t is startable
+                        throw new IllegalThreadStateException();
+                    workers.add(w);
+                    int s = workers.size(), m;
+                    while (s > (m = largestPoolSize.get()) &&
+                           !largestPoolSize.compareAndSet(m, s))
+                        ;
+                    workerAdded = true;
                 }
                 if (workerAdded) {
                     t.start();
@@ -973,16 +973,10 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      *   worker was holding up termination
      */
     private void addWorkerFailed(Worker w) {
-        final ReentrantLock mainLock = this.mainLock;
-        mainLock.lock();
-        try {
-            if (w != null)
-                workers.remove(w);
-            decrementWorkerCount();
-            tryTerminate();
-        } finally {
-            mainLock.unlock();
-        }
+        if (w != null)
+            workers.remove(w);
+        decrementWorkerCount();
+        tryTerminate();
     }
 
     /**
@@ -1002,14 +996,7 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
         if (completedAbruptly) // If abrupt, then workerCount wasn't adjusted
             decrementWorkerCount();
 
-        final ReentrantLock mainLock = this.mainLock;
-        mainLock.lock();
-        try {
-            completedTaskCount += w.completedTasks;
-            workers.remove(w);
-        } finally {
-            mainLock.unlock();
-        }
+        workers.remove(w);
 
         tryTerminate();
 
@@ -1158,7 +1145,7 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
                     }
                 } finally {
                     task = null;
-                    w.completedTasks++;
+                    completedTaskCount.increment();
                     w.unlock();
                 }
             }
@@ -1379,6 +1366,127 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
             reject(command);
     }
 
+    /**
+     * Executes each of the given tasks sometime in the future, with
+     * the same effect as invoking {@link #execute} for each of them
+     * in iteration order, but usually more efficiently: tasks that
+     * are queued are inserted into a {@link LinkedBlockingQueue},
+     * {@link ArrayBlockingQueue} or {@link
+     * Executors#newShardedThreadPool sharded} work queue using a
+     * single lock acquisition, and waiting threads are woken at most
+     * once per task (and, for a {@code LinkedBlockingQueue}, only
+     * once in total).
+     *
+     * <p>If a task cannot be accepted, it is handled by the current
+     * {@code RejectedExecutionHandler}. If the handler throws an
+     * exception, tasks following the rejected one are not submitted,
+     * while those preceding it may already have been executed.
+     *
+     * @param commands the tasks to execute
+     * @throws RejectedExecutionException at discretion of
+     *         {@code RejectedExecutionHandler}, if a task
+     *         cannot be accepted for execution
+     * @throws NullPointerException if {@code commands} or any of its
+     *         elements is null, in which case no task is submitted
+     * @since 1.8
+     */
+    public void executeAll(Collection<? extends Runnable> commands) {
+        Object[] a = commands.toArray();
+        int n = a.length, i = 0;
+        for (Object r : a) {
+            if (r == null)
+                throw new NullPointerException();
+        }
+        /*
+         * The same three steps as in execute, applied to successive
+         * runs of tasks: start core threads with the first tasks,
+         * then queue as many of the rest as fit in one batch, and
+         * finally hand any remainder to execute, which tries to add
+         * threads or rejects.
+         */
+        int c = ctl.get();
+        while (i < n && workerCountOf(c) < corePoolSize) {
+            if (!addWorker((Runnable)a[i], true)) {
+                c = ctl.get();
+                break;
+            }
+            ++i;
+            c = ctl.get();
+        }
+        if (i < n && isRunning(c)) {
+            int j = enqueueAll(a, i, n);
+            if (j > i) {
+                int recheck = ctl.get();
+                if (! isRunning(recheck)) {
+                    for (int k = i; k < j; ++k) {
+                        Runnable r = (Runnable)a[k];
+                        if (remove(r))
+                            reject(r);
+                    }
+                }
+                else if (workerCountOf(recheck) == 0)
+                    addWorker(null, false);
+                i = j;
+            }
+        }
+        for (; i < n; ++i)
+            execute((Runnable)a[i]);
+    }
+
+    /**
+     * Inserts tasks {@code a[from]} through {@code a[to - 1]} into
+     * the work queue, stopping at the first that cannot be inserted.
+     * Uses batch insertion for the queue types supporting it.
+     *
+     * @return the index of the first task not inserted
+     */
+    @SuppressWarnings("unchecked")
+    private int enqueueAll(Object[] a, int from, int to) {
+        BlockingQueue<Runnable> q = workQueue;
+        if (q instanceof LinkedBlockingQueue)
+            return ((LinkedBlockingQueue<Runnable>)q).offerAll(a, from, to);
+        if (q instanceof ArrayBlockingQueue)
+            return ((ArrayBlockingQueue<Runnable>)q).offerAll(a, from, to);
+        if (q instanceof ShardedBlockingQueue)
+            return ((ShardedBlockingQueue<Runnable>)q).offerAll(a, from, to);
+        int i = from;
+        while (i < to && q.offer((Runnable)a[i]))
+            ++i;
+        return i;
+    }
+
+    /**
+     * Submits each of the given value-returning tasks for execution,
+     * as if by {@link #executeAll}, and returns a list of Futures
+     * representing their pending results, in the same sequential
+     * order as produced by the iterator for the given task list.
+     *
+     * @param tasks the tasks to submit
+     * @param <T> the type of the values returned from the tasks
+     * @return a list of Futures representing the tasks
+     * @throws RejectedExecutionException at discretion of
+     *         {@code RejectedExecutionHandler}, if a task
+     *         cannot be accepted for execution
+     * @throws NullPointerException if {@code tasks} or any of its
+     *         elements is null, in which case no task is submitted
+     * @since 1.8
+     */
+    public <T> List<Future<T>> submitAll(Collection<? extends Callable<T>> tasks) {
+        if (tasks == null)
+            throw new NullPointerException();
+        ArrayList<RunnableFuture<T>> futures =
+            new ArrayList<RunnableFuture<T>>(tasks.size());
+        for (Callable<T> t : tasks) {
+            if (t == null)
+                throw new NullPointerException();
+            futures.add(newTaskFor(t));
+        }
+        executeAll(futures);
+        @SuppressWarnings("unchecked")
+        List<Future<T>> result = (List<Future<T>>)(List<?>)futures;
+        return result;
+    }
+
     /**
      * Initiates an orderly shutdown in which previously submitted
      * tasks are executed, but no new tasks will be accepted.
@@ -1807,16 +1915,10 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      * @return the number of threads
      */
     public int getPoolSize() {
-        final ReentrantLock mainLock = this.mainLock;
-        mainLock.lock();
-        try {
-            // Remove rare and surprising possibility of
-            // isTerminated() && getPoolSize() > 0
-            return runStateAtLeast(ctl.get(), TIDYING) ? 0
-                : workers.size();
-        } finally {
-            mainLock.unlock();
-        }
+        // Remove rare and surprising possibility of
+        // isTerminated() && getPoolSize() > 0
+        return runStateAtLeast(ctl.get(), TIDYING) ? 0
+            : workers.size();
     }
 
     /**
@@ -1826,17 +1928,11 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      * @return the number of threads
      */
     public int getActiveCount() {
-        final ReentrantLock mainLock = this.mainLock;
-        mainLock.lock();
-        try {
-            int n = 0;
-            for (Worker w : workers)
-                if (w.isLocked())
-                    ++n;
-            return n;
-        } finally {
-            mainLock.unlock();
-        }
+        int n = 0;
+        for (Worker w : workers)
+            if (w.isLocked())
+                ++n;
+        return n;
     }
 
     /**
@@ -1846,13 +1942,7 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      * @return the number of threads
      */
     public int getLargestPoolSize() {
-        final ReentrantLock mainLock = this.mainLock;
-        mainLock.lock();
-        try {
-            return largestPoolSize;
-        } finally {
-            mainLock.unlock();
-        }
+        return largestPoolSize.get();
     }
 
     /**
@@ -1864,19 +1954,11 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      * @return the number of tasks
      */
     public long getTaskCount() {
-        final ReentrantLock mainLock = this.mainLock;
-        mainLock.lock();
-        try {
-            long n = completedTaskCount;
-            for (Worker w : workers) {
-                n += w.completedTasks;
-                if (w.isLocked())
-                    ++n;
-            }
-            return n + workQueue.size();
-        } finally {
-            mainLock.unlock();
-        }
+        long n = completedTaskCount.sum();
+        for (Worker w : workers)
+            if (w.isLocked())
+                ++n;
+        return n + workQueue.size();
     }
 
     /**
@@ -1889,16 +1971,7 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      * @return the number of tasks
      */
     public long getCompletedTaskCount() {
-        final ReentrantLock mainLock = this.mainLock;
-        mainLock.lock();
-        try {
-            long n = completedTaskCount;
-            for (Worker w : workers)
-                n += w.completedTasks;
-            return n;
-        } finally {
-            mainLock.unlock();
-        }
+        return completedTaskCount.sum();
     }
 
     /**
@@ -1909,21 +1982,12 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
      * @return a string identifying this pool, as well as its state
      */
     public String toString() {
-        long ncompleted;
-        int nworkers, nactive;
-        final ReentrantLock mainLock = this.mainLock;
-        mainLock.lock();
-        try {
-            ncompleted = completedTaskCount;
-            nactive = 0;
-            nworkers = workers.size();
-            for (Worker w : workers) {
-                ncompleted += w.completedTasks;
-                if (w.isLocked())
-                    ++nactive;
-            }
-        } finally {
-            mainLock.unlock();
+        long ncompleted = completedTaskCount.sum();
+        int nworkers = 0, nactive = 0;
+        for (Worker w : workers) {
+            ++nworkers;
+            if (w.isLocked())
+                ++nactive;
         }
         int c = ctl.get();
         String rs = (runStateLessThan(c, SHUTDOWN) ? "Running" :
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2012, 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+/**
+ * A {@link ScheduledThreadPoolExecutor} that keeps delayed tasks in a
+ * hierarchical timing wheel rather than a binary heap, so that
+ * scheduling and cancelling a task take constant time regardless of
+ * how many tasks are pending. This makes it well suited to managing
+ * large numbers of timeouts, most of which are cancelled before they
+ * expire.
+ *
+ * <p>The price of constant-time operations is resolution: time is
+ * divided into <em>ticks</em> of a duration fixed at construction,
+ * and a task becomes eligible to run at the start of the first tick
+ * at or after its trigger time. Delayed tasks thus execute no sooner
+ * than they are enabled, but possibly up to one tick later than
+ * they would in a {@code ScheduledThreadPoolExecutor}; tasks enabled
+ * within the same tick are not ordered with respect to each other.
+ * Tasks submitted with no delay, including those submitted via
+ * {@code execute} and {@code submit}, are not subject to this
+ * rounding.
+ *
+ * <p>Because removal is cheap, the {@linkplain #setRemoveOnCancelPolicy
+ * remove-on-cancel policy} is initially {@code true}: cancelled tasks
+ * are immediately removed from the work queue. In all other respects
+ * this class behaves as {@link ScheduledThreadPoolExecutor}, including
+ * its shutdown policies and task decoration methods.
+ *
+ * @since 1.8
+ */
+public class TimingWheelScheduledExecutor extends ScheduledThreadPoolExecutor {
+
+    /** The default tick duration, one millisecond */
+    private static final long DEFAULT_TICK_NANOS = 1000L * 1000L;
+
+    /** The tick duration, in nanoseconds */
+    private final long tickNanos;
+
+    /**
+     * Creates a new {@code TimingWheelScheduledExecutor} with the
+     * given core pool size and a tick duration of one millisecond.
+     *
+     * @param corePoolSize the number of threads to keep in the pool, even
+     *        if they are idle, unless {@code allowCoreThreadTimeOut} is set
+     * @throws IllegalArgumentException if {@code corePoolSize < 0}
+     */
+    public TimingWheelScheduledExecutor(int corePoolSize) {
+        this(corePoolSize, DEFAULT_TICK_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Creates a new {@code TimingWheelScheduledExecutor} with the
+     * given core pool size and tick duration.
+     *
+     * @param corePoolSize the number of threads to keep in the pool, even
+     *        if they are idle, unless {@code allowCoreThreadTimeOut} is set
+     * @param tickDuration the resolution to which trigger times are
+     *        rounded up
+     * @param unit the time unit of the {@code tickDuration} argument
+     * @throws IllegalArgumentException if {@code corePoolSize < 0} or
+     *         {@code tickDuration <= 0}
+     * @throws NullPointerException if {@code unit} is null
+     */
+    public TimingWheelScheduledExecutor(int corePoolSize,
+                                        long tickDuration, TimeUnit unit) {
+        this(corePoolSize, tickDuration, unit,
+             Executors.defaultThreadFactory(), new AbortPolicy());
+    }
+
+    /**
+     * Creates a new {@code TimingWheelScheduledExecutor} with the
+     * given initial parameters.
+     *
+     * @param corePoolSize the number of threads to keep in the pool, even
+     *        if they are idle, unless {@code allowCoreThreadTimeOut} is set
+     * @param tickDuration the resolution to which trigger times are
+     *        rounded up
+     * @param unit the time unit of the {@code tickDuration} argument
+     * @param threadFactory the factory to use when the executor
+     *        creates a new thread
+     * @throws IllegalArgumentException if {@code corePoolSize < 0} or
+     *         {@code tickDuration <= 0}
+     * @throws NullPointerException if {@code unit} or
+     *         {@code threadFactory} is null
+     */
+    public TimingWheelScheduledExecutor(int corePoolSize,
+                                        long tickDuration, TimeUnit unit,
+                                        ThreadFactory threadFactory) {
+        this(corePoolSize, tickDuration, unit,
+             threadFactory, new AbortPolicy());
+    }
+
+    /**
+     * Creates a new {@code TimingWheelScheduledExecutor} with the
+     * given initial parameters.
+     *
+     * @param corePoolSize the number of threads to keep in the pool, even
+     *        if they are idle, unless {@code allowCoreThreadTimeOut} is set
+     * @param tickDuration the resolution to which trigger times are
+     *        rounded up
+     * @param unit the time unit of the {@code tickDuration} argument
+     * @param threadFactory the factory to use when the executor
+     *        creates a new thread
+     * @param handler the handler to use when execution is blocked
+     *        because the thread bounds and queue capacities are reached
+     * @throws IllegalArgumentException if {@code corePoolSize < 0} or
+     *         {@code tickDuration <= 0}
+     * @throws NullPointerException if {@code unit}, {@code threadFactory}
+     *         or {@code handler} is null
+     */
+    public TimingWheelScheduledExecutor(int corePoolSize,
+                                        long tickDuration, TimeUnit unit,
+                                        ThreadFactory threadFactory,
+                                        RejectedExecutionHandler handler) {
+        this(corePoolSize, checkTick(unit.toNanos(tickDuration)),
+             threadFactory, handler);
+    }
+
+    private TimingWheelScheduledExecutor(int corePoolSize, long tickNanos,
+                                         ThreadFactory threadFactory,
+                                         RejectedExecutionHandler handler) {
+        super(corePoolSize, new TimingWheelQueue(tickNanos),
+              threadFactory, handler);
+        this.tickNanos = tickNanos;
+        setRemoveOnCancelPolicy(true);
+    }
+
+    private static long checkTick(long tickNanos) {
+        if (tickNanos <= 0L)
+            throw new IllegalArgumentException();
+        return tickNanos;
+    }
+
+    /**
+     * Returns the tick duration, the resolution to which trigger times
+     * of delayed tasks are rounded up.
+     *
+     * @param unit the desired time unit
+     * @return the tick duration
+     */
+    public long getTickDuration(TimeUnit unit) {
+        return unit.convert(tickNanos, TimeUnit.NANOSECONDS);
+    }
+}
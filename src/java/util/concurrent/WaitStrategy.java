@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2012, 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+/**
+ * The ways in which a thread blocked in a queue operation may wait for
+ * the queue to change state, trading processor time for latency.  Used
+ * to configure {@link SpscArrayBlockingQueue} and {@link
+ * MpscArrayBlockingQueue}, whose non-blocking operations never wait
+ * regardless of the strategy chosen.
+ *
+ * <p>Waiting threads check for interruption and, in timed operations,
+ * for timeout under every strategy.
+ *
+ * @since 1.8
+ */
+public enum WaitStrategy {
+    /**
+     * Busy-waits, repeatedly re-examining the queue.  This gives the
+     * lowest hand-off latency, but occupies a processor for as long as
+     * the thread waits, so is appropriate only when producer and
+     * consumer each have a processor to themselves.
+     */
+    SPIN,
+
+    /**
+     * Re-examines the queue, calling {@link Thread#yield} between
+     * attempts.  Latency is close to that of {@link #SPIN} when
+     * processors are idle, while letting other threads run when they
+     * are not.
+     */
+    YIELD,
+
+    /**
+     * Disables the waiting thread using {@link
+     * java.util.concurrent.locks.LockSupport#park LockSupport.park}
+     * until the queue changes state.  No processor time is used while
+     * waiting, at the cost of a memory fence in every insertion and
+     * removal, and of the time taken to wake up the thread.
+     */
+    PARK
+}
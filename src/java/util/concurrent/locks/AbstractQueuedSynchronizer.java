@@ -94,7 +94,9 @@ import sun.misc.Unsafe;
  * methods for the internal queue, as well as similar methods for
  * condition objects. These can be exported as desired into classes
  * using an {@code AbstractQueuedSynchronizer} for their
- * synchronization mechanics.
+ * synchronization mechanics. Contention statistics across all
+ * synchronizers can in addition be gathered on demand; see {@link
+ * SynchronizerContentionMXBean}.
  *
  * <p>Serialization of this class stores only the underlying atomic
  * integer maintaining state, so deserialized objects have empty
@@ -532,6 +534,18 @@ public abstract class AbstractQueuedSynchronizer
      */
     private volatile int state;
 
+    /**
+     * Contention statistics, created on first acquire while
+     * contention profiling is enabled.
+     */
+    private transient volatile ContentionProfiler.Profile profile;
+
+    /**
+     * The current adaptive spin limit, or zero if adaptive spinning is
+     * disabled.  Updated racily; see spinForRelease.
+     */
+    private transient int spinLimit;
+
     /**
      * Returns the current value of synchronization state.
      * This operation has memory semantics of a {@code volatile} read.
@@ -575,6 +589,86 @@ public abstract class AbstractQueuedSynchronizer
      */
     static final long spinForTimeoutThreshold = 1000L;
 
+    /** Number of CPUS, to place bounds on adaptive spinning */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The maximum number of times to spin before parking when
+     * adaptive spinning is enabled.  Spinning is pointless on
+     * uniprocessors, so the value is zero there, which disables it.
+     */
+    static final int MAX_SPINS = (NCPU < 2) ? 0 : 1 << 12;
+
+    /** The least spin limit; spinning at all costs about this much */
+    static final int MIN_SPINS = 1 << 4;
+
+    /** The spin limit an adaptively spinning synchronizer starts with */
+    static final int INITIAL_SPINS = 1 << 7;
+
+    /**
+     * Sets whether threads that are next in line to acquire spin for a
+     * while before parking.  When enabled, a thread whose predecessor
+     * is the head of the queue busy-waits for that node to be released
+     * for up to a spin limit, and parks only if the limit expires
+     * first.  The limit is learned per synchronizer, from how long it
+     * took the holder to release in recent acquires: it grows when
+     * spins succeed, and shrinks when they fail.  This avoids the cost
+     * of parking and unparking when the synchronizer is only ever held
+     * briefly, without wasting much processor time when it is not.
+     *
+     * <p>Adaptive spinning is disabled by default.  It has no effect
+     * on uniprocessors, nor on timed acquires, which already spin
+     * when the remaining timeout is very short.  It is not preserved
+     * by serialization; subclasses that need it to be should record
+     * the policy in a serialized field of their own and reapply it
+     * when deserialized, as {@link ReentrantLock} does.
+     *
+     * @param enable {@code true} to enable adaptive spinning
+     * @since 1.8
+     */
+    protected final void setAdaptiveSpinning(boolean enable) {
+        spinLimit = (enable && MAX_SPINS > 0) ? INITIAL_SPINS : 0;
+    }
+
+    /**
+     * Returns {@code true} if adaptive spinning is in effect for this
+     * synchronizer.
+     *
+     * @return {@code true} if adaptive spinning is in effect
+     * @see #setAdaptiveSpinning
+     * @since 1.8
+     */
+    protected final boolean isAdaptiveSpinning() {
+        return spinLimit != 0;
+    }
+
+    /**
+     * Spins while pred, the head node, is still due to signal its
+     * successor, for at most the current spin limit.  The limit is
+     * then moved towards twice the number of spins the release took
+     * if it happened, or halved if it did not, within [MIN_SPINS,
+     * MAX_SPINS].  Races among threads updating the limit are benign:
+     * it is only a heuristic.
+     *
+     * @param pred the predecessor of the spinning node
+     * @return {@code true} if pred was released during the spin, in
+     *         which case the caller should retry before parking
+     */
+    private boolean spinForRelease(Node pred) {
+        int limit = spinLimit;
+        if (limit == 0)
+            return false;
+        for (int spins = 0; spins < limit; ++spins) {
+            if (pred.waitStatus != Node.SIGNAL || pred != head) {
+                int next = limit + ((2 * spins + MIN_SPINS - limit) >> 2);
+                spinLimit = Math.max(MIN_SPINS, Math.min(MAX_SPINS, next));
+                return true;
+            }
+        }
+        spinLimit = Math.max(MIN_SPINS, limit >>> 1);
+        return false;
+    }
+
     /**
      * Inserts node into queue, initializing if necessary. See picture above.
      * @param node the node to insert
@@ -833,10 +927,45 @@ public abstract class AbstractQueuedSynchronizer
      * @return {@code true} if interrupted
      */
     private final boolean parkAndCheckInterrupt() {
+        ContentionProfiler.Profile p;
+        if (ContentionProfiler.enabled && (p = profile) != null)
+            p.parks.increment();
         LockSupport.park(this);
         return Thread.interrupted();
     }
 
+    /**
+     * Returns the contention profile of this synchronizer, creating
+     * it if necessary, or null if contention profiling is disabled.
+     */
+    private ContentionProfiler.Profile profile() {
+        ContentionProfiler.Profile p;
+        if (!ContentionProfiler.enabled)
+            return null;
+        if ((p = profile) == null) {
+            p = new ContentionProfiler.Profile(this);
+            if (unsafe.compareAndSwapObject(this, profileOffset, null, p))
+                ContentionProfiler.register(p);
+            else
+                p = profile;
+        }
+        return p;
+    }
+
+    /**
+     * Counts a successful acquire if contention profiling is enabled.
+     * Besides the acquire methods of this class, called by
+     * ReentrantLock and ReentrantReadWriteLock for acquires that
+     * bypass them: barging and tryLock.  Callers check
+     * ContentionProfiler.enabled first, to keep the disabled case to
+     * a single volatile read.
+     */
+    final void profileAcquire() {
+        ContentionProfiler.Profile p;
+        if ((p = profile()) != null)
+            p.acquisitions.increment();
+    }
+
     /*
      * Various flavors of acquire, varying in exclusive/shared and
      * control modes.  Each is mostly the same, but annoyingly
@@ -855,6 +984,8 @@ public abstract class AbstractQueuedSynchronizer
      * @return {@code true} if interrupted while waiting
      */
     final boolean acquireQueued(final Node node, int arg) {
+        final ContentionProfiler.Profile profile = profile();
+        final long startTime = (profile == null) ? 0L : profile.enqueued();
         boolean failed = true;
         try {
             boolean interrupted = false;
@@ -867,12 +998,15 @@ public abstract class AbstractQueuedSynchronizer
                     return interrupted;
                 }
                 if (shouldParkAfterFailedAcquire(p, node) &&
+                    !(p == head && spinForRelease(p)) &&
                     parkAndCheckInterrupt())
                     interrupted = true;
             }
         } finally {
             if (failed)
                 cancelAcquire(node);
+            if (profile != null)
+                profile.dequeued(startTime);
         }
     }
 
@@ -883,6 +1017,8 @@ public abstract class AbstractQueuedSynchronizer
     private void doAcquireInterruptibly(int arg)
         throws InterruptedException {
         final Node node = addWaiter(Node.EXCLUSIVE);
+        final ContentionProfiler.Profile profile = profile();
+        final long startTime = (profile == null) ? 0L : profile.enqueued();
         boolean failed = true;
         try {
             for (;;) {
@@ -894,12 +1030,15 @@ public abstract class AbstractQueuedSynchronizer
                     return;
                 }
                 if (shouldParkAfterFailedAcquire(p, node) &&
+                    !(p == head && spinForRelease(p)) &&
                     parkAndCheckInterrupt())
                     throw new InterruptedException();
             }
         } finally {
             if (failed)
                 cancelAcquire(node);
+            if (profile != null)
+                profile.dequeued(startTime);
         }
     }
 
@@ -916,6 +1055,8 @@ public abstract class AbstractQueuedSynchronizer
             return false;
         final long deadline = System.nanoTime() + nanosTimeout;
         final Node node = addWaiter(Node.EXCLUSIVE);
+        final ContentionProfiler.Profile profile = profile();
+        final long startTime = (profile == null) ? 0L : profile.enqueued();
         boolean failed = true;
         try {
             for (;;) {
@@ -930,14 +1071,19 @@ public abstract class AbstractQueuedSynchronizer
                 if (nanosTimeout <= 0L)
                     return false;
                 if (shouldParkAfterFailedAcquire(p, node) &&
-                    nanosTimeout > spinForTimeoutThreshold)
+                    nanosTimeout > spinForTimeoutThreshold) {
+                    if (profile != null)
+                        profile.parks.increment();
                     LockSupport.parkNanos(this, nanosTimeout);
+                }
                 if (Thread.interrupted())
                     throw new InterruptedException();
             }
         } finally {
             if (failed)
                 cancelAcquire(node);
+            if (profile != null)
+                profile.dequeued(startTime);
         }
     }
 
@@ -947,6 +1093,8 @@ public abstract class AbstractQueuedSynchronizer
      */
     private void doAcquireShared(int arg) {
         final Node node = addWaiter(Node.SHARED);
+        final ContentionProfiler.Profile profile = profile();
+        final long startTime = (profile == null) ? 0L : profile.enqueued();
         boolean failed = true;
         try {
             boolean interrupted = false;
@@ -964,12 +1112,15 @@ public abstract class AbstractQueuedSynchronizer
                     }
                 }
                 if (shouldParkAfterFailedAcquire(p, node) &&
+                    !(p == head && spinForRelease(p)) &&
                     parkAndCheckInterrupt())
                     interrupted = true;
             }
         } finally {
             if (failed)
                 cancelAcquire(node);
+            if (profile != null)
+                profile.dequeued(startTime);
         }
     }
 
@@ -980,6 +1131,8 @@ public abstract class AbstractQueuedSynchronizer
     private void doAcquireSharedInterruptibly(int arg)
         throws InterruptedException {
         final Node node = addWaiter(Node.SHARED);
+        final ContentionProfiler.Profile profile = profile();
+        final long startTime = (profile == null) ? 0L : profile.enqueued();
         boolean failed = true;
         try {
             for (;;) {
@@ -994,12 +1147,15 @@ public abstract class AbstractQueuedSynchronizer
                     }
                 }
                 if (shouldParkAfterFailedAcquire(p, node) &&
+                    !(p == head && spinForRelease(p)) &&
                     parkAndCheckInterrupt())
                     throw new InterruptedException();
             }
         } finally {
             if (failed)
                 cancelAcquire(node);
+            if (profile != null)
+                profile.dequeued(startTime);
         }
     }
 
@@ -1016,6 +1172,8 @@ public abstract class AbstractQueuedSynchronizer
             return false;
         final long deadline = System.nanoTime() + nanosTimeout;
         final Node node = addWaiter(Node.SHARED);
+        final ContentionProfiler.Profile profile = profile();
+        final long startTime = (profile == null) ? 0L : profile.enqueued();
         boolean failed = true;
         try {
             for (;;) {
@@ -1033,14 +1191,19 @@ public abstract class AbstractQueuedSynchronizer
                 if (nanosTimeout <= 0L)
                     return false;
                 if (shouldParkAfterFailedAcquire(p, node) &&
-                    nanosTimeout > spinForTimeoutThreshold)
+                    nanosTimeout > spinForTimeoutThreshold) {
+                    if (profile != null)
+                        profile.parks.increment();
                     LockSupport.parkNanos(this, nanosTimeout);
+                }
                 if (Thread.interrupted())
                     throw new InterruptedException();
             }
         } finally {
             if (failed)
                 cancelAcquire(node);
+            if (profile != null)
+                profile.dequeued(startTime);
         }
     }
 
@@ -1198,6 +1361,8 @@ public abstract class AbstractQueuedSynchronizer
         if (!tryAcquire(arg) &&
             acquireQueued(addWaiter(Node.EXCLUSIVE), arg))
             selfInterrupt();
+        if (ContentionProfiler.enabled)
+            profileAcquire();
     }
 
     /**
@@ -1220,6 +1385,8 @@ public abstract class AbstractQueuedSynchronizer
             throw new InterruptedException();
         if (!tryAcquire(arg))
             doAcquireInterruptibly(arg);
+        if (ContentionProfiler.enabled)
+            profileAcquire();
     }
 
     /**
@@ -1243,8 +1410,11 @@ public abstract class AbstractQueuedSynchronizer
             throws InterruptedException {
         if (Thread.interrupted())
             throw new InterruptedException();
-        return tryAcquire(arg) ||
-            doAcquireNanos(arg, nanosTimeout);
+        if (!tryAcquire(arg) && !doAcquireNanos(arg, nanosTimeout))
+            return false;
+        if (ContentionProfiler.enabled)
+            profileAcquire();
+        return true;
     }
 
     /**
@@ -1281,6 +1451,8 @@ public abstract class AbstractQueuedSynchronizer
     public final void acquireShared(int arg) {
         if (tryAcquireShared(arg) < 0)
             doAcquireShared(arg);
+        if (ContentionProfiler.enabled)
+            profileAcquire();
     }
 
     /**
@@ -1302,6 +1474,8 @@ public abstract class AbstractQueuedSynchronizer
             throw new InterruptedException();
         if (tryAcquireShared(arg) < 0)
             doAcquireSharedInterruptibly(arg);
+        if (ContentionProfiler.enabled)
+            profileAcquire();
     }
 
     /**
@@ -1324,8 +1498,12 @@ public abstract class AbstractQueuedSynchronizer
             throws InterruptedException {
         if (Thread.interrupted())
             throw new InterruptedException();
-        return tryAcquireShared(arg) >= 0 ||
-            doAcquireSharedNanos(arg, nanosTimeout);
+        if (tryAcquireShared(arg) < 0 &&
+            !doAcquireSharedNanos(arg, nanosTimeout))
+            return false;
+        if (ContentionProfiler.enabled)
+            profileAcquire();
+        return true;
     }
 
     /**
@@ -2263,6 +2441,7 @@ public abstract class AbstractQueuedSynchronizer
     private static final long tailOffset;
     private static final long waitStatusOffset;
     private static final long nextOffset;
+    private static final long profileOffset;
 
     static {
         try {
@@ -2276,6 +2455,8 @@ public abstract class AbstractQueuedSynchronizer
                 (Node.class.getDeclaredField("waitStatus"));
             nextOffset = unsafe.objectFieldOffset
                 (Node.class.getDeclaredField("next"));
+            profileOffset = unsafe.objectFieldOffset
+                (AbstractQueuedSynchronizer.class.getDeclaredField("profile"));
 
         } catch (Exception ex) { throw new Error(ex); }
     }
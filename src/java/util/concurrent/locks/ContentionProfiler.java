@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2012, 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent.locks;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ManagementPermission;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Contention profiling for {@link AbstractQueuedSynchronizer}.  This
+ * class provides access to the {@link SynchronizerContentionMXBean}
+ * through which profiling is controlled and its results read.
+ *
+ * @since 1.8
+ */
+public final class ContentionProfiler implements SynchronizerContentionMXBean {
+
+    /*
+     * AQS checks the static flag "enabled" in its acquire methods. If
+     * it is set, AQS lazily creates a Profile for itself, which is
+     * also added to the registry, and records into it. Otherwise it
+     * records nothing, so the cost of profiling while disabled is one
+     * read of a volatile static per acquire call.
+     *
+     * Recording must not itself use AQS-based locks, as these would
+     * recurse into profiling, so Profiles use only atomics and
+     * LongAdders and the registry is a ConcurrentHashMap key set.
+     *
+     * Profiles are weak references to their synchronizers, enqueued
+     * on staleProfiles once these are collected. Every registration
+     * first removes the enqueued Profiles from the registry, so that
+     * it cannot grow by more than the number of synchronizers
+     * collected since the last registration, however long it goes
+     * unread. (Waiting for it to be read through the MXBean would
+     * let short-lived synchronizers accumulate without bound.)
+     */
+
+    /** The system property that enables profiling at startup */
+    private static final String PROPERTY =
+        "java.util.concurrent.locks.contentionProfiling";
+
+    /** Whether profiling is enabled */
+    static volatile boolean enabled = Boolean.parseBoolean(
+        java.security.AccessController.doPrivileged(
+            new sun.security.action.GetPropertyAction(PROPERTY)));
+
+    /** Profiles of the profiled synchronizers not yet known to be collected */
+    private static final Set<Profile> registry =
+        ConcurrentHashMap.<Profile>newKeySet();
+
+    /** Profiles whose synchronizers have been collected */
+    private static final ReferenceQueue<AbstractQueuedSynchronizer> staleProfiles =
+        new ReferenceQueue<AbstractQueuedSynchronizer>();
+
+    /** The MXBean, created and registered on first use */
+    private static ContentionProfiler instance;
+
+    /**
+     * Statistics of one synchronizer, weakly referring to it.
+     */
+    static final class Profile extends WeakReference<AbstractQueuedSynchronizer> {
+        final String className;
+        final int identityHashCode;
+        final LongAdder acquisitions = new LongAdder();
+        final LongAdder contended = new LongAdder();
+        final LongAdder parks = new LongAdder();
+        final LongAdder waitNanos = new LongAdder();
+        final AtomicInteger queueLength = new AtomicInteger();
+        final AtomicInteger maxQueueLength = new AtomicInteger();
+
+        Profile(AbstractQueuedSynchronizer owner) {
+            super(owner, staleProfiles);
+            this.className = owner.getClass().getName();
+            this.identityHashCode = System.identityHashCode(owner);
+        }
+
+        /**
+         * Records that a thread entered the wait queue, returning the
+         * time for the matching call to dequeued.
+         */
+        long enqueued() {
+            contended.increment();
+            int n = queueLength.incrementAndGet();
+            for (int m; n > (m = maxQueueLength.get()) &&
+                     !maxQueueLength.compareAndSet(m, n); )
+                ;
+            return System.nanoTime();
+        }
+
+        /** Records that a thread left the wait queue */
+        void dequeued(long startTime) {
+            waitNanos.add(System.nanoTime() - startTime);
+            queueLength.decrementAndGet();
+        }
+
+        void reset() {
+            acquisitions.reset();
+            contended.reset();
+            parks.reset();
+            waitNanos.reset();
+            maxQueueLength.set(queueLength.get());
+        }
+
+        SynchronizerContentionInfo snapshot() {
+            return new SynchronizerContentionInfo(
+                className, identityHashCode, acquisitions.sum(),
+                contended.sum(), parks.sum(), waitNanos.sum(),
+                queueLength.get(), maxQueueLength.get());
+        }
+    }
+
+    /**
+     * Adds a newly created profile to the registry, after removing
+     * the profiles of collected synchronizers.
+     */
+    static void register(Profile p) {
+        expungeStaleProfiles();
+        registry.add(p);
+    }
+
+    /** Removes the profiles of collected synchronizers */
+    private static void expungeStaleProfiles() {
+        for (Object p; (p = staleProfiles.poll()) != null; )
+            registry.remove(p);
+    }
+
+    private ContentionProfiler() {}
+
+    /**
+     * Returns the {@code SynchronizerContentionMXBean}, registering it
+     * with the platform {@code MBeanServer} on first call.
+     *
+     * @return the {@code SynchronizerContentionMXBean}
+     * @throws SecurityException if a security manager exists and the
+     *         caller does not have ManagementPermission("monitor")
+     */
+    public static synchronized SynchronizerContentionMXBean getMXBean() {
+        SecurityManager sm = System.getSecurityManager();
+        if (sm != null)
+            sm.checkPermission(new ManagementPermission("monitor"));
+        if (instance == null) {
+            ContentionProfiler p = new ContentionProfiler();
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            try {
+                mbs.registerMBean(p, new ObjectName(OBJECT_NAME));
+            } catch (InstanceAlreadyExistsException ignore) {
+                // registered by another class loader's copy
+            } catch (JMException ex) {
+                throw new InternalError(ex);
+            }
+            instance = p;
+        }
+        return instance;
+    }
+
+    private static void checkControl() {
+        SecurityManager sm = System.getSecurityManager();
+        if (sm != null)
+            sm.checkPermission(new ManagementPermission("control"));
+    }
+
+    public boolean isProfilingEnabled() {
+        return enabled;
+    }
+
+    public void setProfilingEnabled(boolean enable) {
+        checkControl();
+        enabled = enable;
+    }
+
+    public SynchronizerContentionInfo[] getContentionInfo() {
+        expungeStaleProfiles();
+        ArrayList<SynchronizerContentionInfo> list =
+            new ArrayList<SynchronizerContentionInfo>();
+        for (Profile p : registry) {
+            if (p.get() != null)
+                list.add(p.snapshot());
+        }
+        SynchronizerContentionInfo[] a =
+            list.toArray(new SynchronizerContentionInfo[list.size()]);
+        Arrays.sort(a, new Comparator<SynchronizerContentionInfo>() {
+            public int compare(SynchronizerContentionInfo x,
+                               SynchronizerContentionInfo y) {
+                return Long.compare(y.getTotalWaitTime(),
+                                    x.getTotalWaitTime());
+            }
+        });
+        return a;
+    }
+
+    public void resetStatistics() {
+        checkControl();
+        expungeStaleProfiles();
+        for (Profile p : registry) {
+            if (p.get() != null)
+                p.reset();
+        }
+    }
+}
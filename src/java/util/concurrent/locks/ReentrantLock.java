@@ -116,6 +116,22 @@ public class ReentrantLock implements Lock, java.io.Serializable {
     abstract static class Sync extends AbstractQueuedSynchronizer {
         private static final long serialVersionUID = -5179523762034025860L;
 
+        /**
+         * Whether adaptive spinning was requested.  Recorded here
+         * because AQS does not serialize its spin state, and
+         * reapplied on deserialization.
+         * @serial
+         */
+        private boolean adaptiveSpin;
+
+        /**
+         * Sets and records the adaptive spinning policy.
+         */
+        final void setAdaptiveSpin(boolean enable) {
+            adaptiveSpin = enable;
+            setAdaptiveSpinning(enable);
+        }
+
         /**
          * Performs {@link Lock#lock}. The main reason for subclassing
          * is to allow fast path for nonfair version.
@@ -189,6 +205,7 @@ public class ReentrantLock implements Lock, java.io.Serializable {
             throws java.io.IOException, ClassNotFoundException {
             s.defaultReadObject();
             setState(0); // reset to unlocked state
+            setAdaptiveSpinning(adaptiveSpin);
         }
     }
 
@@ -203,8 +220,11 @@ public class ReentrantLock implements Lock, java.io.Serializable {
          * acquire on failure.
          */
         final void lock() {
-            if (compareAndSetState(0, 1))
+            if (compareAndSetState(0, 1)) {
                 setExclusiveOwnerThread(Thread.currentThread());
+                if (ContentionProfiler.enabled)
+                    profileAcquire();
+            }
             else
                 acquire(1);
         }
@@ -267,6 +287,26 @@ public class ReentrantLock implements Lock, java.io.Serializable {
         sync = fair ? new FairSync() : new NonfairSync();
     }
 
+    /**
+     * Creates an instance of {@code ReentrantLock} with the
+     * given fairness and spinning policies.  Adaptive spinning
+     * benefits locks held only for very short periods, by letting a
+     * thread waiting to acquire spin briefly rather than block; see
+     * {@link AbstractQueuedSynchronizer#setAdaptiveSpinning}.
+     *
+     * <p>Like the fairness policy, the spinning policy is preserved
+     * when the lock is serialized.
+     *
+     * @param fair {@code true} if this lock should use a fair ordering policy
+     * @param adaptiveSpin {@code true} if waiting threads should spin
+     *        adaptively before blocking
+     * @since 1.8
+     */
+    public ReentrantLock(boolean fair, boolean adaptiveSpin) {
+        this(fair);
+        sync.setAdaptiveSpin(adaptiveSpin);
+    }
+
     /**
      * Acquires the lock.
      *
@@ -362,7 +402,11 @@ public class ReentrantLock implements Lock, java.io.Serializable {
      *         thread; and {@code false} otherwise
      */
     public boolean tryLock() {
-        return sync.nonfairTryAcquire(1);
+        if (!sync.nonfairTryAcquire(1))
+            return false;
+        if (ContentionProfiler.enabled)
+            sync.profileAcquire();
+        return true;
     }
 
     /**
@@ -599,6 +643,18 @@ public class ReentrantLock implements Lock, java.io.Serializable {
         return sync instanceof FairSync;
     }
 
+    /**
+     * Returns {@code true} if threads waiting for this lock spin
+     * adaptively before blocking.  This is always {@code false} on
+     * uniprocessors.
+     *
+     * @return {@code true} if this lock uses adaptive spinning
+     * @since 1.8
+     */
+    public final boolean isAdaptiveSpinning() {
+        return sync.isAdaptiveSpinning();
+    }
+
     /**
      * Returns the thread that currently owns this lock, or
      * {@code null} if not owned. When this method is called by a
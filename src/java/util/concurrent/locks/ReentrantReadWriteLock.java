@@ -796,7 +796,11 @@ public class ReentrantReadWriteLock
          * @return {@code true} if the read lock was acquired
          */
         public boolean tryLock() {
-            return sync.tryReadLock();
+            if (!sync.tryReadLock())
+                return false;
+            if (ContentionProfiler.enabled)
+                sync.profileAcquire();
+            return true;
         }
 
         /**
@@ -1028,7 +1032,11 @@ public class ReentrantReadWriteLock
          * by the current thread; and {@code false} otherwise.
          */
         public boolean tryLock( ) {
-            return sync.tryWriteLock();
+            if (!sync.tryWriteLock())
+                return false;
+            if (ContentionProfiler.enabled)
+                sync.profileAcquire();
+            return true;
         }
 
         /**
@@ -0,0 +1,640 @@
+/*
+ * Copyright (c) 2012, 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent.locks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A reader-biased {@link ReadWriteLock} in which readers update only
+ * one of a number of per-processor counters, so that acquiring and
+ * releasing the read lock scales with the number of processors,
+ * rather than serializing on a single shared lock word as in {@link
+ * ReentrantReadWriteLock}.  The price is paid by writers, which must
+ * examine every counter to wait out active readers, so this lock is
+ * best suited to data that is read very frequently and written
+ * rarely.
+ *
+ * <p>This class has the following properties:
+ *
+ * <ul>
+ * <li><b>Writer preference.</b> Once a writer begins to acquire the
+ * write lock, new readers block until it has been released, and the
+ * writer waits only for readers already holding the read lock.
+ *
+ * <li><b>Reentrancy.</b> The write lock is reentrant, and its holder
+ * may also acquire the read lock, so that the write lock may be
+ * downgraded by acquiring the read lock and then releasing the write
+ * lock.  The read lock is <em>not</em> reentrant: a reader that
+ * re-acquires it while a writer is waiting deadlocks, as does a
+ * reader that tries to acquire the write lock.
+ *
+ * <li><b>Ownership.</b> The read lock is not owned by a particular
+ * thread, and may be released by a thread other than the one that
+ * acquired it.  The write lock must be released by its holder.
+ *
+ * <li><b>Unmatched releases.</b> Releasing the read lock when it is
+ * not held throws {@code IllegalMonitorStateException}, but only if
+ * no other thread holds the read lock at the time; an unmatched
+ * release that goes undetected corrupts the count of readers, after
+ * which writers wait forever.
+ *
+ * <li><b>Condition support.</b> Neither lock supports {@link
+ * Condition}s; {@link Lock#newCondition} throws {@code
+ * UnsupportedOperationException}.
+ * </ul>
+ *
+ * @since 1.8
+ */
+public class StripedReadWriteLock implements ReadWriteLock {
+
+    /*
+     * Readers increment and decrement a counter Cell chosen by their
+     * thread's ThreadLocalRandom probe, as in LongAdder. The number of
+     * readers holding the lock is the sum of all cells; individual
+     * cells may become negative when a thread's probe changes between
+     * acquiring and releasing, which is harmless as only the sum is
+     * meaningful.
+     *
+     * Writers are serialized by mutex. A writer holding mutex sets
+     * writerPresent and then waits for the sum of the cells to reach
+     * zero. A reader increments its cell and then reads
+     * writerPresent; if it is set, the reader backs out by
+     * decrementing the same cell, and acquires the read lock under
+     * mutex instead, which blocks until the writer is done. Both
+     * sides perform a volatile write followed by a volatile read of
+     * the other side's variable, so at least one of them sees the
+     * other: either the reader sees writerPresent and backs out, or
+     * the writer's scan sees the reader's increment. A reader that
+     * has seen writerPresent false has therefore incremented before
+     * the writer's scan began, so the scan cannot miss it. Backing
+     * out uses the same cell, so that the scan never sees the
+     * decrement of a reader without its increment.
+     *
+     * As the read lock has no owner, an unmatched release cannot be
+     * told apart from a matched one by its thread. It can only be
+     * detected once the sum of the cells becomes negative, which
+     * would otherwise leave writers waiting forever. Scanning all
+     * cells on every release would defeat the striping, so a release
+     * scans only if it takes its own cell to zero or below, which a
+     * matched release on the cell its acquire incremented never
+     * does. A reader that acquires on one cell and releases on
+     * another during a scan can make a single scan see a negative
+     * sum, so a release throws only if two successive scans do, and
+     * first restores its cell.
+     *
+     * After decrementing, a reader unparks the waiting writer if
+     * writerPresent is set. A writer parks only after a scan that
+     * found readers, and the reader whose decrement the scan missed
+     * reads writerPresent after it, so wakeups are not lost.
+     *
+     * Cells are @Contended, and there are enough of them that each
+     * processor usually has one to itself; a reader whose CAS on its
+     * cell fails moves to another one by advancing its probe.
+     */
+
+    /** Number of CPUS, to size the cell array */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /** The maximum number of cells */
+    private static final int MAX_CELLS = 1 << 8;
+
+    /** Number of times a writer scans before parking */
+    private static final int WRITER_SPINS = (NCPU < 2) ? 0 : 1 << 6;
+
+    /**
+     * A padded reader counter, as in java.util.concurrent.atomic.Striped64.
+     */
+    @sun.misc.Contended static final class Cell {
+        volatile long value;
+    }
+
+    /** Reader counters; length is a power of two */
+    private final Cell[] cells;
+
+    /** Serializes writers, and readers arriving while a writer is present */
+    private final ReentrantLock mutex = new ReentrantLock();
+
+    /** True while a writer holds or is acquiring the write lock */
+    private volatile boolean writerPresent;
+
+    /** The writer holding or acquiring the write lock, or null */
+    private volatile Thread writer;
+
+    private final ReadLock readerLock = new ReadLock();
+    private final WriteLock writerLock = new WriteLock();
+
+    /**
+     * Creates a new lock with one reader counter for each available
+     * processor.
+     */
+    public StripedReadWriteLock() {
+        this(NCPU);
+    }
+
+    /**
+     * Creates a new lock with at least the given number of reader
+     * counters.  More counters reduce contention among readers but
+     * make acquiring the write lock slower.
+     *
+     * @param stripes the minimum number of reader counters
+     * @throws IllegalArgumentException if {@code stripes <= 0}
+     */
+    public StripedReadWriteLock(int stripes) {
+        if (stripes <= 0)
+            throw new IllegalArgumentException();
+        int n = 1;
+        while (n < stripes && n < MAX_CELLS)
+            n <<= 1;
+        Cell[] cs = new Cell[n];
+        for (int i = 0; i < n; ++i)
+            cs[i] = new Cell();
+        this.cells = cs;
+    }
+
+    public Lock readLock()  { return readerLock; }
+    public Lock writeLock() { return writerLock; }
+
+    // Reader internals
+
+    /**
+     * Increments the cell of the current thread, moving to another
+     * cell if its CAS fails.
+     *
+     * @return the cell incremented
+     */
+    private Cell incrementCell() {
+        Cell[] cs = cells;
+        int m = cs.length - 1;
+        int h = getProbe();
+        if (h == 0) {
+            ThreadLocalRandom.current(); // force initialization
+            h = getProbe();
+        }
+        for (;;) {
+            Cell c = cs[h & m];
+            long v = c.value;
+            if (U.compareAndSwapLong(c, VALUE, v, v + 1L))
+                return c;
+            h = advanceProbe(h);
+        }
+    }
+
+    /**
+     * Decrements the given cell, then wakes up any writer waiting for
+     * readers to drain.
+     */
+    private void decrementCell(Cell c) {
+        U.getAndAddLong(c, VALUE, -1L);
+        signalWriter();
+    }
+
+    /**
+     * Wakes up the writer waiting for readers to drain, if any.
+     */
+    private void signalWriter() {
+        Thread w;
+        if (writerPresent && (w = writer) != null)
+            LockSupport.unpark(w);
+    }
+
+    /**
+     * Attempts the fast path of acquiring the read lock, failing if a
+     * writer is present.
+     */
+    private boolean tryAcquireReadFast() {
+        if (!writerPresent) {
+            Cell c = incrementCell();
+            if (!writerPresent)
+                return true;
+            decrementCell(c);
+        }
+        return false;
+    }
+
+    /**
+     * Acquires the read lock while holding mutex, where no other
+     * writer can be present.
+     */
+    private void acquireReadLocked() {
+        try {
+            incrementCell();
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    /**
+     * Releases the read lock, throwing IllegalMonitorStateException
+     * if the release is detected to be unmatched.
+     */
+    private void releaseRead() {
+        Cell[] cs = cells;
+        int h = getProbe();
+        Cell c = cs[h & (cs.length - 1)];
+        if (U.getAndAddLong(c, VALUE, -1L) <= 0L &&
+            sumCells() < 0L && sumCells() < 0L) {
+            U.getAndAddLong(c, VALUE, 1L);
+            signalWriter();     // in case a writer saw the decrement
+            throw new IllegalMonitorStateException();
+        }
+        signalWriter();
+    }
+
+    /**
+     * Returns the sum of the cells.
+     */
+    private long sumCells() {
+        long sum = 0L;
+        for (Cell c : cells)
+            sum += c.value;
+        return sum;
+    }
+
+    // Writer internals
+
+    /**
+     * Returns true if no readers hold the lock.
+     */
+    private boolean readersDrained() {
+        return sumCells() == 0L;
+    }
+
+    /**
+     * Completes acquiring the write lock, having acquired mutex, by
+     * waiting for readers to drain.  If interrupted (when
+     * interruptible) or if the deadline passes (when timed), releases
+     * mutex and returns false, leaving the interrupt status set if
+     * interrupted.
+     */
+    private boolean acquireWriteLocked(boolean interruptible,
+                                       boolean timed, long deadline) {
+        if (mutex.getHoldCount() > 1)
+            return true;        // reentrant acquire
+        writer = Thread.currentThread();
+        writerPresent = true;
+        boolean interrupted = false;
+        for (int spins = WRITER_SPINS; !readersDrained(); ) {
+            if (spins > 0)
+                --spins;
+            else {
+                long nanos = 0L;
+                if (timed && (nanos = deadline - System.nanoTime()) <= 0L) {
+                    abortWrite();
+                    return false;
+                }
+                if (timed)
+                    LockSupport.parkNanos(this, nanos);
+                else
+                    LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    if (interruptible) {
+                        abortWrite();
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+        return true;
+    }
+
+    private void abortWrite() {
+        writerPresent = false;
+        writer = null;
+        mutex.unlock();
+    }
+
+    private void releaseWrite() {
+        if (!mutex.isHeldByCurrentThread())
+            throw new IllegalMonitorStateException();
+        if (mutex.getHoldCount() == 1) {
+            writerPresent = false;
+            writer = null;
+        }
+        mutex.unlock();
+    }
+
+    /**
+     * The lock returned by method {@link StripedReadWriteLock#readLock}.
+     */
+    final class ReadLock implements Lock {
+
+        /**
+         * Acquires the read lock, blocking while the write lock is held
+         * or being acquired by another thread.
+         */
+        public void lock() {
+            if (!tryAcquireReadFast()) {
+                mutex.lock();
+                acquireReadLocked();
+            }
+        }
+
+        /**
+         * Acquires the read lock unless the current thread is
+         * {@linkplain Thread#interrupt interrupted}.
+         *
+         * @throws InterruptedException if the current thread is interrupted
+         */
+        public void lockInterruptibly() throws InterruptedException {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            if (!tryAcquireReadFast()) {
+                mutex.lockInterruptibly();
+                acquireReadLocked();
+            }
+        }
+
+        /**
+         * Acquires the read lock only if the write lock is not held or
+         * being acquired by another thread at the time of invocation.
+         *
+         * @return {@code true} if the read lock was acquired
+         */
+        public boolean tryLock() {
+            if (tryAcquireReadFast())
+                return true;
+            if (!mutex.tryLock())
+                return false;
+            acquireReadLocked();
+            return true;
+        }
+
+        /**
+         * Acquires the read lock if the write lock is not held by
+         * another thread within the given waiting time and the current
+         * thread has not been {@linkplain Thread#interrupt interrupted}.
+         *
+         * @param timeout the time to wait for the read lock
+         * @param unit the time unit of the timeout argument
+         * @return {@code true} if the read lock was acquired
+         * @throws InterruptedException if the current thread is interrupted
+         * @throws NullPointerException if the time unit is null
+         */
+        public boolean tryLock(long timeout, TimeUnit unit)
+                throws InterruptedException {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            if (tryAcquireReadFast())
+                return true;
+            if (!mutex.tryLock(timeout, unit))
+                return false;
+            acquireReadLocked();
+            return true;
+        }
+
+        /**
+         * Releases the read lock.
+         *
+         * @throws IllegalMonitorStateException if the read lock is
+         *         detected not to be held
+         */
+        public void unlock() {
+            releaseRead();
+        }
+
+        /**
+         * Throws {@code UnsupportedOperationException} because
+         * {@code StripedReadWriteLock} does not support conditions.
+         *
+         * @throws UnsupportedOperationException always
+         */
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Returns a string identifying this lock, as well as its lock
+         * state.  The state, in brackets, includes the String {@code
+         * "Read locks ="} followed by the approximate number of held
+         * read locks.
+         *
+         * @return a string identifying this lock, as well as its lock state
+         */
+        public String toString() {
+            return super.toString() +
+                "[Read locks = " + getReadLockCount() + "]";
+        }
+    }
+
+    /**
+     * The lock returned by method {@link StripedReadWriteLock#writeLock}.
+     */
+    final class WriteLock implements Lock {
+
+        /**
+         * Acquires the write lock, blocking until neither the write
+         * lock is held by another thread nor the read lock is held.
+         */
+        public void lock() {
+            mutex.lock();
+            acquireWriteLocked(false, false, 0L);
+        }
+
+        /**
+         * Acquires the write lock unless the current thread is
+         * {@linkplain Thread#interrupt interrupted}.
+         *
+         * @throws InterruptedException if the current thread is interrupted
+         */
+        public void lockInterruptibly() throws InterruptedException {
+            mutex.lockInterruptibly();
+            if (!acquireWriteLocked(true, false, 0L)) {
+                Thread.interrupted();
+                throw new InterruptedException();
+            }
+        }
+
+        /**
+         * Acquires the write lock only if neither the write lock is
+         * held by another thread nor the read lock is held at the time
+         * of invocation.
+         *
+         * @return {@code true} if the write lock was acquired
+         */
+        public boolean tryLock() {
+            if (!mutex.tryLock())
+                return false;
+            if (mutex.getHoldCount() > 1)
+                return true;
+            writer = Thread.currentThread();
+            writerPresent = true;
+            if (readersDrained())
+                return true;
+            abortWrite();
+            return false;
+        }
+
+        /**
+         * Acquires the write lock if it can be acquired within the
+         * given waiting time and the current thread has not been
+         * {@linkplain Thread#interrupt interrupted}.
+         *
+         * @param timeout the time to wait for the write lock
+         * @param unit the time unit of the timeout argument
+         * @return {@code true} if the write lock was acquired
+         * @throws InterruptedException if the current thread is interrupted
+         * @throws NullPointerException if the time unit is null
+         */
+        public boolean tryLock(long timeout, TimeUnit unit)
+                throws InterruptedException {
+            long nanos = unit.toNanos(timeout);
+            final long deadline = System.nanoTime() + nanos;
+            if (!mutex.tryLock(nanos, TimeUnit.NANOSECONDS))
+                return false;
+            if (acquireWriteLocked(true, true, deadline))
+                return true;
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            return false;
+        }
+
+        /**
+         * Releases the write lock, or decrements its hold count if it
+         * has been acquired more than once.
+         *
+         * @throws IllegalMonitorStateException if the current thread
+         *         does not hold the write lock
+         */
+        public void unlock() {
+            releaseWrite();
+        }
+
+        /**
+         * Throws {@code UnsupportedOperationException} because
+         * {@code StripedReadWriteLock} does not support conditions.
+         *
+         * @throws UnsupportedOperationException always
+         */
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Returns a string identifying this lock, as well as its lock
+         * state.  The state, in brackets includes either the String
+         * {@code "[Unlocked]"} or the String {@code "[Locked by
+         * thread "} followed by the {@linkplain Thread#getName name}
+         * of the owning thread.
+         *
+         * @return a string identifying this lock, as well as its lock state
+         */
+        public String toString() {
+            Thread o = isWriteLocked() ? writer : null;
+            return super.toString() + ((o == null) ?
+                                       "[Unlocked]" :
+                                       "[Locked by thread " + o.getName() + "]");
+        }
+    }
+
+    // Instrumentation and status
+
+    /**
+     * Queries if the write lock is held by any thread.  This method
+     * is designed for use in monitoring system state, not for
+     * synchronization control.
+     *
+     * @return {@code true} if any thread holds the write lock
+     */
+    public boolean isWriteLocked() {
+        return writerPresent && readersDrained() && mutex.isLocked();
+    }
+
+    /**
+     * Queries if the write lock is held by the current thread.
+     *
+     * @return {@code true} if the current thread holds the write lock
+     */
+    public boolean isWriteLockedByCurrentThread() {
+        return mutex.isHeldByCurrentThread() &&
+            writer == Thread.currentThread() && writerPresent;
+    }
+
+    /**
+     * Queries the number of read locks held for this lock.  The
+     * result is a sum of per-processor counters read at different
+     * times, and is only an estimate if the read lock is being
+     * acquired or released concurrently.  This method is designed for
+     * use in monitoring system state, not for synchronization control.
+     *
+     * @return the number of read locks held
+     */
+    public int getReadLockCount() {
+        long sum = sumCells();
+        return (sum <= 0L) ? 0 :
+            (sum >= Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int)sum;
+    }
+
+    /**
+     * Returns a string identifying this lock, as well as its lock state.
+     * The state, in brackets, includes the String {@code "Write locks ="}
+     * followed by 1 if the write lock is held and 0 otherwise, and the
+     * String {@code "Read locks ="} followed by the number of held read
+     * locks.
+     *
+     * @return a string identifying this lock, as well as its lock state
+     */
+    public String toString() {
+        return super.toString() +
+            "[Write locks = " + (isWriteLocked() ? 1 : 0) +
+            ", Read locks = " + getReadLockCount() + "]";
+    }
+
+    // Probe access, duplicated from ThreadLocalRandom because of
+    // packaging restrictions, as in Striped64
+
+    static final int getProbe() {
+        return U.getInt(Thread.currentThread(), PROBE);
+    }
+
+    static final int advanceProbe(int probe) {
+        probe ^= probe << 13;   // xorshift
+        probe ^= probe >>> 17;
+        probe ^= probe << 5;
+        U.putInt(Thread.currentThread(), PROBE, probe);
+        return probe;
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long VALUE;
+    private static final long PROBE;
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            VALUE = U.objectFieldOffset
+                (Cell.class.getDeclaredField("value"));
+            PROBE = U.objectFieldOffset
+                (Thread.class.getDeclaredField("threadLocalRandomProbe"));
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
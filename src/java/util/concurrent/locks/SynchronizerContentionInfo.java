@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2012, 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent.locks;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * A snapshot of the contention statistics of one synchronizer, as
+ * reported by {@link SynchronizerContentionMXBean#getContentionInfo}.
+ *
+ * <p>Counts cover only acquires made while profiling was enabled.
+ * The acquisition count is the number of successful acquires made
+ * through
+ * <ul>
+ * <li>the acquire methods of {@link AbstractQueuedSynchronizer}
+ * ({@code acquire}, {@code acquireShared} and their interruptible
+ * and timed forms), which the blocking methods of all synchronizers
+ * use; and
+ * <li>the lock methods of {@link ReentrantLock} and of the read and
+ * write locks of {@link ReentrantReadWriteLock}, including the
+ * barging fast path of nonfair locks and {@code tryLock()}.
+ * </ul>
+ * Methods of other synchronizers that succeed by calling {@code
+ * tryAcquire} or {@code tryAcquireShared} directly, such as {@link
+ * java.util.concurrent.Semaphore#tryAcquire()}, are not counted.
+ * Reentrant acquires of a lock already held are counted.
+ *
+ * @since 1.8
+ */
+public class SynchronizerContentionInfo {
+
+    private final String className;
+    private final int identityHashCode;
+    private final long acquisitionCount;
+    private final long contendedCount;
+    private final long parkCount;
+    private final long totalWaitTime;
+    private final int queueLength;
+    private final int maxQueueLength;
+
+    /**
+     * Constructs a {@code SynchronizerContentionInfo}.
+     *
+     * @param className the fully qualified name of the class of the
+     *        synchronizer
+     * @param identityHashCode the identity hash code of the synchronizer
+     * @param acquisitionCount the number of acquires
+     * @param contendedCount the number of acquires that queued
+     * @param parkCount the number of times a thread parked
+     * @param totalWaitTime the total time spent queued, in nanoseconds
+     * @param queueLength the number of threads currently queued
+     * @param maxQueueLength the largest number of threads queued at once
+     */
+    @ConstructorProperties({"className", "identityHashCode",
+                            "acquisitionCount", "contendedCount",
+                            "parkCount", "totalWaitTime",
+                            "queueLength", "maxQueueLength"})
+    public SynchronizerContentionInfo(String className, int identityHashCode,
+                                      long acquisitionCount,
+                                      long contendedCount, long parkCount,
+                                      long totalWaitTime, int queueLength,
+                                      int maxQueueLength) {
+        if (className == null)
+            throw new NullPointerException();
+        this.className = className;
+        this.identityHashCode = identityHashCode;
+        this.acquisitionCount = acquisitionCount;
+        this.contendedCount = contendedCount;
+        this.parkCount = parkCount;
+        this.totalWaitTime = totalWaitTime;
+        this.queueLength = queueLength;
+        this.maxQueueLength = maxQueueLength;
+    }
+
+    /**
+     * Returns the fully qualified name of the class of the
+     * synchronizer, which is usually a nested class of the lock
+     * using it, such as {@code ReentrantLock$NonfairSync}.
+     *
+     * @return the class name of the synchronizer
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Returns the identity hash code of the synchronizer.
+     *
+     * @return the identity hash code of the synchronizer
+     */
+    public int getIdentityHashCode() {
+        return identityHashCode;
+    }
+
+    /**
+     * Returns the number of successful acquires, in either mode, as
+     * defined in the class description.
+     *
+     * @return the number of acquires
+     */
+    public long getAcquisitionCount() {
+        return acquisitionCount;
+    }
+
+    /**
+     * Returns the number of acquires, including timed-out, cancelled
+     * and condition-reacquiring ones, that could not complete
+     * immediately and entered the wait queue.
+     *
+     * @return the number of contended acquires
+     */
+    public long getContendedCount() {
+        return contendedCount;
+    }
+
+    /**
+     * Returns the number of times a queued thread parked.
+     *
+     * @return the number of parks
+     */
+    public long getParkCount() {
+        return parkCount;
+    }
+
+    /**
+     * Returns the total time, in nanoseconds, threads have spent in
+     * the wait queue.
+     *
+     * @return the total wait time in nanoseconds
+     */
+    public long getTotalWaitTime() {
+        return totalWaitTime;
+    }
+
+    /**
+     * Returns the number of threads in the wait queue when this
+     * snapshot was taken.
+     *
+     * @return the current queue length
+     */
+    public int getQueueLength() {
+        return queueLength;
+    }
+
+    /**
+     * Returns the largest number of threads that were in the wait
+     * queue at the same time.
+     *
+     * @return the maximum queue length
+     */
+    public int getMaxQueueLength() {
+        return maxQueueLength;
+    }
+
+    /**
+     * Returns a string representation of these statistics.
+     *
+     * @return a string representation of these statistics
+     */
+    public String toString() {
+        return className + '@' + Integer.toHexString(identityHashCode) +
+            "[acquisitions=" + acquisitionCount +
+            ", contended=" + contendedCount +
+            ", parks=" + parkCount +
+            ", waitNanos=" + totalWaitTime +
+            ", queueLength=" + queueLength +
+            ", maxQueueLength=" + maxQueueLength + "]";
+    }
+}
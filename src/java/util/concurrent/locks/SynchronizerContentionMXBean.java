@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2012, 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent.locks;
+
+/**
+ * The management interface for contention profiling of synchronizers
+ * based on {@link AbstractQueuedSynchronizer}, such as {@link
+ * ReentrantLock}, {@link ReentrantReadWriteLock}, {@link
+ * java.util.concurrent.Semaphore} and {@link
+ * java.util.concurrent.CountDownLatch}.
+ *
+ * <p>Profiling is disabled by default, in which case synchronizers
+ * record nothing. It is enabled by setting the {@code
+ * ProfilingEnabled} attribute, or by starting the virtual machine
+ * with the system property {@code
+ * java.util.concurrent.locks.contentionProfiling} set to {@code
+ * true}. While enabled, each synchronizer is profiled from its first
+ * counted acquire onwards (see {@link SynchronizerContentionInfo}),
+ * and reported by {@link #getContentionInfo} for as long as it is
+ * reachable. The statistics of a synchronizer that has been garbage
+ * collected are discarded no later than when the next synchronizer
+ * starts being profiled.
+ *
+ * <p>The single instance of this interface is obtained with {@link
+ * ContentionProfiler#getMXBean}, which also registers it with the
+ * platform {@code MBeanServer} under the {@code ObjectName} given by
+ * {@link #OBJECT_NAME}.
+ *
+ * @see ContentionProfiler
+ * @since 1.8
+ */
+public interface SynchronizerContentionMXBean {
+
+    /**
+     * String representation of the {@code ObjectName} of this MXBean.
+     */
+    String OBJECT_NAME = "java.util.concurrent.locks:type=SynchronizerContention";
+
+    /**
+     * Tests if contention profiling is enabled.
+     *
+     * @return {@code true} if contention profiling is enabled
+     */
+    boolean isProfilingEnabled();
+
+    /**
+     * Enables or disables contention profiling.  Disabling stops
+     * further recording, but retains the statistics gathered so far.
+     *
+     * @param enable {@code true} to enable; {@code false} to disable
+     * @throws SecurityException if a security manager exists and the
+     *         caller does not have ManagementPermission("control")
+     */
+    void setProfilingEnabled(boolean enable);
+
+    /**
+     * Returns the statistics of all profiled synchronizers that are
+     * still reachable, in decreasing order of total wait time.
+     *
+     * @return the statistics of the profiled synchronizers
+     */
+    SynchronizerContentionInfo[] getContentionInfo();
+
+    /**
+     * Resets the statistics of all profiled synchronizers to zero,
+     * except for their current queue lengths.
+     *
+     * @throws SecurityException if a security manager exists and the
+     *         caller does not have ManagementPermission("control")
+     */
+    void resetStatistics();
+}
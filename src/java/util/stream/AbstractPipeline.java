@@ -26,6 +26,8 @@ package java.util.stream;
 
 import java.util.Objects;
 import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.IntFunction;
 import java.util.function.Supplier;
 
@@ -148,6 +150,31 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
      */
     private boolean parallel;
 
+    /**
+     * The pool in which parallel evaluation is performed, or null for the
+     * common pool; only valid for the source stage.
+     */
+    private ForkJoinPool pool;
+
+    /**
+     * The target number of leaf tasks of parallel evaluation, or zero for
+     * four per thread of the pool; only valid for the source stage.
+     */
+    private int leafTarget;
+
+    /**
+     * The kind of this operation, one of the constants of {@link FusedSink},
+     * if it is a stateless operation that may be performed together with
+     * adjacent ones by a {@code FusedSink}; otherwise {@code FusedSink.NONE}.
+     */
+    private int fusedKind;
+
+    /**
+     * The function of this operation if {@code fusedKind} is not
+     * {@code FusedSink.NONE}.
+     */
+    private Object fusedFunction;
+
     /**
      * Constructor for the head of a stream pipeline.
      *
@@ -230,10 +257,51 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
         linkedOrConsumed = true;
 
         return isParallel()
-               ? terminalOp.evaluateParallel(this, sourceSpliterator(terminalOp.getOpFlags()))
+               ? evaluateInPool(() -> terminalOp.evaluateParallel(this, sourceSpliterator(terminalOp.getOpFlags())))
                : terminalOp.evaluateSequential(this, sourceSpliterator(terminalOp.getOpFlags()));
     }
 
+    /**
+     * Performs a parallel evaluation in the pool this pipeline is bound to,
+     * if any and if not already running in it, waiting for its result.
+     * Otherwise the evaluation is performed in the calling thread, from
+     * which its tasks are forked into the common pool, or into the pool of
+     * the calling thread if it is a {@code ForkJoinWorkerThread}.
+     *
+     * <p>An exception thrown by an evaluation in the pool is rethrown as is,
+     * rather than as the copy that {@code ForkJoinTask} makes of exceptions
+     * thrown in another thread, so that it is reported as for an evaluation
+     * in the calling thread.
+     *
+     * @param evaluation the evaluation
+     * @param <R> the type of the result
+     * @return the result of the evaluation
+     */
+    final <R> R evaluateInPool(Supplier<R> evaluation) {
+        ForkJoinPool p = sourceStage.pool;
+        if (p == null || !isParallel() || ForkJoinTask.getPool() == p)
+            return evaluation.get();
+        Object[] result = new Object[1];
+        Throwable[] failure = new Throwable[1];
+        p.invoke(ForkJoinTask.adapt(() -> {
+            try {
+                result[0] = evaluation.get();
+            } catch (Throwable ex) {
+                failure[0] = ex;
+            }
+        }));
+        Throwable ex = failure[0];
+        if (ex instanceof RuntimeException)
+            throw (RuntimeException) ex;
+        if (ex instanceof Error)
+            throw (Error) ex;
+        if (ex != null)
+            throw new RuntimeException(ex);
+        @SuppressWarnings("unchecked")
+        R r = (R) result[0];
+        return r;
+    }
+
     /**
      * Collect the elements output from the pipeline stage.
      *
@@ -254,10 +322,10 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
             // upstream slice and upstream operations will not be included
             // in this slice
             depth = 0;
-            return opEvaluateParallel(previousStage, previousStage.sourceSpliterator(0), generator);
+            return evaluateInPool(() -> opEvaluateParallel(previousStage, previousStage.sourceSpliterator(0), generator));
         }
         else {
-            return evaluate(sourceSpliterator(0), true, generator);
+            return evaluateInPool(() -> evaluate(sourceSpliterator(0), true, generator));
         }
     }
 
@@ -312,6 +380,26 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
         return (S) this;
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public final S parallel(ForkJoinPool pool) {
+        sourceStage.pool = Objects.requireNonNull(pool);
+        sourceStage.leafTarget = 0;
+        sourceStage.parallel = true;
+        return (S) this;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final S parallel(ForkJoinPool pool, int leafTasks) {
+        if (leafTasks <= 0)
+            throw new IllegalArgumentException(Integer.toString(leafTasks));
+        sourceStage.pool = Objects.requireNonNull(pool);
+        sourceStage.leafTarget = leafTasks;
+        sourceStage.parallel = true;
+        return (S) this;
+    }
+
     @Override
     public void close() {
         linkedOrConsumed = true;
@@ -361,7 +449,7 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
             }
         }
         else {
-            return wrap(this, () -> sourceSpliterator(0), isParallel());
+            return wrap(this, () -> evaluateInPool(() -> sourceSpliterator(0)), isParallel());
         }
     }
 
@@ -468,7 +556,14 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
 
     @Override
     final <P_IN, S extends Sink<E_OUT>> S wrapAndCopyInto(S sink, Spliterator<P_IN> spliterator) {
-        copyInto(wrapSink(Objects.requireNonNull(sink)), spliterator);
+        Objects.requireNonNull(sink);
+        long size;
+        if (!isParallel()
+            && (size = spliterator.getExactSizeIfKnown()) >= 0
+            && size <= FusedSink.SIZE_THRESHOLD)
+            copyInto(wrapSinkFused(sink), spliterator);
+        else
+            copyInto(wrapSink(sink), spliterator);
         return sink;
     }
 
@@ -504,6 +599,18 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
         return combinedFlags;
     }
 
+    @Override
+    final int getLeafTarget() {
+        @SuppressWarnings("rawtypes")
+        AbstractPipeline s = sourceStage;
+        if (s.leafTarget != 0)
+            return s.leafTarget;
+        else if (s.pool != null)
+            return Math.max(s.pool.getParallelism(), 1) << 2;
+        else
+            return AbstractTask.LEAF_TARGET;
+    }
+
     final boolean isOrdered() {
         return StreamOpFlag.ORDERED.isKnown(combinedFlags);
     }
@@ -519,6 +626,55 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
         return (Sink<P_IN>) sink;
     }
 
+    /**
+     * Marks this operation as one that may be performed by a
+     * {@link FusedSink} instead of by the sink of
+     * {@link #opWrapSink(int, Sink)}, which must be equivalent.
+     *
+     * @param kind the kind of the operation
+     * @param function the function of the operation
+     * @return this stage
+     */
+    @SuppressWarnings("unchecked")
+    final S fused(int kind, Object function) {
+        fusedKind = kind;
+        fusedFunction = function;
+        return (S) this;
+    }
+
+    /**
+     * Like {@link #wrapSink(Sink)}, but performs each run of two or more
+     * adjacent operations that may be fused by a single {@link FusedSink}.
+     */
+    @SuppressWarnings({"rawtypes","unchecked"})
+    private <P_IN> Sink<P_IN> wrapSinkFused(Sink<E_OUT> sink) {
+        Sink s = sink;
+        for (AbstractPipeline p = AbstractPipeline.this; p.depth > 0; ) {
+            int n = 0;
+            for (AbstractPipeline q = p; q.depth > 0; q = q.previousStage) {
+                int kind = q.fusedKind;
+                if (kind == FusedSink.NONE || (q != p && FusedSink.isConversion(kind)))
+                    break;
+                n++;
+            }
+            if (n < 2) {
+                s = p.opWrapSink(p.previousStage.combinedFlags, s);
+                p = p.previousStage;
+            }
+            else {
+                int[] kinds = new int[n];
+                Object[] functions = new Object[n];
+                while (--n >= 0) {
+                    kinds[n] = p.fusedKind;
+                    functions[n] = p.fusedFunction;
+                    p = p.previousStage;
+                }
+                s = new FusedSink(kinds, functions, s);
+            }
+        }
+        return (Sink<P_IN>) s;
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     final <P_IN> Spliterator<E_OUT> wrapSpliterator(Spliterator<P_IN> sourceSpliterator) {
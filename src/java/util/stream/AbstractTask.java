@@ -176,12 +176,13 @@ abstract class AbstractTask<P_IN, P_OUT, R,
     protected abstract R doLeaf();
 
     /**
-     * Returns a suggested target leaf size based on the initial size estimate.
+     * Returns a suggested target leaf size based on the initial size estimate
+     * and the target number of leaf tasks.
      *
      * @return suggested target leaf size
      */
-    public static long suggestTargetSize(long sizeEstimate) {
-        long est = sizeEstimate / LEAF_TARGET;
+    public static long suggestTargetSize(long sizeEstimate, int leafTarget) {
+        long est = sizeEstimate / leafTarget;
         return est > 0L ? est : 1L;
     }
 
@@ -192,7 +193,7 @@ abstract class AbstractTask<P_IN, P_OUT, R,
     protected final long getTargetSize(long sizeEstimate) {
         long s;
         return ((s = targetSize) != 0 ? s :
-                (targetSize = suggestTargetSize(sizeEstimate)));
+                (targetSize = suggestTargetSize(sizeEstimate, helper.getLeafTarget())));
     }
 
     /**
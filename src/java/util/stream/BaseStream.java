@@ -31,6 +31,7 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.Spliterator;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.IntConsumer;
 import java.util.function.Predicate;
 
@@ -116,6 +117,78 @@ public interface BaseStream<T, S extends BaseStream<T, S>>
      */
     S parallel();
 
+    /**
+     * Returns an equivalent stream that is parallel, and whose parallel
+     * evaluation is performed by tasks executed in the given pool rather
+     * than in the {@linkplain ForkJoinPool#commonPool() common pool}.  May
+     * return itself, either because the stream was already parallel and
+     * bound to the pool, or because the underlying stream state was
+     * modified.
+     *
+     * <p>The pool remains bound to the stream if it is later made
+     * sequential and then parallel again.  Terminal operations invoked
+     * from a thread of another pool, or from a thread that is not a
+     * {@code ForkJoinWorkerThread}, block until evaluation in the pool
+     * completes.
+     *
+     * <p>This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>.
+     *
+     * <p>Exceptions thrown by the evaluation, including those thrown by
+     * behavioral parameters, are thrown to the caller of the terminal
+     * operation as they would be by a parallel evaluation in the common
+     * pool.
+     *
+     * @apiNote
+     * Binding streams to dedicated pools isolates workloads from each
+     * other: a long-running parallel computation in one pool does not
+     * delay parallel streams in the common pool, or in other pools.
+     *
+     * @implSpec
+     * The default implementation throws an
+     * {@code UnsupportedOperationException}.
+     *
+     * @param pool the pool in which to evaluate this stream in parallel
+     * @return a parallel stream
+     * @throws NullPointerException if {@code pool} is null
+     * @throws UnsupportedOperationException if this stream cannot be
+     *         evaluated in a given pool
+     */
+    default S parallel(ForkJoinPool pool) {
+        throw new UnsupportedOperationException("parallel(ForkJoinPool)");
+    }
+
+    /**
+     * Returns an equivalent stream that is parallel, as by
+     * {@link #parallel(ForkJoinPool)}, and whose parallel evaluation
+     * decomposes its source into about {@code leafTasks} leaf tasks.  By
+     * default, the source is decomposed into about four leaf tasks per
+     * thread of the pool, which allows threads to help out if leaf tasks
+     * are uneven or some threads are otherwise busy.  Fewer leaf tasks
+     * bound the number of threads, and the scheduling overhead, that the
+     * evaluation of a stream may use; more leaf tasks balance uneven work
+     * more finely.
+     *
+     * <p>This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>.
+     *
+     * @implSpec
+     * The default implementation throws an
+     * {@code UnsupportedOperationException}.
+     *
+     * @param pool the pool in which to evaluate this stream in parallel
+     * @param leafTasks the number of leaf tasks into which parallel
+     *        evaluation aims to decompose the stream source
+     * @return a parallel stream
+     * @throws NullPointerException if {@code pool} is null
+     * @throws IllegalArgumentException if {@code leafTasks} is not positive
+     * @throws UnsupportedOperationException if this stream cannot be
+     *         evaluated in a given pool
+     */
+    default S parallel(ForkJoinPool pool, int leafTasks) {
+        throw new UnsupportedOperationException("parallel(ForkJoinPool, int)");
+    }
+
     /**
      * Returns an equivalent stream that is
      * <a href="package-summary.html#Ordering">unordered</a>.  May return
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2012, 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.stream;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * A {@code Sink} that performs a run of adjacent stateless filter, map and
+ * peek operations of a reference pipeline, optionally followed by a
+ * conversion to a primitive shape, in a single {@code accept} call.
+ *
+ * <p>An evaluation otherwise wraps one chained sink around the next for
+ * each operation, and each element then makes two calls per operation:
+ * one to the sink, and one to the operation's function.  Once the call
+ * sites of the sinks have seen many sink classes, as in any program using
+ * streams for more than one purpose, neither call is inlined, and for
+ * sources of a few elements creating and starting the sinks costs as much
+ * as running them.  A fused sink is created once for the whole run and
+ * makes only the calls to the functions.
+ *
+ * <p>For larger sources the cost per element dominates, which fusion does
+ * not reduce, while the separate sinks remain open to inlining where a
+ * pipeline is the only one to reach them.  Fusion is therefore only
+ * applied by {@link AbstractPipeline#wrapAndCopyInto} to sequential
+ * evaluations of sources of known size of at most {@link #SIZE_THRESHOLD}
+ * elements.
+ *
+ * @since 1.8
+ */
+final class FusedSink<T> extends Sink.ChainedReference<T, Object> {
+
+    /** The operation may not be fused */
+    static final int NONE = 0;
+
+    /** A filter operation, whose function is a {@code Predicate} */
+    static final int FILTER = 1;
+
+    /** A map operation, whose function is a {@code Function} */
+    static final int MAP = 2;
+
+    /** A peek operation, whose function is a {@code Consumer} */
+    static final int PEEK = 3;
+
+    /**
+     * A conversion to an {@code int} stream, whose function is a
+     * {@code ToIntFunction}.  Conversions end a run of fused operations.
+     */
+    static final int MAP_TO_INT = 4;
+
+    /** A conversion to a {@code long} stream, like {@link #MAP_TO_INT} */
+    static final int MAP_TO_LONG = 5;
+
+    /** A conversion to a {@code double} stream, like {@link #MAP_TO_INT} */
+    static final int MAP_TO_DOUBLE = 6;
+
+    /**
+     * The largest exact source size for which operations are fused.
+     */
+    static final int SIZE_THRESHOLD = 64;
+
+    /** The kinds of the operations, in upstream to downstream order */
+    private final int[] kinds;
+
+    /** The functions of the operations, in the same order */
+    private final Object[] functions;
+
+    /** True if any operation is a filter, which loses the size */
+    private final boolean filters;
+
+    /**
+     * Creates a sink performing the given operations.
+     *
+     * @param kinds the kinds of the operations, in upstream to downstream
+     *        order, of which only the last may be a conversion
+     * @param functions the functions of the operations
+     * @param downstream the sink receiving the results of the last operation
+     */
+    FusedSink(int[] kinds, Object[] functions, Sink<Object> downstream) {
+        super(downstream);
+        this.kinds = kinds;
+        this.functions = functions;
+        boolean f = false;
+        for (int k : kinds)
+            f |= k == FILTER;
+        this.filters = f;
+    }
+
+    /**
+     * Returns whether operations of the given kind end a run of fused
+     * operations.
+     */
+    static boolean isConversion(int kind) {
+        return kind >= MAP_TO_INT;
+    }
+
+    @Override
+    public void begin(long size) {
+        downstream.begin(filters ? -1 : size);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void accept(T t) {
+        final int[] kinds = this.kinds;
+        final Object[] functions = this.functions;
+        Object u = t;
+        for (int i = 0; i < kinds.length; i++) {
+            Object f = functions[i];
+            switch (kinds[i]) {
+                case FILTER:
+                    if (!((Predicate<Object>) f).test(u))
+                        return;
+                    break;
+                case MAP:
+                    u = ((Function<Object, Object>) f).apply(u);
+                    break;
+                case PEEK:
+                    ((Consumer<Object>) f).accept(u);
+                    break;
+                case MAP_TO_INT:
+                    downstream.accept(((ToIntFunction<Object>) f).applyAsInt(u));
+                    return;
+                case MAP_TO_LONG:
+                    downstream.accept(((ToLongFunction<Object>) f).applyAsLong(u));
+                    return;
+                case MAP_TO_DOUBLE:
+                    downstream.accept(((ToDoubleFunction<Object>) f).applyAsDouble(u));
+                    return;
+                default:
+                    throw new IllegalStateException();
+            }
+        }
+        downstream.accept(u);
+    }
+}
@@ -372,7 +372,9 @@ abstract class IntPipeline<E_IN>
     public final IntStream limit(long maxSize) {
         if (maxSize < 0)
             throw new IllegalArgumentException(Long.toString(maxSize));
-        return SliceOps.makeInt(this, 0, maxSize);
+        IntStream limited = SliceOps.makeInt(this, 0, maxSize);
+        SortedOps.limitInt(this, maxSize);
+        return limited;
     }
 
     @Override
@@ -385,6 +387,21 @@ abstract class IntPipeline<E_IN>
             return SliceOps.makeInt(this, n, -1);
     }
 
+    @Override
+    public final Stream<int[]> chunked(int size) {
+        return WindowOps.makeInt(this, size, size, true);
+    }
+
+    @Override
+    public final Stream<int[]> windowed(int size, int step) {
+        return WindowOps.makeInt(this, size, step, false);
+    }
+
+    @Override
+    public final IntStream scan(int identity, IntBinaryOperator accumulator) {
+        return ScanOps.makeInt(this, identity, accumulator);
+    }
+
     @Override
     public final IntStream sorted() {
         return SortedOps.makeInt(this);
@@ -272,6 +272,107 @@ public interface IntStream extends BaseStream<Integer, IntStream> {
      */
     IntStream skip(long n);
 
+    /**
+     * Returns a stream consisting of the elements of this stream grouped,
+     * in encounter order, into arrays of {@code size} consecutive
+     * elements.  The last array contains the remaining elements, and is
+     * shorter if the number of elements of this stream is not a multiple of
+     * {@code size}.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.
+     *
+     * @apiNote
+     * This operation batches the elements of a stream, for example to
+     * write them in bulk:
+     * <pre>{@code
+     *     ids.chunked(1000).forEach(dao::deleteAll);
+     * }</pre>
+     * Sequential pipelines buffer a single array at a time, so this
+     * operation may be used on infinite streams.  Parallel pipelines collect
+     * all elements before grouping them.
+     *
+     * @implSpec
+     * The default implementation obtains the {@link #spliterator() spliterator}
+     * of this stream, wraps it so as to group its elements on traversal, and
+     * returns a new stream of the wrapped spliterator.  The returned stream is
+     * parallel if this stream is parallel, but the wrapped spliterator does not
+     * split.  When the returned stream is closed, the close handlers of both
+     * the returned stream and this stream are invoked.
+     *
+     * @param size the number of elements of each array
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code size} is not positive
+     */
+    default Stream<int[]> chunked(int size) {
+        return WindowOps.wrapInt(this, size, size, true);
+    }
+
+    /**
+     * Returns a stream consisting of the sliding windows of this stream:
+     * arrays of {@code size} consecutive elements, in encounter order,
+     * the first elements of consecutive windows being {@code step} elements
+     * apart.  Windows overlap if {@code step < size}, and elements between
+     * windows are skipped if {@code step > size}.  Only full windows are
+     * included, so the stream is empty if this stream has fewer than
+     * {@code size} elements.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.
+     *
+     * @implSpec
+     * The default implementation obtains the {@link #spliterator() spliterator}
+     * of this stream, wraps it so as to form the windows of its elements on
+     * traversal, and returns a new stream of the wrapped spliterator.  The
+     * returned stream is parallel if this stream is parallel, but the wrapped
+     * spliterator does not split.  When the returned stream is closed, the
+     * close handlers of both the returned stream and this stream are invoked.
+     *
+     * @param size the number of elements of each window
+     * @param step the distance between the first elements of consecutive
+     *        windows
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code size} or {@code step} is
+     *         not positive
+     */
+    default Stream<int[]> windowed(int size, int step) {
+        return WindowOps.wrapInt(this, size, step, false);
+    }
+
+    /**
+     * Returns a stream consisting of the running accumulations of the
+     * elements of this stream: the i-th element of the new stream is the
+     * reduction, as by {@link #reduce(int, IntBinaryOperator)}, of the first i
+     * elements of this stream.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.
+     *
+     * @apiNote
+     * Running totals are an example of a scan:
+     * <pre>{@code
+     *     int[] prefixSums = IntStream.of(values).scan(0, Integer::sum).toArray();
+     * }</pre>
+     *
+     * @implSpec
+     * The default implementation obtains the {@link #spliterator() spliterator}
+     * of this stream, wraps it so as to accumulate its elements on traversal,
+     * and returns a new stream of the wrapped spliterator.  The returned stream
+     * is parallel if this stream is parallel, but the wrapped spliterator does
+     * not split.  When the returned stream is closed, the close handlers of
+     * both the returned stream and this stream are invoked.
+     *
+     * @param identity the identity value for the accumulating function
+     * @param accumulator an <a href="package-summary.html#Associativity">associative</a>,
+     *                    <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *                    <a href="package-summary.html#Statelessness">stateless</a>
+     *                    function for combining two values
+     * @return the new stream
+     */
+    default IntStream scan(int identity, IntBinaryOperator accumulator) {
+        return ScanOps.wrapInt(this, identity, accumulator);
+    }
+
     /**
      * Performs an action for each element of this stream.
      *
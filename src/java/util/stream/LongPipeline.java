@@ -353,7 +353,9 @@ abstract class LongPipeline<E_IN>
     public final LongStream limit(long maxSize) {
         if (maxSize < 0)
             throw new IllegalArgumentException(Long.toString(maxSize));
-        return SliceOps.makeLong(this, 0, maxSize);
+        LongStream limited = SliceOps.makeLong(this, 0, maxSize);
+        SortedOps.limitLong(this, maxSize);
+        return limited;
     }
 
     @Override
@@ -366,6 +368,21 @@ abstract class LongPipeline<E_IN>
             return SliceOps.makeLong(this, n, -1);
     }
 
+    @Override
+    public final Stream<long[]> chunked(int size) {
+        return WindowOps.makeLong(this, size, size, true);
+    }
+
+    @Override
+    public final Stream<long[]> windowed(int size, int step) {
+        return WindowOps.makeLong(this, size, step, false);
+    }
+
+    @Override
+    public final LongStream scan(long identity, LongBinaryOperator accumulator) {
+        return ScanOps.makeLong(this, identity, accumulator);
+    }
+
     @Override
     public final LongStream sorted() {
         return SortedOps.makeLong(this);
@@ -71,6 +71,14 @@ abstract class PipelineHelper<P_OUT> {
      */
     abstract int getStreamAndOpFlags();
 
+    /**
+     * Gets the number of leaf tasks into which parallel evaluation of the
+     * described pipeline aims to decompose its input.
+     *
+     * @return the target number of leaf tasks
+     */
+    abstract int getLeafTarget();
+
     /**
      * Returns the exact output size of the portion of the output resulting from
      * applying the pipeline stages described by this {@code PipelineHelper} to
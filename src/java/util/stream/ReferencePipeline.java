@@ -26,6 +26,7 @@ package java.util.stream;
 
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Spliterator;
@@ -176,7 +177,7 @@ abstract class ReferencePipeline<P_IN, P_OUT>
                     }
                 };
             }
-        };
+        }.fused(FusedSink.FILTER, predicate);
     }
 
     @Override
@@ -194,7 +195,7 @@ abstract class ReferencePipeline<P_IN, P_OUT>
                     }
                 };
             }
-        };
+        }.fused(FusedSink.MAP, mapper);
     }
 
     @Override
@@ -211,7 +212,7 @@ abstract class ReferencePipeline<P_IN, P_OUT>
                     }
                 };
             }
-        };
+        }.fused(FusedSink.MAP_TO_INT, mapper);
     }
 
     @Override
@@ -228,7 +229,7 @@ abstract class ReferencePipeline<P_IN, P_OUT>
                     }
                 };
             }
-        };
+        }.fused(FusedSink.MAP_TO_LONG, mapper);
     }
 
     @Override
@@ -245,7 +246,7 @@ abstract class ReferencePipeline<P_IN, P_OUT>
                     }
                 };
             }
-        };
+        }.fused(FusedSink.MAP_TO_DOUBLE, mapper);
     }
 
     @Override
@@ -374,7 +375,7 @@ abstract class ReferencePipeline<P_IN, P_OUT>
                     }
                 };
             }
-        };
+        }.fused(FusedSink.PEEK, action);
     }
 
     // Stateful intermediate operations from Stream
@@ -398,7 +399,9 @@ abstract class ReferencePipeline<P_IN, P_OUT>
     public final Stream<P_OUT> limit(long maxSize) {
         if (maxSize < 0)
             throw new IllegalArgumentException(Long.toString(maxSize));
-        return SliceOps.makeRef(this, 0, maxSize);
+        Stream<P_OUT> limited = SliceOps.makeRef(this, 0, maxSize);
+        SortedOps.limitRef(this, maxSize);
+        return limited;
     }
 
     @Override
@@ -411,6 +414,21 @@ abstract class ReferencePipeline<P_IN, P_OUT>
             return SliceOps.makeRef(this, n, -1);
     }
 
+    @Override
+    public final Stream<List<P_OUT>> chunked(int size) {
+        return WindowOps.makeRef(this, size, size, true);
+    }
+
+    @Override
+    public final Stream<List<P_OUT>> windowed(int size, int step) {
+        return WindowOps.makeRef(this, size, step, false);
+    }
+
+    @Override
+    public final Stream<P_OUT> scan(P_OUT identity, BinaryOperator<P_OUT> accumulator) {
+        return ScanOps.makeRef(this, identity, accumulator);
+    }
+
     // Terminal operations from Stream
 
     @Override
@@ -0,0 +1,358 @@
+/*
+ * Copyright (c) 2012, 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongConsumer;
+
+/**
+ * Factory methods for transforming streams into streams of running
+ * accumulations, or prefix reductions, of their elements.
+ *
+ * <p>Scan operations are stateful.  When evaluated in parallel, the
+ * upstream elements are collected into an array, over which the prefix
+ * reduction is then computed in parallel by
+ * {@link Arrays#parallelPrefix(Object[], BinaryOperator)}.
+ *
+ * @since 1.8
+ */
+final class ScanOps {
+
+    private ScanOps() { }
+
+    /** Operation flags of a scan operation */
+    private static final int SCAN_OP_FLAGS = StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT;
+
+    /**
+     * Appends a "scan" operation to the provided stream.
+     *
+     * @param <T> the type of both input and output elements
+     * @param upstream a reference stream with element type T
+     * @param identity the identity value for the accumulating function
+     * @param accumulator an associative function combining the running
+     *        accumulation with an element
+     */
+    static <T> Stream<T> makeRef(AbstractPipeline<?, T, ?> upstream,
+                                 T identity, BinaryOperator<T> accumulator) {
+        Objects.requireNonNull(accumulator);
+        return new ReferencePipeline.StatefulOp<T, T>(upstream, StreamShape.REFERENCE,
+                                                      SCAN_OP_FLAGS) {
+            @Override
+            Sink<T> opWrapSink(int flags, Sink<T> sink) {
+                return new Sink.ChainedReference<T, T>(sink) {
+                    T state;
+
+                    @Override
+                    public void begin(long size) {
+                        state = identity;
+                        downstream.begin(size);
+                    }
+
+                    @Override
+                    public void end() {
+                        state = null;
+                        downstream.end();
+                    }
+
+                    @Override
+                    public void accept(T t) {
+                        downstream.accept(state = accumulator.apply(state, t));
+                    }
+                };
+            }
+
+            @Override
+            <P_IN> Node<T> opEvaluateParallel(PipelineHelper<T> helper,
+                                              Spliterator<P_IN> spliterator,
+                                              IntFunction<T[]> generator) {
+                T[] elements = helper.evaluate(spliterator, true, generator).asArray(generator);
+                if (elements.length > 0) {
+                    elements[0] = accumulator.apply(identity, elements[0]);
+                    Arrays.parallelPrefix(elements, accumulator);
+                }
+                return Nodes.node(elements);
+            }
+        };
+    }
+
+    /**
+     * Appends a "scan" operation to the provided stream.
+     *
+     * @param upstream an int stream
+     * @param identity the identity value for the accumulating function
+     * @param accumulator an associative function combining the running
+     *        accumulation with an element
+     */
+    static IntStream makeInt(AbstractPipeline<?, Integer, ?> upstream,
+                             int identity, IntBinaryOperator accumulator) {
+        Objects.requireNonNull(accumulator);
+        return new IntPipeline.StatefulOp<Integer>(upstream, StreamShape.INT_VALUE,
+                                                   SCAN_OP_FLAGS) {
+            @Override
+            Sink<Integer> opWrapSink(int flags, Sink<Integer> sink) {
+                return new Sink.ChainedInt<Integer>(sink) {
+                    int state;
+
+                    @Override
+                    public void begin(long size) {
+                        state = identity;
+                        downstream.begin(size);
+                    }
+
+                    @Override
+                    public void accept(int t) {
+                        downstream.accept(state = accumulator.applyAsInt(state, t));
+                    }
+                };
+            }
+
+            @Override
+            <P_IN> Node<Integer> opEvaluateParallel(PipelineHelper<Integer> helper,
+                                                    Spliterator<P_IN> spliterator,
+                                                    IntFunction<Integer[]> generator) {
+                int[] elements = ((Node.OfInt) helper.evaluate(spliterator, true, generator))
+                        .asPrimitiveArray();
+                if (elements.length > 0) {
+                    elements[0] = accumulator.applyAsInt(identity, elements[0]);
+                    Arrays.parallelPrefix(elements, accumulator);
+                }
+                return Nodes.node(elements);
+            }
+        };
+    }
+
+    /**
+     * Appends a "scan" operation to the provided stream.
+     *
+     * @param upstream a long stream
+     * @param identity the identity value for the accumulating function
+     * @param accumulator an associative function combining the running
+     *        accumulation with an element
+     */
+    static LongStream makeLong(AbstractPipeline<?, Long, ?> upstream,
+                               long identity, LongBinaryOperator accumulator) {
+        Objects.requireNonNull(accumulator);
+        return new LongPipeline.StatefulOp<Long>(upstream, StreamShape.LONG_VALUE,
+                                                 SCAN_OP_FLAGS) {
+            @Override
+            Sink<Long> opWrapSink(int flags, Sink<Long> sink) {
+                return new Sink.ChainedLong<Long>(sink) {
+                    long state;
+
+                    @Override
+                    public void begin(long size) {
+                        state = identity;
+                        downstream.begin(size);
+                    }
+
+                    @Override
+                    public void accept(long t) {
+                        downstream.accept(state = accumulator.applyAsLong(state, t));
+                    }
+                };
+            }
+
+            @Override
+            <P_IN> Node<Long> opEvaluateParallel(PipelineHelper<Long> helper,
+                                                 Spliterator<P_IN> spliterator,
+                                                 IntFunction<Long[]> generator) {
+                long[] elements = ((Node.OfLong) helper.evaluate(spliterator, true, generator))
+                        .asPrimitiveArray();
+                if (elements.length > 0) {
+                    elements[0] = accumulator.applyAsLong(identity, elements[0]);
+                    Arrays.parallelPrefix(elements, accumulator);
+                }
+                return Nodes.node(elements);
+            }
+        };
+    }
+
+    /**
+     * Returns a stream of the running accumulations of the elements of the
+     * given stream, taken from its spliterator, for implementations of
+     * {@code Stream} other than {@code ReferencePipeline}.  The returned
+     * stream is parallel if the given stream is, but its spliterator does
+     * not split, and closing it closes the given stream.
+     *
+     * @param <T> the type of both input and output elements
+     * @param upstream a reference stream with element type T
+     * @param identity the identity value for the accumulating function
+     * @param accumulator an associative function combining the running
+     *        accumulation with an element
+     */
+    static <T> Stream<T> wrapRef(Stream<T> upstream, T identity, BinaryOperator<T> accumulator) {
+        Objects.requireNonNull(accumulator);
+        return StreamSupport.stream(new ScanSpliterator.OfRef<>(upstream.spliterator(), identity, accumulator),
+                                    upstream.isParallel())
+                .onClose(upstream::close);
+    }
+
+    /**
+     * Returns a stream of the running accumulations of the elements of the
+     * given int stream, taken from its spliterator, like
+     * {@link #wrapRef(Stream, Object, BinaryOperator)}.
+     *
+     * @param upstream an int stream
+     * @param identity the identity value for the accumulating function
+     * @param accumulator an associative function combining the running
+     *        accumulation with an element
+     */
+    static IntStream wrapInt(IntStream upstream, int identity, IntBinaryOperator accumulator) {
+        Objects.requireNonNull(accumulator);
+        return StreamSupport.intStream(new ScanSpliterator.OfInt(upstream.spliterator(), identity, accumulator),
+                                       upstream.isParallel())
+                .onClose(upstream::close);
+    }
+
+    /**
+     * Returns a stream of the running accumulations of the elements of the
+     * given long stream, taken from its spliterator, like
+     * {@link #wrapRef(Stream, Object, BinaryOperator)}.
+     *
+     * @param upstream a long stream
+     * @param identity the identity value for the accumulating function
+     * @param accumulator an associative function combining the running
+     *        accumulation with an element
+     */
+    static LongStream wrapLong(LongStream upstream, long identity, LongBinaryOperator accumulator) {
+        Objects.requireNonNull(accumulator);
+        return StreamSupport.longStream(new ScanSpliterator.OfLong(upstream.spliterator(), identity, accumulator),
+                                        upstream.isParallel())
+                .onClose(upstream::close);
+    }
+
+    /**
+     * A spliterator of the running accumulations of the elements of a
+     * source spliterator.  It does not split.
+     *
+     * @param <T> the type of elements of the source
+     * @param <T_SPLITR> the type of the source spliterator
+     */
+    abstract static class ScanSpliterator<T, T_SPLITR extends Spliterator<T>> {
+        final T_SPLITR source;
+
+        ScanSpliterator(T_SPLITR source) {
+            this.source = source;
+        }
+
+        public T_SPLITR trySplit() {
+            return null;
+        }
+
+        public long estimateSize() {
+            return source.estimateSize();
+        }
+
+        public int characteristics() {
+            return source.characteristics() & (Spliterator.ORDERED | Spliterator.SIZED);
+        }
+
+        static final class OfRef<T> extends ScanSpliterator<T, Spliterator<T>>
+                implements Spliterator<T>, Consumer<T> {
+            final BinaryOperator<T> accumulator;
+            T state;
+
+            OfRef(Spliterator<T> source, T identity, BinaryOperator<T> accumulator) {
+                super(source);
+                this.accumulator = accumulator;
+                this.state = identity;
+            }
+
+            @Override
+            public void accept(T t) {
+                state = accumulator.apply(state, t);
+            }
+
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                Objects.requireNonNull(action);
+                if (!source.tryAdvance(this))
+                    return false;
+                action.accept(state);
+                return true;
+            }
+        }
+
+        static final class OfInt extends ScanSpliterator<Integer, Spliterator.OfInt>
+                implements Spliterator.OfInt, IntConsumer {
+            final IntBinaryOperator accumulator;
+            int state;
+
+            OfInt(Spliterator.OfInt source, int identity, IntBinaryOperator accumulator) {
+                super(source);
+                this.accumulator = accumulator;
+                this.state = identity;
+            }
+
+            @Override
+            public void accept(int t) {
+                state = accumulator.applyAsInt(state, t);
+            }
+
+            @Override
+            public boolean tryAdvance(IntConsumer action) {
+                Objects.requireNonNull(action);
+                if (!source.tryAdvance(this))
+                    return false;
+                action.accept(state);
+                return true;
+            }
+        }
+
+        static final class OfLong extends ScanSpliterator<Long, Spliterator.OfLong>
+                implements Spliterator.OfLong, LongConsumer {
+            final LongBinaryOperator accumulator;
+            long state;
+
+            OfLong(Spliterator.OfLong source, long identity, LongBinaryOperator accumulator) {
+                super(source);
+                this.accumulator = accumulator;
+                this.state = identity;
+            }
+
+            @Override
+            public void accept(long t) {
+                state = accumulator.applyAsLong(state, t);
+            }
+
+            @Override
+            public boolean tryAdvance(LongConsumer action) {
+                Objects.requireNonNull(action);
+                if (!source.tryAdvance(this))
+                    return false;
+                action.accept(state);
+                return true;
+            }
+        }
+    }
+}
@@ -63,6 +63,73 @@ final class SortedOps {
         return new OfRef<>(upstream, comparator);
     }
 
+    /**
+     * Bounds the provided stream, if it is a "sorted" operation on a
+     * reference stream, to its {@code maxSize} least elements.  This is
+     * called when a {@code limit(maxSize)} operation has been appended
+     * directly to the stream, so that the sort need only retain the
+     * elements that can pass the limit, rather than buffer all of them.
+     *
+     * @param upstream the stream to which the limit has been appended
+     * @param maxSize the number of elements the limit passes on
+     */
+    static void limitRef(AbstractPipeline<?, ?, ?> upstream, long maxSize) {
+        if (upstream instanceof OfRef && maxSize <= MAX_TOP_K)
+            ((OfRef<?>) upstream).limit = (int) maxSize;
+    }
+
+    /**
+     * Bounds the provided stream, if it is a "sorted" operation on an int
+     * stream, to its {@code maxSize} least elements.
+     *
+     * @param upstream the stream to which the limit has been appended
+     * @param maxSize the number of elements the limit passes on
+     * @see #limitRef
+     */
+    static void limitInt(AbstractPipeline<?, ?, ?> upstream, long maxSize) {
+        if (upstream instanceof OfInt && maxSize <= MAX_TOP_K)
+            ((OfInt) upstream).limit = (int) maxSize;
+    }
+
+    /**
+     * Bounds the provided stream, if it is a "sorted" operation on a long
+     * stream, to its {@code maxSize} least elements.
+     *
+     * @param upstream the stream to which the limit has been appended
+     * @param maxSize the number of elements the limit passes on
+     * @see #limitRef
+     */
+    static void limitLong(AbstractPipeline<?, ?, ?> upstream, long maxSize) {
+        if (upstream instanceof OfLong && maxSize <= MAX_TOP_K)
+            ((OfLong) upstream).limit = (int) maxSize;
+    }
+
+    /**
+     * Bounds the provided stream, if it is a "sorted" operation on a double
+     * stream, to its {@code maxSize} least elements.
+     *
+     * @param upstream the stream to which the limit has been appended
+     * @param maxSize the number of elements the limit passes on
+     * @see #limitRef
+     */
+    static void limitDouble(AbstractPipeline<?, ?, ?> upstream, long maxSize) {
+        if (upstream instanceof OfDouble && maxSize <= MAX_TOP_K)
+            ((OfDouble) upstream).limit = (int) maxSize;
+    }
+
+    /**
+     * The largest limit for which a bounded sort is used; beyond it the
+     * buffer of a bounded sort would be too large to improve on a full sort.
+     */
+    private static final int MAX_TOP_K = 1 << 24;
+
+    /**
+     * The minimum number of elements a bounded sort buffers in excess of
+     * its limit before sorting them, so that small limits are not sorted
+     * for every few elements.
+     */
+    private static final int MIN_TOP_K_SLACK = 256;
+
     /**
      * Appends a "sorted" operation to the provided stream.
      *
@@ -103,6 +170,12 @@ final class SortedOps {
         private final boolean isNaturalSort;
         private final Comparator<? super T> comparator;
 
+        /**
+         * The number of least elements to retain, if this operation is
+         * directly followed by a limit, otherwise -1
+         */
+        int limit = -1;
+
         /**
          * Sort using natural order of {@literal <T>} which must be
          * {@code Comparable}.
@@ -137,6 +210,8 @@ final class SortedOps {
             // also naturally sorted then this is a no-op
             if (StreamOpFlag.SORTED.isKnown(flags) && isNaturalSort)
                 return sink;
+            else if (limit >= 0)
+                return new TopKRefSortingSink<>(sink, comparator, limit);
             else if (StreamOpFlag.SIZED.isKnown(flags))
                 return new SizedRefSortingSink<>(sink, comparator);
             else
@@ -152,6 +227,15 @@ final class SortedOps {
             if (StreamOpFlag.SORTED.isKnown(helper.getStreamAndOpFlags()) && isNaturalSort) {
                 return helper.evaluate(spliterator, false, generator);
             }
+            else if (limit >= 0) {
+                // Retain the least elements of each leaf, and combine them
+                // in encounter order so that the sort remains stable
+                TopKBuffer<T> top = ReduceOps.<T, TopKBuffer<T>>makeRef(
+                        () -> new TopKBuffer<>(comparator, limit, -1),
+                        TopKBuffer::add,
+                        TopKBuffer::addAll).evaluateParallel(helper, spliterator);
+                return Nodes.node(top.toArray(generator));
+            }
             else {
                 // @@@ Weak two-pass parallel implementation; parallel collect, parallel sort
                 T[] flattenedData = helper.evaluate(spliterator, true, generator).asArray(generator);
@@ -165,6 +249,12 @@ final class SortedOps {
      * Specialized subtype for sorting int streams.
      */
     private static final class OfInt extends IntPipeline.StatefulOp<Integer> {
+        /**
+         * The number of least elements to retain, if this operation is
+         * directly followed by a limit, otherwise -1
+         */
+        int limit = -1;
+
         OfInt(AbstractPipeline<?, Integer, ?> upstream) {
             super(upstream, StreamShape.INT_VALUE,
                   StreamOpFlag.IS_ORDERED | StreamOpFlag.IS_SORTED);
@@ -176,6 +266,8 @@ final class SortedOps {
 
             if (StreamOpFlag.SORTED.isKnown(flags))
                 return sink;
+            else if (limit >= 0)
+                return new TopKIntSortingSink(sink, limit);
             else if (StreamOpFlag.SIZED.isKnown(flags))
                 return new SizedIntSortingSink(sink);
             else
@@ -189,6 +281,13 @@ final class SortedOps {
             if (StreamOpFlag.SORTED.isKnown(helper.getStreamAndOpFlags())) {
                 return helper.evaluate(spliterator, false, generator);
             }
+            else if (limit >= 0) {
+                TopKIntBuffer top = ReduceOps.<TopKIntBuffer>makeInt(
+                        () -> new TopKIntBuffer(limit, -1),
+                        TopKIntBuffer::add,
+                        (a, b) -> { a.addAll(b); return a; }).evaluateParallel(helper, spliterator);
+                return Nodes.node(top.toArray());
+            }
             else {
                 Node.OfInt n = (Node.OfInt) helper.evaluate(spliterator, true, generator);
 
@@ -204,6 +303,12 @@ final class SortedOps {
      * Specialized subtype for sorting long streams.
      */
     private static final class OfLong extends LongPipeline.StatefulOp<Long> {
+        /**
+         * The number of least elements to retain, if this operation is
+         * directly followed by a limit, otherwise -1
+         */
+        int limit = -1;
+
         OfLong(AbstractPipeline<?, Long, ?> upstream) {
             super(upstream, StreamShape.LONG_VALUE,
                   StreamOpFlag.IS_ORDERED | StreamOpFlag.IS_SORTED);
@@ -215,6 +320,8 @@ final class SortedOps {
 
             if (StreamOpFlag.SORTED.isKnown(flags))
                 return sink;
+            else if (limit >= 0)
+                return new TopKLongSortingSink(sink, limit);
             else if (StreamOpFlag.SIZED.isKnown(flags))
                 return new SizedLongSortingSink(sink);
             else
@@ -228,6 +335,13 @@ final class SortedOps {
             if (StreamOpFlag.SORTED.isKnown(helper.getStreamAndOpFlags())) {
                 return helper.evaluate(spliterator, false, generator);
             }
+            else if (limit >= 0) {
+                TopKLongBuffer top = ReduceOps.<TopKLongBuffer>makeLong(
+                        () -> new TopKLongBuffer(limit, -1),
+                        TopKLongBuffer::add,
+                        (a, b) -> { a.addAll(b); return a; }).evaluateParallel(helper, spliterator);
+                return Nodes.node(top.toArray());
+            }
             else {
                 Node.OfLong n = (Node.OfLong) helper.evaluate(spliterator, true, generator);
 
@@ -243,6 +357,12 @@ final class SortedOps {
      * Specialized subtype for sorting double streams.
      */
     private static final class OfDouble extends DoublePipeline.StatefulOp<Double> {
+        /**
+         * The number of least elements to retain, if this operation is
+         * directly followed by a limit, otherwise -1
+         */
+        int limit = -1;
+
         OfDouble(AbstractPipeline<?, Double, ?> upstream) {
             super(upstream, StreamShape.DOUBLE_VALUE,
                   StreamOpFlag.IS_ORDERED | StreamOpFlag.IS_SORTED);
@@ -254,6 +374,8 @@ final class SortedOps {
 
             if (StreamOpFlag.SORTED.isKnown(flags))
                 return sink;
+            else if (limit >= 0)
+                return new TopKDoubleSortingSink(sink, limit);
             else if (StreamOpFlag.SIZED.isKnown(flags))
                 return new SizedDoubleSortingSink(sink);
             else
@@ -267,6 +389,13 @@ final class SortedOps {
             if (StreamOpFlag.SORTED.isKnown(helper.getStreamAndOpFlags())) {
                 return helper.evaluate(spliterator, false, generator);
             }
+            else if (limit >= 0) {
+                TopKDoubleBuffer top = ReduceOps.<TopKDoubleBuffer>makeDouble(
+                        () -> new TopKDoubleBuffer(limit, -1),
+                        TopKDoubleBuffer::add,
+                        (a, b) -> { a.addAll(b); return a; }).evaluateParallel(helper, spliterator);
+                return Nodes.node(top.toArray());
+            }
             else {
                 Node.OfDouble n = (Node.OfDouble) helper.evaluate(spliterator, true, generator);
 
@@ -324,6 +453,112 @@ final class SortedOps {
         }
     }
 
+    /**
+     * Buffer retaining the {@code limit} least elements added to it, as
+     * ordered by a comparator and, among equal elements, by the order in
+     * which they were added.  Elements are appended until the buffer is
+     * full, and are then sorted and truncated to {@code limit} elements,
+     * so that adding n elements takes O(n log limit) time and the buffer
+     * never holds more than about twice {@code limit} elements.
+     */
+    private static final class TopKBuffer<T> {
+        private final Comparator<? super T> comparator;
+        private final int limit;
+        private final int capacity;
+        private Object[] array;
+        private int size;
+
+        TopKBuffer(Comparator<? super T> comparator, int limit, long expectedSize) {
+            this.comparator = comparator;
+            this.limit = limit;
+            this.capacity = limit + Math.max(limit, MIN_TOP_K_SLACK);
+            this.array = new Object[(expectedSize >= 0)
+                                    ? (int) Math.min(expectedSize, capacity)
+                                    : Math.min(capacity, MIN_TOP_K_SLACK)];
+        }
+
+        void add(T t) {
+            if (size == array.length) {
+                if (size < capacity)
+                    array = Arrays.copyOf(array, Math.min(capacity, Math.max(size << 1, MIN_TOP_K_SLACK)));
+                else
+                    truncate();
+            }
+            array[size++] = t;
+        }
+
+        void addAll(TopKBuffer<T> other) {
+            for (int i = 0; i < other.size; i++) {
+                @SuppressWarnings("unchecked")
+                T t = (T) other.array[i];
+                add(t);
+            }
+        }
+
+        /**
+         * Sorts the buffered elements and discards all but the first
+         * {@code limit} of them.
+         */
+        @SuppressWarnings("unchecked")
+        void truncate() {
+            Arrays.sort((T[]) array, 0, size, comparator);
+            if (size > limit) {
+                Arrays.fill(array, limit, size, null);
+                size = limit;
+            }
+        }
+
+        T[] toArray(IntFunction<T[]> generator) {
+            truncate();
+            T[] result = generator.apply(size);
+            System.arraycopy(array, 0, result, 0, size);
+            return result;
+        }
+    }
+
+    /**
+     * {@link Sink} for implementing sort on reference streams followed by
+     * a limit, retaining only the elements that can pass the limit.
+     */
+    private static final class TopKRefSortingSink<T> extends AbstractRefSortingSink<T> {
+        private final int limit;
+        private TopKBuffer<T> buffer;
+
+        TopKRefSortingSink(Sink<? super T> sink, Comparator<? super T> comparator, int limit) {
+            super(sink, comparator);
+            this.limit = limit;
+        }
+
+        @Override
+        public void begin(long size) {
+            buffer = new TopKBuffer<>(comparator, limit, size);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void end() {
+            buffer.truncate();
+            Object[] array = buffer.array;
+            int size = buffer.size;
+            downstream.begin(size);
+            if (!cancellationWasRequested) {
+                for (int i = 0; i < size; i++)
+                    downstream.accept((T) array[i]);
+            }
+            else {
+                for (int i = 0; i < size && !downstream.cancellationRequested(); i++)
+                    downstream.accept((T) array[i]);
+            }
+            downstream.end();
+            buffer = null;
+        }
+
+        @Override
+        public void accept(T t) {
+            buffer.add(t);
+        }
+    }
+
     /**
      * {@link Sink} for implementing sort on SIZED reference streams.
      */
@@ -422,6 +657,97 @@ final class SortedOps {
         }
     }
 
+    /**
+     * Buffer retaining the {@code limit} least elements added to it, in
+     * the manner of {@link TopKBuffer}.
+     */
+    private static final class TopKIntBuffer {
+        private final int limit;
+        private final int capacity;
+        private int[] array;
+        private int size;
+
+        TopKIntBuffer(int limit, long expectedSize) {
+            this.limit = limit;
+            this.capacity = limit + Math.max(limit, MIN_TOP_K_SLACK);
+            this.array = new int[(expectedSize >= 0)
+                                 ? (int) Math.min(expectedSize, capacity)
+                                 : Math.min(capacity, MIN_TOP_K_SLACK)];
+        }
+
+        void add(int t) {
+            if (size == array.length) {
+                if (size < capacity)
+                    array = Arrays.copyOf(array, Math.min(capacity, Math.max(size << 1, MIN_TOP_K_SLACK)));
+                else
+                    truncate();
+            }
+            array[size++] = t;
+        }
+
+        void addAll(TopKIntBuffer other) {
+            for (int i = 0; i < other.size; i++)
+                add(other.array[i]);
+        }
+
+        /**
+         * Sorts the buffered elements and discards all but the first
+         * {@code limit} of them.
+         */
+        void truncate() {
+            Arrays.sort(array, 0, size);
+            if (size > limit)
+                size = limit;
+        }
+
+        int[] toArray() {
+            truncate();
+            return (size == array.length) ? array : Arrays.copyOf(array, size);
+        }
+    }
+
+    /**
+     * {@link Sink} for implementing sort on int streams followed by a
+     * limit, retaining only the elements that can pass the limit.
+     */
+    private static final class TopKIntSortingSink extends AbstractIntSortingSink {
+        private final int limit;
+        private TopKIntBuffer buffer;
+
+        TopKIntSortingSink(Sink<? super Integer> sink, int limit) {
+            super(sink);
+            this.limit = limit;
+        }
+
+        @Override
+        public void begin(long size) {
+            buffer = new TopKIntBuffer(limit, size);
+        }
+
+        @Override
+        public void end() {
+            buffer.truncate();
+            int[] array = buffer.array;
+            int size = buffer.size;
+            downstream.begin(size);
+            if (!cancellationWasRequested) {
+                for (int i = 0; i < size; i++)
+                    downstream.accept(array[i]);
+            }
+            else {
+                for (int i = 0; i < size && !downstream.cancellationRequested(); i++)
+                    downstream.accept(array[i]);
+            }
+            downstream.end();
+            buffer = null;
+        }
+
+        @Override
+        public void accept(int t) {
+            buffer.add(t);
+        }
+    }
+
     /**
      * {@link Sink} for implementing sort on SIZED int streams.
      */
@@ -520,6 +846,97 @@ final class SortedOps {
         }
     }
 
+    /**
+     * Buffer retaining the {@code limit} least elements added to it, in
+     * the manner of {@link TopKBuffer}.
+     */
+    private static final class TopKLongBuffer {
+        private final int limit;
+        private final int capacity;
+        private long[] array;
+        private int size;
+
+        TopKLongBuffer(int limit, long expectedSize) {
+            this.limit = limit;
+            this.capacity = limit + Math.max(limit, MIN_TOP_K_SLACK);
+            this.array = new long[(expectedSize >= 0)
+                                 ? (int) Math.min(expectedSize, capacity)
+                                 : Math.min(capacity, MIN_TOP_K_SLACK)];
+        }
+
+        void add(long t) {
+            if (size == array.length) {
+                if (size < capacity)
+                    array = Arrays.copyOf(array, Math.min(capacity, Math.max(size << 1, MIN_TOP_K_SLACK)));
+                else
+                    truncate();
+            }
+            array[size++] = t;
+        }
+
+        void addAll(TopKLongBuffer other) {
+            for (int i = 0; i < other.size; i++)
+                add(other.array[i]);
+        }
+
+        /**
+         * Sorts the buffered elements and discards all but the first
+         * {@code limit} of them.
+         */
+        void truncate() {
+            Arrays.sort(array, 0, size);
+            if (size > limit)
+                size = limit;
+        }
+
+        long[] toArray() {
+            truncate();
+            return (size == array.length) ? array : Arrays.copyOf(array, size);
+        }
+    }
+
+    /**
+     * {@link Sink} for implementing sort on long streams followed by a
+     * limit, retaining only the elements that can pass the limit.
+     */
+    private static final class TopKLongSortingSink extends AbstractLongSortingSink {
+        private final int limit;
+        private TopKLongBuffer buffer;
+
+        TopKLongSortingSink(Sink<? super Long> sink, int limit) {
+            super(sink);
+            this.limit = limit;
+        }
+
+        @Override
+        public void begin(long size) {
+            buffer = new TopKLongBuffer(limit, size);
+        }
+
+        @Override
+        public void end() {
+            buffer.truncate();
+            long[] array = buffer.array;
+            int size = buffer.size;
+            downstream.begin(size);
+            if (!cancellationWasRequested) {
+                for (int i = 0; i < size; i++)
+                    downstream.accept(array[i]);
+            }
+            else {
+                for (int i = 0; i < size && !downstream.cancellationRequested(); i++)
+                    downstream.accept(array[i]);
+            }
+            downstream.end();
+            buffer = null;
+        }
+
+        @Override
+        public void accept(long t) {
+            buffer.add(t);
+        }
+    }
+
     /**
      * {@link Sink} for implementing sort on SIZED long streams.
      */
@@ -618,6 +1035,97 @@ final class SortedOps {
         }
     }
 
+    /**
+     * Buffer retaining the {@code limit} least elements added to it, in
+     * the manner of {@link TopKBuffer}.
+     */
+    private static final class TopKDoubleBuffer {
+        private final int limit;
+        private final int capacity;
+        private double[] array;
+        private int size;
+
+        TopKDoubleBuffer(int limit, long expectedSize) {
+            this.limit = limit;
+            this.capacity = limit + Math.max(limit, MIN_TOP_K_SLACK);
+            this.array = new double[(expectedSize >= 0)
+                                 ? (int) Math.min(expectedSize, capacity)
+                                 : Math.min(capacity, MIN_TOP_K_SLACK)];
+        }
+
+        void add(double t) {
+            if (size == array.length) {
+                if (size < capacity)
+                    array = Arrays.copyOf(array, Math.min(capacity, Math.max(size << 1, MIN_TOP_K_SLACK)));
+                else
+                    truncate();
+            }
+            array[size++] = t;
+        }
+
+        void addAll(TopKDoubleBuffer other) {
+            for (int i = 0; i < other.size; i++)
+                add(other.array[i]);
+        }
+
+        /**
+         * Sorts the buffered elements and discards all but the first
+         * {@code limit} of them.
+         */
+        void truncate() {
+            Arrays.sort(array, 0, size);
+            if (size > limit)
+                size = limit;
+        }
+
+        double[] toArray() {
+            truncate();
+            return (size == array.length) ? array : Arrays.copyOf(array, size);
+        }
+    }
+
+    /**
+     * {@link Sink} for implementing sort on double streams followed by a
+     * limit, retaining only the elements that can pass the limit.
+     */
+    private static final class TopKDoubleSortingSink extends AbstractDoubleSortingSink {
+        private final int limit;
+        private TopKDoubleBuffer buffer;
+
+        TopKDoubleSortingSink(Sink<? super Double> sink, int limit) {
+            super(sink);
+            this.limit = limit;
+        }
+
+        @Override
+        public void begin(long size) {
+            buffer = new TopKDoubleBuffer(limit, size);
+        }
+
+        @Override
+        public void end() {
+            buffer.truncate();
+            double[] array = buffer.array;
+            int size = buffer.size;
+            downstream.begin(size);
+            if (!cancellationWasRequested) {
+                for (int i = 0; i < size; i++)
+                    downstream.accept(array[i]);
+            }
+            else {
+                for (int i = 0; i < size && !downstream.cancellationRequested(); i++)
+                    downstream.accept(array[i]);
+            }
+            downstream.end();
+            buffer = null;
+        }
+
+        @Override
+        public void accept(double t) {
+            buffer.add(t);
+        }
+    }
+
     /**
      * {@link Sink} for implementing sort on SIZED double streams.
      */
@@ -0,0 +1,584 @@
+/*
+ * Copyright (c) 2012, 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.LongConsumer;
+
+/**
+ * Factory methods for transforming streams into streams of windows, lists
+ * or arrays of a fixed number of consecutive elements.
+ *
+ * <p>A window operation is described by the number of elements of each
+ * window, its <em>size</em>, and the distance between the first elements
+ * of consecutive windows, its <em>step</em>.  Windows overlap if the step
+ * is less than the size, and elements between windows are dropped if the
+ * step is greater.  Only full windows are produced, unless the window
+ * operation is <em>partial</em>, in which case the step must equal the size
+ * and the remaining elements, if any, form a final, shorter window.
+ *
+ * <p>Window operations are stateful.  When evaluated in parallel, the
+ * upstream elements are collected into an array, from which the windows are
+ * then copied in parallel.
+ *
+ * @since 1.8
+ */
+final class WindowOps {
+
+    private WindowOps() { }
+
+    /** Operation flags of a window operation */
+    private static final int WINDOW_OP_FLAGS =
+            StreamOpFlag.NOT_SIZED | StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT;
+
+    /**
+     * The initial capacity of the buffer of a sequential window operation,
+     * which is grown as needed up to the window size
+     */
+    private static final int INITIAL_BUFFER_SIZE = 16;
+
+    @SuppressWarnings("unchecked")
+    private static <T> IntFunction<T[]> castingArray() {
+        return size -> (T[]) new Object[size];
+    }
+
+    private static void checkWindow(int size, int step, boolean partial) {
+        if (size <= 0)
+            throw new IllegalArgumentException(Integer.toString(size));
+        if (step <= 0)
+            throw new IllegalArgumentException(Integer.toString(step));
+        assert !partial || step == size;
+    }
+
+    /**
+     * Returns the number of windows formed from the given number of
+     * elements.
+     */
+    private static int windowCount(int count, int size, int step, boolean partial) {
+        if (partial)
+            return (int) (((long) count + step - 1) / step);
+        else
+            return (count < size) ? 0 : (count - size) / step + 1;
+    }
+
+    /**
+     * Shifts the elements of a full window buffer after the first
+     * {@code step} elements to the front of the buffer, returning their
+     * number.
+     *
+     * @param buffer an array of {@code size} elements, the length of a
+     *        full window buffer
+     */
+    private static int slide(Object buffer, int size, int step) {
+        if (step >= size)
+            return 0;
+        System.arraycopy(buffer, step, buffer, 0, size - step);
+        return size - step;
+    }
+
+    /**
+     * Appends a "window" operation to the provided stream.
+     *
+     * @param <T> the type of elements of the upstream
+     * @param upstream a reference stream with element type T
+     * @param size the number of elements of each window
+     * @param step the distance between the first elements of consecutive
+     *        windows
+     * @param partial whether the remaining elements form a final window
+     * @throws IllegalArgumentException if {@code size} or {@code step} is
+     *         not positive
+     */
+    static <T> Stream<List<T>> makeRef(AbstractPipeline<?, T, ?> upstream,
+                                       int size, int step, boolean partial) {
+        checkWindow(size, step, partial);
+        return new ReferencePipeline.StatefulOp<T, List<T>>(upstream, StreamShape.REFERENCE,
+                                                            WINDOW_OP_FLAGS) {
+            @Override
+            Sink<T> opWrapSink(int flags, Sink<List<T>> sink) {
+                return new Sink.ChainedReference<T, List<T>>(sink) {
+                    Object[] buffer;
+                    int count;
+                    int skip;
+
+                    @Override
+                    public void begin(long sourceSize) {
+                        buffer = new Object[Math.min(size, INITIAL_BUFFER_SIZE)];
+                        count = skip = 0;
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void end() {
+                        if (partial && count > 0 && !downstream.cancellationRequested())
+                            downstream.accept(window(buffer, 0, count));
+                        buffer = null;
+                        downstream.end();
+                    }
+
+                    @Override
+                    public void accept(T t) {
+                        if (skip > 0) {
+                            skip--;
+                            return;
+                        }
+                        if (count == buffer.length)
+                            buffer = Arrays.copyOf(buffer, (int) Math.min(size, count * 2L));
+                        buffer[count++] = t;
+                        if (count == size) {
+                            downstream.accept(window(buffer, 0, size));
+                            count = slide(buffer, size, step);
+                            skip = Math.max(step - size, 0);
+                        }
+                    }
+                };
+            }
+
+            @Override
+            @SuppressWarnings({"rawtypes", "unchecked"})
+            <P_IN> Node<List<T>> opEvaluateParallel(PipelineHelper<List<T>> helper,
+                                                    Spliterator<P_IN> spliterator,
+                                                    IntFunction<List<T>[]> generator) {
+                PipelineHelper<T> upstreamHelper = (PipelineHelper<T>) (PipelineHelper) helper;
+                Object[] elements = upstreamHelper.evaluate(spliterator, true, castingArray())
+                        .asArray(castingArray());
+                return windows(generator, windowCount(elements.length, size, step, partial), i -> {
+                    int from = i * step;
+                    return window(elements, from, from + Math.min(size, elements.length - from));
+                });
+            }
+        };
+    }
+
+    /**
+     * Returns a node of the given number of windows, computed in parallel
+     * by the given function of their index.
+     */
+    private static <W> Node<W> windows(IntFunction<W[]> generator, int count, IntFunction<W> window) {
+        W[] windows = generator.apply(count);
+        Arrays.parallelSetAll(windows, window);
+        return Nodes.node(windows);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> window(Object[] elements, int from, int to) {
+        return Arrays.asList((T[]) Arrays.copyOfRange(elements, from, to));
+    }
+
+    /**
+     * Appends a "window" operation to the provided stream.
+     *
+     * @param upstream an int stream
+     * @param size the number of elements of each window
+     * @param step the distance between the first elements of consecutive
+     *        windows
+     * @param partial whether the remaining elements form a final window
+     * @throws IllegalArgumentException if {@code size} or {@code step} is
+     *         not positive
+     */
+    static Stream<int[]> makeInt(AbstractPipeline<?, Integer, ?> upstream,
+                                 int size, int step, boolean partial) {
+        checkWindow(size, step, partial);
+        return new ReferencePipeline.StatefulOp<Integer, int[]>(upstream, StreamShape.INT_VALUE,
+                                                                WINDOW_OP_FLAGS) {
+            @Override
+            Sink<Integer> opWrapSink(int flags, Sink<int[]> sink) {
+                return new Sink.ChainedInt<int[]>(sink) {
+                    int[] buffer;
+                    int count;
+                    int skip;
+
+                    @Override
+                    public void begin(long sourceSize) {
+                        buffer = new int[Math.min(size, INITIAL_BUFFER_SIZE)];
+                        count = skip = 0;
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void end() {
+                        if (partial && count > 0 && !downstream.cancellationRequested())
+                            downstream.accept(Arrays.copyOf(buffer, count));
+                        buffer = null;
+                        downstream.end();
+                    }
+
+                    @Override
+                    public void accept(int t) {
+                        if (skip > 0) {
+                            skip--;
+                            return;
+                        }
+                        if (count == buffer.length)
+                            buffer = Arrays.copyOf(buffer, (int) Math.min(size, count * 2L));
+                        buffer[count++] = t;
+                        if (count == size) {
+                            downstream.accept(buffer.clone());
+                            count = slide(buffer, size, step);
+                            skip = Math.max(step - size, 0);
+                        }
+                    }
+                };
+            }
+
+            @Override
+            @SuppressWarnings({"rawtypes", "unchecked"})
+            <P_IN> Node<int[]> opEvaluateParallel(PipelineHelper<int[]> helper,
+                                                  Spliterator<P_IN> spliterator,
+                                                  IntFunction<int[][]> generator) {
+                PipelineHelper<Integer> upstreamHelper = (PipelineHelper<Integer>) (PipelineHelper) helper;
+                int[] elements = ((Node.OfInt) upstreamHelper.evaluate(spliterator, true, Integer[]::new))
+                        .asPrimitiveArray();
+                return windows(generator, windowCount(elements.length, size, step, partial), i -> {
+                    int from = i * step;
+                    return Arrays.copyOfRange(elements, from, from + Math.min(size, elements.length - from));
+                });
+            }
+        };
+    }
+
+    /**
+     * Appends a "window" operation to the provided stream.
+     *
+     * @param upstream a long stream
+     * @param size the number of elements of each window
+     * @param step the distance between the first elements of consecutive
+     *        windows
+     * @param partial whether the remaining elements form a final window
+     * @throws IllegalArgumentException if {@code size} or {@code step} is
+     *         not positive
+     */
+    static Stream<long[]> makeLong(AbstractPipeline<?, Long, ?> upstream,
+                                   int size, int step, boolean partial) {
+        checkWindow(size, step, partial);
+        return new ReferencePipeline.StatefulOp<Long, long[]>(upstream, StreamShape.LONG_VALUE,
+                                                              WINDOW_OP_FLAGS) {
+            @Override
+            Sink<Long> opWrapSink(int flags, Sink<long[]> sink) {
+                return new Sink.ChainedLong<long[]>(sink) {
+                    long[] buffer;
+                    int count;
+                    int skip;
+
+                    @Override
+                    public void begin(long sourceSize) {
+                        buffer = new long[Math.min(size, INITIAL_BUFFER_SIZE)];
+                        count = skip = 0;
+                        downstream.begin(-1);
+                    }
+
+                    @Override
+                    public void end() {
+                        if (partial && count > 0 && !downstream.cancellationRequested())
+                            downstream.accept(Arrays.copyOf(buffer, count));
+                        buffer = null;
+                        downstream.end();
+                    }
+
+                    @Override
+                    public void accept(long t) {
+                        if (skip > 0) {
+                            skip--;
+                            return;
+                        }
+                        if (count == buffer.length)
+                            buffer = Arrays.copyOf(buffer, (int) Math.min(size, count * 2L));
+                        buffer[count++] = t;
+                        if (count == size) {
+                            downstream.accept(buffer.clone());
+                            count = slide(buffer, size, step);
+                            skip = Math.max(step - size, 0);
+                        }
+                    }
+                };
+            }
+
+            @Override
+            @SuppressWarnings({"rawtypes", "unchecked"})
+            <P_IN> Node<long[]> opEvaluateParallel(PipelineHelper<long[]> helper,
+                                                   Spliterator<P_IN> spliterator,
+                                                   IntFunction<long[][]> generator) {
+                PipelineHelper<Long> upstreamHelper = (PipelineHelper<Long>) (PipelineHelper) helper;
+                long[] elements = ((Node.OfLong) upstreamHelper.evaluate(spliterator, true, Long[]::new))
+                        .asPrimitiveArray();
+                return windows(generator, windowCount(elements.length, size, step, partial), i -> {
+                    int from = i * step;
+                    return Arrays.copyOfRange(elements, from, from + Math.min(size, elements.length - from));
+                });
+            }
+        };
+    }
+
+    /**
+     * Returns a stream of the windows of the given stream, taken from its
+     * spliterator, for implementations of {@code Stream} other than
+     * {@code ReferencePipeline}.  The returned stream is parallel if the
+     * given stream is, but its spliterator does not split, and closing it
+     * closes the given stream.
+     *
+     * @param <T> the type of elements of the upstream
+     * @param upstream a reference stream with element type T
+     * @param size the number of elements of each window
+     * @param step the distance between the first elements of consecutive
+     *        windows
+     * @param partial whether the remaining elements form a final window
+     * @throws IllegalArgumentException if {@code size} or {@code step} is
+     *         not positive
+     */
+    static <T> Stream<List<T>> wrapRef(Stream<T> upstream, int size, int step, boolean partial) {
+        checkWindow(size, step, partial);
+        return StreamSupport.stream(new WindowSpliterator.OfRef<>(upstream.spliterator(), size, step, partial),
+                                    upstream.isParallel())
+                .onClose(upstream::close);
+    }
+
+    /**
+     * Returns a stream of the windows of the given int stream, taken from
+     * its spliterator, like {@link #wrapRef(Stream, int, int, boolean)}.
+     *
+     * @param upstream an int stream
+     * @param size the number of elements of each window
+     * @param step the distance between the first elements of consecutive
+     *        windows
+     * @param partial whether the remaining elements form a final window
+     * @throws IllegalArgumentException if {@code size} or {@code step} is
+     *         not positive
+     */
+    static Stream<int[]> wrapInt(IntStream upstream, int size, int step, boolean partial) {
+        checkWindow(size, step, partial);
+        return StreamSupport.stream(new WindowSpliterator.OfInt(upstream.spliterator(), size, step, partial),
+                                    upstream.isParallel())
+                .onClose(upstream::close);
+    }
+
+    /**
+     * Returns a stream of the windows of the given long stream, taken from
+     * its spliterator, like {@link #wrapRef(Stream, int, int, boolean)}.
+     *
+     * @param upstream a long stream
+     * @param size the number of elements of each window
+     * @param step the distance between the first elements of consecutive
+     *        windows
+     * @param partial whether the remaining elements form a final window
+     * @throws IllegalArgumentException if {@code size} or {@code step} is
+     *         not positive
+     */
+    static Stream<long[]> wrapLong(LongStream upstream, int size, int step, boolean partial) {
+        checkWindow(size, step, partial);
+        return StreamSupport.stream(new WindowSpliterator.OfLong(upstream.spliterator(), size, step, partial),
+                                    upstream.isParallel())
+                .onClose(upstream::close);
+    }
+
+    /**
+     * A spliterator of the windows of the elements of a source spliterator,
+     * buffering at most one window at a time.  It does not split.
+     *
+     * @param <T> the type of elements of the source
+     * @param <T_SPLITR> the type of the source spliterator
+     * @param <W> the type of the windows
+     */
+    abstract static class WindowSpliterator<T, T_SPLITR extends Spliterator<T>, W>
+            implements Spliterator<W> {
+        final T_SPLITR source;
+        final int size;
+        final int step;
+        final boolean partial;
+        /** The number of elements in the buffer */
+        int count;
+        /** The number of source elements to drop before the next window */
+        int skip;
+
+        WindowSpliterator(T_SPLITR source, int size, int step, boolean partial) {
+            this.source = source;
+            this.size = size;
+            this.step = step;
+            this.partial = partial;
+        }
+
+        /**
+         * Takes the next element of the source, adding it to the buffer
+         * unless it is to be dropped.
+         *
+         * @return {@code false} if the source has no more elements
+         */
+        abstract boolean advanceSource();
+
+        /** Returns the buffer */
+        abstract Object buffer();
+
+        /** Returns a copy of the first {@code n} elements of the buffer */
+        abstract W window(int n);
+
+        @Override
+        public boolean tryAdvance(Consumer<? super W> action) {
+            Objects.requireNonNull(action);
+            while (count < size) {
+                if (!advanceSource()) {
+                    if (!partial || count == 0)
+                        return false;
+                    W w = window(count);
+                    count = 0;
+                    action.accept(w);
+                    return true;
+                }
+            }
+            W w = window(size);
+            count = slide(buffer(), size, step);
+            skip = Math.max(step - size, 0);
+            action.accept(w);
+            return true;
+        }
+
+        @Override
+        public Spliterator<W> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            long n = source.estimateSize();
+            return (n == Long.MAX_VALUE) ? n : n / step + 1;
+        }
+
+        @Override
+        public int characteristics() {
+            return (source.characteristics() & Spliterator.ORDERED) | Spliterator.NONNULL;
+        }
+
+        static final class OfRef<T> extends WindowSpliterator<T, Spliterator<T>, List<T>>
+                implements Consumer<T> {
+            Object[] buffer;
+
+            OfRef(Spliterator<T> source, int size, int step, boolean partial) {
+                super(source, size, step, partial);
+                buffer = new Object[Math.min(size, INITIAL_BUFFER_SIZE)];
+            }
+
+            @Override
+            public void accept(T t) {
+                if (skip > 0) {
+                    skip--;
+                    return;
+                }
+                if (count == buffer.length)
+                    buffer = Arrays.copyOf(buffer, (int) Math.min(size, count * 2L));
+                buffer[count++] = t;
+            }
+
+            @Override
+            boolean advanceSource() {
+                return source.tryAdvance(this);
+            }
+
+            @Override
+            Object buffer() {
+                return buffer;
+            }
+
+            @Override
+            List<T> window(int n) {
+                return WindowOps.window(buffer, 0, n);
+            }
+        }
+
+        static final class OfInt extends WindowSpliterator<Integer, Spliterator.OfInt, int[]>
+                implements IntConsumer {
+            int[] buffer;
+
+            OfInt(Spliterator.OfInt source, int size, int step, boolean partial) {
+                super(source, size, step, partial);
+                buffer = new int[Math.min(size, INITIAL_BUFFER_SIZE)];
+            }
+
+            @Override
+            public void accept(int t) {
+                if (skip > 0) {
+                    skip--;
+                    return;
+                }
+                if (count == buffer.length)
+                    buffer = Arrays.copyOf(buffer, (int) Math.min(size, count * 2L));
+                buffer[count++] = t;
+            }
+
+            @Override
+            boolean advanceSource() {
+                return source.tryAdvance(this);
+            }
+
+            @Override
+            Object buffer() {
+                return buffer;
+            }
+
+            @Override
+            int[] window(int n) {
+                return Arrays.copyOf(buffer, n);
+            }
+        }
+
+        static final class OfLong extends WindowSpliterator<Long, Spliterator.OfLong, long[]>
+                implements LongConsumer {
+            long[] buffer;
+
+            OfLong(Spliterator.OfLong source, int size, int step, boolean partial) {
+                super(source, size, step, partial);
+                buffer = new long[Math.min(size, INITIAL_BUFFER_SIZE)];
+            }
+
+            @Override
+            public void accept(long t) {
+                if (skip > 0) {
+                    skip--;
+                    return;
+                }
+                if (count == buffer.length)
+                    buffer = Arrays.copyOf(buffer, (int) Math.min(size, count * 2L));
+                buffer[count++] = t;
+            }
+
+            @Override
+            boolean advanceSource() {
+                return source.tryAdvance(this);
+            }
+
+            @Override
+            Object buffer() {
+                return buffer;
+            }
+
+            @Override
+            long[] window(int n) {
+                return Arrays.copyOf(buffer, n);
+            }
+        }
+    }
+}